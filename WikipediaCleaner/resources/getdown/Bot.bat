@@ -23,6 +23,20 @@ REM Bot.bat ... UpdateDabWarnings
 REM Or if you want to execute a set of tasks described in a task file, you can use the following syntax:
 REM Bot.bat ... DoTasks <task file>
 REM
+REM ===== METRICS =====
+REM Metrics about the bot activity (API requests, analysis, edits...) can be exported in Prometheus text format.
+REM To write them regularly in a file, you can use the following syntax:
+REM Bot.bat -metrics metrics.prom ...
+REM To expose them on an HTTP endpoint (/metrics), you can use the following syntax:
+REM Bot.bat -metricsport 9400 ...
+REM The endpoint is only reachable from the local computer, unless an address is given with the port:
+REM Bot.bat -metricsport 0.0.0.0:9400 ...
+REM
+REM ===== FLIGHT RECORDER =====
+REM With Java 12 or above, page analysis, algorithms, API requests and edit waits are recorded as events
+REM when a recording of the JDK Flight Recorder is running, for example with the following extra argument for the JVM:
+REM -XX:StartFlightRecording=duration=1h,filename=wpcleaner.jfr
+REM
 REM ===== NOTE =====
 REM If you want to pass extra arguments to the JVM, like increasing the memory available to Java,
 REM you can create an extra.txt file in the same folder with one parameter per line.
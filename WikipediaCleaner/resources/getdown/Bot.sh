@@ -24,6 +24,20 @@
 # Or if you want to execute a set of tasks described in a task file, you can use the following syntax:
 # Bot.sh ... DoTasks <task file>
 #
+# ===== METRICS =====
+# Metrics about the bot activity (API requests, analysis, edits...) can be exported in Prometheus text format.
+# To write them regularly in a file, you can use the following syntax:
+# Bot.sh -metrics metrics.prom ...
+# To expose them on an HTTP endpoint (/metrics), you can use the following syntax:
+# Bot.sh -metricsport 9400 ...
+# The endpoint is only reachable from the local computer, unless an address is given with the port:
+# Bot.sh -metricsport 0.0.0.0:9400 ...
+#
+# ===== FLIGHT RECORDER =====
+# With Java 12 or above, page analysis, algorithms, API requests and edit waits are recorded as events
+# when a recording of the JDK Flight Recorder is running, for example with the following extra argument for the JVM:
+# -XX:StartFlightRecording=duration=1h,filename=wpcleaner.jfr
+#
 # ===== NOTE =====
 # If you want to pass extra arguments to the JVM, like increasing the memory available to Java,
 # you can create an extra.txt file in the same folder with one parameter per line.
@@ -39,6 +39,7 @@ import org.wikipediacleaner.api.data.LinterCategory;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.impl.CommentManager;
+import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.gui.swing.basic.BasicWorkerListener;
 import org.wikipediacleaner.gui.swing.bot.AutomaticCWWorker;
@@ -58,6 +59,8 @@ import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationConstants;
 import org.wikipediacleaner.utils.ConfigurationValueString;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+import org.wikipediacleaner.utils.metrics.PrometheusExporter;
 
 
 /**
@@ -82,6 +85,7 @@ public class Bot implements BasicWorkerListener {
 
     // Various initializations
     ISBNRange.initialize();
+    ApiRequest.setAutomaticProcess(true);
 
     new Bot(args);
   }
@@ -116,6 +120,12 @@ public class Bot implements BasicWorkerListener {
   /** List of additional groups that are used for fixing typography and spelling errors (CW#501) */
   private final Set<String> additionalTypoGroups = new HashSet<>();
 
+  /** Period between two writes of the metrics file (in seconds) */
+  private final static long METRICS_PERIOD = 15;
+
+  /** Export of the metrics */
+  private PrometheusExporter metricsExporter;
+
   /**
    * @param args Command line arguments
    */
@@ -150,6 +160,32 @@ public class Bot implements BasicWorkerListener {
           }
           prefix = args[currentArg + 1].replaceAll("_", " ");
           currentArg += 2;
+        } else if ("-metrics".equals(arg)) {
+          if (args.length <= currentArg + 1) {
+            log.warn("When using parameter '-metrics', you must specify the file for the metrics");
+            return;
+          }
+          getMetricsExporter().startFile(new File(args[currentArg + 1]), METRICS_PERIOD);
+          currentArg += 2;
+        } else if ("-metricsport".equals(arg)) {
+          if (args.length <= currentArg + 1) {
+            log.warn("When using parameter '-metricsport', you must specify the port for the metrics");
+            return;
+          }
+          try {
+            String endpoint = args[currentArg + 1];
+            int colonIndex = endpoint.lastIndexOf(':');
+            if (colonIndex < 0) {
+              getMetricsExporter().startServer(Integer.parseInt(endpoint));
+            } else {
+              getMetricsExporter().startServer(
+                  endpoint.substring(0, colonIndex).replaceAll("[\\[\\]]", ""),
+                  Integer.parseInt(endpoint.substring(colonIndex + 1)));
+            }
+          } catch (IOException | NumberFormatException e) {
+            log.warn("Unable to expose metrics on port {}: {}", args[currentArg + 1], e.getMessage());
+          }
+          currentArg += 2;
         } else {
           done = true;
         }
@@ -820,6 +856,7 @@ public class Bot implements BasicWorkerListener {
   public void afterFinished(BasicWorker worker, boolean ok) {
     if (!ok) {
       log.error("Task finished in error, exiting");
+      stopMetrics();
       System.exit(1);
     }
     if (!loginDone) {
@@ -831,12 +868,32 @@ public class Bot implements BasicWorkerListener {
       }
     }
     if (actions.isEmpty()) {
+      stopMetrics();
       System.exit(0);
     }
     Action currentAction = actions.remove(0);
     executeAction(currentAction);
   }
 
+  /**
+   * @return Export of the metrics.
+   */
+  private PrometheusExporter getMetricsExporter() {
+    if (metricsExporter == null) {
+      metricsExporter = new PrometheusExporter(MetricsRegistry.getRegistry());
+    }
+    return metricsExporter;
+  }
+
+  /**
+   * Stop exporting the metrics, writing them a last time.
+   */
+  private void stopMetrics() {
+    if (metricsExporter != null) {
+      metricsExporter.stop();
+    }
+  }
+
   /**
    * Bean for an action.
    */
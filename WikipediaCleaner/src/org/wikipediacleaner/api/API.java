@@ -29,9 +29,10 @@ import org.wikipediacleaner.api.data.User;
 public interface API {
 
   /**
+   * @param wiki Wiki.
    * @return Maximum number of pages per query.
    */
-  public int getMaxPagesPerQuery();
+  public int getMaxPagesPerQuery(EnumWikipedia wiki);
 
   /**
    * Load Wikipedia configuration.
@@ -74,6 +75,23 @@ public interface API {
       boolean bot, boolean minor,
       boolean automatic, boolean forceWatch) throws APIException;
 
+  /**
+   * Reserve a permit for editing a page, so that the wait overlaps the analysis of the page.
+   * The permit is used by the next edit of the page, or given back by {@link #cancelEdit}.
+   * 
+   * @param wikipedia Wikipedia.
+   * @param page Page.
+   */
+  public void reserveEdit(EnumWikipedia wikipedia, Page page);
+
+  /**
+   * Cancel the permit reserved for editing a page that won't be modified.
+   * 
+   * @param wikipedia Wikipedia.
+   * @param page Page.
+   */
+  public void cancelEdit(EnumWikipedia wikipedia, Page page);
+
   /**
    * Add a new section in a page.
    * 
@@ -253,6 +271,19 @@ public interface API {
       Collection<Page> pages, boolean usePageId,
       boolean withRedirects) throws APIException;
 
+  /**
+   * Retrieves the contents of a list of configuration pages.
+   * (<code>action=query</code>, <code>prop=revisions</code>).
+   * 
+   * @param wiki Wiki.
+   * @param pages List of pages.
+   * @throws APIException Exception thrown by the API.
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#revisions_.2F_rv">API:Properties#revisions</a>
+   */
+  public void retrieveConfigurationContents(
+      EnumWikipedia wiki,
+      Collection<Page> pages) throws APIException;
+
   /**
    * Initialize the disambiguation flags of a list of <code>pages</code>.
    * (<code>action=query</code>, <code>prop=categories</code>) or
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikipediacleaner.api.constants.EnumQueryResult;
 import org.wikipediacleaner.api.impl.MediaWikiAPI;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -144,6 +145,9 @@ public class APIException extends Exception {
   public void waitForRetry() {
     EnumQueryResult result = getQueryResult();
     if (result != null) {
+      MetricsRegistry.getRegistry().counter(
+          "wpcleaner_http_retries_total", "Requests retried after an error",
+          "reason", "api").increment();
       final Logger log = LoggerFactory.getLogger(MediaWikiAPI.class);
       if (log != null) {
         log.warn("Waiting after error '" + code + "'");
@@ -7,13 +7,11 @@
 
 package org.wikipediacleaner.api;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpConnectionManager;
-import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
-import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.wikipediacleaner.api.check.CheckWiki;
 import org.wikipediacleaner.api.http.HttpServer;
-import org.wikipediacleaner.api.http.hc3.Hc3HttpServer;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpClientPool;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpServer;
 import org.wikipediacleaner.api.impl.MediaWikiAPI;
 
 
@@ -34,27 +32,17 @@ public class APIFactory {
   // Initialize static members
   static {
 
+    // Shared HTTP client with a pool of keep-alive connections
+    CloseableHttpClient httpClient = Hc5HttpClientPool.getInstance().getHttpClient();
+
     // Initialize MediaWiki API
-    HttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
-    HttpClient httpClient = createHttpClient(connectionManager);
-    httpClient.getParams().setParameter("http.protocol.single-cookie-header", Boolean.TRUE);
     api = new MediaWikiAPI(httpClient);
 
     // Initialize MediaWiki REST API
-    connectionManager = new MultiThreadedHttpConnectionManager();
-    httpClient = createHttpClient(connectionManager);
-    httpClient.getParams().setParameter("http.protocol.single-cookie-header", Boolean.TRUE);
     restApi = new MediaWikiRESTAPI(httpClient);
 
     // Initialize WMF Labs access
-    /* HttpComponents 5
-    PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
-    connManager.setMaxTotal(200);
-    connManager.setDefaultMaxPerRoute(50);
-    HttpServer labs = new Hc5HttpServer(createHttpClient(connManager), "https://checkwiki.toolforge.org/"); */
-    connectionManager = new MultiThreadedHttpConnectionManager();
-    httpClient = createHttpClient(connectionManager);
-    HttpServer labs = new Hc3HttpServer(httpClient, "https://checkwiki.toolforge.org/");
+    HttpServer labs = new Hc5HttpServer(httpClient, "https://checkwiki.toolforge.org/", true);
 
     // Initialize Check Wiki project
     checkWiki = new CheckWiki(labs, "");
@@ -80,30 +68,4 @@ public class APIFactory {
   public static CheckWiki getCheckWiki() {
     return checkWiki;
   }
-
-  /**
-   * Create an HTTP connection.
-   * 
-   * @return A HTTP connection.
-   */
-  private static HttpClient createHttpClient(HttpConnectionManager manager) {
-    HttpClient client = new HttpClient(manager);
-    client.getParams().setParameter(
-        HttpMethodParams.USER_AGENT,
-        "WPCleaner (+http://en.wikipedia.org/wiki/User:NicoV/Wikipedia_Cleaner/Documentation)");
-    return client;
-  }
-
-  /**
-   * Create an HTTP client.
-   * 
-   * @param manager Connection manager.
-   * @return HTTP client.
-   */
-  /*private static CloseableHttpClient createHttpClient(HttpClientConnectionManager manager) {
-    return HttpClients.custom().
-        setConnectionManager(manager).
-        setUserAgent("WPCleaner (+http://en.wikipedia.org/wiki/User:NicoV/Wikipedia_Cleaner/Documentation)").
-        build();
-  }*/
 }
@@ -11,6 +11,7 @@ import java.awt.Component;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,7 @@ import org.wikipediacleaner.api.execution.ExpandTemplatesCallable;
 import org.wikipediacleaner.api.execution.LinksWRCallable;
 import org.wikipediacleaner.api.execution.ParseTextCallable;
 import org.wikipediacleaner.api.execution.TemplatesCallable;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.gui.swing.worker.warning.UpdateDabWarningTools;
 import org.wikipediacleaner.i18n.GT;
@@ -225,6 +227,9 @@ public class MediaWiki extends MediaWikiController {
         Page page = (Page) result;
         String oldContents = page.getContents();
         if (oldContents != null) {
+          if (save) {
+            api.reserveEdit(wiki, page);
+          }
           String newContents = oldContents;
           details.setLength(0);
           fullComment.setLength(0);
@@ -292,6 +297,9 @@ public class MediaWiki extends MediaWikiController {
           }
 
           // Page contents has been modified
+          if (oldContents.equals(newContents) || !save || stopRequested) {
+            api.cancelEdit(wiki, page);
+          }
           if (!oldContents.equals(newContents)) {
             if (report != null) {
               report.addModification(modification);
@@ -566,18 +574,19 @@ public class MediaWiki extends MediaWikiController {
     final API api = APIFactory.getAPI();
 
     // Retrieving disambiguation status
-    final int maxPages = api.getMaxPagesPerQuery();
+    final int maxPages = AdaptiveBatcher.getBatcher(
+        wikipedia, AdaptiveBatcher.KIND_DISAMBIGUATION).getBatchSize();
     List<Page> filteredList = pageList;
     if (knownPages != null) {
       filteredList = new ArrayList<>(pageList);
-      filteredList.removeAll(knownPages);
+      filteredList.removeAll(new HashSet<>(knownPages));
     }
     if (filteredList.size() <= maxPages) {
       addTask(new DisambiguationStatusCallable(wikipedia, this, api, filteredList, forceApiCall));
     } else {
       int index = 0;
       while (index < filteredList.size()) {
-        List<Page> tmpList = new ArrayList<>(api.getMaxPagesPerQuery());
+        List<Page> tmpList = new ArrayList<>(maxPages);
         for (int i = 0; (i < maxPages) && (index < filteredList.size()); i++, index++) {
           tmpList.add(filteredList.get(index));
         }
@@ -7,33 +7,74 @@
 
 package org.wikipediacleaner.api;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.api.execution.ExecutorStatistics;
+import org.wikipediacleaner.api.execution.MediaWikiCallable;
+import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
 /**
  * Centralization of access to MediaWiki.
+ *
+ * Tasks put themselves in a queue of completed tasks as soon as they are finished
+ * (or cancelled), so results are consumed in the order of completion without polling.
+ *
+ * Tasks mostly waiting for the server run in an executor using virtual threads
+ * when available (Java 21+) and enabled, so their number isn't limited by a pool of threads.
+ * Tasks mostly analyzing pages run in a separate pool sized by the number of processors,
+ * so that requests to the server don't wait behind analysis and vice versa.
+ * Statistics (queue depth, active tasks, wait and run times) are kept for each executor.
  */
 public abstract class MediaWikiController implements MediaWikiListener {
 
+  /** Logs. */
+  private final static Logger log = LoggerFactory.getLogger(MediaWikiController.class);
+
+  /** Interval for checking if the processing should stop while waiting (in milliseconds). */
+  private final static long STOP_CHECK_INTERVAL = 500;
+
   static private ExecutorService staticExecutor;
 
+  /** Executor for tasks mostly analyzing pages. */
+  static private ExecutorService analysisExecutor;
+
+  /** Statistics for the executor of tasks mostly waiting for the server. */
+  private final static ExecutorStatistics staticStatistics = new ExecutorStatistics("MediaWiki");
+
+  /** Statistics for the executor of tasks mostly analyzing pages. */
+  private final static ExecutorStatistics analysisStatistics = new ExecutorStatistics("Analysis");
+
   private final MediaWikiListener listener;
-  private final ExecutorService executor;
-  private final List<Future<?>> results;
+
+  /** Tasks not finished yet. */
+  private final Set<Future<?>> running;
+
+  /** Tasks finished, but whose result has not been consumed yet. */
+  private final BlockingQueue<Future<?>> completed;
+
+  /** Number of tasks whose result has not been claimed yet. */
+  private final AtomicInteger remaining;
 
   /**
    * Create a MediaWikiController.
@@ -42,26 +83,96 @@ public abstract class MediaWikiController implements MediaWikiListener {
    */
   protected MediaWikiController(MediaWikiListener listener) {
     this.listener = listener;
-    this.executor = getStaticExecutor();
-    results = new LinkedList<>();
+    this.running = ConcurrentHashMap.newKeySet();
+    this.completed = new LinkedBlockingQueue<>();
+    this.remaining = new AtomicInteger();
   }
 
   /**
-   * @return The executor.
+   * @return The executor for tasks mostly waiting for the server.
    */
   static private synchronized ExecutorService getStaticExecutor() {
     if (staticExecutor == null) {
+      Configuration config = Configuration.getConfiguration();
+      if (config.getBoolean(null, ConfigurationValueBoolean.VIRTUAL_THREADS)) {
+        staticExecutor = createVirtualThreadExecutor();
+      }
+      if (staticExecutor == null) {
+        int nThreads = config.getInt(
+            null,
+            ConfigurationValueInteger.INTERROG_THREAD);
+        staticExecutor = new ThreadPoolExecutor(
+            nThreads, nThreads,
+            0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(Integer.MAX_VALUE),
+            new BasicThreadFactory.Builder().namingPattern("MW-%d").build());
+      }
+    }
+    return staticExecutor;
+  }
+
+  /**
+   * @return The executor for tasks mostly analyzing pages.
+   */
+  static private synchronized ExecutorService getAnalysisExecutor() {
+    if (analysisExecutor == null) {
       Configuration config = Configuration.getConfiguration();
       int nThreads = config.getInt(
           null,
-          ConfigurationValueInteger.INTERROG_THREAD);
-      staticExecutor = new ThreadPoolExecutor(
+          ConfigurationValueInteger.ANALYSIS_THREADS);
+      if (nThreads <= 0) {
+        nThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+      }
+      analysisExecutor = new ThreadPoolExecutor(
           nThreads, nThreads,
           0L, TimeUnit.MILLISECONDS,
           new LinkedBlockingQueue<>(Integer.MAX_VALUE),
-          new BasicThreadFactory.Builder().namingPattern("MW-%d").build());
+          new BasicThreadFactory.Builder().namingPattern("MW-Analysis-%d").build());
     }
-    return staticExecutor;
+    return analysisExecutor;
+  }
+
+  /**
+   * Create an executor starting a virtual thread for each task.
+   * 
+   * Virtual threads are only available with Java 21+,
+   * so the executor is created by reflection.
+   * 
+   * @return Executor using virtual threads, null if not available.
+   */
+  static private ExecutorService createVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      ExecutorService executor = (ExecutorService) method.invoke(null);
+      log.info("Using virtual threads for MediaWiki tasks");
+      return executor;
+    } catch (ReflectiveOperationException e) {
+      log.info("Virtual threads not available, using a pool of threads for MediaWiki tasks");
+      return null;
+    }
+  }
+
+  /**
+   * Run a task in the executor matching its kind.
+   * 
+   * @param task Task.
+   * @param runnable Runnable running the task.
+   */
+  static private void execute(Callable<?> task, Runnable runnable) {
+    Runnable tmpRunnable = ApiRequest.propagateAutomatic(runnable);
+    if ((task instanceof MediaWikiCallable) &&
+        ((MediaWikiCallable<?>) task).isCpuBound()) {
+      getAnalysisExecutor().execute(analysisStatistics.wrap(tmpRunnable));
+    } else {
+      getStaticExecutor().execute(staticStatistics.wrap(tmpRunnable));
+    }
+  }
+
+  /**
+   * @return Statistics for each executor.
+   */
+  static public String getExecutorStatistics() {
+    return staticStatistics + " / " + analysisStatistics;
   }
 
   /**
@@ -69,7 +180,31 @@ public abstract class MediaWikiController implements MediaWikiListener {
    * @return Future result
    */
   static public Future<?> addSimpleTask(Callable<?> task) {
-    return getStaticExecutor().submit(task);
+    FutureTask<Object> result = new FutureTask<>(() -> task.call());
+    execute(task, result);
+    return result;
+  }
+
+  /**
+   * Task putting itself in the queue of completed tasks when finished.
+   */
+  private class TrackedTask extends FutureTask<Object> {
+
+    /**
+     * @param task The task itself.
+     */
+    TrackedTask(Callable<?> task) {
+      super(() -> task.call());
+    }
+
+    /**
+     * Move the task to the queue of completed tasks.
+     */
+    @Override
+    protected void done() {
+      running.remove(this);
+      completed.add(this);
+    }
   }
 
   /**
@@ -78,40 +213,36 @@ public abstract class MediaWikiController implements MediaWikiListener {
    * @param task The task itself.
    */
   protected void addTask(Callable<?> task) {
-    synchronized (results) {
-      Future<?> result = executor.submit(task);
-      if (!shouldStop()) {
-        results.add(result);
-      }
+    if (shouldStop()) {
+      addSimpleTask(task);
+      return;
     }
+    TrackedTask result = new TrackedTask(task);
+    remaining.incrementAndGet();
+    running.add(result);
+    execute(task, result);
   }
 
   /**
    * @return Flag indicating if there are remaining tasks to analyze.
    */
   protected boolean hasRemainingTask() {
-    synchronized (results) {
-      return !results.isEmpty();
-    }
+    return remaining.get() > 0;
   }
 
   /**
    * @return Number of remaining tasks.
    */
   protected int getRemainingTasksCount() {
-    synchronized (results) {
-      return results.size();
-    }
+    return remaining.get();
   }
 
   /**
    * Stop remaining tasks.
    */
   protected void stopRemainingTasks() {
-    synchronized (results) {
-      for (Future<?> result : results) {
-        result.cancel(false);
-      }
+    for (Future<?> result : running) {
+      result.cancel(false);
     }
   }
 
@@ -120,67 +251,104 @@ public abstract class MediaWikiController implements MediaWikiListener {
    * @throws APIException Exception.
    */
   protected Object getNextResult() throws APIException {
-    while (hasRemainingTask()) {
-      Future<?> result = getNextDoneResult();
-      if (result != null) {
-        try {
-          return result.get(10, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-          // Nothing to do
-        } catch (ExecutionException e) {
-          Throwable cause = e.getCause();
-          if (cause instanceof APIException) {
-            throw (APIException) cause;
-          }
-          return cause;
-        } catch (TimeoutException e) {
-          // Shouldn't arrive
-        } catch (CancellationException e) {
-          //
-        }
+    while (true) {
+      Future<?> result = waitForNextDoneResult();
+      if (result == null) {
+        return null;
       }
       try {
-        Thread.sleep(100);
+        return result.get();
       } catch (InterruptedException e) {
-        // Nothing to do
+        // Shouldn't arrive, the task is done
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof APIException) {
+          throw (APIException) cause;
+        }
+        return cause;
+      } catch (CancellationException e) {
+        //
       }
     }
-    return null;
   }
 
   /**
-   * @return The result of the first remaining tasks if it is completed.
+   * Wait for one of the remaining tasks to be completed.
+   * 
+   * @return The first completed remaining task, null if there are no remaining tasks.
+   * @throws APIException Exception if the wait is interrupted.
    */
-  protected Future<?> getFirstResultIfDone() {
-    if (hasRemainingTask()) {
-      synchronized (results) {
-        if (!results.isEmpty()) {
-          Future<?> result = results.get(0);
-          if (result.isDone()) {
-            results.remove(result);
-            return result;
-          }
+  protected Future<?> waitForNextDoneResult() throws APIException {
+    if (!claimResult()) {
+      return null;
+    }
+    try {
+      while (true) {
+        Future<?> result = completed.poll(STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        if (result != null) {
+          return result;
+        }
+        if (shouldStop()) {
+          // Cancelled tasks are immediately put in the queue of completed tasks
+          stopRemainingTasks();
         }
       }
+    } catch (InterruptedException e) {
+      remaining.incrementAndGet();
+      Thread.currentThread().interrupt();
+      stopRemainingTasks();
+      throw new APIException("Interrupted while waiting for tasks", e);
     }
-    return null;
   }
 
   /**
-   * @return The result of one of the completed remaining tasks.
+   * Wait for every remaining task to be completed, ignoring their results.
+   * 
+   * @throws APIException Exception if the wait is interrupted.
+   */
+  protected void waitForAllTasks() throws APIException {
+    while (waitForNextDoneResult() != null) {
+      // Nothing to do, the result is simply removed from the remaining tasks
+    }
+  }
+
+  /**
+   * @return The first completed remaining task if there's one.
+   */
+  protected Future<?> getFirstResultIfDone() {
+    return getNextDoneResult();
+  }
+
+  /**
+   * @return The first completed remaining task if there's one.
    */
   protected Future<?> getNextDoneResult() {
-    if (hasRemainingTask()) {
-      synchronized (results) {
-        for (Future<?> result : results) {
-          if (result.isDone()) {
-            results.remove(result);
-            return result;
-          }
-        }
+    if (!claimResult()) {
+      return null;
+    }
+    Future<?> result = completed.poll();
+    if (result == null) {
+      remaining.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * Claim the result of one of the remaining tasks.
+   * 
+   * @return True if a result has been claimed, false if there are no remaining tasks.
+   */
+  private boolean claimResult() {
+    while (true) {
+      int count = remaining.get();
+      if (count <= 0) {
+        return false;
+      }
+      if (remaining.compareAndSet(count, count - 1)) {
+        return true;
       }
     }
-    return null;
   }
 
   /**
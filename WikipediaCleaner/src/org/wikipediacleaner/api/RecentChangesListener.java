@@ -7,6 +7,7 @@
 
 package org.wikipediacleaner.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -25,4 +26,11 @@ public interface RecentChangesListener {
    * @param currentTime Current time.
    */
   public void recentChanges(List<RecentChange> rc, Date currentTime);
+
+  /**
+   * @return Name spaces of the recent changes needed by the listener, null for every name space.
+   */
+  public default Collection<Integer> getNamespaces() {
+    return null;
+  }
 }
@@ -15,6 +15,8 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.wikipediacleaner.api.check.CheckErrorResult;
@@ -28,6 +30,10 @@ import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.analysis.PageAnalysis;
 import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.utils.Performance;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvent;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvents;
+import org.wikipediacleaner.utils.metrics.Histogram;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -45,6 +51,46 @@ public class AlgorithmError {
     traceTime = trace;
   }
 
+  /** Metrics for the time spent in each algorithm, by error number. */
+  private static final Map<Integer, Histogram> algorithmMetrics = new ConcurrentHashMap<>();
+
+  /**
+   * Analyze a page with an algorithm,
+   * recording the time spent in the metrics and in the Flight Recorder.
+   * 
+   * @param algorithm Algorithm.
+   * @param pageAnalysis Page analysis.
+   * @param errors Errors found in the page.
+   * @param onlyAutomatic True if analysis could be restricted to errors automatically fixed.
+   * @return Flag indicating if the error was found.
+   */
+  public static boolean analyze(
+      CheckErrorAlgorithm algorithm, PageAnalysis pageAnalysis,
+      Collection<CheckErrorResult> errors, boolean onlyAutomatic) {
+    FlightRecorderEvent event = FlightRecorderEvents.ALGORITHM.begin();
+    int initialCount = (errors != null) ? errors.size() : 0;
+    boolean found = false;
+    long beginTime = System.nanoTime();
+    try {
+      found = algorithm.analyze(pageAnalysis, errors, onlyAutomatic);
+      return found;
+    } finally {
+      Histogram metrics = algorithmMetrics.computeIfAbsent(
+          Integer.valueOf(algorithm.getErrorNumber()),
+          key -> MetricsRegistry.getRegistry().histogram(
+              "wpcleaner_algorithm_duration_seconds", "Time spent in each Check Wiki algorithm",
+              "error", algorithm.getErrorNumberString()));
+      metrics.observeNanos(System.nanoTime() - beginTime);
+      if (event != null) {
+        Page page = pageAnalysis.getPage();
+        event.set("title", (page != null) ? page.getTitle() : null);
+        event.set("error", algorithm.getErrorNumber());
+        event.set("detections", (errors != null) ? errors.size() - initialCount : (found ? 1 : 0));
+        event.commit();
+      }
+    }
+  }
+
   /**
    * Analyze a page to find error types.
    * 
@@ -77,7 +123,7 @@ public class AlgorithmError {
           if (result != null) {
             errorFound = result.getErrors(results);
           } else {
-            errorFound = algorithm.analyze(pageAnalysis, results, onlyAutomatic);
+            errorFound = analyze(algorithm, pageAnalysis, results, onlyAutomatic);
             pageAnalysis.setCheckWikiErrors(errorNumber, errorFound, results);
           }
           if (errorFound) {
@@ -126,7 +172,7 @@ public class AlgorithmError {
     if (result != null) {
       errorFound = result.getErrors(errorsFound);
     } else {
-      errorFound = algorithm.analyze(pageAnalysis, errorsFound, false);
+      errorFound = analyze(algorithm, pageAnalysis, errorsFound, false);
       pageAnalysis.setCheckWikiErrors(errorNumber, errorFound, errorsFound);
     }
     errorPage.setResults(errorFound, errorsFound);
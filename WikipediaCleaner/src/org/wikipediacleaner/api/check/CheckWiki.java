@@ -299,7 +299,7 @@ public class CheckWiki {
         Page page = DataManager.createSimplePage(
             wiki, translationPage,
             null, null, null);
-        api.retrieveContents(wiki, Collections.singleton(page), false, false);
+        api.retrieveConfigurationContents(wiki, Collections.singleton(page));
         if (Boolean.TRUE.equals(page.isExisting())) {
           cwConfiguration.setWikiConfiguration(new StringReader(page.getContents()));
         }
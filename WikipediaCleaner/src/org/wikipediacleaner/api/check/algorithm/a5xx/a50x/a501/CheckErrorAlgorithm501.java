@@ -229,7 +229,7 @@ public class CheckErrorAlgorithm501 extends CheckErrorAlgorithmBase {
       PageAnalysis analysis, List<Suggestion> suggestions,
       List<Replacement> replacements) {
     boolean result = false;
-    String performanceName = String.format("Slow regular expression (%s)", analysis.getPage().getTitle());
+    String title = analysis.getPage().getTitle();
 
     // Check every suggestion
     List<Interval> chunks = chunkAnalyzer.computeContentsChunks(analysis, true);
@@ -239,8 +239,7 @@ public class CheckErrorAlgorithm501 extends CheckErrorAlgorithmBase {
     while (itSuggestion.hasNext()) {
       Suggestion suggestion = itSuggestion.next();
       if (!suggestion.isOtherPattern()) {
-        Performance perf = Performance.getInstance(performanceName);
-        perf.setThreshold(slowRegexp);
+        Performance perf = Performance.getInstance("Slow regular expression", title, slowRegexp);
         itSuggestion.remove();
         Matcher matcher = suggestion.initMatcher(contents);
         for (Interval chunk : chunks) {
@@ -302,7 +301,7 @@ public class CheckErrorAlgorithm501 extends CheckErrorAlgorithmBase {
       PageAnalysis analysis, List<Suggestion> suggestions,
       List<Replacement> replacements) {
     boolean result = false;
-    String performanceName = String.format("Slow regular expression (%s)", analysis.getPage().getTitle());
+    String title = analysis.getPage().getTitle();
 
     // Check every suggestion
     List<Interval> chunks = chunkAnalyzer.computeContentsChunks(analysis, false);
@@ -312,8 +311,7 @@ public class CheckErrorAlgorithm501 extends CheckErrorAlgorithmBase {
     while (itSuggestion.hasNext()) {
       Suggestion suggestion = itSuggestion.next();
       if (suggestion.isOtherPattern()) {
-        Performance perf = Performance.getInstance(performanceName);
-        perf.setThreshold(slowRegexp);
+        Performance perf = Performance.getInstance("Slow regular expression", title, slowRegexp);
         itSuggestion.remove();
         Matcher matcher = suggestion.initMatcher(contents);
         for (Interval chunk : chunks) {
@@ -17,6 +17,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -610,6 +611,11 @@ public class WPCConfiguration {
    */
   private Map<String, Suggestion> suggestions;
 
+  /**
+   * Lock for loading suggestions.
+   */
+  private final ReentrantLock suggestionsLock = new ReentrantLock();
+
   /**
    * Initialize suggestions for text replacements.
    * 
@@ -618,7 +624,8 @@ public class WPCConfiguration {
    */
   public void initSuggestions(API api, boolean forceInit) {
     if ((suggestions == null) || forceInit) {
-      synchronized (api) {
+      suggestionsLock.lock();
+      try {
 
         // Load all pages contents
         Map<String, Page> pages = new HashMap<>();
@@ -744,6 +751,8 @@ public class WPCConfiguration {
         }
 
         suggestions = tmpMap;
+      } finally {
+        suggestionsLock.unlock();
       }
     }
   }
@@ -88,6 +88,10 @@ public enum EnumQueryResult {
   INVALID_USER(
       "InvalidUser",
       "Invalid username"),
+  MAX_LAG(
+      "maxlag",
+      "Waiting for a database server: replication lag is too high",
+      10, 1),
   MISSING_TITLE(
       "MissingTitle",
       "The page you requested doesn't exist"),
@@ -10,11 +10,12 @@ package org.wikipediacleaner.api.constants;
 import java.awt.ComponentOrientation;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
@@ -40,6 +41,10 @@ import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageRedirect;
+import org.wikipediacleaner.api.data.dab.DisambiguationList;
+import org.wikipediacleaner.api.data.dab.DisambiguationListUpdater;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
 
 /**
@@ -152,9 +157,18 @@ public enum EnumWikipedia {
   
   TEST(new Wikipedia("test", "Test Wikipedia"));
 
-  private Set<String> disambiguationPages;
+  private final AtomicReference<DisambiguationList> disambiguationPages = new AtomicReference<>();
   private List<Page> disambiguationTemplates;
 
+  /** Lock for loading disambiguation templates. */
+  private final ReentrantLock disambiguationTemplatesLock = new ReentrantLock();
+
+  /** Updater of the list of disambiguation pages from recent changes. */
+  private DisambiguationListUpdater disambiguationUpdater;
+
+  /** Lock for starting the updater of the list of disambiguation pages. */
+  private final ReentrantLock disambiguationUpdaterLock = new ReentrantLock();
+
   /**
    * @param settigs Wiki settings.
    */
@@ -395,20 +409,85 @@ public enum EnumWikipedia {
   /**
    * Load all disambiguation pages.
    * 
+   * The list is kept up to date from recent changes if this option is selected.
+   * In this case, the list persisted by a previous session is reused
+   * if it was updated recently enough not to miss any change.
+   * 
    * @param api Wikipedia API.
    * @throws APIException Exception thrown by the API.
    */
   public void loadDisambiguationPages(API api) throws APIException {
+    loadDisambiguationPages(api, false);
+  }
+
+  /**
+   * Load all disambiguation pages.
+   * 
+   * @param api Wikipedia API.
+   * @param reload True to retrieve the list from the wiki even if a recent list has been persisted.
+   * @throws APIException Exception thrown by the API.
+   */
+  public void loadDisambiguationPages(API api, boolean reload) throws APIException {
+    Configuration config = Configuration.getConfiguration();
+    boolean maintain = config.getBoolean(null, ConfigurationValueBoolean.MAINTAIN_DAB_LIST);
+    DisambiguationList tmpResult = null;
+    if (!reload && maintain) {
+      tmpResult = DisambiguationList.load(this);
+      if (!DisambiguationListUpdater.canResume(tmpResult)) {
+        tmpResult = null;
+      }
+    }
+    if (tmpResult == null) {
+      try {
+        List<Page> tmpPages = constuctDisambiguationPages(api);
+        List<String> tmpTitles = new ArrayList<>(tmpPages.size());
+        for (Page page : tmpPages) {
+          tmpTitles.add(page.getTitle());
+        }
+        tmpResult = DisambiguationList.build(this, tmpTitles);
+        tmpResult.save();
+      } catch (APIException e) {
+        disambiguationPages.set(null);
+        throw e;
+      }
+    }
+    disambiguationPages.set(tmpResult);
+    if (maintain) {
+      startDisambiguationPagesMaintenance(api);
+    }
+  }
+
+  /**
+   * Keep the list of disambiguation pages up to date from recent changes.
+   * 
+   * @param api Wikipedia API.
+   */
+  public void startDisambiguationPagesMaintenance(API api) {
+    disambiguationUpdaterLock.lock();
     try {
-      List<Page> tmpPages = constuctDisambiguationPages(api);
-      HashSet<String> tmpResult = new HashSet<>();
-      for (Page page : tmpPages) {
-        tmpResult.add(page.getTitle());
+      if (disambiguationUpdater == null) {
+        disambiguationUpdater = new DisambiguationListUpdater(this, api);
+        api.addRecentChangesListener(this, disambiguationUpdater);
       }
-      disambiguationPages = tmpResult;
-    } catch (APIException e) {
-      disambiguationPages = null;
-      throw e;
+    } finally {
+      disambiguationUpdaterLock.unlock();
+    }
+  }
+
+  /**
+   * Stop keeping the list of disambiguation pages up to date.
+   * 
+   * @param api Wikipedia API.
+   */
+  public void stopDisambiguationPagesMaintenance(API api) {
+    disambiguationUpdaterLock.lock();
+    try {
+      if (disambiguationUpdater != null) {
+        api.removeRecentChangesListener(this, disambiguationUpdater);
+        disambiguationUpdater = null;
+      }
+    } finally {
+      disambiguationUpdaterLock.unlock();
     }
   }
 
@@ -419,16 +498,33 @@ public enum EnumWikipedia {
     if (dabPages == null) {
       return;
     }
-    HashSet<String> tmpResult = new HashSet<>(dabPages.size());
-    tmpResult.addAll(dabPages);
-    disambiguationPages = tmpResult;
+    DisambiguationList tmpResult = DisambiguationList.build(this, dabPages);
+    tmpResult.save();
+    disambiguationPages.set(tmpResult);
+  }
+
+  /**
+   * @return List of disambiguation pages (null if not loaded).
+   */
+  public DisambiguationList getDisambiguationList() {
+    return disambiguationPages.get();
+  }
+
+  /**
+   * Replace the list of disambiguation pages if it hasn't been loaded again in the meantime.
+   * 
+   * @param oldList Previous list of disambiguation pages.
+   * @param newList New list of disambiguation pages.
+   */
+  public void replaceDisambiguationList(DisambiguationList oldList, DisambiguationList newList) {
+    disambiguationPages.compareAndSet(oldList, newList);
   }
 
   /**
    * @return true if disambiguation pages have been loaded.
    */
   public boolean isDisambiguationPagesLoaded() {
-    return (disambiguationPages != null);
+    return (disambiguationPages.get() != null);
   }
 
   /**
@@ -441,10 +537,11 @@ public enum EnumWikipedia {
     if (page == null) {
       return null;
     }
-    if (disambiguationPages == null) {
+    DisambiguationList tmpPages = disambiguationPages.get();
+    if (tmpPages == null) {
       return null;
     }
-    if (disambiguationPages.contains(page.getTitle())) {
+    if (tmpPages.contains(page.getTitle())) {
       return Boolean.TRUE;
     }
     PageRedirect redirects = page.getRedirects();
@@ -453,7 +550,7 @@ public enum EnumWikipedia {
       if (listRedirects != null) {
         for (Page redirect : listRedirects) {
           if ((redirect != null) &&
-              (disambiguationPages.contains(redirect.getTitle()))) {
+              (tmpPages.contains(redirect.getTitle()))) {
             return Boolean.TRUE;
           }
         }
@@ -469,7 +566,8 @@ public enum EnumWikipedia {
    */
   public void initDisambiguationTemplates(API api) {
     if (disambiguationTemplates == null) {
-      synchronized (api) {
+      disambiguationTemplatesLock.lock();
+      try {
         Page page = DataManager.createSimplePage(
             this, "Mediawiki:Disambiguationspage",
             null, null, null);
@@ -479,6 +577,8 @@ public enum EnumWikipedia {
           // Error retrieving Disambiguation templates list
         }
         disambiguationTemplates = page.getLinks();
+      } finally {
+        disambiguationTemplatesLock.unlock();
       }
     }
   }
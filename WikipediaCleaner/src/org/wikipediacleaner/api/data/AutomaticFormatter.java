@@ -10,9 +10,13 @@ package org.wikipediacleaner.api.data;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.text.diff.CommandVisitor;
+import org.apache.commons.text.diff.StringsComparator;
 import org.slf4j.LoggerFactory;
 import org.wikipediacleaner.api.algorithm.AlgorithmError;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
@@ -56,50 +60,59 @@ public class AutomaticFormatter {
 
     // Fix Check Wiki errors
     if (algorithms != null) {
-      boolean finished = true;
       List<String> md5List = new ArrayList<>();
       md5List.add(DigestUtils.md5Hex(contents));
-      int modificationsCount = 0; 
-      do {
-        finished = true;
+      boolean finished = false;
+      while (!finished) {
+
+        // Compute the fixes of every algorithm from a single analysis,
+        // follow-up fixes are found by the next pass on the result
+        PageAnalysis analysis = page.getAnalysis(contents, false);
+        List<FixReplacement> replacements = new ArrayList<>();
         for (CheckErrorAlgorithm algorithm : algorithms) {
           if (algorithm.isAvailable() &&
               CheckErrorAlgorithms.isAlgorithmActive(wiki, algorithm.getErrorNumber())) {
-            String currentContents = contents;
-            boolean modified = false;
-            do {
-              currentContents = contents;
-              PageAnalysis analysis = page.getAnalysis(currentContents, true);
-              contents = botFix ? algorithm.botFix(analysis) : algorithm.automaticFix(analysis);
-              if (!contents.equals(currentContents)) {
-                String md5 = DigestUtils.md5Hex(contents);
-                if (md5List.contains(md5) || (modificationsCount >= 1000)) {
-                  log.error("Loop detected on automatic modifications for {}", analysis.getPage().getTitle());
-                  return initialContents;
-                }
-                modified = true;
-                modificationsCount++;
-                md5List.add(md5);
+            String newContents = botFix ? algorithm.botFix(analysis) : algorithm.automaticFix(analysis);
+            if (!contents.equals(newContents)) {
+              FixReplacement replacement = new FixReplacement(algorithm, contents, newContents);
+              boolean overlap = false;
+              for (FixReplacement other : replacements) {
+                overlap |= replacement.overlaps(other);
               }
-            } while (!contents.equals(currentContents));
-            if (modified) {
-              finished = false;
-              if (usedAlgorithms != null) {
-                boolean shouldAdd = true;
-                for (AlgorithmError.Progress progress : usedAlgorithms) {
-                  if (progress.algorithm == algorithm) {
-                    shouldAdd = false;
-                  }
-                }
-                if (shouldAdd) {
-                  usedAlgorithms.add(new AlgorithmError.Progress(algorithm, true));
-                  // TODO: compute if fix is complete ?
+              if (!overlap) {
+                replacements.add(replacement);
+              }
+            }
+          }
+        }
+
+        // Apply all non overlapping fixes at once, others will be retried on the next pass
+        if (replacements.isEmpty()) {
+          finished = true;
+        } else {
+          contents = FixReplacement.apply(contents, replacements);
+          String md5 = DigestUtils.md5Hex(contents);
+          if (md5List.contains(md5)) {
+            log.error("Loop detected on automatic modifications for {}", page.getTitle());
+            return initialContents;
+          }
+          md5List.add(md5);
+          if (usedAlgorithms != null) {
+            for (FixReplacement replacement : replacements) {
+              boolean shouldAdd = true;
+              for (AlgorithmError.Progress progress : usedAlgorithms) {
+                if (progress.algorithm == replacement.algorithm) {
+                  shouldAdd = false;
                 }
               }
+              if (shouldAdd) {
+                usedAlgorithms.add(new AlgorithmError.Progress(replacement.algorithm, true));
+                // TODO: compute if fix is complete ?
+              }
             }
           }
         }
-      } while (!finished);
+      }
     }
 
     // Auto formatting options
@@ -795,4 +808,284 @@ public class AutomaticFormatter {
     return value;
   }
 
+
+  /**
+   * Replacements computed by an algorithm on the contents of a page.
+   * 
+   * The replacements are reduced to the regions that actually differ
+   * between the original contents and the fixed contents,
+   * so that fixes made by several algorithms from the same analysis
+   * can be applied together when they don't overlap.
+   */
+  private static class FixReplacement {
+
+    /** Algorithm that produced the replacements. */
+    final CheckErrorAlgorithm algorithm;
+
+    /** Replaced regions, in increasing order. */
+    final List<Span> spans;
+
+    /**
+     * @param algorithm Algorithm that produced the replacements.
+     * @param contents Original contents.
+     * @param newContents Contents after fix.
+     */
+    FixReplacement(
+        CheckErrorAlgorithm algorithm,
+        String contents, String newContents) {
+      this.algorithm = algorithm;
+      this.spans = computeSpans(contents, newContents);
+    }
+
+    /**
+     * @param other Other replacements.
+     * @return True if some replacements overlap or are adjacent.
+     */
+    boolean overlaps(FixReplacement other) {
+      for (Span span : spans) {
+        for (Span otherSpan : other.spans) {
+          if ((span.beginIndex <= otherSpan.endIndex) &&
+              (otherSpan.beginIndex <= span.endIndex)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Apply a list of non overlapping replacements.
+     * 
+     * @param contents Original contents.
+     * @param replacements List of non overlapping replacements.
+     * @return Contents after all replacements.
+     */
+    static String apply(String contents, List<FixReplacement> replacements) {
+      List<Span> sorted = new ArrayList<>();
+      for (FixReplacement replacement : replacements) {
+        sorted.addAll(replacement.spans);
+      }
+      sorted.sort((s1, s2) -> Integer.compare(s2.beginIndex, s1.beginIndex));
+      StringBuilder sb = new StringBuilder(contents);
+      for (Span span : sorted) {
+        sb.replace(span.beginIndex, span.endIndex, span.text);
+      }
+      return sb.toString();
+    }
+
+    /**
+     * Compute the regions that differ between two texts.
+     * 
+     * Lines are compared first with a diff, each group of modified lines
+     * is then reduced to the characters that actually differ.
+     * 
+     * @param contents Original contents.
+     * @param newContents Contents after fix.
+     * @return Replaced regions, in increasing order.
+     */
+    static List<Span> computeSpans(String contents, String newContents) {
+
+      // Common prefix and suffix
+      int maxLength = Math.min(contents.length(), newContents.length());
+      int prefix = 0;
+      while ((prefix < maxLength) && (contents.charAt(prefix) == newContents.charAt(prefix))) {
+        prefix++;
+      }
+      int suffix = 0;
+      while ((suffix < maxLength - prefix) &&
+             (contents.charAt(contents.length() - 1 - suffix) ==
+              newContents.charAt(newContents.length() - 1 - suffix))) {
+        suffix++;
+      }
+      int oldEnd = contents.length() - suffix;
+      int newEnd = newContents.length() - suffix;
+
+      // Encode each distinct line as a character to compare lines
+      List<String> lines = new ArrayList<>();
+      Map<String, Character> lineChars = new HashMap<>();
+      String oldLines = encodeLines(contents, prefix, oldEnd, lines, lineChars);
+      String newLines = encodeLines(newContents, prefix, newEnd, lines, lineChars);
+      if ((oldLines == null) || (newLines == null)) {
+        List<Span> result = new ArrayList<>();
+        result.add(new Span(contents, newContents, prefix, oldEnd, prefix, newEnd));
+        return result;
+      }
+
+      // Group consecutive modified lines
+      SpanBuilder builder = new SpanBuilder(contents, newContents, prefix, lines);
+      new StringsComparator(oldLines, newLines).getScript().visit(builder);
+      builder.visitKeepCommand(null);
+      return builder.spans;
+    }
+
+    /**
+     * @param text Text.
+     * @param begin Begin index of the region to encode.
+     * @param end End index of the region to encode.
+     * @param lines Distinct lines (index of the character minus 1).
+     * @param lineChars Character for each distinct line.
+     * @return Lines of the region encoded as characters, null if too many distinct lines.
+     */
+    private static String encodeLines(
+        String text, int begin, int end,
+        List<String> lines, Map<String, Character> lineChars) {
+      StringBuilder result = new StringBuilder();
+      int index = begin;
+      while (index < end) {
+        int lineEnd = text.indexOf('\n', index);
+        lineEnd = ((lineEnd < 0) || (lineEnd >= end)) ? end : lineEnd + 1;
+        String line = text.substring(index, lineEnd);
+        Character lineChar = lineChars.get(line);
+        if (lineChar == null) {
+          if (lines.size() >= Character.MAX_VALUE - 1) {
+            return null;
+          }
+          lines.add(line);
+          lineChar = Character.valueOf((char) lines.size());
+          lineChars.put(line, lineChar);
+        }
+        result.append(lineChar.charValue());
+        index = lineEnd;
+      }
+      return result.toString();
+    }
+  }
+
+  /**
+   * Builder of replaced regions from a diff between encoded lines.
+   */
+  private static class SpanBuilder implements CommandVisitor<Character> {
+
+    /** Original contents. */
+    private final String contents;
+
+    /** Contents after fix. */
+    private final String newContents;
+
+    /** Distinct lines (index of the character minus 1). */
+    private final List<String> lines;
+
+    /** Current index in the original contents. */
+    private int oldIndex;
+
+    /** Current index in the contents after fix. */
+    private int newIndex;
+
+    /** Begin index of the current group of modified lines in the original contents. */
+    private int oldBegin;
+
+    /** Begin index of the current group of modified lines in the contents after fix. */
+    private int newBegin;
+
+    /** True if a group of modified lines is in progress. */
+    private boolean modified;
+
+    /** Replaced regions. */
+    final List<Span> spans = new ArrayList<>();
+
+    /**
+     * @param contents Original contents.
+     * @param newContents Contents after fix.
+     * @param begin Begin index of the compared regions.
+     * @param lines Distinct lines (index of the character minus 1).
+     */
+    SpanBuilder(String contents, String newContents, int begin, List<String> lines) {
+      this.contents = contents;
+      this.newContents = newContents;
+      this.lines = lines;
+      this.oldIndex = begin;
+      this.newIndex = begin;
+    }
+
+    /**
+     * @param lineChar Character of the inserted line.
+     * @see org.apache.commons.text.diff.CommandVisitor#visitInsertCommand(java.lang.Object)
+     */
+    @Override
+    public void visitInsertCommand(Character lineChar) {
+      startModification();
+      newIndex += lines.get(lineChar.charValue() - 1).length();
+    }
+
+    /**
+     * @param lineChar Character of the deleted line.
+     * @see org.apache.commons.text.diff.CommandVisitor#visitDeleteCommand(java.lang.Object)
+     */
+    @Override
+    public void visitDeleteCommand(Character lineChar) {
+      startModification();
+      oldIndex += lines.get(lineChar.charValue() - 1).length();
+    }
+
+    /**
+     * @param lineChar Character of the kept line, null at the end of the diff.
+     * @see org.apache.commons.text.diff.CommandVisitor#visitKeepCommand(java.lang.Object)
+     */
+    @Override
+    public void visitKeepCommand(Character lineChar) {
+      if (modified) {
+        modified = false;
+        spans.add(new Span(contents, newContents, oldBegin, oldIndex, newBegin, newIndex));
+      }
+      if (lineChar != null) {
+        int length = lines.get(lineChar.charValue() - 1).length();
+        oldIndex += length;
+        newIndex += length;
+      }
+    }
+
+    /**
+     * Start a group of modified lines if needed.
+     */
+    private void startModification() {
+      if (!modified) {
+        modified = true;
+        oldBegin = oldIndex;
+        newBegin = newIndex;
+      }
+    }
+  }
+
+  /**
+   * Region of the original contents replaced by a new text.
+   */
+  private static class Span {
+
+    /** Begin index of the replaced region in the original contents. */
+    final int beginIndex;
+
+    /** End index of the replaced region in the original contents. */
+    final int endIndex;
+
+    /** Replacement text. */
+    final String text;
+
+    /**
+     * Create a region reduced to the characters that actually differ.
+     * 
+     * @param contents Original contents.
+     * @param newContents Contents after fix.
+     * @param oldBegin Begin index of the region in the original contents.
+     * @param oldEnd End index of the region in the original contents.
+     * @param newBegin Begin index of the region in the contents after fix.
+     * @param newEnd End index of the region in the contents after fix.
+     */
+    Span(
+        String contents, String newContents,
+        int oldBegin, int oldEnd, int newBegin, int newEnd) {
+      while ((oldBegin < oldEnd) && (newBegin < newEnd) &&
+             (contents.charAt(oldBegin) == newContents.charAt(newBegin))) {
+        oldBegin++;
+        newBegin++;
+      }
+      while ((oldBegin < oldEnd) && (newBegin < newEnd) &&
+             (contents.charAt(oldEnd - 1) == newContents.charAt(newEnd - 1))) {
+        oldEnd--;
+        newEnd--;
+      }
+      this.beginIndex = oldBegin;
+      this.endIndex = oldEnd;
+      this.text = newContents.substring(newBegin, newEnd);
+    }
+  }
 }
@@ -40,10 +40,11 @@ public class DataManager {
     }
 
     // Check in the known pages
+    TitleKey key = TitleKey.of(title);
     for (Page page : knownPages) {
       if ((page != null) &&
           (page.getWikipedia() == wiki) &&
-          (Page.areSameTitle(page.getTitle(), title)) &&
+          key.equals(TitleKey.of(page.getTitle())) &&
           ((revisionId == null) || (revisionId.equals(page.getRevisionId().toString())))) {
         return page;
       }
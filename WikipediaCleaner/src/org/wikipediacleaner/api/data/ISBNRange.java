@@ -32,8 +32,11 @@ import org.wikipediacleaner.i18n.GT;
  */
 public class ISBNRange {
 
+  /** EAN prefix of ISBN-10 */
+  private static final String PREFIX_ISBN10 = "978";
+
   /** Global flag for knowing when ranges are loaded */
-  private static boolean rangesLoaded = false;
+  private static volatile boolean rangesLoaded = false;
 
   /** Lock for loading ranges */
   private static final Object rangesLock = new Object();
@@ -44,6 +47,12 @@ public class ISBNRange {
   /** Registration groups */
   private static List<Range> registrationGroups = null;
 
+  /** EAN prefixes indexed by digits */
+  private static RangeNode eanPrefixesTree = null;
+
+  /** Registration groups indexed by digits */
+  private static RangeNode registrationGroupsTree = null;
+
   /**
    * Utility class initialization.
    */
@@ -56,7 +65,10 @@ public class ISBNRange {
    * @return EAN prefix for the given ISBN.
    */
   public static Range getEANPrefix(String isbn) {
-    return getRange(isbn, eanPrefixes);
+    if (isbn == null) {
+      return null;
+    }
+    return getRange(PageElementISBN.cleanISBN(isbn), eanPrefixesTree);
   }
 
   /**
@@ -64,29 +76,83 @@ public class ISBNRange {
    * @return Registration group for the given ISBN.
    */
   public static Range getRegistrationGroup(String isbn) {
-    return getRange(isbn, registrationGroups);
+    if (isbn == null) {
+      return null;
+    }
+    return getRange(PageElementISBN.cleanISBN(isbn), registrationGroupsTree);
   }
 
   /**
-   * @param isbn ISBN
-   * @param ranges List of ranges.
-   * @return Range for the given ISBN.
+   * @param isbn Cleaned up ISBN, an ISBN-10 is handled as an ISBN-13 with the 978 prefix.
+   * @param tree Ranges indexed by digits.
+   * @return Range for the given ISBN (first matching range in the order of the ranges file).
    */
-  private static Range getRange(String isbn, List<Range> ranges) {
-    if ((isbn == null) || (ranges == null)) {
+  private static Range getRange(CharSequence isbn, RangeNode tree) {
+    if ((isbn == null) || (tree == null)) {
       return null;
     }
-    isbn = PageElementISBN.cleanISBN(isbn);
-    if (isbn.length() == 10) {
-      isbn = "978" + isbn;
-    }
-    for (Range range : ranges) {
-      String cleanPrefix = range.getCleanPrefix();
-      if ((cleanPrefix != null) && (isbn.startsWith(cleanPrefix))) {
-        return range;
+    RangeNode node = tree;
+    RangeNode best = (node.range != null) ? node : null;
+    int shift = getShift(isbn);
+    int length = isbn.length() + shift;
+    for (int index = 0; index < length; index++) {
+      int digit = getChar(isbn, shift, index) - '0';
+      if ((digit < 0) || (digit > 9) || (node.children == null)) {
+        break;
+      }
+      node = node.children[digit];
+      if (node == null) {
+        break;
       }
+      if ((node.range != null) && ((best == null) || (node.order < best.order))) {
+        best = node;
+      }
+    }
+    return (best != null) ? best.range : null;
+  }
+
+  /**
+   * @param isbn Cleaned up ISBN.
+   * @return Number of characters to add in front of the ISBN to handle it as an ISBN-13.
+   */
+  private static int getShift(CharSequence isbn) {
+    return (isbn.length() == 10) ? PREFIX_ISBN10.length() : 0;
+  }
+
+  /**
+   * @param isbn Cleaned up ISBN.
+   * @param shift Number of characters of the ISBN-10 prefix in front of the ISBN.
+   * @param index Index of the character, including the prefix.
+   * @return Character at the given index.
+   */
+  private static char getChar(CharSequence isbn, int shift, int index) {
+    if (index < shift) {
+      return PREFIX_ISBN10.charAt(index);
     }
-    return null;
+    return isbn.charAt(index - shift);
+  }
+
+  /**
+   * Check if an ISBN belongs to a known range, without building information about it.
+   * 
+   * @param isbn Cleaned up ISBN.
+   * @return True if the ISBN is in a known range which is not reserved.
+   */
+  public static boolean isInKnownRange(CharSequence isbn) {
+    if (isbn == null) {
+      return false;
+    }
+    Range eanPrefix = getRange(isbn, eanPrefixesTree);
+    if (eanPrefix == null) {
+      return false;
+    }
+    Range registrationGroup = getRange(isbn, registrationGroupsTree);
+    if ((registrationGroup == null) || (registrationGroup.getCleanPrefix() == null)) {
+      return false;
+    }
+    Rule rule = registrationGroup.getRule(
+        isbn, getShift(isbn), registrationGroup.getCleanPrefix().length());
+    return (rule != null) && (rule.getLength() > 0);
   }
 
   /**
@@ -240,6 +306,7 @@ public class ISBNRange {
   private static void analyzeEANPrefixes(Element root) throws JDOMException {
     eanPrefixes = new ArrayList<>();
     analyzeRanges(root, eanPrefixes, "/ISBNRangeMessage/EAN.UCCPrefixes/EAN.UCC");
+    eanPrefixesTree = buildTree(eanPrefixes);
   }
 
   /**
@@ -251,6 +318,7 @@ public class ISBNRange {
   private static void analyzeRegistrationGroups(Element root) throws JDOMException {
     registrationGroups = new ArrayList<>();
     analyzeRanges(root, registrationGroups, "/ISBNRangeMessage/RegistrationGroups/Group");
+    registrationGroupsTree = buildTree(registrationGroups);
   }
 
   /**
@@ -277,6 +345,62 @@ public class ISBNRange {
     }
   }
 
+  /**
+   * Index ranges by the digits of their prefix.
+   * 
+   * @param ranges List of ranges.
+   * @return Root of the tree.
+   */
+  private static RangeNode buildTree(List<Range> ranges) {
+    RangeNode root = new RangeNode();
+    for (int order = 0; order < ranges.size(); order++) {
+      Range range = ranges.get(order);
+      String cleanPrefix = range.getCleanPrefix();
+      if (cleanPrefix == null) {
+        continue;
+      }
+      RangeNode node = root;
+      for (int index = 0; (node != null) && (index < cleanPrefix.length()); index++) {
+        int digit = cleanPrefix.charAt(index) - '0';
+        if ((digit < 0) || (digit > 9)) {
+          node = null;
+        } else {
+          if (node.children == null) {
+            node.children = new RangeNode[10];
+          }
+          if (node.children[digit] == null) {
+            node.children[digit] = new RangeNode();
+          }
+          node = node.children[digit];
+        }
+      }
+      if ((node != null) && (node.range == null)) {
+        node.range = range;
+        node.order = order;
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Node of the tree indexing ranges by the digits of their prefix.
+   */
+  private static class RangeNode {
+
+    /** Children nodes for each digit */
+    RangeNode[] children;
+
+    /** Range whose prefix ends at this node */
+    Range range;
+
+    /** Order of the range in the ranges file */
+    int order;
+
+    RangeNode() {
+      // Nothing to do
+    }
+  }
+
   /**
    * Analyze RangeMessage.xml file Rules.
    * 
@@ -368,13 +492,24 @@ public class ISBNRange {
      * @return Rule for the next element according to the suffix.
      */
     Rule getRule(String suffix) {
+      return getRule(suffix, 0, 0);
+    }
+
+    /**
+     * @param isbn Cleaned up ISBN.
+     * @param shift Number of characters of the ISBN-10 prefix in front of the ISBN.
+     * @param start Beginning of the suffix, including the prefix.
+     * @return Rule for the next element according to the suffix.
+     */
+    Rule getRule(CharSequence isbn, int shift, int start) {
+      int length = isbn.length() + shift;
+      if (start > length) {
+        return null;
+      }
       for (Rule rule : rules) {
-        if (suffix.compareTo(rule.getFrom()) >= 0) {
+        if (compare(isbn, shift, start, length, rule.getFrom()) >= 0) {
           String to = rule.getTo();
-          if (suffix.length() > to.length()) {
-            suffix = suffix.substring(0, to.length());
-          }
-          if (suffix.compareTo(to) <= 0) {
+          if (compare(isbn, shift, start, Math.min(length, start + to.length()), to) <= 0) {
             return rule;
           }
         }
@@ -382,6 +517,27 @@ public class ISBNRange {
       return null;
     }
 
+    /**
+     * Compare a part of an ISBN with a value, as String.compareTo() would do.
+     * 
+     * @param isbn Cleaned up ISBN.
+     * @param shift Number of characters of the ISBN-10 prefix in front of the ISBN.
+     * @param start Beginning of the part, including the prefix.
+     * @param end End of the part, including the prefix.
+     * @param value Value.
+     * @return Comparison result.
+     */
+    private static int compare(CharSequence isbn, int shift, int start, int end, String value) {
+      int max = Math.min(end - start, value.length());
+      for (int index = 0; index < max; index++) {
+        int comparison = getChar(isbn, shift, start + index) - value.charAt(index);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return (end - start) - value.length();
+    }
+
     /**
      * @return Description of the EAN Prefix.
      * @see java.lang.Object#toString()
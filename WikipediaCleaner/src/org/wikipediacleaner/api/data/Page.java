@@ -23,9 +23,9 @@ import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.wikipediacleaner.api.configuration.WPCConfiguration;
 import org.wikipediacleaner.api.configuration.WikiConfiguration;
-import org.wikipediacleaner.api.constants.EnumCaseSensitiveness;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.analysis.PageAnalysis;
+import org.wikipediacleaner.api.data.analysis.PageAnalysisCache;
 import org.wikipediacleaner.api.data.page.PageComment;
 import org.wikipediacleaner.utils.string.CharacterUtils;
 
@@ -122,13 +122,10 @@ public class Page implements Comparable<Page> {
     if ((title1 == null) || (title2 == null)) {
       return false;
     }
-    if (!normalized1) {
-      title1 = normalizeTitle(title1);
+    if (normalized1 && normalized2) {
+      return title1.equals(title2);
     }
-    if (!normalized2) {
-      title2 = normalizeTitle(title2);
-    }
-    return title1.equals(title2);
+    return TitleKey.of(title1).equals(TitleKey.of(title2));
   }
 
   /**
@@ -137,7 +134,8 @@ public class Page implements Comparable<Page> {
    */
   public static String normalizeTitle(String pageTitle) {
     // TODO: should be by Wiki (capitalization of first letter)
-	return EnumCaseSensitiveness.FIRST_LETTER.normalize(pageTitle);
+    TitleKey key = TitleKey.of(pageTitle);
+    return (key != null) ? key.getText() : null;
   }
 
   /**
@@ -832,7 +830,7 @@ public class Page implements Comparable<Page> {
     }
     PageAnalysis result = null;
     if ((analysis == null) || (!currentContents.equals(analysis.getContents()))) {
-      result = new PageAnalysis(this, currentContents);
+      result = PageAnalysisCache.getCache().getAnalysis(this, currentContents);
       if ((update) || (analysis == null)) {
         analysis = result;
       }
@@ -14,7 +14,6 @@ import java.util.List;
 import org.wikipediacleaner.api.configuration.WPCConfiguration;
 import org.wikipediacleaner.api.configuration.WPCConfigurationBoolean;
 import org.wikipediacleaner.api.configuration.WPCConfigurationStringList;
-import org.wikipediacleaner.api.data.ISBNRange.ISBNInformation;
 import org.wikipediacleaner.api.data.PageElementTemplate.Parameter;
 import org.wikipediacleaner.api.data.analysis.PageAnalysis;
 import org.wikipediacleaner.api.data.contents.ContentsUtil;
@@ -406,15 +405,7 @@ public class PageElementISBN extends PageElement {
 //          if (!isCorrect || !isValid(number)) {
 //            return endNumber;
 //          }
-          ISBNInformation isbnInfo = ISBNRange.getInformation(number);
-          if (isbnInfo == null) {
-            return endNumber;
-          }
-          if (isbnInfo.isInReservedRange() || isbnInfo.isInUnknownRange()) {
-            return endNumber;
-          }
-
-          if (ISBNRange.getEANPrefix(number) == null) {
+          if (!ISBNRange.isInKnownRange(cleanISBN(number))) {
             return endNumber;
           }
         }
@@ -943,12 +934,18 @@ public class PageElementISBN extends PageElement {
     if (isbn == null) {
       return null;
     }
-    isbn = isbn.trim();
-    if (isbn.length() == 0) {
+    if (isClean(isbn)) {
       return isbn;
     }
+    StringBuilder result = new StringBuilder(isbn.length());
+    if (appendClean(isbn, result)) {
+      return result.toString();
+    }
+
+    // Comments and references have to be analyzed
+    isbn = isbn.trim();
     PageAnalysis analysis = new PageAnalysis(null, isbn);
-    StringBuilder result = new StringBuilder();
+    result.setLength(0);
     int i = 0;
     while (i < isbn.length()) {
       char current = Character.toUpperCase(isbn.charAt(i));
@@ -970,6 +967,39 @@ public class PageElementISBN extends PageElement {
     return result.toString();
   }
 
+  /**
+   * @param isbn ISBN number.
+   * @return True if the ISBN number contains only meaningful characters.
+   */
+  private static boolean isClean(CharSequence isbn) {
+    for (int i = 0; i < isbn.length(); i++) {
+      if (POSSIBLE_CHARACTERS.indexOf(isbn.charAt(i)) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Append the meaningful characters of an ISBN number.
+   * 
+   * @param isbn ISBN number.
+   * @param result Buffer receiving the meaningful characters.
+   * @return False if the ISBN number contains comments or tags that need an analysis.
+   */
+  private static boolean appendClean(CharSequence isbn, StringBuilder result) {
+    for (int i = 0; i < isbn.length(); i++) {
+      char current = Character.toUpperCase(isbn.charAt(i));
+      if (current == '<') {
+        return false;
+      }
+      if (POSSIBLE_CHARACTERS.indexOf(current) >= 0) {
+        result.append(current);
+      }
+    }
+    return true;
+  }
+
   /**
    * @param isbnValue ISBN value.
    * @return Computed checksum.
@@ -978,7 +1008,14 @@ public class PageElementISBN extends PageElement {
     if (isbnValue == null) {
       return 0;
     }
-    isbnValue = cleanISBN(isbnValue);
+    return computeCleanChecksum(cleanISBN(isbnValue));
+  }
+
+  /**
+   * @param isbnValue Cleaned up ISBN value.
+   * @return Computed checksum.
+   */
+  private static char computeCleanChecksum(CharSequence isbnValue) {
 
     // Check for ISBN-10
     if (isbnValue.length() == 10) {
@@ -1031,9 +1068,81 @@ public class PageElementISBN extends PageElement {
     if ((isbnValue.length() != 10) && (isbnValue.length() != 13)) {
       return false;
     }
-    if (isbnValue.charAt(isbnValue.length() - 1) != computeChecksum(isbnValue)) {
+    if (isbnValue.charAt(isbnValue.length() - 1) != computeCleanChecksum(isbnValue)) {
       return false;
     }
     return true;
   }
+
+  /**
+   * Result of the validation of an ISBN value.
+   */
+  public enum Validation {
+
+    /** Valid ISBN. */
+    VALID,
+
+    /** Incorrect length. */
+    INCORRECT_LENGTH,
+
+    /** Incorrect checksum. */
+    INCORRECT_CHECKSUM,
+
+    /** ISBN in an unknown or reserved range. */
+    INCORRECT_RANGE;
+  }
+
+  /**
+   * Validate an ISBN value: length, checksum and range.
+   * 
+   * @param isbnValue ISBN value.
+   * @return Result of the validation.
+   */
+  public static Validation validate(CharSequence isbnValue) {
+    return validate(isbnValue, new StringBuilder(13));
+  }
+
+  /**
+   * Validate a list of ISBN values: length, checksum and range.
+   * 
+   * @param isbnValues ISBN values.
+   * @return Result of the validation for each ISBN value.
+   */
+  public static Validation[] validate(List<? extends CharSequence> isbnValues) {
+    Validation[] result = new Validation[isbnValues.size()];
+    StringBuilder buffer = new StringBuilder(13);
+    for (int i = 0; i < result.length; i++) {
+      result[i] = validate(isbnValues.get(i), buffer);
+    }
+    return result;
+  }
+
+  /**
+   * Validate an ISBN value: length, checksum and range.
+   * 
+   * @param isbnValue ISBN value.
+   * @param buffer Buffer used for the cleaned up ISBN value.
+   * @return Result of the validation.
+   */
+  private static Validation validate(CharSequence isbnValue, StringBuilder buffer) {
+    if (isbnValue == null) {
+      return Validation.INCORRECT_LENGTH;
+    }
+    buffer.setLength(0);
+    if (!appendClean(isbnValue, buffer)) {
+      buffer.setLength(0);
+      buffer.append(cleanISBN(isbnValue.toString()));
+    }
+    int length = buffer.length();
+    if ((length != 10) && (length != 13)) {
+      return Validation.INCORRECT_LENGTH;
+    }
+    if (buffer.charAt(length - 1) != computeCleanChecksum(buffer)) {
+      return Validation.INCORRECT_CHECKSUM;
+    }
+    if (!ISBNRange.isInKnownRange(buffer)) {
+      return Validation.INCORRECT_RANGE;
+    }
+    return Validation.VALID;
+  }
 }
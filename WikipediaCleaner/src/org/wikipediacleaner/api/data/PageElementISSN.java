@@ -894,12 +894,18 @@ public class PageElementISSN extends PageElement {
     if (issn == null) {
       return null;
     }
-    issn = issn.trim();
-    if (issn.length() == 0) {
+    if (isClean(issn)) {
       return issn;
     }
+    StringBuilder result = new StringBuilder(issn.length());
+    if (appendClean(issn, result)) {
+      return result.toString();
+    }
+
+    // Comments and references have to be analyzed
+    issn = issn.trim();
     PageAnalysis analysis = new PageAnalysis(null, issn);
-    StringBuilder result = new StringBuilder();
+    result.setLength(0);
     int i = 0;
     while (i < issn.length()) {
       char current = Character.toUpperCase(issn.charAt(i));
@@ -921,6 +927,40 @@ public class PageElementISSN extends PageElement {
     return result.toString();
   }
 
+  /**
+   * @param issn ISSN number.
+   * @return True if the ISSN number contains only meaningful characters.
+   */
+  private static boolean isClean(CharSequence issn) {
+    for (int i = 0; i < issn.length(); i++) {
+      char current = issn.charAt(i);
+      if (((current < '0') || (current > '9')) && (current != 'X')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Append the meaningful characters of an ISSN number.
+   * 
+   * @param issn ISSN number.
+   * @param result Buffer receiving the meaningful characters.
+   * @return False if the ISSN number contains comments or tags that need an analysis.
+   */
+  private static boolean appendClean(CharSequence issn, StringBuilder result) {
+    for (int i = 0; i < issn.length(); i++) {
+      char current = Character.toUpperCase(issn.charAt(i));
+      if (current == '<') {
+        return false;
+      }
+      if (POSSIBLE_CHARACTERS.indexOf(current) >= 0) {
+        result.append(current);
+      }
+    }
+    return true;
+  }
+
   /**
    * @param issnValue ISSN value.
    * @return Computed checksum.
@@ -929,7 +969,14 @@ public class PageElementISSN extends PageElement {
     if (issnValue == null) {
       return 0;
     }
-    issnValue = cleanISSN(issnValue);
+    return computeCleanChecksum(cleanISSN(issnValue));
+  }
+
+  /**
+   * @param issnValue Cleaned up ISSN value.
+   * @return Computed checksum.
+   */
+  private static char computeCleanChecksum(CharSequence issnValue) {
 
     // Check for ISSN-8
     if (issnValue.length() == 8) {
@@ -964,9 +1011,74 @@ public class PageElementISSN extends PageElement {
     if (issnValue.length() != 8) {
       return false;
     }
-    if (issnValue.charAt(issnValue.length() - 1) != computeChecksum(issnValue)) {
+    if (issnValue.charAt(issnValue.length() - 1) != computeCleanChecksum(issnValue)) {
       return false;
     }
     return true;
   }
+
+  /**
+   * Result of the validation of an ISSN value.
+   */
+  public enum Validation {
+
+    /** Valid ISSN. */
+    VALID,
+
+    /** Incorrect length. */
+    INCORRECT_LENGTH,
+
+    /** Incorrect checksum. */
+    INCORRECT_CHECKSUM;
+  }
+
+  /**
+   * Validate an ISSN value: length and checksum.
+   * 
+   * @param issnValue ISSN value.
+   * @return Result of the validation.
+   */
+  public static Validation validate(CharSequence issnValue) {
+    return validate(issnValue, new StringBuilder(8));
+  }
+
+  /**
+   * Validate a list of ISSN values: length and checksum.
+   * 
+   * @param issnValues ISSN values.
+   * @return Result of the validation for each ISSN value.
+   */
+  public static Validation[] validate(List<? extends CharSequence> issnValues) {
+    Validation[] result = new Validation[issnValues.size()];
+    StringBuilder buffer = new StringBuilder(8);
+    for (int i = 0; i < result.length; i++) {
+      result[i] = validate(issnValues.get(i), buffer);
+    }
+    return result;
+  }
+
+  /**
+   * Validate an ISSN value: length and checksum.
+   * 
+   * @param issnValue ISSN value.
+   * @param buffer Buffer used for the cleaned up ISSN value.
+   * @return Result of the validation.
+   */
+  private static Validation validate(CharSequence issnValue, StringBuilder buffer) {
+    if (issnValue == null) {
+      return Validation.INCORRECT_LENGTH;
+    }
+    buffer.setLength(0);
+    if (!appendClean(issnValue, buffer)) {
+      buffer.setLength(0);
+      buffer.append(cleanISSN(issnValue.toString()));
+    }
+    if (buffer.length() != 8) {
+      return Validation.INCORRECT_LENGTH;
+    }
+    if (buffer.charAt(7) != computeCleanChecksum(buffer)) {
+      return Validation.INCORRECT_CHECKSUM;
+    }
+    return Validation.VALID;
+  }
 }
@@ -9,7 +9,9 @@ package org.wikipediacleaner.api.data;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.contents.ContentsUtil;
@@ -25,10 +27,13 @@ import org.wikipediacleaner.api.data.contents.template.TemplateParamNameResolver
  */
 public class PageElementTemplate extends PageElement {
 
-  private final String templateName;
+  private final TitleKey templateKey;
   private final String templateNameNotTrimmed;
   private final List<Parameter> parameters;
 
+  /** Index of the parameters by name, built on first use. */
+  private volatile Map<String, Integer> parameterIndexes;
+
   private final static String templateNameUnauthorizedCharacters = "{}[]|<>";
 
   /**
@@ -501,7 +506,14 @@ public class PageElementTemplate extends PageElement {
    * @return Template name.
    */
   public String getTemplateName() {
-    return templateName;
+    return templateKey.getText();
+  }
+
+  /**
+   * @return Key for the template name.
+   */
+  public TitleKey getTemplateKey() {
+    return templateKey;
   }
 
   /**
@@ -528,25 +540,34 @@ public class PageElementTemplate extends PageElement {
    * @return Parameter index.
    */
   public int getParameterIndex(String name) {
-    if (parameters == null) {
+    if ((parameters == null) || (name == null)) {
       return -1;
     }
-    int index = 0;
-    int paramNum = 1;
-    while (index < parameters.size()) {
-      String parameterName = parameters.get(index).name;
-      if ((parameterName == null) || (parameterName.length() == 0)) {
-        parameterName = Integer.toString(paramNum);
-      }
-      if (parameterName.equals(Integer.toString(paramNum))) {
-        paramNum++;
-      }
-      if (name.equals(parameterName)) {
-        return index;
+    Integer index = getParameterIndexes().get(name);
+    return (index != null) ? index.intValue() : -1;
+  }
+
+  /**
+   * @return Index of the parameters by name.
+   */
+  private Map<String, Integer> getParameterIndexes() {
+    Map<String, Integer> result = parameterIndexes;
+    if (result == null) {
+      result = new HashMap<>();
+      int paramNum = 1;
+      for (int index = 0; index < parameters.size(); index++) {
+        String parameterName = parameters.get(index).name;
+        if ((parameterName == null) || (parameterName.length() == 0)) {
+          parameterName = Integer.toString(paramNum);
+        }
+        if (parameterName.equals(Integer.toString(paramNum))) {
+          paramNum++;
+        }
+        result.putIfAbsent(parameterName, Integer.valueOf(index));
       }
-      index++;
+      parameterIndexes = result;
     }
-    return -1;
+    return result;
   }
 
   /**
@@ -674,7 +695,7 @@ public class PageElementTemplate extends PageElement {
       List<Parameter> parameters) {
     super(beginIndex, endIndex);
     this.templateNameNotTrimmed = templateName;
-    this.templateName = Page.normalizeTitle(templateName);
+    this.templateKey = TitleKey.of(templateName);
     this.parameters = parameters;
   }
 
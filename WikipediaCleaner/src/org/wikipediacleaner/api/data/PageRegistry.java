@@ -0,0 +1,126 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Registry of already known pages, indexed by normalized title and by page id.
+ *
+ * A registry is built once for an operation on a list of known pages,
+ * so that each page returned by the API is resolved without scanning the list.
+ */
+public class PageRegistry {
+
+  /** Known pages by normalized title. */
+  private final Map<TitleKey, List<Page>> pagesByTitle;
+
+  /** Known pages by page id. */
+  private final Map<Integer, Page> pagesById;
+
+  /**
+   * @param knownPages Already known pages.
+   */
+  public PageRegistry(Collection<Page> knownPages) {
+    int size = (knownPages != null) ? knownPages.size() : 0;
+    this.pagesByTitle = new HashMap<>(size * 4 / 3 + 1);
+    this.pagesById = new HashMap<>(size * 4 / 3 + 1);
+    if (knownPages != null) {
+      for (Page page : knownPages) {
+        add(page);
+      }
+    }
+  }
+
+  /**
+   * Register a page.
+   *
+   * @param page Page.
+   */
+  public void add(Page page) {
+    if (page == null) {
+      return;
+    }
+    TitleKey key = TitleKey.of(page.getTitle());
+    if (key != null) {
+      pagesByTitle.computeIfAbsent(key, k -> new ArrayList<>(1)).add(page);
+    }
+    if (page.getPageId() != null) {
+      pagesById.putIfAbsent(page.getPageId(), page);
+    }
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param title Page title.
+   * @param revisionId Revision id.
+   * @return The requested page if it exists in the known pages.
+   */
+  public Page getExistingPage(EnumWikipedia wiki, String title, String revisionId) {
+    if ((wiki == null) || (title == null)) {
+      return null;
+    }
+    List<Page> pages = pagesByTitle.get(TitleKey.of(title));
+    if (pages == null) {
+      return null;
+    }
+    for (Page page : pages) {
+      if ((page.getWikipedia() == wiki) &&
+          ((revisionId == null) || (revisionId.equals(page.getRevisionId().toString())))) {
+        return page;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param pageId Page id.
+   * @return The requested page if it exists in the known pages.
+   */
+  public Page getExistingPage(EnumWikipedia wiki, Integer pageId) {
+    if ((wiki == null) || (pageId == null)) {
+      return null;
+    }
+    Page page = pagesById.get(pageId);
+    if ((page == null) || (page.getWikipedia() != wiki)) {
+      return null;
+    }
+    return page;
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param title Page title.
+   * @param pageId Page id.
+   * @param revisionId Revision id.
+   * @return The requested page, a new page if it doesn't exist in the known pages.
+   */
+  public Page getPage(
+      EnumWikipedia wiki,
+      String title, Integer pageId, String revisionId) {
+
+    // Check in the known pages
+    Page page = (title != null) ?
+        getExistingPage(wiki, title, revisionId) :
+        getExistingPage(wiki, pageId);
+    if (page != null) {
+      return page;
+    }
+
+    // Create page
+    return DataManager.createSimplePage(wiki, title, pageId, revisionId, null);
+  }
+}
@@ -83,6 +83,11 @@ public class RecentChange implements Comparable<RecentChange> {
    */
   private String logAction;
 
+  /**
+   * Target of the action for logs (new title for moves).
+   */
+  private String logTarget;
+
   /**
    * User at the origin of the change.
    */
@@ -196,6 +201,13 @@ public class RecentChange implements Comparable<RecentChange> {
     return logAction;
   }
 
+  /**
+   * @return Target of the action for the log (new title for moves).
+   */
+  public String getLogTarget() {
+    return logTarget;
+  }
+
   /**
    * @return User at the origin of the change.
    */
@@ -273,6 +285,13 @@ public class RecentChange implements Comparable<RecentChange> {
     this.logAction = action;
   }
 
+  /**
+   * @param target Target of the action for log (new title for moves).
+   */
+  public void setLogTarget(String target) {
+    this.logTarget = target;
+  }
+
   /**
    * @param user User at the origin of the change.
    */
@@ -0,0 +1,185 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wikipediacleaner.api.configuration.WikiConfiguration;
+import org.wikipediacleaner.api.constants.EnumCaseSensitiveness;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Normalized key for a title, to compare titles without normalizing them again.
+ *
+ * Keys are interned in a table for each wiki and name space: the same title
+ * (raw or normalized) always gives the same instance, so comparisons are usually
+ * a simple identity check, and normalization is done once per title.
+ * Tables are bounded: when a table is full, it is simply emptied.
+ */
+public final class TitleKey {
+
+  /** Name space used when the name space of the title is unknown. */
+  public final static int UNKNOWN_NAMESPACE = Integer.MIN_VALUE;
+
+  /** Maximum number of titles in each table. */
+  private final static int MAX_TABLE_SIZE = 50000;
+
+  /** Key used for the tables of titles not related to a wiki. */
+  private final static Object NO_WIKI = new Object();
+
+  /** Tables of keys, by wiki and name space. */
+  private final static Map<Object, Map<Integer, Map<String, TitleKey>>> tables = new ConcurrentHashMap<>();
+
+  /** Case sensitiveness used for normalizing the title. */
+  private final EnumCaseSensitiveness caseSensitiveness;
+
+  /** Name space of the title. */
+  private final int namespace;
+
+  /** Normalized title. */
+  private final String text;
+
+  /** Hash code of the key. */
+  private final int hash;
+
+  /**
+   * Retrieve the key for a title, normalized with the first letter in upper case.
+   *
+   * @param title Title.
+   * @return Key for the title, null if the title is null.
+   */
+  public static TitleKey of(String title) {
+    return of(NO_WIKI, UNKNOWN_NAMESPACE, EnumCaseSensitiveness.FIRST_LETTER, title);
+  }
+
+  /**
+   * Retrieve the key for a title in a name space of a wiki.
+   *
+   * @param wiki Wiki.
+   * @param namespace Name space of the title.
+   * @param title Title (without the name space).
+   * @return Key for the title, null if the title is null.
+   */
+  public static TitleKey of(EnumWikipedia wiki, int namespace, String title) {
+    if (wiki == null) {
+      return of(NO_WIKI, namespace, EnumCaseSensitiveness.FIRST_LETTER, title);
+    }
+    EnumCaseSensitiveness caseSensitiveness = EnumCaseSensitiveness.FIRST_LETTER;
+    WikiConfiguration config = wiki.getWikiConfiguration();
+    Namespace namespaceConfig = (config != null) ? config.getNamespace(namespace) : null;
+    if ((namespaceConfig != null) && (namespaceConfig.getCaseSensitiveness() != null)) {
+      caseSensitiveness = namespaceConfig.getCaseSensitiveness();
+    }
+    return of(wiki, namespace, caseSensitiveness, title);
+  }
+
+  /**
+   * Retrieve the key for a title.
+   *
+   * @param wiki Wiki (or key for titles not related to a wiki).
+   * @param namespace Name space of the title.
+   * @param caseSensitiveness Case sensitiveness for the title.
+   * @param title Title.
+   * @return Key for the title, null if the title is null.
+   */
+  private static TitleKey of(
+      Object wiki, int namespace,
+      EnumCaseSensitiveness caseSensitiveness, String title) {
+    if (title == null) {
+      return null;
+    }
+    Map<String, TitleKey> table = tables.
+        computeIfAbsent(wiki, key -> new ConcurrentHashMap<>()).
+        computeIfAbsent(Integer.valueOf(namespace), key -> new ConcurrentHashMap<>());
+    TitleKey result = table.get(title);
+    if ((result != null) && (result.caseSensitiveness == caseSensitiveness)) {
+      return result;
+    }
+
+    // Create the key, reusing the key of the normalized title if it exists
+    if (table.size() >= MAX_TABLE_SIZE) {
+      table.clear();
+    }
+    String text = caseSensitiveness.normalize(title);
+    result = table.get(text);
+    if ((result == null) || (result.caseSensitiveness != caseSensitiveness)) {
+      result = new TitleKey(caseSensitiveness, namespace, text);
+      table.put(text, result);
+    }
+    if (!text.equals(title)) {
+      table.put(title, result);
+    }
+    return result;
+  }
+
+  /**
+   * @param caseSensitiveness Case sensitiveness used for normalizing the title.
+   * @param namespace Name space of the title.
+   * @param text Normalized title.
+   */
+  private TitleKey(EnumCaseSensitiveness caseSensitiveness, int namespace, String text) {
+    this.caseSensitiveness = caseSensitiveness;
+    this.namespace = namespace;
+    this.text = text;
+    this.hash = 31 * namespace + text.hashCode();
+  }
+
+  /**
+   * @return Name space of the title.
+   */
+  public int getNamespace() {
+    return namespace;
+  }
+
+  /**
+   * @return Normalized title.
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * @return Hash code of the key.
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  /**
+   * @param obj Other object.
+   * @return True if the other object is the key of the same title.
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TitleKey)) {
+      return false;
+    }
+    TitleKey other = (TitleKey) obj;
+    return
+        (hash == other.hash) &&
+        (namespace == other.namespace) &&
+        text.equals(other.text);
+  }
+
+  /**
+   * @return Normalized title.
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+}
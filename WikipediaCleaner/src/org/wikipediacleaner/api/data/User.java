@@ -17,6 +17,7 @@ import java.util.List;
  */
 public class User {
 
+  public final static String RIGHT_APIHIGHLIMITS = "apihighlimits";
   public final static String RIGHT_DELETE = "delete";
   public final static String RIGHT_EDIT = "edit";
   public final static String RIGHT_MOVE = "move";
@@ -41,6 +41,7 @@ import org.wikipediacleaner.api.data.PageElementTable;
 import org.wikipediacleaner.api.data.PageElementTag;
 import org.wikipediacleaner.api.data.PageElementTemplate;
 import org.wikipediacleaner.api.data.PageElementTitle;
+import org.wikipediacleaner.api.data.TitleKey;
 import org.wikipediacleaner.api.data.contents.ContentsElement;
 import org.wikipediacleaner.api.data.contents.ContentsElementComparator;
 import org.wikipediacleaner.api.data.contents.comment.ContainerComment;
@@ -50,6 +51,10 @@ import org.wikipediacleaner.api.data.contents.tag.TagType;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.Performance;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvent;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvents;
+import org.wikipediacleaner.utils.metrics.Histogram;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -69,6 +74,9 @@ public class PageAnalysis {
   /** Current version of the text */
   private final Contents contents;
 
+  /** Analysis of the same text performing the analysis for this one, null if none */
+  private final PageAnalysis source;
+
   /** True if spelling should be checked */
   private boolean checkSpelling;
 
@@ -79,6 +87,7 @@ public class PageAnalysis {
   public PageAnalysis(Page page, String contents) {
     this.page = page;
     this.contents = Contents.createContents((contents != null) ? contents : page.getContents());
+    this.source = null;
     this.areas = new Areas();
 
     // Default configuration
@@ -87,6 +96,27 @@ public class PageAnalysis {
         null, ConfigurationValueBoolean.SPELLING);
   }
 
+  /**
+   * Create an analysis sharing the results of an analysis of the same text.
+   * 
+   * Each level of analysis is performed by the source analysis only when requested,
+   * and its results are then shared with this analysis.
+   * 
+   * @param page Page.
+   * @param source Analysis of the same text for a page with the same title.
+   */
+  PageAnalysis(Page page, PageAnalysis source) {
+    this.page = page;
+    this.contents = source.contents;
+    this.source = source;
+    this.areas = source.areas;
+
+    // Default configuration
+    Configuration config = Configuration.getConfiguration();
+    checkSpelling = config.getBoolean(
+        null, ConfigurationValueBoolean.SPELLING);
+  }
+
   /**
    * @param trace True to force tracing time spent in analysis.
    */
@@ -177,12 +207,28 @@ public class PageAnalysis {
     return checkSpelling;
   }
 
+  /** Metrics for the time spent in each level of analysis. */
+  private final static Histogram[] levelMetrics = {
+    levelMetric("1"), levelMetric("2"), levelMetric("3"),
+    levelMetric("4"), levelMetric("5"), levelMetric("6") };
+
+  /**
+   * @param level Level of analysis.
+   * @return Metrics for the time spent in the level of analysis.
+   */
+  private static Histogram levelMetric(String level) {
+    return MetricsRegistry.getRegistry().histogram(
+        "wpcleaner_analysis_level_duration_seconds", "Time spent in each level of page analysis",
+        "level", level);
+  }
+
   /**
    * Perform page analysis.
    * 
    * @param perf Performance analysis.
    */
   public void performFullPageAnalysis(AnalysisPerformance perf) {
+    FlightRecorderEvent event = FlightRecorderEvents.PAGE_ANALYSIS.begin();
     long time0 = System.nanoTime();
     level1Analysis();
     long time1 = System.nanoTime();
@@ -202,6 +248,23 @@ public class PageAnalysis {
     long time5 = System.nanoTime();
     level6Analysis();
     long time6 = System.nanoTime();
+    levelMetrics[0].observeNanos(time1 - time0);
+    levelMetrics[1].observeNanos(time2 - time1);
+    levelMetrics[2].observeNanos(time3 - time2);
+    levelMetrics[3].observeNanos(time4 - time3);
+    levelMetrics[4].observeNanos(time5 - time4);
+    levelMetrics[5].observeNanos(time6 - time5);
+    if (event != null) {
+      event.set("title", page.getTitle());
+      event.set("size", getContents().length());
+      event.set("level1", time1 - time0);
+      event.set("level2", time2 - time1);
+      event.set("level3", time3 - time2);
+      event.set("level4", time4 - time3);
+      event.set("level5", time5 - time4);
+      event.set("level6", time6 - time5);
+      event.commit();
+    }
     if (perf != null) {
       perf.level1 += (time1 - time0);
       perf.level2 += (time2 - time1);
@@ -584,6 +647,11 @@ public class PageAnalysis {
       if (level1Done) {
         return;
       }
+      if (source != null) {
+        source.level1Analysis();
+        level1Done = true;
+        return;
+      }
 
       Performance perf = null;
       if (traceTime) {
@@ -594,6 +662,7 @@ public class PageAnalysis {
 
       // Update areas of non wiki text
       areas.addComments(comments().getAll());
+      level1Done = true;
 
       if (perf != null) {
         perf.printEndAlways();
@@ -610,6 +679,11 @@ public class PageAnalysis {
       if (tags != null) {
         return;
       }
+      if (source != null) {
+        source.level2Analysis();
+        tags = source.tags;
+        return;
+      }
       level1Analysis();
 
       Performance perf = null;
@@ -687,6 +761,20 @@ public class PageAnalysis {
       if (internalLinks != null) {
         return;
       }
+      if (source != null) {
+        source.level3Analysis();
+        titles = source.titles;
+        images = source.images;
+        categories = source.categories;
+        interwikiLinks = source.interwikiLinks;
+        languageLinks = source.languageLinks;
+        functions = source.functions;
+        magicWords = source.magicWords;
+        templates = source.templates;
+        parameters = source.parameters;
+        internalLinks = source.internalLinks;
+        return;
+      }
       level2Analysis();
 
       Performance perf = null;
@@ -800,6 +888,11 @@ public class PageAnalysis {
       if (externalLinks != null) {
         return;
       }
+      if (source != null) {
+        source.level4Analysis();
+        externalLinks = source.externalLinks;
+        return;
+      }
       level3Analysis();
 
       Performance perf = null;
@@ -867,6 +960,14 @@ public class PageAnalysis {
       if ((isbns != null) || (issns != null) || (pmids != null)) {
         return;
       }
+      if (source != null) {
+        source.level5Analysis();
+        isbns = source.isbns;
+        issns = source.issns;
+        pmids = source.pmids;
+        rfcs = source.rfcs;
+        return;
+      }
       level4Analysis();
 
       Performance perf = null;
@@ -900,6 +1001,11 @@ public class PageAnalysis {
       if (isbns != null) {
         return;
       }
+      if (source != null) {
+        source.level5AnalysisISBN();
+        isbns = source.isbns;
+        return;
+      }
       level4Analysis();
 
       Performance perf = null;
@@ -927,6 +1033,11 @@ public class PageAnalysis {
       if (issns != null) {
         return;
       }
+      if (source != null) {
+        source.level5AnalysisISSN();
+        issns = source.issns;
+        return;
+      }
       level4Analysis();
 
       Performance perf = null;
@@ -954,6 +1065,11 @@ public class PageAnalysis {
       if (pmids != null) {
         return;
       }
+      if (source != null) {
+        source.level5AnalysisPMID();
+        pmids = source.pmids;
+        return;
+      }
       level4Analysis();
 
       Performance perf = null;
@@ -981,6 +1097,11 @@ public class PageAnalysis {
       if (rfcs != null) {
         return;
       }
+      if (source != null) {
+        source.level5AnalysisRFC();
+        rfcs = source.rfcs;
+        return;
+      }
       level4Analysis();
 
       Performance perf = null;
@@ -1008,6 +1129,13 @@ public class PageAnalysis {
       if ((tables != null) || (listItems != null)) {
         return;
       }
+      if (source != null) {
+        source.level6Analysis();
+        paragraphs = source.paragraphs;
+        listItems = source.listItems;
+        tables = source.tables;
+        return;
+      }
       level5Analysis();
 
       Performance perf = null;
@@ -1544,22 +1672,48 @@ public class PageAnalysis {
     return templates;
   }
 
+  /**
+   * Lock for updating the templates categorized by name.
+   */
+  private final Object lockTemplatesByName = new Object();
+
+  /**
+   * All templates in the page categorized by normalized name.
+   */
+  private Map<TitleKey, List<PageElementTemplate>> templatesByName;
+
+  /**
+   * @return All templates in the page categorized by normalized name.
+   */
+  private Map<TitleKey, List<PageElementTemplate>> getTemplatesByName() {
+    synchronized (lockTemplatesByName) {
+      if (templatesByName == null) {
+        Map<TitleKey, List<PageElementTemplate>> tmpIndex = new HashMap<>();
+        List<PageElementTemplate> tmpTemplates = getTemplates();
+        if (tmpTemplates != null) {
+          for (PageElementTemplate template : tmpTemplates) {
+            tmpIndex.computeIfAbsent(
+                template.getTemplateKey(), key -> new ArrayList<>()).add(template);
+          }
+        }
+        tmpIndex.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        templatesByName = tmpIndex;
+      }
+      return templatesByName;
+    }
+  }
+
   /**
    * @param name Template name.
-   * @return All templates with this name in the page analysis.
+   * @return All templates with this name in the page analysis (unmodifiable list).
    */
   public List<PageElementTemplate> getTemplates(String name) {
     if (name == null) {
       return null;
     }
-    List<PageElementTemplate> tmpTemplates = getTemplates();
-    List<PageElementTemplate> result = new ArrayList<>();
-    if (tmpTemplates != null) {
-      for (PageElementTemplate template : tmpTemplates) {
-        if (Page.areSameTitle(name, template.getTemplateName())) {
-          result.add(template);
-        }
-      }
+    List<PageElementTemplate> result = getTemplatesByName().get(TitleKey.of(name));
+    if (result == null) {
+      return Collections.emptyList();
     }
     return result;
   }
@@ -1572,15 +1726,11 @@ public class PageAnalysis {
     if (name == null) {
       return null;
     }
-    List<PageElementTemplate> tmpTemplates = getTemplates();
-    if (tmpTemplates != null) {
-      for (PageElementTemplate template : tmpTemplates) {
-        if (Page.areSameTitle(name, template.getTemplateName())) {
-          return template;
-        }
-      }
+    List<PageElementTemplate> result = getTemplatesByName().get(TitleKey.of(name));
+    if ((result == null) || result.isEmpty()) {
+      return null;
     }
-    return null;
+    return result.get(0);
   }
 
   /**
@@ -1753,19 +1903,12 @@ public class PageAnalysis {
     synchronized (lockTagsByType) {
       if (tagsByType == null) {
         tagsByType = new HashMap<>();
-      }
-      List<PageElementTag> result = tagsByType.get(type);
-      if (result == null) {
         List<PageElementTag> tmpTags = getTags();
-        result = new ArrayList<>();
-        tagsByType.put(type, result);
         for (PageElementTag tag : tmpTags) {
-          if (type.equals(tag.getType())) {
-            result.add(tag);
-          }
+          tagsByType.computeIfAbsent(tag.getType(), key -> new ArrayList<>()).add(tag);
         }
       }
-      return result;
+      return tagsByType.computeIfAbsent(type, key -> new ArrayList<>());
     }
   }
 
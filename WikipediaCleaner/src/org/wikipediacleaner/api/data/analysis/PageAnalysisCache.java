@@ -0,0 +1,390 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.analysis;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.TitleKey;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+import org.wikipediacleaner.utils.metrics.Counter;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+
+
+/**
+ * Process wide cache of page analyses.
+ *
+ * Analyses of the stored revision of each page are kept, so that the same revision
+ * opened in several windows or analyzed again by a worker is parsed only once:
+ * each request gets its own analysis bound to its page, sharing the parsed elements.
+ * Only the contents of the stored revision are cached, not texts being edited.
+ * Each page has at most one entry, replaced when another revision is analyzed
+ * and removed when the page is modified.
+ * Entries are weighted by the size of the text, least recently used entries are
+ * removed first, and entries are softly referenced so that they can also be
+ * reclaimed when memory is low.
+ */
+public class PageAnalysisCache {
+
+  /** Estimated memory used by an analysis for each character of the text. */
+  private final static long BYTES_PER_CHARACTER = 20;
+
+  /** Global cache. */
+  private static PageAnalysisCache cache;
+
+  /**
+   * @return Global cache.
+   */
+  public static synchronized PageAnalysisCache getCache() {
+    if (cache == null) {
+      cache = new PageAnalysisCache();
+      MetricsRegistry metrics = MetricsRegistry.getRegistry();
+      cache.hitsCounter = metrics.counter(
+          "wpcleaner_analysis_cache_hits_total", "Analyses shared from the cache");
+      cache.missesCounter = metrics.counter(
+          "wpcleaner_analysis_cache_misses_total", "Analyses not found in the cache");
+      cache.evictionsCounter = metrics.counter(
+          "wpcleaner_analysis_cache_evictions_total", "Analyses removed from the cache to free memory");
+      metrics.gauge(
+          "wpcleaner_analysis_cache_bytes", "Estimated memory used by the analyses in the cache",
+          cache::getWeight);
+    }
+    return cache;
+  }
+
+  /** Entries by page, least recently used first. */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Entries reclaimed by the garbage collector. */
+  private final ReferenceQueue<PageAnalysis> reclaimed = new ReferenceQueue<>();
+
+  /** Estimated memory used by the entries (in bytes). */
+  private long weight;
+
+  /** Number of requests answered from the cache. */
+  private long hits;
+
+  /** Number of requests not answered from the cache. */
+  private long misses;
+
+  /** Number of entries removed to free memory. */
+  private long evictions;
+
+  /** Metric for the requests answered from the cache, null if not exported. */
+  private Counter hitsCounter;
+
+  /** Metric for the requests not answered from the cache, null if not exported. */
+  private Counter missesCounter;
+
+  /** Metric for the entries removed to free memory, null if not exported. */
+  private Counter evictionsCounter;
+
+  /**
+   * Constructor.
+   */
+  PageAnalysisCache() {
+    // Nothing to do
+  }
+
+  /**
+   * @param page Page.
+   * @param contents Page contents.
+   * @return Analysis of the page contents, sharing a previous analysis if possible.
+   */
+  public PageAnalysis getAnalysis(Page page, String contents) {
+    long maxWeight = getMaxWeight();
+    Key key = Key.of(page, contents);
+    if ((key == null) || (maxWeight <= 0) || !contents.equals(page.getContents())) {
+      return new PageAnalysis(page, contents);
+    }
+    Integer revisionId = page.getRevisionId();
+
+    // Check for an analysis of the same revision
+    PageAnalysis source = null;
+    synchronized (this) {
+      expunge();
+      Entry entry = entries.get(key);
+      if ((entry != null) && entry.isFor(revisionId, contents)) {
+        source = entry.get();
+        if ((source == null) || !contents.equals(source.getContents())) {
+          source = null;
+          removeEntry(key);
+        }
+      }
+      if (source != null) {
+        hits++;
+        increment(hitsCounter);
+      } else {
+        misses++;
+        increment(missesCounter);
+      }
+    }
+    if (source != null) {
+      return new PageAnalysis(page, source);
+    }
+
+    // Store a new analysis, replacing the analysis of another revision
+    PageAnalysis result = new PageAnalysis(page, contents);
+    long entryWeight = contents.length() * BYTES_PER_CHARACTER;
+    if (entryWeight > maxWeight) {
+      return result;
+    }
+    synchronized (this) {
+      Entry previous = entries.put(key, new Entry(key, revisionId, contents, result, entryWeight, reclaimed));
+      if (previous != null) {
+        weight -= previous.weight;
+      }
+      weight += entryWeight;
+      evict(maxWeight);
+    }
+    return result;
+  }
+
+  /**
+   * Remove the analyses of a page.
+   *
+   * @param wiki Wiki.
+   * @param title Page title.
+   */
+  public synchronized void invalidate(EnumWikipedia wiki, String title) {
+    TitleKey titleKey = TitleKey.of(title);
+    if ((wiki == null) || (titleKey == null)) {
+      return;
+    }
+    removeEntry(new Key(wiki, titleKey));
+  }
+
+  /**
+   * Remove all analyses.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * @return Number of analyses in the cache.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return Estimated memory used by the analyses in the cache (in bytes).
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return Number of requests answered from the cache.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return Number of requests not answered from the cache.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return Number of analyses removed to free memory.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return Maximum memory used by the analyses in the cache (in bytes).
+   */
+  private static long getMaxWeight() {
+    Configuration config = Configuration.getConfiguration();
+    int maxSize = config.getInt(null, ConfigurationValueInteger.ANALYSIS_CACHE_MAX_SIZE);
+    long result = Math.max(0, maxSize) * 1024L * 1024L;
+    return Math.min(result, Runtime.getRuntime().maxMemory() / 4);
+  }
+
+  /**
+   * @param counter Metric to increment, null if not exported.
+   */
+  private static void increment(Counter counter) {
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  /**
+   * Remove an entry.
+   *
+   * @param key Key of the entry.
+   */
+  private void removeEntry(Key key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      weight -= entry.weight;
+    }
+  }
+
+  /**
+   * Remove entries reclaimed by the garbage collector.
+   */
+  private void expunge() {
+    Reference<? extends PageAnalysis> reference = null;
+    while ((reference = reclaimed.poll()) != null) {
+      Entry entry = (Entry) reference;
+      if (entries.get(entry.key) == entry) {
+        entries.remove(entry.key);
+        weight -= entry.weight;
+        evictions++;
+        increment(evictionsCounter);
+      }
+    }
+  }
+
+  /**
+   * Remove least recently used entries and entries reclaimed by the garbage collector.
+   *
+   * @param maxWeight Maximum memory used by the entries (in bytes).
+   */
+  private void evict(long maxWeight) {
+    expunge();
+    Iterator<Entry> itEntry = entries.values().iterator();
+    while ((weight > maxWeight) && itEntry.hasNext()) {
+      Entry entry = itEntry.next();
+      weight -= entry.weight;
+      evictions++;
+      increment(evictionsCounter);
+      itEntry.remove();
+    }
+  }
+
+  /**
+   * Key of the analyses of a page.
+   */
+  private static class Key {
+
+    /** Wiki. */
+    final EnumWikipedia wiki;
+
+    /** Normalized page title. */
+    final TitleKey title;
+
+    /**
+     * @param page Page.
+     * @param contents Page contents.
+     * @return Key for the analysis, null if the analysis can't be shared.
+     */
+    static Key of(Page page, String contents) {
+      if ((page == null) || (page.getWikipedia() == null) || (contents == null)) {
+        return null;
+      }
+      TitleKey title = TitleKey.of(page.getTitle());
+      if (title == null) {
+        return null;
+      }
+      return new Key(page.getWikipedia(), title);
+    }
+
+    /**
+     * @param wiki Wiki.
+     * @param title Normalized page title.
+     */
+    Key(EnumWikipedia wiki, TitleKey title) {
+      this.wiki = wiki;
+      this.title = title;
+    }
+
+    /**
+     * @return Hash code.
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(wiki, title);
+    }
+
+    /**
+     * @param obj Object.
+     * @return True if the object is the same key.
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return (wiki == other.wiki) && title.equals(other.title);
+    }
+  }
+
+  /**
+   * Analysis stored in the cache.
+   */
+  private static class Entry extends SoftReference<PageAnalysis> {
+
+    /** Key of the entry. */
+    final Key key;
+
+    /** Revision id. */
+    final Integer revisionId;
+
+    /** Length of the text. */
+    final int length;
+
+    /** Hash code of the text. */
+    final int textHash;
+
+    /** Estimated memory used by the analysis (in bytes). */
+    final long weight;
+
+    /**
+     * @param key Key of the entry.
+     * @param revisionId Revision id.
+     * @param contents Page contents.
+     * @param analysis Analysis.
+     * @param weight Estimated memory used by the analysis (in bytes).
+     * @param queue Queue for entries reclaimed by the garbage collector.
+     */
+    Entry(
+        Key key, Integer revisionId, String contents,
+        PageAnalysis analysis, long weight,
+        ReferenceQueue<PageAnalysis> queue) {
+      super(analysis, queue);
+      this.key = key;
+      this.revisionId = revisionId;
+      this.length = contents.length();
+      this.textHash = contents.hashCode();
+      this.weight = weight;
+    }
+
+    /**
+     * @param otherRevisionId Revision id.
+     * @param contents Page contents.
+     * @return True if the entry is for this revision and text.
+     */
+    boolean isFor(Integer otherRevisionId, String contents) {
+      return Objects.equals(revisionId, otherRevisionId) &&
+          (length == contents.length()) &&
+          (textHash == contents.hashCode());
+    }
+  }
+}
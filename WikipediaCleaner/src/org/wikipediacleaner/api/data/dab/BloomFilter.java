@@ -0,0 +1,127 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.dab;
+
+import java.nio.LongBuffer;
+
+
+/**
+ * Bloom filter on byte sequences.
+ *
+ * The filter tells quickly that a value is not in a set,
+ * with a small proportion of false positives.
+ * Bits are kept in a buffer so that the filter can be memory mapped from a file.
+ */
+public class BloomFilter {
+
+  /** Number of bits for each value. */
+  private final static int BITS_PER_VALUE = 10;
+
+  /** Number of hash functions. */
+  private final static int HASH_COUNT = 7;
+
+  /** Bits of the filter. */
+  private final LongBuffer bits;
+
+  /** Number of bits in the filter. */
+  private final long bitCount;
+
+  /**
+   * @param valueCount Expected number of values.
+   * @return Number of longs needed for the bits of a filter.
+   */
+  public static int getLongCount(int valueCount) {
+    long count = (Math.max(valueCount, 1) * (long) BITS_PER_VALUE + 63) / 64;
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create an empty filter.
+   *
+   * @param valueCount Expected number of values.
+   */
+  public BloomFilter(int valueCount) {
+    this(LongBuffer.wrap(new long[getLongCount(valueCount)]));
+  }
+
+  /**
+   * Create a filter on existing bits.
+   *
+   * @param bits Bits of the filter.
+   */
+  public BloomFilter(LongBuffer bits) {
+    this.bits = bits;
+    this.bitCount = bits.capacity() * 64L;
+  }
+
+  /**
+   * @return Bits of the filter.
+   */
+  public LongBuffer getBits() {
+    return bits.duplicate();
+  }
+
+  /**
+   * Add a value to the filter.
+   *
+   * @param value Value.
+   */
+  public void add(byte[] value) {
+    long hash = hash(value);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = getBit(hash1 + i * hash2);
+      int index = (int) (bit >>> 6);
+      bits.put(index, bits.get(index) | (1L << bit));
+    }
+  }
+
+  /**
+   * @param value Value.
+   * @return False if the value is certainly not in the filter.
+   */
+  public boolean mightContain(byte[] value) {
+    long hash = hash(value);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = getBit(hash1 + i * hash2);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param hash Hash value.
+   * @return Bit for the hash value.
+   */
+  private long getBit(int hash) {
+    return (hash & 0xFFFFFFFFL) % bitCount;
+  }
+
+  /**
+   * 64 bits FNV-1a hash, mixed to spread the bits.
+   *
+   * @param value Value.
+   * @return Hash of the value.
+   */
+  private static long hash(byte[] value) {
+    long hash = 0xCBF29CE484222325L;
+    for (byte b : value) {
+      hash ^= (b & 0xFF);
+      hash *= 0x100000001B3L;
+    }
+    hash ^= (hash >>> 33);
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= (hash >>> 33);
+    return hash;
+  }
+}
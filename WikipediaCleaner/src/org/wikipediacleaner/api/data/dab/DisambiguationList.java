@@ -0,0 +1,337 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.dab;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.Version;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.TitleKey;
+
+
+/**
+ * List of disambiguation pages of a wiki.
+ *
+ * Titles are kept in a compact sorted set, persisted for each wiki and read back
+ * in memory when loaded again, with a Bloom filter in front so that most titles which are not
+ * disambiguation pages are rejected without looking into the set.
+ * Changes made after the list has been built are kept aside,
+ * and merged into the set when the list is saved.
+ */
+public class DisambiguationList {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(DisambiguationList.class);
+
+  /** Identifier of the format of the files. */
+  private final static int MAGIC = 0x57504344;
+
+  /** Version of the format of the files. */
+  private final static int FORMAT_VERSION = 1;
+
+  /** Suffix of the files. */
+  private final static String SUFFIX = ".dab";
+
+  /** Maximum age of a persisted list before it's built again (in milliseconds). */
+  private final static long MAX_AGE = 24L * 3600L * 1000L;
+
+  /** Directory for the persisted lists. */
+  private static File directory = new File(
+      new File(SystemUtils.getUserHome(), "." + Version.PROGRAM), "dab");
+
+  /** Wiki. */
+  private final EnumWikipedia wiki;
+
+  /** Time when the list was built or last updated. */
+  private final long time;
+
+  /** Sorted set of titles. */
+  private final FrontCodedTitles titles;
+
+  /** Bloom filter on the titles. */
+  private final BloomFilter filter;
+
+  /** Titles added since the list was built. */
+  private final Set<String> added = ConcurrentHashMap.newKeySet();
+
+  /** Titles removed since the list was built. */
+  private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Build a list of disambiguation pages.
+   *
+   * @param wiki Wiki.
+   * @param titles Titles of the disambiguation pages.
+   * @return List of disambiguation pages.
+   */
+  public static DisambiguationList build(EnumWikipedia wiki, Collection<String> titles) {
+    return build(wiki, titles, System.currentTimeMillis());
+  }
+
+  /**
+   * Build a list of disambiguation pages.
+   *
+   * @param wiki Wiki.
+   * @param titles Titles of the disambiguation pages.
+   * @param time Time when the titles were retrieved.
+   * @return List of disambiguation pages.
+   */
+  private static DisambiguationList build(
+      EnumWikipedia wiki, Collection<String> titles, long time) {
+    Collection<String> normalized = new ArrayList<>(titles.size());
+    for (String title : titles) {
+      String tmp = normalize(wiki, title);
+      if (tmp != null) {
+        normalized.add(tmp);
+      }
+    }
+    FrontCodedTitles tmpTitles = FrontCodedTitles.build(normalized);
+    BloomFilter tmpFilter = new BloomFilter(tmpTitles.size());
+    tmpTitles.forEach(title -> tmpFilter.add(title.getBytes(StandardCharsets.UTF_8)));
+    return new DisambiguationList(wiki, time, tmpTitles, tmpFilter);
+  }
+
+  /**
+   * Load the persisted list of disambiguation pages of a wiki.
+   *
+   * The file is read in memory rather than memory mapped,
+   * so that it can be replaced when the list is saved again.
+   *
+   * @param wiki Wiki.
+   * @return List of disambiguation pages, null if no recent list has been persisted.
+   */
+  public static DisambiguationList load(EnumWikipedia wiki) {
+    File file = getFile(wiki);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+      if ((buffer.getInt() != MAGIC) || (buffer.getInt() != FORMAT_VERSION)) {
+        return null;
+      }
+      long time = buffer.getLong();
+      if (System.currentTimeMillis() > time + MAX_AGE) {
+        return null;
+      }
+      int longCount = buffer.getInt();
+      ByteBuffer tmp = buffer.slice();
+      tmp.limit(longCount * 8);
+      LongBuffer bits = tmp.asLongBuffer();
+      buffer.position(buffer.position() + longCount * 8);
+      FrontCodedTitles titles = FrontCodedTitles.read(buffer);
+      return new DisambiguationList(wiki, time, titles, new BloomFilter(bits));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Error reading disambiguation list {}: {}", file.getName(), e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param time Time when the list was built or last updated.
+   * @param titles Sorted set of titles.
+   * @param filter Bloom filter on the titles.
+   */
+  private DisambiguationList(
+      EnumWikipedia wiki, long time,
+      FrontCodedTitles titles, BloomFilter filter) {
+    this.wiki = wiki;
+    this.time = time;
+    this.titles = titles;
+    this.filter = filter;
+  }
+
+  /**
+   * @return Time when the list was built or last updated.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return Number of disambiguation pages.
+   */
+  public int size() {
+    return titles.size() + added.size() - removed.size();
+  }
+
+  /**
+   * @param title Page title.
+   * @return True if the page is a disambiguation page.
+   */
+  public boolean contains(String title) {
+    String normalized = normalize(wiki, title);
+    if (normalized == null) {
+      return false;
+    }
+    if (!added.isEmpty() || !removed.isEmpty()) {
+      if (removed.contains(normalized)) {
+        return false;
+      }
+      if (added.contains(normalized)) {
+        return true;
+      }
+    }
+    byte[] value = normalized.getBytes(StandardCharsets.UTF_8);
+    if (!filter.mightContain(value)) {
+      return false;
+    }
+    return titles.contains(value);
+  }
+
+  /**
+   * Mark a page as a disambiguation page.
+   *
+   * @param title Page title.
+   */
+  public void add(String title) {
+    String normalized = normalize(wiki, title);
+    if (normalized == null) {
+      return;
+    }
+    removed.remove(normalized);
+    if (!titles.contains(normalized.getBytes(StandardCharsets.UTF_8))) {
+      added.add(normalized);
+    }
+  }
+
+  /**
+   * Mark a page as not being a disambiguation page.
+   *
+   * @param title Page title.
+   */
+  public void remove(String title) {
+    String normalized = normalize(wiki, title);
+    if (normalized == null) {
+      return;
+    }
+    added.remove(normalized);
+    if (titles.contains(normalized.getBytes(StandardCharsets.UTF_8))) {
+      removed.add(normalized);
+    }
+  }
+
+  /**
+   * @return True if the list has been modified since it was built.
+   */
+  public boolean isModified() {
+    return !added.isEmpty() || !removed.isEmpty();
+  }
+
+  /**
+   * Build a new list including the changes made to this list.
+   *
+   * @return New list.
+   */
+  public DisambiguationList compact() {
+    return compact(System.currentTimeMillis());
+  }
+
+  /**
+   * Build a new list including the changes made to this list.
+   *
+   * @param newTime Time up to which the changes are known.
+   * @return New list.
+   */
+  public DisambiguationList compact(long newTime) {
+    Collection<String> tmpTitles = new ArrayList<>(size());
+    titles.forEach(title -> {
+      if (!removed.contains(title)) {
+        tmpTitles.add(title);
+      }
+    });
+    tmpTitles.addAll(added);
+    return build(wiki, tmpTitles, newTime);
+  }
+
+  /**
+   * Persist the list, changes made to the list are not included.
+   */
+  public void save() {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      log.warn("Unable to create directory {}", directory);
+      return;
+    }
+    File file = getFile(wiki);
+    File tmpFile = new File(directory, file.getName() + ".tmp");
+    try (DataOutputStream os = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+      os.writeInt(MAGIC);
+      os.writeInt(FORMAT_VERSION);
+      os.writeLong(time);
+      LongBuffer bits = filter.getBits();
+      os.writeInt(bits.limit());
+      for (int index = 0; index < bits.limit(); index++) {
+        os.writeLong(bits.get(index));
+      }
+      titles.write(os);
+    } catch (IOException e) {
+      log.warn("Error writing disambiguation list: {}", e.getMessage());
+      deleteFile(tmpFile);
+      return;
+    }
+    deleteFile(file);
+    if (!tmpFile.renameTo(file)) {
+      log.warn("Unable to store disambiguation list in {}", file.getName());
+      deleteFile(tmpFile);
+    }
+  }
+
+  /**
+   * Change the directory for the persisted lists.
+   *
+   * @param dir Directory.
+   */
+  public static void setDirectory(File dir) {
+    directory = dir;
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @return File for the persisted list of the wiki.
+   */
+  private static File getFile(EnumWikipedia wiki) {
+    return new File(directory, wiki.name() + SUFFIX);
+  }
+
+  /**
+   * @param file File to delete.
+   */
+  private static void deleteFile(File file) {
+    if (file.exists() && !file.delete()) {
+      log.warn("Unable to delete {}", file.getName());
+    }
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param title Page title.
+   * @return Normalized title.
+   */
+  private static String normalize(EnumWikipedia wiki, String title) {
+    TitleKey key = TitleKey.of(wiki, Namespace.MAIN, title);
+    return (key != null) ? key.getText() : null;
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.dab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.api.API;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.RecentChangesListener;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.RecentChange;
+
+
+/**
+ * Keep the list of disambiguation pages of a wiki up to date from recent changes.
+ *
+ * Pages created, edited, moved or restored in the main name space are checked
+ * with a targeted request for their disambiguation status, as well as the targets of moves,
+ * deleted pages are removed from the list.
+ * When a disambiguation template or category is modified, the members of the
+ * disambiguation templates and categories are retrieved again to rebuild the list.
+ * The updated list is regularly persisted.
+ */
+public class DisambiguationListUpdater implements RecentChangesListener {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(DisambiguationListUpdater.class);
+
+  /** Interval between two saves of the list (in milliseconds). */
+  private final static long SAVE_INTERVAL = 10L * 60L * 1000L;
+
+  /** Maximum delay between the time of the list and the beginning of the updates (in milliseconds). */
+  private final static long MAX_GAP = 60L * 1000L;
+
+  /** Wiki. */
+  private final EnumWikipedia wiki;
+
+  /** API. */
+  private final API api;
+
+  /** Time when the updates started. */
+  private final long startTime;
+
+  /** Time of the last save of the list. */
+  private long lastSave;
+
+  /**
+   * @param wiki Wiki.
+   * @param api API.
+   */
+  public DisambiguationListUpdater(EnumWikipedia wiki, API api) {
+    this.wiki = wiki;
+    this.api = api;
+    this.startTime = System.currentTimeMillis();
+    this.lastSave = startTime;
+  }
+
+  /**
+   * Tell if a persisted list can be reused and kept up to date from recent changes.
+   *
+   * Changes made between the time of the list and the beginning of the updates are not seen,
+   * so the list is reused only if it has been updated recently enough.
+   *
+   * @param list Persisted list of disambiguation pages.
+   * @return True if the list can be kept up to date without missing changes.
+   */
+  public static boolean canResume(DisambiguationList list) {
+    return (list != null) && (System.currentTimeMillis() <= list.getTime() + MAX_GAP);
+  }
+
+  /**
+   * @return Name spaces of the recent changes needed by the listener.
+   * @see org.wikipediacleaner.api.RecentChangesListener#getNamespaces()
+   */
+  @Override
+  public Collection<Integer> getNamespaces() {
+    return Arrays.asList(
+        Integer.valueOf(Namespace.MAIN),
+        Integer.valueOf(Namespace.TEMPLATE),
+        Integer.valueOf(Namespace.CATEGORY));
+  }
+
+  /**
+   * Callback to be notified about recent changes.
+   *
+   * @param rc List of recent changes (most recent first).
+   * @param currentTime Current time.
+   * @see org.wikipediacleaner.api.RecentChangesListener#recentChanges(java.util.List, java.util.Date)
+   */
+  @Override
+  public void recentChanges(List<RecentChange> rc, Date currentTime) {
+    DisambiguationList list = wiki.getDisambiguationList();
+    if ((list == null) || (rc == null)) {
+      return;
+    }
+
+    // Find pages to check and deleted pages, oldest changes first
+    Set<String> checkedTitles = new LinkedHashSet<>();
+    Set<String> deletedTitles = new LinkedHashSet<>();
+    boolean refresh = false;
+    for (int index = rc.size() - 1; index >= 0; index--) {
+      RecentChange change = rc.get(index);
+      if ((change == null) || (change.getTitle() == null)) {
+        continue;
+      }
+      String title = change.getTitle();
+      if (RecentChange.TYPE_LOG.equals(change.getType()) &&
+          RecentChange.LOG_TYPE_MOVE.equals(change.getLogType()) &&
+          (change.getLogTarget() != null)) {
+        Page target = DataManager.createSimplePage(wiki, change.getLogTarget(), null, null, null);
+        if (target.isInMainNamespace()) {
+          deletedTitles.remove(target.getTitle());
+          checkedTitles.add(target.getTitle());
+        }
+      }
+      if ((change.getNamespace() == Namespace.TEMPLATE) ||
+          (change.getNamespace() == Namespace.CATEGORY)) {
+        refresh |= isDisambiguationTemplateOrCategory(title);
+        continue;
+      }
+      if (change.getNamespace() != Namespace.MAIN) {
+        continue;
+      }
+      if (RecentChange.TYPE_LOG.equals(change.getType())) {
+        if (RecentChange.LOG_TYPE_DELETE.equals(change.getLogType()) &&
+            RecentChange.LOG_ACTION_DELETE_DELETE.equals(change.getLogAction())) {
+          checkedTitles.remove(title);
+          deletedTitles.add(title);
+        } else if (RecentChange.LOG_TYPE_MOVE.equals(change.getLogType()) ||
+                   (RecentChange.LOG_TYPE_DELETE.equals(change.getLogType()) &&
+                    RecentChange.LOG_ACTION_DELETE_RESTORE.equals(change.getLogAction()))) {
+          deletedTitles.remove(title);
+          checkedTitles.add(title);
+        }
+      } else if (RecentChange.TYPE_NEW.equals(change.getType()) ||
+                 RecentChange.TYPE_EDIT.equals(change.getType())) {
+        deletedTitles.remove(title);
+        checkedTitles.add(title);
+      }
+    }
+
+    // Rebuild the list if a disambiguation template or category has been modified
+    if (refresh) {
+      list = rebuild(list);
+    }
+
+    // Update the list
+    for (String title : deletedTitles) {
+      list.remove(title);
+    }
+    if (!checkedTitles.isEmpty()) {
+      List<Page> pages = new ArrayList<>(checkedTitles.size());
+      for (String title : checkedTitles) {
+        pages.add(DataManager.createSimplePage(wiki, title, null, null, Namespace.MAIN));
+      }
+      try {
+        api.initializeDisambiguationStatus(wiki, pages, true);
+        for (Page page : pages) {
+          if (page.getRedirects().isRedirect()) {
+            list.remove(page.getTitle());
+          } else if (Boolean.TRUE.equals(page.isDisambiguationPage())) {
+            list.add(page.getTitle());
+          } else if (Boolean.FALSE.equals(page.isDisambiguationPage())) {
+            list.remove(page.getTitle());
+          }
+        }
+      } catch (APIException e) {
+        log.warn("Unable to update disambiguation status: {}", e.getMessage());
+      }
+    }
+
+    // Persist the list regularly
+    long now = System.currentTimeMillis();
+    if (now >= lastSave + SAVE_INTERVAL) {
+      lastSave = now;
+      save(list, (currentTime != null) ? currentTime.getTime() : now);
+    }
+  }
+
+  /**
+   * @param title Title of a template or a category.
+   * @return True if the template or the category is used to define disambiguation pages.
+   */
+  private boolean isDisambiguationTemplateOrCategory(String title) {
+    List<Page> templates = wiki.getDisambiguationTemplates();
+    if (templates != null) {
+      for (Page template : templates) {
+        if (Page.areSameTitle(template.getTitle(), title)) {
+          return true;
+        }
+      }
+    }
+    List<Page> categories = wiki.getConfiguration().getDisambiguationCategories();
+    if (categories != null) {
+      for (Page category : categories) {
+        if (Page.areSameTitle(category.getTitle(), title)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rebuild the list from the members of the disambiguation templates and categories.
+   *
+   * A modification of a disambiguation template or category may change
+   * the disambiguation status of every page using it,
+   * which can't be found from the recent changes of the pages themselves.
+   *
+   * @param list Current list of disambiguation pages.
+   * @return New list of disambiguation pages, or current list if it can't be rebuilt.
+   */
+  private DisambiguationList rebuild(DisambiguationList list) {
+    try {
+      List<Page> pages = wiki.constuctDisambiguationPages(api);
+      if (pages == null) {
+        return list;
+      }
+      List<String> titles = new ArrayList<>(pages.size());
+      for (Page page : pages) {
+        titles.add(page.getTitle());
+      }
+      DisambiguationList newList = DisambiguationList.build(wiki, titles);
+      newList.save();
+      lastSave = System.currentTimeMillis();
+      wiki.replaceDisambiguationList(list, newList);
+      return newList;
+    } catch (APIException e) {
+      log.warn("Unable to rebuild disambiguation list: {}", e.getMessage());
+      return list;
+    }
+  }
+
+  /**
+   * Persist the updated list.
+   *
+   * The time of the list is moved forward only if the updates started when the list was built,
+   * otherwise changes made between the two may be missing and the list will expire as usual.
+   *
+   * @param list List of disambiguation pages.
+   * @param time Time of the last change applied to the list.
+   */
+  private void save(DisambiguationList list, long time) {
+    long newTime = (startTime <= list.getTime() + MAX_GAP) ? time : list.getTime();
+    if (!list.isModified() && (newTime == list.getTime())) {
+      return;
+    }
+    DisambiguationList compacted = list.compact(newTime);
+    compacted.save();
+    wiki.replaceDisambiguationList(list, compacted);
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.dab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * Compact sorted set of titles.
+ *
+ * Titles are sorted by their UTF-8 bytes and stored in blocks:
+ * the first title of each block is stored completely,
+ * the following ones only store the length of the prefix shared with the previous title
+ * and the remaining bytes.
+ * Lookups use a binary search on the first title of each block,
+ * then a sequential scan in the block.
+ *
+ * The set is kept in a buffer so that it can be memory mapped from a file.
+ */
+public class FrontCodedTitles {
+
+  /** Number of titles in each block. */
+  private final static int BLOCK_SIZE = 16;
+
+  /** Number of titles. */
+  private final int count;
+
+  /** Offset of each block in the data. */
+  private final IntBuffer blockOffsets;
+
+  /** Data of the blocks. */
+  private final ByteBuffer data;
+
+  /**
+   * Build a set of titles.
+   *
+   * @param titles Titles.
+   * @return Set of titles.
+   */
+  public static FrontCodedTitles build(Collection<String> titles) {
+    List<byte[]> values = new ArrayList<>(titles.size());
+    for (String title : titles) {
+      if (title != null) {
+        values.add(title.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    values.sort(FrontCodedTitles::compare);
+
+    List<Integer> offsets = new ArrayList<>();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    byte[] previous = null;
+    int count = 0;
+    for (byte[] value : values) {
+      if ((previous != null) && (compare(previous, value) == 0)) {
+        continue;
+      }
+      if (count % BLOCK_SIZE == 0) {
+        offsets.add(Integer.valueOf(os.size()));
+        writeVarInt(os, value.length);
+        os.write(value, 0, value.length);
+      } else {
+        int prefix = 0;
+        int max = Math.min(previous.length, value.length);
+        while ((prefix < max) && (previous[prefix] == value[prefix])) {
+          prefix++;
+        }
+        writeVarInt(os, prefix);
+        writeVarInt(os, value.length - prefix);
+        os.write(value, prefix, value.length - prefix);
+      }
+      previous = value;
+      count++;
+    }
+
+    int[] tmpOffsets = new int[offsets.size()];
+    for (int index = 0; index < tmpOffsets.length; index++) {
+      tmpOffsets[index] = offsets.get(index).intValue();
+    }
+    return new FrontCodedTitles(
+        count, IntBuffer.wrap(tmpOffsets), ByteBuffer.wrap(os.toByteArray()));
+  }
+
+  /**
+   * Read a set of titles from a buffer.
+   *
+   * @param buffer Buffer, positioned at the beginning of the set.
+   *        The buffer is positioned after the set when the method returns.
+   * @return Set of titles.
+   */
+  public static FrontCodedTitles read(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    int blockCount = buffer.getInt();
+    int dataLength = buffer.getInt();
+    ByteBuffer tmp = buffer.slice();
+    tmp.limit(blockCount * 4);
+    IntBuffer blockOffsets = tmp.asIntBuffer();
+    buffer.position(buffer.position() + blockCount * 4);
+    ByteBuffer data = buffer.slice();
+    data.limit(dataLength);
+    buffer.position(buffer.position() + dataLength);
+    return new FrontCodedTitles(count, blockOffsets, data);
+  }
+
+  /**
+   * @param count Number of titles.
+   * @param blockOffsets Offset of each block in the data.
+   * @param data Data of the blocks.
+   */
+  private FrontCodedTitles(int count, IntBuffer blockOffsets, ByteBuffer data) {
+    this.count = count;
+    this.blockOffsets = blockOffsets;
+    this.data = data;
+  }
+
+  /**
+   * Write the set of titles.
+   *
+   * @param os Output stream.
+   * @throws IOException Exception when writing.
+   */
+  public void write(DataOutputStream os) throws IOException {
+    int blockCount = blockOffsets.limit();
+    int dataLength = data.limit();
+    os.writeInt(count);
+    os.writeInt(blockCount);
+    os.writeInt(dataLength);
+    for (int index = 0; index < blockCount; index++) {
+      os.writeInt(blockOffsets.get(index));
+    }
+    for (int index = 0; index < dataLength; index++) {
+      os.write(data.get(index));
+    }
+  }
+
+  /**
+   * @return Number of titles.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * @param title Title (UTF-8 bytes).
+   * @return True if the title is in the set.
+   */
+  public boolean contains(byte[] title) {
+    if (title == null) {
+      return false;
+    }
+
+    // Find the last block starting with a title before the requested title
+    int low = 0;
+    int high = blockOffsets.limit() - 1;
+    int block = -1;
+    int[] position = new int[1];
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      position[0] = blockOffsets.get(middle);
+      int length = readVarInt(position);
+      int comparison = compare(position[0], length, title);
+      if (comparison == 0) {
+        return true;
+      }
+      if (comparison < 0) {
+        block = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (block < 0) {
+      return false;
+    }
+
+    // Scan the block
+    byte[] current = new byte[64];
+    position[0] = blockOffsets.get(block);
+    int length = readVarInt(position);
+    current = readBytes(position, current, 0, length);
+    int last = Math.min(count, (block + 1) * BLOCK_SIZE);
+    for (int index = block * BLOCK_SIZE + 1; index < last; index++) {
+      int prefix = readVarInt(position);
+      int suffix = readVarInt(position);
+      length = prefix + suffix;
+      current = readBytes(position, current, prefix, suffix);
+      int comparison = compare(current, length, title);
+      if (comparison == 0) {
+        return true;
+      }
+      if (comparison > 0) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Call an action for each title, in order.
+   *
+   * @param action Action.
+   */
+  public void forEach(Consumer<String> action) {
+    byte[] current = new byte[64];
+    int[] position = new int[1];
+    for (int index = 0; index < count; index++) {
+      int length;
+      if (index % BLOCK_SIZE == 0) {
+        position[0] = blockOffsets.get(index / BLOCK_SIZE);
+        length = readVarInt(position);
+        current = readBytes(position, current, 0, length);
+      } else {
+        int prefix = readVarInt(position);
+        int suffix = readVarInt(position);
+        length = prefix + suffix;
+        current = readBytes(position, current, prefix, suffix);
+      }
+      action.accept(new String(current, 0, length, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Read bytes from the data.
+   *
+   * @param position Position in the data, updated after reading.
+   * @param buffer Buffer receiving the bytes.
+   * @param offset Offset in the buffer.
+   * @param length Number of bytes.
+   * @return Buffer (enlarged if needed).
+   */
+  private byte[] readBytes(int[] position, byte[] buffer, int offset, int length) {
+    byte[] result = buffer;
+    if (offset + length > result.length) {
+      byte[] tmp = new byte[Math.max(offset + length, result.length * 2)];
+      System.arraycopy(result, 0, tmp, 0, offset);
+      result = tmp;
+    }
+    for (int index = 0; index < length; index++) {
+      result[offset + index] = data.get(position[0] + index);
+    }
+    position[0] += length;
+    return result;
+  }
+
+  /**
+   * Read a variable length integer from the data.
+   *
+   * @param position Position in the data, updated after reading.
+   * @return Integer.
+   */
+  private int readVarInt(int[] position) {
+    int result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data.get(position[0]);
+      position[0]++;
+      result |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  /**
+   * Write a variable length integer.
+   *
+   * @param os Output stream.
+   * @param value Integer.
+   */
+  private static void writeVarInt(ByteArrayOutputStream os, int value) {
+    int tmp = value;
+    while ((tmp & ~0x7F) != 0) {
+      os.write((tmp & 0x7F) | 0x80);
+      tmp >>>= 7;
+    }
+    os.write(tmp);
+  }
+
+  /**
+   * Compare bytes from the data with a title.
+   *
+   * @param position Position of the bytes in the data.
+   * @param length Number of bytes.
+   * @param title Title.
+   * @return Comparison result.
+   */
+  private int compare(int position, int length, byte[] title) {
+    int max = Math.min(length, title.length);
+    for (int index = 0; index < max; index++) {
+      int comparison = (data.get(position + index) & 0xFF) - (title[index] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return length - title.length;
+  }
+
+  /**
+   * Compare bytes with a title.
+   *
+   * @param value Bytes.
+   * @param length Number of bytes.
+   * @param title Title.
+   * @return Comparison result.
+   */
+  private static int compare(byte[] value, int length, byte[] title) {
+    int max = Math.min(length, title.length);
+    for (int index = 0; index < max; index++) {
+      int comparison = (value[index] & 0xFF) - (title[index] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return length - title.length;
+  }
+
+  /**
+   * Compare two titles by their unsigned bytes.
+   *
+   * @param value1 Title 1.
+   * @param value2 Title 2.
+   * @return Comparison result.
+   */
+  private static int compare(byte[] value1, byte[] value2) {
+    return compare(value1, value1.length, value2);
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.execution;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.wikipediacleaner.utils.metrics.Histogram;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+
+
+/**
+ * Statistics on the tasks run by an executor.
+ *
+ * Tasks are wrapped before being given to the executor, so statistics
+ * are available for any kind of executor (pool of threads or virtual threads).
+ */
+public class ExecutorStatistics {
+
+  /** Name of the executor. */
+  private final String name;
+
+  /** Number of tasks submitted. */
+  private final AtomicLong submittedCount = new AtomicLong();
+
+  /** Number of tasks started. */
+  private final AtomicLong startedCount = new AtomicLong();
+
+  /** Number of tasks finished. */
+  private final AtomicLong finishedCount = new AtomicLong();
+
+  /** Total time spent by tasks waiting in the queue (in nanoseconds). */
+  private final AtomicLong totalWait = new AtomicLong();
+
+  /** Maximum time spent by a task waiting in the queue (in nanoseconds). */
+  private final AtomicLong maxWait = new AtomicLong();
+
+  /** Total time spent running tasks (in nanoseconds). */
+  private final AtomicLong totalRun = new AtomicLong();
+
+  /** Maximum time spent running a task (in nanoseconds). */
+  private final AtomicLong maxRun = new AtomicLong();
+
+  /** Metrics for the time spent by tasks waiting in the queue. */
+  private final Histogram waitMetrics;
+
+  /** Metrics for the time spent running tasks. */
+  private final Histogram runMetrics;
+
+  /**
+   * @param name Name of the executor.
+   */
+  public ExecutorStatistics(String name) {
+    this.name = name;
+    MetricsRegistry metrics = MetricsRegistry.getRegistry();
+    metrics.gauge(
+        "wpcleaner_executor_queue_depth", "Tasks waiting in the queue of the executor",
+        this::getQueueDepth, "executor", name);
+    metrics.gauge(
+        "wpcleaner_executor_active", "Tasks running in the executor",
+        this::getActiveCount, "executor", name);
+    waitMetrics = metrics.histogram(
+        "wpcleaner_executor_wait_seconds", "Time spent by tasks waiting in the queue of the executor",
+        "executor", name);
+    runMetrics = metrics.histogram(
+        "wpcleaner_executor_run_seconds", "Time spent running tasks in the executor",
+        "executor", name);
+  }
+
+  /**
+   * Wrap a task to record statistics when it's run.
+   *
+   * @param task Task.
+   * @return Task recording statistics.
+   */
+  public Runnable wrap(Runnable task) {
+    final long submitTime = System.nanoTime();
+    submittedCount.incrementAndGet();
+    return () -> {
+      long startTime = System.nanoTime();
+      startedCount.incrementAndGet();
+      long wait = startTime - submitTime;
+      totalWait.addAndGet(wait);
+      maxWait.accumulateAndGet(wait, Math::max);
+      waitMetrics.observeNanos(wait);
+      try {
+        task.run();
+      } finally {
+        long run = System.nanoTime() - startTime;
+        totalRun.addAndGet(run);
+        maxRun.accumulateAndGet(run, Math::max);
+        runMetrics.observeNanos(run);
+        finishedCount.incrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * @return Name of the executor.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return Number of tasks waiting in the queue.
+   */
+  public long getQueueDepth() {
+    return Math.max(0, submittedCount.get() - startedCount.get());
+  }
+
+  /**
+   * @return Number of tasks running.
+   */
+  public long getActiveCount() {
+    return Math.max(0, startedCount.get() - finishedCount.get());
+  }
+
+  /**
+   * @return Number of tasks finished.
+   */
+  public long getFinishedCount() {
+    return finishedCount.get();
+  }
+
+  /**
+   * @return Average time spent by tasks waiting in the queue (in milliseconds).
+   */
+  public long getAverageWait() {
+    long count = startedCount.get();
+    return (count > 0) ? TimeUnit.NANOSECONDS.toMillis(totalWait.get() / count) : 0;
+  }
+
+  /**
+   * @return Maximum time spent by a task waiting in the queue (in milliseconds).
+   */
+  public long getMaxWait() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWait.get());
+  }
+
+  /**
+   * @return Average time spent running a task (in milliseconds).
+   */
+  public long getAverageRun() {
+    long count = finishedCount.get();
+    return (count > 0) ? TimeUnit.NANOSECONDS.toMillis(totalRun.get() / count) : 0;
+  }
+
+  /**
+   * @return Maximum time spent running a task (in milliseconds).
+   */
+  public long getMaxRun() {
+    return TimeUnit.NANOSECONDS.toMillis(maxRun.get());
+  }
+
+  /**
+   * @return Textual description of the statistics.
+   */
+  @Override
+  public String toString() {
+    return
+        name + ": queue=" + getQueueDepth() +
+        ", active=" + getActiveCount() +
+        ", finished=" + getFinishedCount() +
+        ", wait=" + getAverageWait() + "ms (max " + getMaxWait() + "ms)" +
+        ", run=" + getAverageRun() + "ms (max " + getMaxRun() + "ms)";
+  }
+}
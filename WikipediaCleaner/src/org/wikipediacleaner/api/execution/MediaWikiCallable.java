@@ -52,4 +52,11 @@ public abstract class MediaWikiCallable<T> implements Callable<T>, MediaWikiList
   protected EnumWikipedia getWikipedia() {
     return wikipedia;
   }
+
+  /**
+   * @return True if the task mostly analyzes pages rather than waiting for the server.
+   */
+  public boolean isCpuBound() {
+    return false;
+  }
 }
@@ -0,0 +1,281 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+
+
+/**
+ * Adaptive limit on the number of concurrent requests sent to a server.
+ *
+ * The limit follows an AIMD scheme: it increases slowly while the server answers quickly,
+ * and it is cut in half when the server reports an overload (HTTP 429 or 503, maxlag error),
+ * in which case new requests are also paused for the delay requested by the server.
+ * A base latency is kept for each action, as a query for one page and a large edit
+ * don't take the same time to be answered.
+ * An explicit lock is used rather than monitors, so that virtual threads
+ * waiting for the server don't pin their carrier thread.
+ */
+public class ConcurrencyLimiter {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+  /** Minimum delay before retrying a request (in milliseconds). */
+  private final static long MIN_RETRY_DELAY = 2000;
+
+  /** Maximum delay before retrying a request (in milliseconds). */
+  private final static long MAX_RETRY_DELAY = 30000;
+
+  /** Default pause when the server is overloaded without telling for how long (in milliseconds). */
+  private final static long DEFAULT_PAUSE = 5000;
+
+  /** Factor above the base latency for considering that the server is slowing down. */
+  private final static double LATENCY_FACTOR = 3;
+
+  /**
+   * Wait before retrying a request that failed.
+   *
+   * @param attempt Number of the attempt that failed.
+   */
+  public static void waitBeforeRetrying(int attempt) {
+    MetricsRegistry.getRegistry().counter(
+        "wpcleaner_http_retries_total", "Requests retried after an error",
+        "reason", "http").increment();
+    long delay = MIN_RETRY_DELAY << Math.min(Math.max(attempt - 1, 0), 4);
+    try {
+      Thread.sleep(Math.min(delay, MAX_RETRY_DELAY));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Name of the server. */
+  private final String name;
+
+  /** Lock protecting the state of the limiter. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Condition signaled when a request may be sent. */
+  private final Condition available = lock.newCondition();
+
+  /** Minimum limit. */
+  private final int minLimit;
+
+  /** Maximum limit. */
+  private final int maxLimit;
+
+  /** Current limit. */
+  private double limit;
+
+  /** Number of requests in progress. */
+  private int inFlight;
+
+  /** Time until when new requests are paused. */
+  private long pausedUntil;
+
+  /** Base latency for each action (in milliseconds). */
+  private final Map<String, Double> baseLatencies = new HashMap<>();
+
+  /** Time of the last decrease of the limit. */
+  private long lastDecrease;
+
+  /** Number of times the server reported an overload. */
+  private long overloadCount;
+
+  /**
+   * @param name Name of the server.
+   * @param initialLimit Initial limit.
+   * @param maxLimit Maximum limit.
+   */
+  public ConcurrencyLimiter(String name, int initialLimit, int maxLimit) {
+    this.name = name;
+    this.minLimit = 1;
+    this.maxLimit = Math.max(1, maxLimit);
+    this.limit = Math.max(minLimit, Math.min(initialLimit, this.maxLimit));
+  }
+
+  /**
+   * Wait until a new request can be sent.
+   *
+   * @throws InterruptedException Exception if interrupted while waiting.
+   */
+  public void acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      for (;;) {
+        long now = System.currentTimeMillis();
+        if (now < pausedUntil) {
+          available.await(pausedUntil - now, TimeUnit.MILLISECONDS);
+        } else if (inFlight >= (int) limit) {
+          available.await();
+        } else {
+          inFlight++;
+          return;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Signal that a request is finished.
+   */
+  public void release() {
+    lock.lock();
+    try {
+      inFlight = Math.max(0, inFlight - 1);
+      available.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Signal that a request was answered normally.
+   *
+   * The request must still be counted as in progress when calling this method.
+   *
+   * @param action Action of the request, null if unknown.
+   * @param latency Latency of the request until its answer has been read (in milliseconds).
+   */
+  public void onSuccess(String action, long latency) {
+    lock.lock();
+    try {
+      String key = (action != null) ? action : "";
+      Double previous = baseLatencies.get(key);
+      double baseLatency;
+      if ((previous == null) || (latency < previous.doubleValue())) {
+        baseLatency = Math.max(1, latency);
+      } else {
+        baseLatency = 0.99 * previous.doubleValue() + 0.01 * latency;
+      }
+      baseLatencies.put(key, Double.valueOf(baseLatency));
+      if (latency > LATENCY_FACTOR * baseLatency) {
+        decrease(0.9, baseLatency);
+      } else if (inFlight >= (int) limit) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Signal that the server is overloaded.
+   *
+   * @param action Action of the request, null if unknown.
+   * @param retryAfter Delay requested by the server (in milliseconds), 0 if unknown.
+   */
+  public void onOverload(String action, long retryAfter) {
+    lock.lock();
+    try {
+      overloadCount++;
+      long pause = (retryAfter > 0) ? retryAfter : DEFAULT_PAUSE;
+      pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + pause);
+      Double baseLatency = baseLatencies.get((action != null) ? action : "");
+      decrease(0.5, (baseLatency != null) ? baseLatency.doubleValue() : 0);
+      log.warn(
+          "Server {} overloaded, limiting to {} concurrent requests and pausing for {} ms",
+          name, Integer.valueOf((int) limit), Long.valueOf(pause));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Decrease the limit, at most once per base latency.
+   *
+   * @param factor Multiplicative factor.
+   * @param baseLatency Base latency of the action (in milliseconds).
+   */
+  private void decrease(double factor, double baseLatency) {
+    long now = System.currentTimeMillis();
+    if (now - lastDecrease < Math.max(1000, (long) baseLatency)) {
+      return;
+    }
+    lastDecrease = now;
+    limit = Math.max(minLimit, limit * factor);
+  }
+
+  /**
+   * @return Current limit.
+   */
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return Number of requests in progress.
+   */
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return Number of times the server reported an overload.
+   */
+  public long getOverloadCount() {
+    lock.lock();
+    try {
+      return overloadCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return Textual description of the limiter.
+   */
+  @Override
+  public String toString() {
+    lock.lock();
+    try {
+      return
+          name + ": " + inFlight + "/" + (int) limit + " requests" +
+          ", base latencies " + formatBaseLatencies() +
+          ", overloads " + overloadCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return Textual description of the base latencies.
+   */
+  private String formatBaseLatencies() {
+    StringBuilder result = new StringBuilder("{");
+    for (Map.Entry<String, Double> entry : baseLatencies.entrySet()) {
+      if (result.length() > 1) {
+        result.append(", ");
+      }
+      result.append(entry.getKey().isEmpty() ? "?" : entry.getKey());
+      result.append("=").append(Math.round(entry.getValue().doubleValue())).append(" ms");
+    }
+    return result.append("}").toString();
+  }
+}
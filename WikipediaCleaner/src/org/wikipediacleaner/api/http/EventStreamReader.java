@@ -0,0 +1,160 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.http;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Reader for a stream of server-sent events (<code>text/event-stream</code>).
+ *
+ * @see <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">Server-sent events</a>
+ */
+public class EventStreamReader implements Closeable {
+
+  /**
+   * Event read from the stream.
+   */
+  public static class Event {
+
+    /** Identifier of the event, used to resume the stream after it. */
+    private final String id;
+
+    /** Type of the event. */
+    private final String type;
+
+    /** Data of the event. */
+    private final String data;
+
+    /**
+     * @param id Identifier of the event.
+     * @param type Type of the event.
+     * @param data Data of the event.
+     */
+    Event(String id, String type, String data) {
+      this.id = id;
+      this.type = type;
+      this.data = data;
+    }
+
+    /**
+     * @return Identifier of the event, null if none.
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return Type of the event.
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * @return Data of the event.
+     */
+    public String getData() {
+      return data;
+    }
+  }
+
+  /** Reader for the stream. */
+  private final BufferedReader reader;
+
+  /** Delay requested by the server before reconnecting (in milliseconds), 0 if none. */
+  private long retry;
+
+  /**
+   * @param stream Stream of events.
+   */
+  public EventStreamReader(InputStream stream) {
+    this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return Delay requested by the server before reconnecting (in milliseconds), 0 if none.
+   */
+  public long getRetry() {
+    return retry;
+  }
+
+  /**
+   * Read the next event.
+   *
+   * @return Next event, null at the end of the stream.
+   * @throws IOException Exception when reading the stream.
+   */
+  public Event readEvent() throws IOException {
+    String id = null;
+    String type = null;
+    StringBuilder data = null;
+    String line = null;
+    while ((line = reader.readLine()) != null) {
+
+      // Dispatch the event at the first empty line
+      if (line.isEmpty()) {
+        if (data != null) {
+          return new Event(id, (type != null) ? type : "message", data.toString());
+        }
+        id = null;
+        type = null;
+        continue;
+      }
+
+      // Ignore comments
+      if (line.startsWith(":")) {
+        continue;
+      }
+
+      // Handle fields
+      int colon = line.indexOf(':');
+      String field = (colon >= 0) ? line.substring(0, colon) : line;
+      String value = "";
+      if (colon >= 0) {
+        value = line.substring(colon + 1);
+        if (value.startsWith(" ")) {
+          value = value.substring(1);
+        }
+      }
+      if ("data".equals(field)) {
+        if (data == null) {
+          data = new StringBuilder(value);
+        } else {
+          data.append('\n').append(value);
+        }
+      } else if ("id".equals(field)) {
+        id = value;
+      } else if ("event".equals(field)) {
+        type = value;
+      } else if ("retry".equals(field)) {
+        try {
+          retry = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+          // Nothing to do
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Close the stream.
+   *
+   * @throws IOException Exception when closing the stream.
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -0,0 +1,449 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.http.hc5;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.net.URLEncodedUtils;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvent;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvents;
+import org.wikipediacleaner.utils.metrics.Counter;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+
+
+/**
+ * Element of the HttpComponents 5 execution chain limiting concurrent requests for each host.
+ *
+ * Each attempt of a request waits for the limiter of its host, and keeps its slot until the answer
+ * has been read. The answer (status, MediaWiki error, Retry-After, latency until the answer
+ * has been read) is reported back to the limiter, with the action of the request.
+ * Requests, latencies and bytes received are also recorded in the metrics for each host,
+ * and in the Flight Recorder when a recording is running.
+ */
+public class Hc5ConcurrencyHandler implements ExecChainHandler {
+
+  /** Header used by MediaWiki API to report the error code. */
+  private final static String HEADER_API_ERROR = "MediaWiki-API-Error";
+
+  /** Content type of parameters sent in the body of a request. */
+  private final static String CONTENT_TYPE_FORM = "application/x-www-form-urlencoded";
+
+  /** Parameters used to send a batch of pages or revisions. */
+  private final static String[] BATCH_PARAMETERS = { "titles", "pageids", "revids" };
+
+  /** Initial limit for each host. */
+  private final int initialLimit;
+
+  /** Maximum limit for each host. */
+  private final int maxLimit;
+
+  /** Limiters for each host. */
+  private final Map<String, ConcurrencyLimiter> limiters;
+
+  /**
+   * @param initialLimit Initial limit for each host.
+   * @param maxLimit Maximum limit for each host.
+   */
+  public Hc5ConcurrencyHandler(int initialLimit, int maxLimit) {
+    this.initialLimit = initialLimit;
+    this.maxLimit = maxLimit;
+    this.limiters = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param host Host name.
+   * @return Limiter for the host.
+   */
+  public ConcurrencyLimiter getLimiter(String host) {
+    return limiters.computeIfAbsent(host, key -> {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(key, initialLimit, maxLimit);
+      MetricsRegistry metrics = MetricsRegistry.getRegistry();
+      metrics.gauge(
+          "wpcleaner_http_concurrency_limit", "Current limit of concurrent requests",
+          limiter::getLimit, "host", key);
+      metrics.gauge(
+          "wpcleaner_http_in_flight", "Requests currently sent",
+          limiter::getInFlight, "host", key);
+      return limiter;
+    });
+  }
+
+  /**
+   * @return Limiters for each host.
+   */
+  public Map<String, ConcurrencyLimiter> getLimiters() {
+    return limiters;
+  }
+
+  /**
+   * @param request Request.
+   * @param scope Scope of the execution.
+   * @param chain Next elements of the chain.
+   * @return Response.
+   * @throws IOException Exception.
+   * @throws HttpException Exception.
+   * @see org.apache.hc.client5.http.classic.ExecChainHandler#execute(org.apache.hc.core5.http.ClassicHttpRequest, org.apache.hc.client5.http.classic.ExecChain.Scope, org.apache.hc.client5.http.classic.ExecChain)
+   */
+  @Override
+  public ClassicHttpResponse execute(
+      ClassicHttpRequest request,
+      ExecChain.Scope scope,
+      ExecChain chain) throws IOException, HttpException {
+    HttpHost host = scope.route.getTargetHost();
+    String hostName = host.getHostName();
+    ConcurrencyLimiter limiter = getLimiter(hostName);
+    try {
+      limiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to send a request");
+    }
+    List<NameValuePair> parameters = getParameters(request);
+    String action = getAction(parameters);
+    FlightRecorderEvent event = FlightRecorderEvents.API_REQUEST.begin();
+    if (event != null) {
+      describeRequest(event, hostName, action, parameters);
+    }
+    RequestCompletion completion = new RequestCompletion(limiter, hostName, action, event);
+    try {
+      ClassicHttpResponse response = chain.proceed(request, scope);
+      int statusCode = response.getCode();
+      MetricsRegistry metrics = MetricsRegistry.getRegistry();
+      metrics.counter(
+          "wpcleaner_http_requests_total", "HTTP requests sent",
+          "host", hostName, "status", Integer.toString(statusCode)).increment();
+      completion.setStatus(statusCode);
+      Header apiError = response.getFirstHeader(HEADER_API_ERROR);
+      if ((statusCode == HttpStatus.SC_TOO_MANY_REQUESTS) ||
+          (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) ||
+          ((apiError != null) && "maxlag".equals(apiError.getValue()))) {
+        limiter.onOverload(action, Hc5HttpUtils.getRetryAfter(response));
+        metrics.counter(
+            "wpcleaner_http_overloads_total", "Answers reporting an overloaded server",
+            "host", hostName).increment();
+        completion.setOverloaded();
+      }
+      HttpEntity entity = response.getEntity();
+      if (entity != null) {
+        response.setEntity(new CountingEntity(entity, metrics.counter(
+            "wpcleaner_http_received_bytes_total", "Bytes received in HTTP answers",
+            "host", hostName), completion));
+      } else {
+        completion.complete(0);
+      }
+      return response;
+    } catch (IOException | HttpException | RuntimeException e) {
+      completion.fail();
+      throw e;
+    }
+  }
+
+  /**
+   * Retrieve the parameters of a request.
+   *
+   * The parameters are read from the URI or from the body of the request if it can be read again.
+   *
+   * @param request Request.
+   * @return Parameters of the request.
+   */
+  private static List<NameValuePair> getParameters(ClassicHttpRequest request) {
+    try {
+      HttpEntity entity = request.getEntity();
+      if ((entity != null) &&
+          entity.isRepeatable() &&
+          (entity.getContentType() != null) &&
+          entity.getContentType().startsWith(CONTENT_TYPE_FORM)) {
+        return URLEncodedUtils.parse(EntityUtils.toString(entity), StandardCharsets.UTF_8);
+      }
+      return URLEncodedUtils.parse(request.getUri(), StandardCharsets.UTF_8);
+    } catch (IOException | ParseException | URISyntaxException e) {
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * @param parameters Parameters of the request.
+   * @return Action of the request, null if unknown.
+   */
+  private static String getAction(List<NameValuePair> parameters) {
+    for (NameValuePair parameter : parameters) {
+      if ("action".equals(parameter.getName())) {
+        return parameter.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Fill the event with the description of the request.
+   *
+   * @param event Event.
+   * @param hostName Host name.
+   * @param action Action of the request.
+   * @param parameters Parameters of the request.
+   */
+  private static void describeRequest(
+      FlightRecorderEvent event, String hostName,
+      String action, List<NameValuePair> parameters) {
+    event.set("host", hostName);
+    if (action != null) {
+      event.set("action", action);
+    }
+    int batchSize = 0;
+    for (NameValuePair parameter : parameters) {
+      for (String batchParameter : BATCH_PARAMETERS) {
+        if (batchParameter.equals(parameter.getName()) &&
+            (parameter.getValue() != null)) {
+          batchSize = Math.max(batchSize, parameter.getValue().split("\\|").length);
+        }
+      }
+    }
+    event.set("batchSize", batchSize);
+  }
+
+  /**
+   * End of a request, once its answer has been read.
+   *
+   * The slot in the limiter is kept until then, and the latency includes reading the answer.
+   */
+  private static class RequestCompletion {
+
+    /** Limiter of the host. */
+    private final ConcurrencyLimiter limiter;
+
+    /** Host name. */
+    private final String hostName;
+
+    /** Action of the request, null if unknown. */
+    private final String action;
+
+    /** Event committed when the answer has been read, or null. */
+    private final FlightRecorderEvent event;
+
+    /** Time when the request was sent. */
+    private final long start;
+
+    /** True when the request is completed. */
+    private final AtomicBoolean done;
+
+    /** Status of the answer. */
+    private int status;
+
+    /** True if the server reported an overload. */
+    private boolean overloaded;
+
+    /**
+     * @param limiter Limiter of the host.
+     * @param hostName Host name.
+     * @param action Action of the request, null if unknown.
+     * @param event Event committed when the answer has been read, or null.
+     */
+    RequestCompletion(
+        ConcurrencyLimiter limiter, String hostName,
+        String action, FlightRecorderEvent event) {
+      this.limiter = limiter;
+      this.hostName = hostName;
+      this.action = action;
+      this.event = event;
+      this.start = System.currentTimeMillis();
+      this.done = new AtomicBoolean();
+    }
+
+    /**
+     * @param status Status of the answer.
+     */
+    void setStatus(int status) {
+      this.status = status;
+      if (event != null) {
+        event.set("status", status);
+      }
+    }
+
+    /**
+     * Signal that the server reported an overload.
+     */
+    void setOverloaded() {
+      this.overloaded = true;
+    }
+
+    /**
+     * Complete the request once its answer has been read.
+     *
+     * @param bytes Number of bytes read.
+     */
+    void complete(long bytes) {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        long latency = System.currentTimeMillis() - start;
+        MetricsRegistry.getRegistry().histogram(
+            "wpcleaner_http_request_duration_seconds", "Time until the answer has been read",
+            "host", hostName).observeMillis(latency);
+        if (!overloaded) {
+          limiter.onSuccess(action, latency);
+        }
+        if (event != null) {
+          event.set("bytes", bytes);
+          event.commit();
+        }
+      } finally {
+        limiter.release();
+      }
+    }
+
+    /**
+     * Complete the request after a failure.
+     */
+    void fail() {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        if (event != null) {
+          event.commit();
+        }
+      } finally {
+        limiter.release();
+      }
+    }
+  }
+
+  /**
+   * Entity counting the bytes read from its content,
+   * and completing the request when the content has been read or closed.
+   */
+  private static class CountingEntity extends HttpEntityWrapper {
+
+    /** Counter of bytes. */
+    private final Counter counter;
+
+    /** Completion of the request. */
+    private final RequestCompletion completion;
+
+    /** Bytes read. */
+    long bytes;
+
+    /**
+     * @param entity Wrapped entity.
+     * @param counter Counter of bytes.
+     * @param completion Completion of the request.
+     */
+    CountingEntity(HttpEntity entity, Counter counter, RequestCompletion completion) {
+      super(entity);
+      this.counter = counter;
+      this.completion = completion;
+    }
+
+    /**
+     * @return Content of the entity.
+     * @throws IOException Exception when accessing the content.
+     * @see org.apache.hc.core5.http.io.entity.HttpEntityWrapper#getContent()
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+      InputStream content;
+      try {
+        content = super.getContent();
+      } catch (IOException | RuntimeException e) {
+        completion.fail();
+        throw e;
+      }
+      if (content == null) {
+        completion.complete(bytes);
+        return null;
+      }
+      return new ProxyInputStream(content) {
+
+        /**
+         * @param n Number of bytes read.
+         * @see org.apache.commons.io.input.ProxyInputStream#afterRead(int)
+         */
+        @Override
+        protected void afterRead(int n) {
+          counter.add(n);
+          if (n > 0) {
+            bytes += n;
+          } else if (n < 0) {
+            completion.complete(bytes);
+          }
+        }
+
+        /**
+         * @throws IOException Exception when closing the stream.
+         * @see org.apache.commons.io.input.ProxyInputStream#close()
+         */
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            completion.complete(bytes);
+          }
+        }
+      };
+    }
+
+    /**
+     * Write the content through the counting stream.
+     *
+     * @param outStream Output stream.
+     * @throws IOException Exception when writing the content.
+     * @see org.apache.hc.core5.http.io.entity.HttpEntityWrapper#writeTo(java.io.OutputStream)
+     */
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+      try (InputStream content = getContent()) {
+        if (content != null) {
+          IOUtils.copy(content, outStream);
+        }
+      }
+    }
+
+    /**
+     * Close the entity, completing the request even if the content hasn't been read.
+     *
+     * @throws IOException Exception when closing the entity.
+     * @see org.apache.hc.core5.http.io.entity.HttpEntityWrapper#close()
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        completion.complete(bytes);
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http.hc5;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+
+
+/**
+ * Shared pool of HTTP connections for HttpComponents 5.
+ *
+ * A single HTTP client is shared by every request sent by WPCleaner,
+ * so that connections (and TLS sessions) are kept alive and reused between requests.
+ */
+public class Hc5HttpClientPool {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(Hc5HttpClientPool.class);
+
+  /** User agent used for the requests. */
+  private static final String USER_AGENT =
+      "WPCleaner (+http://en.wikipedia.org/wiki/User:NicoV/Wikipedia_Cleaner/Documentation)";
+
+  /** Shared instance. */
+  private static Hc5HttpClientPool instance;
+
+  /**
+   * @return Shared instance of the pool.
+   */
+  public static synchronized Hc5HttpClientPool getInstance() {
+    if (instance == null) {
+      instance = new Hc5HttpClientPool(null);
+    }
+    return instance;
+  }
+
+  /**
+   * Create the shared instance of the pool sending every request to a single server.
+   *
+   * Requests keep their original host (in the Host header), but are all sent
+   * to the given server, for example a local stand-in server for load tests.
+   * This must be done before any other use of the pool.
+   *
+   * @param server Server to which every request is sent.
+   * @return Shared instance of the pool.
+   */
+  public static synchronized Hc5HttpClientPool createInstance(HttpHost server) {
+    if (instance != null) {
+      throw new IllegalStateException("HTTP connection pool already created");
+    }
+    instance = new Hc5HttpClientPool(server);
+    return instance;
+  }
+
+  /** Connection manager. */
+  private final PoolingHttpClientConnectionManager connectionManager;
+
+  /** HTTP client. */
+  private final CloseableHttpClient httpClient;
+
+  /** Limits on concurrent requests for each host. */
+  private final Hc5ConcurrencyHandler concurrencyHandler;
+
+  /** Count of requests sent through the pool. */
+  private final AtomicLong requestsCount;
+
+  /** Count of connections opened by the pool. */
+  private final AtomicLong connectionsCount;
+
+  /**
+   * Create the pool of connections.
+   *
+   * @param server Server to which every request is sent, null to send requests to their target.
+   */
+  private Hc5HttpClientPool(HttpHost server) {
+    Configuration config = Configuration.getConfiguration();
+    int maxPerHost = Math.max(1, config.getInt(
+        null, ConfigurationValueInteger.HTTP_MAX_CONNECTIONS_PER_HOST));
+    int idleTimeout = Math.max(1, config.getInt(
+        null, ConfigurationValueInteger.HTTP_IDLE_TIMEOUT));
+    requestsCount = new AtomicLong();
+    connectionsCount = new AtomicLong();
+    concurrencyHandler = new Hc5ConcurrencyHandler(Math.min(maxPerHost, 8), maxPerHost);
+
+    connectionManager = PoolingHttpClientConnectionManagerBuilder.create().
+        setConnectionFactory(new CountingConnectionFactory()).
+        setMaxConnPerRoute(maxPerHost).
+        setMaxConnTotal(Math.max(200, 4 * maxPerHost)).
+        setValidateAfterInactivity(TimeValue.ofSeconds(2)).
+        build();
+    RequestConfig requestConfig = RequestConfig.custom().
+        setConnectTimeout(Timeout.ofSeconds(30)).
+        setResponseTimeout(Timeout.ofMinutes(5)).
+        build();
+    HttpClientBuilder builder = HttpClients.custom().
+        setConnectionManager(connectionManager).
+        setDefaultRequestConfig(requestConfig).
+        setUserAgent(USER_AGENT).
+        addRequestInterceptorFirst((request, entity, context) -> requestsCount.incrementAndGet()).
+        addExecInterceptorAfter(ChainElement.RETRY.name(), "concurrency", concurrencyHandler).
+        evictExpiredConnections().
+        evictIdleConnections(TimeValue.ofSeconds(idleTimeout));
+    if (server != null) {
+      builder.setRoutePlanner((target, context) -> new HttpRoute(server));
+      log.info("HTTP requests sent to {}", server);
+    }
+    httpClient = builder.build();
+    log.info("HTTP connection pool created with {} connections per host", Integer.valueOf(maxPerHost));
+  }
+
+  /**
+   * @return Shared HTTP client.
+   */
+  public CloseableHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  /**
+   * @return Limits on concurrent requests for each host.
+   */
+  public Hc5ConcurrencyHandler getConcurrencyHandler() {
+    return concurrencyHandler;
+  }
+
+  /**
+   * @return Count of requests sent through the pool.
+   */
+  public long getRequestsCount() {
+    return requestsCount.get();
+  }
+
+  /**
+   * @return Count of connections opened by the pool.
+   */
+  public long getConnectionsCount() {
+    return connectionsCount.get();
+  }
+
+  /**
+   * @return Ratio of requests that reused an already opened connection.
+   */
+  public double getConnectionReuseRatio() {
+    long requests = requestsCount.get();
+    if (requests <= 0) {
+      return 0;
+    }
+    return Math.max(0, requests - connectionsCount.get()) / (double) requests;
+  }
+
+  /**
+   * @return Statistics on the connections of the pool.
+   */
+  public PoolStats getPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * @return Textual description of the pool statistics.
+   */
+  public String getStatistics() {
+    return
+        "requests: " + requestsCount.get() +
+        ", connections: " + connectionsCount.get() +
+        ", reuse: " + Math.round(getConnectionReuseRatio() * 100) + "%" +
+        ", " + getPoolStats() +
+        ", limits: " + concurrencyHandler.getLimiters().values();
+  }
+
+  /**
+   * Connection factory counting created connections.
+   */
+  private class CountingConnectionFactory
+      implements HttpConnectionFactory<ManagedHttpClientConnection> {
+
+    /**
+     * Default constructor.
+     */
+    public CountingConnectionFactory() {
+    }
+
+    /**
+     * @param socket Socket.
+     * @return New connection.
+     * @throws IOException Exception.
+     * @see org.apache.hc.core5.http.io.HttpConnectionFactory#createConnection(java.net.Socket)
+     */
+    @Override
+    public ManagedHttpClientConnection createConnection(Socket socket) throws IOException {
+      connectionsCount.incrementAndGet();
+      return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+    }
+  }
+}
@@ -19,18 +19,35 @@ import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.ResponseManager;
 
 
 /**
  * Response handler for HTTP requests.
+ * 
+ * Without a response manager, the body of the response is kept in memory.
+ * With a response manager, the body is given to the manager as a live stream
+ * while the response is being received.
  */
 public class Hc5HttpResponseHandler
     implements HttpClientResponseHandler<Hc5HttpResponse> {
 
+  /** Manager for the body of the response, null to keep the body in memory. */
+  private final ResponseManager manager;
+
   /**
    * Default constructor.
    */
   public Hc5HttpResponseHandler() {
+    this(null);
+  }
+
+  /**
+   * @param manager Manager for the body of the response, null to keep the body in memory.
+   */
+  public Hc5HttpResponseHandler(ResponseManager manager) {
+    this.manager = manager;
   }
 
   /**
@@ -45,6 +62,10 @@ public class Hc5HttpResponseHandler
       throws HttpException, IOException {
     final int status = response.getCode();
     if ((status >= HttpStatus.SC_OK) && (status < HttpStatus.SC_REDIRECTION)) {
+      if (manager != null) {
+        manageResponse(response);
+        return new Hc5HttpResponse(status);
+      }
       byte[] data = EntityUtils.toByteArray(response.getEntity());
       InputStream is = new ByteArrayInputStream(data);
       Header hContentEncoding = response.getHeader("Content-Encoding");
@@ -55,4 +76,54 @@ public class Hc5HttpResponseHandler
     }
     return new Hc5HttpResponse(status);
   }
+
+  /**
+   * Give the body of the response to the response manager.
+   * 
+   * @param response HTTP response.
+   * @throws IOException Exception if nothing has been given to the manager yet.
+   * @throws ManagerException Exception once the manager has started processing the body.
+   */
+  private void manageResponse(ClassicHttpResponse response) throws IOException {
+    long bytesBefore = Hc5HttpUtils.getReceivedBytes();
+    try (InputStream is = Hc5HttpUtils.getResponseStream(response)) {
+      manager.manageResponse(is);
+    } catch (APIException e) {
+      throw new ManagerException(e);
+    } catch (IOException e) {
+      if (Hc5HttpUtils.getReceivedBytes() == bytesBefore) {
+        throw e;
+      }
+      throw new ManagerException(new APIException("Error reading response", e));
+    }
+  }
+
+  /**
+   * Exception thrown when the response manager failed after it started processing the body.
+   * 
+   * The request should not be sent again, as the manager may have been partially updated.
+   */
+  public static class ManagerException extends IOException {
+
+    /** Serialization. */
+    private static final long serialVersionUID = -1549712268014431935L;
+
+    /** Exception thrown by the response manager. */
+    private final APIException exception;
+
+    /**
+     * @param exception Exception thrown by the response manager.
+     */
+    ManagerException(APIException exception) {
+      super(exception.getMessage(), exception);
+      this.exception = exception;
+    }
+
+    /**
+     * @return Exception thrown by the response manager.
+     */
+    public APIException getAPIException() {
+      return exception;
+    }
+  }
 }
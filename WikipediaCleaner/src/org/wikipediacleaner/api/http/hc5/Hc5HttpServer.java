@@ -17,6 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.ResponseManager;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
 import org.wikipediacleaner.api.http.HttpServer;
 
 
@@ -36,6 +37,11 @@ public class Hc5HttpServer implements HttpServer {
    */
   private final String baseUrl;
 
+  /**
+   * True if responses should be given to the response manager while being received.
+   */
+  private final boolean streaming;
+
   /**
    * Maximum number of attempts.
    */
@@ -48,8 +54,20 @@ public class Hc5HttpServer implements HttpServer {
    * @param baseUrl Base URL of the server.
    */
   public Hc5HttpServer(CloseableHttpClient httpClient, String baseUrl) {
+    this(httpClient, baseUrl, false);
+  }
+
+  /**
+   * Create an HttpServer object.
+   * 
+   * @param httpClient HTTP client.
+   * @param baseUrl Base URL of the server.
+   * @param streaming True if responses should be given to the response manager while being received.
+   */
+  public Hc5HttpServer(CloseableHttpClient httpClient, String baseUrl, boolean streaming) {
     this.httpClient = httpClient;
     this.baseUrl = baseUrl;
+    this.streaming = streaming;
   }
 
   /**
@@ -74,20 +92,22 @@ public class Hc5HttpServer implements HttpServer {
       // Wait if it's not the first attempt
       count++;
       if (count > 1) {
-        waitBeforeRetrying(count);
+        ConcurrencyLimiter.waitBeforeRetrying(count - 1);
       }
 
       // Perform the request
       try {
         final HttpUriRequest method = Hc5HttpUtils.createMethod(url,  properties, false);
-        final Hc5HttpResponse response = httpClient.execute(method, new Hc5HttpResponseHandler());
+        final Hc5HttpResponse response = httpClient.execute(method, createResponseHandler(manager));
         statusCode = response.status;
         if (statusCode == HttpStatus.SC_OK) {
-          if (manager != null) {
+          if ((manager != null) && (response.inputStream != null)) {
             manager.manageResponse(response.inputStream);
           }
           return;
         }
+      } catch (Hc5HttpResponseHandler.ManagerException e) {
+        throw e.getAPIException();
       } catch (IOException e) {
         log.error("IOException (" + url + "): " + e.getMessage());
       }
@@ -115,20 +135,22 @@ public class Hc5HttpServer implements HttpServer {
       // Wait if it's not the first attempt
       count++;
       if (count > 1) {
-        waitBeforeRetrying(count);
+        ConcurrencyLimiter.waitBeforeRetrying(count - 1);
       }
 
       // Perform the request
       try {
         final HttpUriRequest method = Hc5HttpUtils.createMethod(url, null, true);
-        final Hc5HttpResponse response = httpClient.execute(method, new Hc5HttpResponseHandler());
+        final Hc5HttpResponse response = httpClient.execute(method, createResponseHandler(manager));
         statusCode = response.status;
         if (statusCode == HttpStatus.SC_OK) {
-          if (manager != null) {
+          if ((manager != null) && (response.inputStream != null)) {
             manager.manageResponse(response.inputStream);
           }
           return;
         }
+      } catch (Hc5HttpResponseHandler.ManagerException e) {
+        throw e.getAPIException();
       } catch (IOException e) {
         log.error("IOException (" + url + "): " + e.getMessage());
       }
@@ -137,21 +159,21 @@ public class Hc5HttpServer implements HttpServer {
   }
 
   /**
-   * @return Base URL.
+   * @param manager Response manager.
+   * @return Response handler depending on the mode of the server.
    */
-  @Override
-  public String getBaseUrl() {
-    return baseUrl;
+  private Hc5HttpResponseHandler createResponseHandler(ResponseManager manager) {
+    if (streaming && (manager != null)) {
+      return new Hc5HttpResponseHandler(manager);
+    }
+    return new Hc5HttpResponseHandler();
   }
 
   /**
-   * Wait after a problem occurred.
+   * @return Base URL.
    */
-  private void waitBeforeRetrying(int count) {
-    try {
-      Thread.sleep(10000 * Math.min(count, 1));
-    } catch (InterruptedException e) {
-      log.warn("Waiting before retrying");
-    }
+  @Override
+  public String getBaseUrl() {
+    return baseUrl;
   }
 }
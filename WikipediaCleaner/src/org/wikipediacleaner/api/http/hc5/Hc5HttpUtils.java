@@ -7,20 +7,36 @@
 
 package org.wikipediacleaner.api.http.hc5;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.net.URIBuilder;
 import org.wikipediacleaner.api.http.HttpUtils;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -44,6 +60,12 @@ public class Hc5HttpUtils extends HttpUtils {
       String url,
       Map<String, String> properties,
       boolean canUseGetMethod) {
+    String action = (properties != null) ? properties.get("action") : null;
+    if (action != null) {
+      MetricsRegistry.getRegistry().counter(
+          "wpcleaner_api_requests_total", "MediaWiki API requests by action",
+          "action", action).increment();
+    }
     try {
       if (canUseGetMethod) {
         return createHttpGetMethod(url, properties);
@@ -129,4 +151,119 @@ public class Hc5HttpUtils extends HttpUtils {
     }
     return method;
   }
+
+  /**
+   * Create an HTTP HEAD Method.
+   * 
+   * @param url URL of the request.
+   * @return HEAD Method.
+   */
+  public static HttpHead createHttpHeadMethod(String url) {
+    try {
+      URIBuilder uriBuilder = new URIBuilder(url, StandardCharsets.UTF_8);
+      HttpHead method = new HttpHead(uriBuilder.build());
+      if (DEBUG_URL) {
+        debugText("HEAD " + url);
+      }
+      return method;
+    } catch (URISyntaxException e) {
+      log.error("Invalid URL {}: {}", url, e.getMessage());
+      return null;
+    }
+  }
+
+  // ==========================================================================
+  // HTTP responses for HTTP Components 5
+  // ==========================================================================
+
+  /**
+   * Count of bytes received by each thread.
+   */
+  private static final ThreadLocal<long[]> receivedBytes = ThreadLocal.withInitial(() -> new long[1]);
+
+  /**
+   * @return Count of bytes of response bodies read by the current thread.
+   */
+  public static long getReceivedBytes() {
+    return receivedBytes.get()[0];
+  }
+
+  /**
+   * Retrieve the body of a response as a stream.
+   * 
+   * Bytes read from the stream are added to the count of the current thread.
+   * 
+   * @param response HTTP response.
+   * @return Stream on the response body, decompressed if needed.
+   * @throws IOException Exception.
+   */
+  public static InputStream getResponseStream(ClassicHttpResponse response) throws IOException {
+    HttpEntity entity = response.getEntity();
+    if (entity == null) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    final long[] counter = receivedBytes.get();
+    InputStream stream = new BufferedInputStream(new ProxyInputStream(entity.getContent()) {
+
+      /**
+       * @param n Number of bytes read.
+       * @see org.apache.commons.io.input.ProxyInputStream#afterRead(int)
+       */
+      @Override
+      protected void afterRead(int n) {
+        if (n > 0) {
+          counter[0] += n;
+        }
+      }
+    });
+    Header contentEncoding = response.getFirstHeader("Content-Encoding");
+    if ((contentEncoding != null) && ("gzip".equals(contentEncoding.getValue()))) {
+      stream = new GZIPInputStream(stream);
+    }
+    return stream;
+  }
+
+  /**
+   * Retrieve the delay requested by the server before sending new requests.
+   * 
+   * @param response HTTP response.
+   * @return Delay in milliseconds requested in the Retry-After header, 0 if none.
+   */
+  public static long getRetryAfter(HttpResponse response) {
+    Header header = (response != null) ? response.getFirstHeader(HttpHeaders.RETRY_AFTER) : null;
+    if ((header == null) || (header.getValue() == null)) {
+      return 0;
+    }
+    String value = header.getValue().trim();
+    try {
+      return Math.max(0, Long.parseLong(value) * 1000);
+    } catch (NumberFormatException e) {
+      Date date = DateUtils.parseDate(value);
+      if (date != null) {
+        return Math.max(0, date.getTime() - System.currentTimeMillis());
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Release a response so that its connection can be reused.
+   * 
+   * @param response HTTP response.
+   */
+  public static void releaseResponse(ClassicHttpResponse response) {
+    if (response == null) {
+      return;
+    }
+    try {
+      EntityUtils.consume(response.getEntity());
+    } catch (IOException e) {
+      log.warn("Error consuming response: {}", e.getMessage());
+    }
+    try {
+      response.close();
+    } catch (IOException e) {
+      log.warn("Error closing response: {}", e.getMessage());
+    }
+  }
 }
@@ -0,0 +1,492 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.impl;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.User;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvent;
+import org.wikipediacleaner.utils.jfr.FlightRecorderEvents;
+import org.wikipediacleaner.utils.metrics.Histogram;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
+
+
+/**
+ * Scheduler handing out permits for edits.
+ *
+ * For each wiki, every edit is separated from the previous one by the minimum time between edits,
+ * and edits in content name spaces are limited to the maximum number of edits in any minute,
+ * so that up to this number of edits can be done in a burst.
+ * Permits are reserved without blocking: the reservation is a future completed
+ * when the permit is available, so only the thread actually saving the page waits,
+ * and edits on different wikis don't wait for each other.
+ * A permit can be reserved for a page when its analysis starts, and is then used when the page is saved,
+ * or cancelled if the page is finally not modified.
+ * As pages are not necessarily saved in the order of their reservations,
+ * the time of a permit is only a lower bound: before saving, the minimum time between edits
+ * and the maximum number of edits per minute are checked again against the times of the actual edits.
+ */
+public class EditScheduler {
+
+  /** Duration of the window for the maximum number of edits (in milliseconds). */
+  private final static long WINDOW = 60000L;
+
+  /** Schedulers for each wiki. */
+  private final static Map<EnumWikipedia, EditScheduler> schedulers = new ConcurrentHashMap<>();
+
+  /** Executor completing reservations when permits are available. */
+  private static ScheduledExecutorService executor;
+
+  /**
+   * @param wiki Wiki.
+   * @return Scheduler for the wiki.
+   */
+  public static EditScheduler getScheduler(EnumWikipedia wiki) {
+    return schedulers.computeIfAbsent(
+        wiki,
+        key -> new EditScheduler(key.getSettings().getCode(), System::currentTimeMillis));
+  }
+
+  /**
+   * @return Executor completing reservations when permits are available.
+   */
+  private static synchronized ScheduledExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newSingleThreadScheduledExecutor(
+          new BasicThreadFactory.Builder().namingPattern("EditScheduler-%d").daemon(true).build());
+    }
+    return executor;
+  }
+
+  /**
+   * Reservation of a permit for an edit.
+   */
+  public class Reservation {
+
+    /** Sequence number of the reservation. */
+    private final long sequence;
+
+    /** True if the edit is in a content name space. */
+    private final boolean content;
+
+    /** Minimum time between edits (in milliseconds). */
+    private final long minimumGap;
+
+    /** Maximum number of edits per minute, 0 if unlimited. */
+    private final int maxEdits;
+
+    /** Time when the permit is available. */
+    private final long permitTime;
+
+    /** Time of the last permit before this reservation. */
+    private final long previousPermitTime;
+
+    /** Future completed when the permit is available. */
+    private final CompletableFuture<Void> permit;
+
+    /** Task completing the future, null if the permit was immediately available. */
+    private ScheduledFuture<?> task;
+
+    /**
+     * @param sequence Sequence number of the reservation.
+     * @param content True if the edit is in a content name space.
+     * @param minimumGap Minimum time between edits (in milliseconds).
+     * @param maxEdits Maximum number of edits per minute, 0 if unlimited.
+     * @param permitTime Time when the permit is available.
+     * @param previousPermitTime Time of the last permit before this reservation.
+     */
+    Reservation(
+        long sequence, boolean content,
+        long minimumGap, int maxEdits,
+        long permitTime, long previousPermitTime) {
+      this.sequence = sequence;
+      this.content = content;
+      this.minimumGap = minimumGap;
+      this.maxEdits = maxEdits;
+      this.permitTime = permitTime;
+      this.previousPermitTime = previousPermitTime;
+      this.permit = new CompletableFuture<>();
+    }
+
+    /**
+     * @return Time when the permit is available.
+     */
+    public long getPermitTime() {
+      return permitTime;
+    }
+
+    /**
+     * @return True if the permit is available.
+     */
+    public boolean isAvailable() {
+      return permit.isDone() && !permit.isCancelled();
+    }
+
+    /**
+     * Wait until the permit is available and the edit is allowed by the actual edits.
+     *
+     * @param namespace Name space for the edit.
+     * @throws APIException Exception if the wait is interrupted.
+     */
+    public void await(Integer namespace) throws APIException {
+      FlightRecorderEvent event = FlightRecorderEvents.EDIT_THROTTLING.begin();
+      long start = clock.getAsLong();
+      try {
+        permit.get();
+        long delay = startEdit();
+        while (delay > 0) {
+          Thread.sleep(delay);
+          delay = startEdit();
+        }
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new APIException("Interrupted while waiting before editing", e);
+      } catch (ExecutionException e) {
+        throw new APIException("Error while waiting before editing", e.getCause());
+      } catch (CancellationException e) {
+        throw new APIException("Reservation cancelled while waiting before editing", e);
+      } finally {
+        recordWait(content, clock.getAsLong() - start);
+        if (event != null) {
+          event.set("wiki", wikiCode);
+          event.set("namespace", (namespace != null) ? namespace.intValue() : 0);
+          event.commit();
+        }
+      }
+    }
+
+    /**
+     * Start the edit if it is allowed by the actual edits.
+     *
+     * @return 0 if the edit is started, otherwise the time to wait before trying again (in milliseconds).
+     */
+    long startEdit() {
+      return EditScheduler.this.startEdit(content, minimumGap, maxEdits);
+    }
+
+    /**
+     * Cancel the reservation, giving back the permit if it isn't available yet.
+     */
+    public void cancel() {
+      synchronized (EditScheduler.this) {
+        if (permit.isDone()) {
+          return;
+        }
+        if ((task != null) && task.cancel(false)) {
+          queueDepth--;
+        }
+        if (content) {
+          contentPermits.removeLastOccurrence(Long.valueOf(permitTime));
+        }
+        if (sequence == lastSequence) {
+          lastPermitTime = previousPermitTime;
+        }
+        permit.cancel(false);
+      }
+    }
+  }
+
+  /** Code of the wiki. */
+  private final String wikiCode;
+
+  /** Clock giving the current time (in milliseconds). */
+  private final LongSupplier clock;
+
+  /** Reservations made for pages before saving them, by title. */
+  private final Map<String, Reservation> pageReservations;
+
+  /** Time of the last permit, 0 if none. */
+  private long lastPermitTime;
+
+  /** Sequence number of the last reservation. */
+  private long lastSequence;
+
+  /** Times of the permits for content name spaces in the last window, in ascending order. */
+  private final LinkedList<Long> contentPermits;
+
+  /** Time of the last actual edit, 0 if none. */
+  private long lastEditTime;
+
+  /** Times of the actual edits in content name spaces in the last window, in ascending order. */
+  private final LinkedList<Long> contentEdits;
+
+  /** Number of reservations waiting for their permit. */
+  private int queueDepth;
+
+  /** Number of permits used. */
+  private long permitsCount;
+
+  /** Total time waited for permits (in milliseconds). */
+  private long totalWait;
+
+  /** Maximum time waited for a permit (in milliseconds). */
+  private long maxWait;
+
+  /** Metrics for the time waited for permits in content name spaces. */
+  private final Histogram contentWaitMetrics;
+
+  /** Metrics for the time waited for permits in talk name spaces. */
+  private final Histogram talkWaitMetrics;
+
+  /**
+   * Create a scheduler.
+   *
+   * @param wikiCode Code of the wiki.
+   * @param clock Clock giving the current time (in milliseconds).
+   */
+  EditScheduler(String wikiCode, LongSupplier clock) {
+    this.wikiCode = wikiCode;
+    this.clock = clock;
+    this.pageReservations = new ConcurrentHashMap<>();
+    this.contentPermits = new LinkedList<>();
+    this.contentEdits = new LinkedList<>();
+    MetricsRegistry metrics = MetricsRegistry.getRegistry();
+    this.contentWaitMetrics = metrics.histogram(
+        "wpcleaner_edit_wait_seconds", "Time waited for an edit permit",
+        "wiki", wikiCode, "bucket", "content");
+    this.talkWaitMetrics = metrics.histogram(
+        "wpcleaner_edit_wait_seconds", "Time waited for an edit permit",
+        "wiki", wikiCode, "bucket", "talk");
+    metrics.gauge(
+        "wpcleaner_edit_queue_depth", "Edits waiting for their permit",
+        this::getQueueDepth, "wiki", wikiCode);
+  }
+
+  /**
+   * @param namespace Name space for the edit.
+   * @return True if the name space is a talk name space.
+   */
+  private static boolean isTalk(Integer namespace) {
+    return (namespace != null) && (namespace.intValue() % 2 != 0);
+  }
+
+  /**
+   * @return Minimum time between edits (in milliseconds).
+   */
+  private static long getMinimumGap() {
+    Configuration config = Configuration.getConfiguration();
+    return Math.max(0, config.getInt(null, ConfigurationValueInteger.TIME_BETWEEN_EDIT)) * 1000L;
+  }
+
+  /**
+   * @param user Current user.
+   * @return Maximum number of edits per minute in content name spaces, 0 if unlimited.
+   */
+  private static int getMaxEdits(User user) {
+    Configuration config = Configuration.getConfiguration();
+    int maxEdits = config.getInt(null, ConfigurationValueInteger.MAX_EDITS_PER_MINUTE);
+    if ((maxEdits > ConfigurationValueInteger.MAX_EDITS_PER_MINUTE_NORMAL) ||
+        (maxEdits <= 0)) {
+      if ((user == null) ||
+          (!user.isMemberOf("admin") && !user.isMemberOf("bot"))) {
+        maxEdits = ConfigurationValueInteger.MAX_EDITS_PER_MINUTE_NORMAL;
+      }
+    }
+    return Math.max(0, maxEdits);
+  }
+
+  /**
+   * Reserve a permit for an edit without waiting.
+   *
+   * @param user Current user.
+   * @param namespace Name space for the edit.
+   * @return Reservation of the permit.
+   */
+  public Reservation reserve(User user, Integer namespace) {
+    boolean content = !isTalk(namespace);
+    return reserve(content, getMinimumGap(), content ? getMaxEdits(user) : 0);
+  }
+
+  /**
+   * Reserve a permit for an edit without waiting.
+   *
+   * @param content True if the edit is in a content name space.
+   * @param minimumGap Minimum time between edits (in milliseconds).
+   * @param maxEdits Maximum number of edits per minute, 0 if unlimited.
+   * @return Reservation of the permit.
+   */
+  synchronized Reservation reserve(boolean content, long minimumGap, int maxEdits) {
+    long currentTime = clock.getAsLong();
+    long permitTime = currentTime;
+    if ((minimumGap > 0) && (lastPermitTime > 0)) {
+      permitTime = Math.max(permitTime, lastPermitTime + minimumGap);
+    }
+    if (content) {
+      while (!contentPermits.isEmpty() &&
+             (contentPermits.getFirst().longValue() + WINDOW <= currentTime)) {
+        contentPermits.removeFirst();
+      }
+      if (!contentPermits.isEmpty()) {
+        permitTime = Math.max(permitTime, contentPermits.getLast().longValue());
+      }
+      if ((maxEdits > 0) && (contentPermits.size() >= maxEdits)) {
+        permitTime = Math.max(
+            permitTime,
+            contentPermits.get(contentPermits.size() - maxEdits).longValue() + WINDOW);
+      }
+      contentPermits.addLast(Long.valueOf(permitTime));
+    }
+    lastSequence++;
+    Reservation reservation = new Reservation(
+        lastSequence, content, minimumGap, maxEdits, permitTime, lastPermitTime);
+    lastPermitTime = Math.max(lastPermitTime, permitTime);
+    long delay = permitTime - currentTime;
+    if (delay <= 0) {
+      reservation.permit.complete(null);
+      return reservation;
+    }
+    queueDepth++;
+    reservation.task = getExecutor().schedule(() -> {
+      synchronized (EditScheduler.this) {
+        queueDepth--;
+      }
+      reservation.permit.complete(null);
+    }, delay, TimeUnit.MILLISECONDS);
+    return reservation;
+  }
+
+  /**
+   * Start an edit if it is allowed by the actual edits.
+   *
+   * @param content True if the edit is in a content name space.
+   * @param minimumGap Minimum time between edits (in milliseconds).
+   * @param maxEdits Maximum number of edits per minute, 0 if unlimited.
+   * @return 0 if the edit is started, otherwise the time to wait before trying again (in milliseconds).
+   */
+  synchronized long startEdit(boolean content, long minimumGap, int maxEdits) {
+    long currentTime = clock.getAsLong();
+    long editTime = currentTime;
+    if ((minimumGap > 0) && (lastEditTime > 0)) {
+      editTime = Math.max(editTime, lastEditTime + minimumGap);
+    }
+    while (!contentEdits.isEmpty() &&
+           (contentEdits.getFirst().longValue() + WINDOW <= currentTime)) {
+      contentEdits.removeFirst();
+    }
+    if (content && (maxEdits > 0) && (contentEdits.size() >= maxEdits)) {
+      editTime = Math.max(
+          editTime,
+          contentEdits.get(contentEdits.size() - maxEdits).longValue() + WINDOW);
+    }
+    if (editTime > currentTime) {
+      return editTime - currentTime;
+    }
+    lastEditTime = currentTime;
+    if (content) {
+      contentEdits.addLast(Long.valueOf(currentTime));
+    }
+    return 0;
+  }
+
+  /**
+   * @param page Page.
+   * @return Key for the reservations made for the page.
+   */
+  private static String getKey(Page page) {
+    return Page.normalizeTitle(page.getTitle());
+  }
+
+  /**
+   * Reserve a permit for editing a page, to be used when the page is saved.
+   *
+   * @param user Current user.
+   * @param page Page.
+   */
+  public void reserve(User user, Page page) {
+    if ((page == null) || (page.getTitle() == null)) {
+      return;
+    }
+    pageReservations.computeIfAbsent(getKey(page), key -> reserve(user, page.getNamespace()));
+  }
+
+  /**
+   * Cancel the permit reserved for editing a page.
+   *
+   * @param page Page.
+   */
+  public void cancel(Page page) {
+    if ((page == null) || (page.getTitle() == null)) {
+      return;
+    }
+    Reservation reservation = pageReservations.remove(getKey(page));
+    if (reservation != null) {
+      reservation.cancel();
+    }
+  }
+
+  /**
+   * Wait for a permit for editing a page, using the permit reserved for the page if any.
+   *
+   * @param user Current user.
+   * @param page Page.
+   * @throws APIException Exception if the wait is interrupted.
+   */
+  public void acquire(User user, Page page) throws APIException {
+    Integer namespace = page.getNamespace();
+    Reservation reservation = (page.getTitle() != null) ? pageReservations.remove(getKey(page)) : null;
+    if ((reservation != null) && (reservation.content == isTalk(namespace))) {
+      reservation.cancel();
+      reservation = null;
+    }
+    if (reservation == null) {
+      reservation = reserve(user, namespace);
+    }
+    reservation.await(namespace);
+  }
+
+  /**
+   * Record the time waited for a permit.
+   *
+   * @param content True if the edit is in a content name space.
+   * @param wait Time waited (in milliseconds).
+   */
+  synchronized void recordWait(boolean content, long wait) {
+    long delay = Math.max(0, wait);
+    permitsCount++;
+    totalWait += delay;
+    maxWait = Math.max(maxWait, delay);
+    (content ? contentWaitMetrics : talkWaitMetrics).observeMillis(delay);
+  }
+
+  /**
+   * @return Number of edits waiting for their permit.
+   */
+  public synchronized int getQueueDepth() {
+    return queueDepth;
+  }
+
+  /**
+   * @return Statistics on the permits.
+   */
+  @Override
+  public synchronized String toString() {
+    return
+        "queue=" + queueDepth +
+        ", reserved=" + pageReservations.size() +
+        ", permits=" + permitsCount +
+        ", avgWait=" + ((permitsCount > 0) ? totalWait / permitsCount : 0) + "ms" +
+        ", maxWait=" + maxWait + "ms";
+  }
+}
@@ -7,7 +7,6 @@
 
 package org.wikipediacleaner.api.impl;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -16,17 +15,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
@@ -59,10 +58,15 @@ import org.wikipediacleaner.api.data.RecentChange;
 import org.wikipediacleaner.api.data.Section;
 import org.wikipediacleaner.api.data.TemplateData;
 import org.wikipediacleaner.api.data.User;
+import org.wikipediacleaner.api.data.analysis.PageAnalysisCache;
 import org.wikipediacleaner.api.http.HttpUtils;
-import org.wikipediacleaner.api.http.hc3.Hc3HttpUtils;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
+import org.wikipediacleaner.api.request.ApiCache;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.api.request.RequestCoalescer;
 import org.wikipediacleaner.api.request.delete.ApiDeleteRequest;
 import org.wikipediacleaner.api.request.delete.ApiDeleteResult;
 import org.wikipediacleaner.api.request.delete.ApiXmlDeleteResult;
@@ -107,10 +111,10 @@ import org.wikipediacleaner.api.request.query.list.ApiSearchRequest;
 import org.wikipediacleaner.api.request.query.list.ApiSearchResult;
 import org.wikipediacleaner.api.request.query.list.ApiUsersRequest;
 import org.wikipediacleaner.api.request.query.list.ApiUsersResult;
+import org.wikipediacleaner.api.request.query.list.ApiJsonCategoryMembersResult;
+import org.wikipediacleaner.api.request.query.list.ApiJsonEmbeddedInResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlAbuseFiltersResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlAbuseLogResult;
-import org.wikipediacleaner.api.request.query.list.ApiXmlCategoryMembersResult;
-import org.wikipediacleaner.api.request.query.list.ApiXmlEmbeddedInResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlLintErrorsResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlPagesWithPropResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlProtectedTitlesResult;
@@ -121,10 +125,8 @@ import org.wikipediacleaner.api.request.query.list.ApiXmlRecentChangesResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlSearchResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlUsersResult;
 import org.wikipediacleaner.api.request.query.meta.ApiAllMessagesRequest;
-import org.wikipediacleaner.api.request.query.meta.ApiAllMessagesResult;
 import org.wikipediacleaner.api.request.query.meta.ApiJsonTokensResult;
 import org.wikipediacleaner.api.request.query.meta.ApiSiteInfoRequest;
-import org.wikipediacleaner.api.request.query.meta.ApiSiteInfoResult;
 import org.wikipediacleaner.api.request.query.meta.ApiTokensRequest;
 import org.wikipediacleaner.api.request.query.meta.ApiTokensResult;
 import org.wikipediacleaner.api.request.query.meta.ApiXmlAllMessagesResult;
@@ -147,19 +149,18 @@ import org.wikipediacleaner.api.request.query.prop.ApiRevisionsRequest;
 import org.wikipediacleaner.api.request.query.prop.ApiRevisionsResult;
 import org.wikipediacleaner.api.request.query.prop.ApiTemplatesRequest;
 import org.wikipediacleaner.api.request.query.prop.ApiTemplatesResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonLinksResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonPagePropsResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonRevisionsResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlCategoriesResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlInfoResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlLanguageLinksResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlLinksHereResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlLinksResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlPagePropsResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlPropertiesResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlRedirectsResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlRevisionsResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlTemplatesResult;
 import org.wikipediacleaner.api.request.templatedata.ApiJsonTemplateDataResult;
 import org.wikipediacleaner.api.request.templatedata.ApiTemplateDataRequest;
-import org.wikipediacleaner.api.request.templatedata.ApiTemplateDataResult;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.utils.Configuration;
@@ -174,25 +175,17 @@ public class MediaWikiAPI implements API {
 
   private final Logger log = LoggerFactory.getLogger(MediaWikiAPI.class);
 
-  private final static int MAX_PAGES_PER_QUERY = 50;
-
   private static boolean DEBUG_XML = false;
   private static XMLOutputter xmlOutputter = new XMLOutputter(Format.getPrettyFormat());
 
-  private HttpClient httpClient;
-
-  /**
-   * Time of last edit.
-   */
-  private LinkedList<Long> lastEditTimes = new LinkedList<>();
-  private final Object editLock = new Object();
+  private CloseableHttpClient httpClient;
 
   /**
    * Constructor.
    * 
    * @param httpClient HTTP client.
    */
-  public MediaWikiAPI(HttpClient httpClient) {
+  public MediaWikiAPI(CloseableHttpClient httpClient) {
     this.httpClient = httpClient;
   }
 
@@ -208,11 +201,12 @@ public class MediaWikiAPI implements API {
   }
 
   /**
+   * @param wiki Wiki.
    * @return Maximum number of pages per query.
    */
   @Override
-  public int getMaxPagesPerQuery() {
-    return MAX_PAGES_PER_QUERY;
+  public int getMaxPagesPerQuery(EnumWikipedia wiki) {
+    return AdaptiveBatcher.getLimit(wiki);
   }
 
   // ==========================================================================
@@ -256,7 +250,7 @@ public class MediaWikiAPI implements API {
       if (userConfigPage != null) {
         pages.add(userConfigPage);
       }
-      retrieveContents(wiki, pages, false, false);
+      retrieveConfigurationContents(wiki, pages);
 
       // Set configuration
       wiki.getConfiguration().setConfiguration(
@@ -319,17 +313,9 @@ public class MediaWikiAPI implements API {
     properties.put("continue", "");
     properties.put("rvprop", "content");
     properties.put("rvslots", "main");
-    StringBuilder titles = new StringBuilder();
-    for (int i = 0; i < pages.size();) {
-      titles.setLength(0);
-      for (int j = 0; (j < MAX_PAGES_PER_QUERY) && (i < pages.size()); i++, j++) {
-        Page p = pages.get(i);
-        if (j > 0) {
-          titles.append("|");
-        }
-        titles.append(p.getTitle());
-      }
-      properties.put("titles", titles.toString());
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(wikipedia, "revisions");
+    batcher.process(pages, batch -> {
+      properties.put("titles", getTitles(batch));
       try {
         constructContents(
             pages,
@@ -339,7 +325,22 @@ public class MediaWikiAPI implements API {
         log.error("Error retrieving redirects", e);
         throw new APIException("Error parsing XML", e);
       }
+    });
+  }
+
+  /**
+   * @param pages List of pages.
+   * @return Titles of the pages, separated by a pipe.
+   */
+  private String getTitles(List<Page> pages) {
+    StringBuilder titles = new StringBuilder();
+    for (Page p : pages) {
+      if (titles.length() > 0) {
+        titles.append("|");
+      }
+      titles.append(p.getTitle());
     }
+    return titles.toString();
   }
 
   /**
@@ -377,6 +378,7 @@ public class MediaWikiAPI implements API {
         (connection.getLgUserName() == null)){
       throw new APIException("You must be logged in to update pages");
     }
+    PageAnalysisCache.getCache().invalidate(wikipedia, page.getTitle());
     int attemptNumber = 0;
     QueryResult result = null;
     do {
@@ -403,7 +405,7 @@ public class MediaWikiAPI implements API {
       }
       properties.put("watchlist", forceWatch ? "watch" : "nochange");
       CommentManager.manageComment(wikipedia.getConfiguration(), properties, "summary", "tags", automatic);
-      checkTimeForEdit(wikipedia.getConnection().getUser(), page.getNamespace());
+      checkTimeForEdit(wikipedia, page);
       try {
         boolean hasCaptcha = false;
         do {
@@ -458,6 +460,28 @@ public class MediaWikiAPI implements API {
     return result;
   }
 
+  /**
+   * Reserve a permit for editing a page, so that the wait overlaps the analysis of the page.
+   * 
+   * @param wikipedia Wikipedia.
+   * @param page Page.
+   */
+  @Override
+  public void reserveEdit(EnumWikipedia wikipedia, Page page) {
+    EditScheduler.getScheduler(wikipedia).reserve(wikipedia.getConnection().getUser(), page);
+  }
+
+  /**
+   * Cancel the permit reserved for editing a page that won't be modified.
+   * 
+   * @param wikipedia Wikipedia.
+   * @param page Page.
+   */
+  @Override
+  public void cancelEdit(EnumWikipedia wikipedia, Page page) {
+    EditScheduler.getScheduler(wikipedia).cancel(page);
+  }
+
   /**
    * Add a new section in a page.
    * 
@@ -541,6 +565,7 @@ public class MediaWikiAPI implements API {
         (connection.getLgUserName() == null)){
       throw new APIException("You must be logged in to update pages");
     }
+    PageAnalysisCache.getCache().invalidate(wikipedia, page.getTitle());
     int attemptNumber = 0;
     QueryResult result = null;
     do {
@@ -569,7 +594,7 @@ public class MediaWikiAPI implements API {
       properties.put("token", wikipedia.getConnection().getEditToken());
       properties.put("watchlist", forceWatch ? "watch" : "nochange");
       CommentManager.manageComment(wikipedia.getConfiguration(), properties, "summary", "tags", automatic);
-      checkTimeForEdit(wikipedia.getConnection().getUser(), page.getNamespace());
+      checkTimeForEdit(wikipedia, page);
       try {
         boolean hasCaptcha = false;
         do {
@@ -621,17 +646,9 @@ public class MediaWikiAPI implements API {
     }
     Map<String, String> properties = getProperties(ApiRequest.ACTION_QUERY, true);
     properties.put("redirects", "");
-    StringBuilder titles = new StringBuilder();
-    for (int i = 0; i < pages.size();) {
-      titles.setLength(0);
-      for (int j = 0; (j < MAX_PAGES_PER_QUERY) && (i < pages.size()); i++, j++) {
-        Page p = pages.get(i);
-        if (j > 0) {
-          titles.append("|");
-        }
-        titles.append(p.getTitle());
-      }
-      properties.put("titles", titles.toString());
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(wiki, "redirects");
+    batcher.process(pages, batch -> {
+      properties.put("titles", getTitles(batch));
       try {
         updateRedirectStatus(
             wiki, pages,
@@ -640,7 +657,7 @@ public class MediaWikiAPI implements API {
         log.error("Error retrieving redirects", e);
         throw new APIException("Error parsing XML", e);
       }
-    }
+    });
   }
 
   /**
@@ -897,7 +914,8 @@ public class MediaWikiAPI implements API {
    * @see <a href="http://www.mediawiki.org/wiki/API:Meta#siteinfo_.2F_si">API:Meta</a>
    */
   private void loadSiteInfo(EnumWikipedia wiki) throws APIException {
-    ApiSiteInfoResult result = new ApiXmlSiteInfoResult(wiki, httpClient);
+    ApiXmlSiteInfoResult result = new ApiXmlSiteInfoResult(wiki, httpClient);
+    result.setCachePolicy(ApiCache.Policy.SITE_INFO);
     ApiSiteInfoRequest request = new ApiSiteInfoRequest(wiki, result);
     request.loadSiteInformation(true, true, true, true, true, true, true, true);
   }
@@ -918,7 +936,8 @@ public class MediaWikiAPI implements API {
    */
   @Override
   public String loadMessage(EnumWikipedia wiki, String messageName) throws APIException {
-    ApiAllMessagesResult result = new ApiXmlAllMessagesResult(wiki, httpClient);
+    ApiXmlAllMessagesResult result = new ApiXmlAllMessagesResult(wiki, httpClient);
+    result.setCachePolicy(ApiCache.Policy.MESSAGES);
     ApiAllMessagesRequest request = new ApiAllMessagesRequest(wiki, result);
     return request.loadMessage(messageName);
   }
@@ -935,7 +954,8 @@ public class MediaWikiAPI implements API {
    */
   @Override
   public Map<String, String> loadMessages(EnumWikipedia wiki, List<String> messageNames) throws APIException {
-    ApiAllMessagesResult result = new ApiXmlAllMessagesResult(wiki, httpClient);
+    ApiXmlAllMessagesResult result = new ApiXmlAllMessagesResult(wiki, httpClient);
+    result.setCachePolicy(ApiCache.Policy.MESSAGES);
     ApiAllMessagesRequest request = new ApiAllMessagesRequest(wiki, result);
     return request.loadMessages(messageNames);
   }
@@ -984,6 +1004,8 @@ public class MediaWikiAPI implements API {
    * Retrieves the contents of a list of pages.
    * (<code>action=query</code>, <code>prop=revisions</code>).
    * 
+   * Pages already being retrieved by an other thread are not requested again.
+   * 
    * @param wiki Wiki.
    * @param pages List of pages.
    * @param usePageId True if page identifiers should be used.
@@ -997,9 +1019,66 @@ public class MediaWikiAPI implements API {
       Collection<Page> pages, boolean usePageId,
       boolean withRedirects)
       throws APIException {
-    ApiRevisionsResult result = new ApiXmlRevisionsResult(wiki, httpClient);
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(
+        wiki, "contents|" + usePageId + "|" + withRedirects);
+    coalescer.load(
+        pages, usePageId, AdaptiveBatcher.getLimit(wiki),
+        batch -> {
+          ApiRevisionsResult result = new ApiJsonRevisionsResult(wiki, httpClient);
+          ApiRevisionsRequest request = new ApiRevisionsRequest(wiki, result);
+          request.loadContent(batch, usePageId, withRedirects);
+        },
+        MediaWikiAPI::copyContents);
+  }
+
+  /**
+   * Copy the contents retrieved for a page to an other instance of the same page.
+   * 
+   * @param from Page for which the contents have been retrieved.
+   * @param to Other instance of the same page.
+   */
+  private static void copyContents(Page from, Page to) {
+    to.setPageId(from.getPageId());
+    to.setNamespace(from.getNamespace());
+    to.setExisting(from.isExisting());
+    to.setContents(from.getContents());
+    to.setRevisionId((from.getRevisionId() != null) ? from.getRevisionId().toString() : null);
+    to.setContentsTimestamp(from.getContentsTimestamp());
+    to.setStartTimestamp(from.getStartTimestamp());
+    to.setEditProhibition(from.getEditProhibition());
+    to.setEditProtectionLevel(from.getEditProtectionLevel());
+    PageRedirect redirects = from.getRedirects();
+    if (redirects.isRedirect()) {
+      to.getRedirects().isRedirect(true);
+      if ((redirects.getList() != null) && (to.getRedirects().getList() == null)) {
+        Map<Page, Page> copies = new IdentityHashMap<>();
+        for (Pair<Page, String> redirect : redirects.getList()) {
+          to.getRedirects().add(copyPage(redirect.getLeft(), copies), redirect.getRight());
+        }
+      }
+    }
+  }
+
+  /**
+   * Retrieves the contents of a list of configuration pages.
+   * (<code>action=query</code>, <code>prop=revisions</code>).
+   * 
+   * The contents are kept in a local cache and reused while the pages haven't been modified.
+   * 
+   * @param wiki Wiki.
+   * @param pages List of pages.
+   * @throws APIException Exception thrown by the API.
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#revisions_.2F_rv">API:Properties#revisions</a>
+   */
+  @Override
+  public void retrieveConfigurationContents(
+      EnumWikipedia wiki,
+      Collection<Page> pages)
+      throws APIException {
+    ApiJsonRevisionsResult result = new ApiJsonRevisionsResult(wiki, httpClient);
+    result.setCachePolicy(ApiCache.Policy.CONFIGURATION);
     ApiRevisionsRequest request = new ApiRevisionsRequest(wiki, result);
-    request.loadContent(pages, usePageId, withRedirects);
+    request.loadContent(pages, false, false);
   }
 
   /**
@@ -1011,9 +1090,17 @@ public class MediaWikiAPI implements API {
   @Override
   public void retrieveTemplates(EnumWikipedia wiki, Page page)
       throws APIException {
-    ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
-    ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
-    request.loadTemplates(page);
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(wiki, "templates");
+    coalescer.load(
+        Collections.singletonList(page), false, 1,
+        batch -> {
+          ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
+          ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
+          for (Page tmpPage : batch) {
+            request.loadTemplates(tmpPage);
+          }
+        },
+        (from, to) -> to.setTemplates(copyList(from.getTemplates(), new IdentityHashMap<>())));
   }
 
   /**
@@ -1047,30 +1134,70 @@ public class MediaWikiAPI implements API {
         }
       }
     } else {
-      // Use __DISAMBIG__ magic word if possible
-      WPCConfiguration config = wiki.getConfiguration();
-      boolean useDisambig = config.getBoolean(
-          WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
-      if (useDisambig) {
-        ApiPagePropsResult result = new ApiXmlPagePropsResult(wiki, httpClient);
-        ApiPagePropsRequest request = new ApiPagePropsRequest(wiki, result);
-        request.setDisambiguationStatus(pages);
-        return;
-      }
+      RequestCoalescer coalescer = RequestCoalescer.getCoalescer(wiki, "disambiguation");
+      coalescer.load(
+          pages, false, AdaptiveBatcher.getLimit(wiki),
+          batch -> loadDisambiguationStatus(wiki, batch),
+          MediaWikiAPI::copyDisambiguationStatus);
+    }
+  }
 
-      // Use categories if possible
-      List<Page> dabCategories = wiki.getConfiguration().getDisambiguationCategories();
-      if ((dabCategories != null) && (dabCategories.size() > 0)) {
-        ApiCategoriesResult result = new ApiXmlCategoriesResult(wiki, httpClient);
-        ApiCategoriesRequest request = new ApiCategoriesRequest(wiki, result);
-        request.setDisambiguationStatus(pages);
-        return;
-      }
+  /**
+   * Retrieve the disambiguation flags of a list of <code>pages</code>.
+   * 
+   * @param wiki Wiki.
+   * @param pages List of pages.
+   * @throws APIException Exception thrown by the API.
+   */
+  private void loadDisambiguationStatus(
+      EnumWikipedia wiki, List<Page> pages)
+      throws APIException {
+    // Use __DISAMBIG__ magic word if possible
+    WPCConfiguration config = wiki.getConfiguration();
+    boolean useDisambig = config.getBoolean(
+        WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
+    if (useDisambig) {
+      ApiPagePropsResult result = new ApiJsonPagePropsResult(wiki, httpClient);
+      ApiPagePropsRequest request = new ApiPagePropsRequest(wiki, result);
+      request.setDisambiguationStatus(pages);
+      return;
+    }
 
-      // Use templates otherwise
-      ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
-      ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
+    // Use categories if possible
+    List<Page> dabCategories = wiki.getConfiguration().getDisambiguationCategories();
+    if ((dabCategories != null) && (dabCategories.size() > 0)) {
+      ApiCategoriesResult result = new ApiXmlCategoriesResult(wiki, httpClient);
+      ApiCategoriesRequest request = new ApiCategoriesRequest(wiki, result);
       request.setDisambiguationStatus(pages);
+      return;
+    }
+
+    // Use templates otherwise
+    ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
+    ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
+    request.setDisambiguationStatus(pages);
+  }
+
+  /**
+   * Copy the disambiguation flags retrieved for a page to an other instance of the same page.
+   * 
+   * @param from Page for which the disambiguation flags have been retrieved.
+   * @param to Other instance of the same page.
+   */
+  private static void copyDisambiguationStatus(Page from, Page to) {
+    Map<String, Boolean> status = new HashMap<>();
+    Iterator<Page> itPage = from.getRedirects().getIteratorWithPage();
+    while (itPage.hasNext()) {
+      Page tmpPage = itPage.next();
+      status.put(tmpPage.getTitle(), tmpPage.isDisambiguationPage());
+    }
+    to.setDisambiguationPage(from.isDisambiguationPage());
+    itPage = to.getRedirects().getIteratorWithPage();
+    while (itPage.hasNext()) {
+      Page tmpPage = itPage.next();
+      if (status.containsKey(tmpPage.getTitle())) {
+        tmpPage.setDisambiguationPage(status.get(tmpPage.getTitle()));
+      }
     }
   }
 
@@ -1086,9 +1213,15 @@ public class MediaWikiAPI implements API {
   @Override
   public void retrieveLinks(EnumWikipedia wiki, Collection<Page> pages)
       throws APIException {
-    ApiLinksResult result = new ApiXmlLinksResult(wiki, httpClient);
-    ApiLinksRequest request = new ApiLinksRequest(wiki, result);
-    request.loadLinks(pages);
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(wiki, "links");
+    coalescer.load(
+        pages, false, AdaptiveBatcher.getLimit(wiki),
+        batch -> {
+          ApiLinksResult result = new ApiJsonLinksResult(wiki, httpClient);
+          ApiLinksRequest request = new ApiLinksRequest(wiki, result);
+          request.loadLinks(batch);
+        },
+        (from, to) -> to.setLinks(copyList(from.getLinks(), new IdentityHashMap<>())));
   }
 
   /**
@@ -1110,7 +1243,7 @@ public class MediaWikiAPI implements API {
       List<Page> knownPages,
       boolean redirects, boolean disambigNeeded)
       throws APIException {
-    ApiLinksResult result = new ApiXmlLinksResult(wiki, httpClient);
+    ApiLinksResult result = new ApiJsonLinksResult(wiki, httpClient);
     ApiLinksRequest request = new ApiLinksRequest(wiki, result);
     boolean useDisambig = wiki.getConfiguration().getBoolean(
         WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
@@ -1144,13 +1277,85 @@ public class MediaWikiAPI implements API {
       EnumWikipedia wiki, Page page,
       boolean redirects)
       throws APIException {
-    ApiRedirectsResult redirectResult = new ApiXmlRedirectsResult(wiki, httpClient);
-    ApiRedirectsRequest redirectRequest = new ApiRedirectsRequest(wiki, redirectResult);
-    redirectRequest.loadRedirects(page);
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(wiki, "linkshere|" + redirects);
+    coalescer.load(
+        Collections.singletonList(page), false, 1,
+        batch -> {
+          for (Page tmpPage : batch) {
+            ApiRedirectsResult redirectResult = new ApiXmlRedirectsResult(wiki, httpClient);
+            ApiRedirectsRequest redirectRequest = new ApiRedirectsRequest(wiki, redirectResult);
+            redirectRequest.loadRedirects(tmpPage);
+
+            ApiLinksHereResult result = new ApiXmlLinksHereResult(wiki, httpClient);
+            ApiLinksHereRequest request = new ApiLinksHereRequest(wiki, result);
+            request.loadLinksHere(tmpPage, redirects);
+          }
+        },
+        (from, to) -> {
+          Map<Page, Page> copies = new IdentityHashMap<>();
+          to.setRelatedPages(
+              Page.RelatedPages.REDIRECTS,
+              copyList(from.getRelatedPages(Page.RelatedPages.REDIRECTS), copies));
+          to.setRelatedPages(
+              Page.RelatedPages.LINKS_HERE,
+              copyList(from.getRelatedPages(Page.RelatedPages.LINKS_HERE), copies));
+        });
+  }
 
-    ApiLinksHereResult result = new ApiXmlLinksHereResult(wiki, httpClient);
-    ApiLinksHereRequest request = new ApiLinksHereRequest(wiki, result);
-    request.loadLinksHere(page, redirects);
+  /**
+   * Copy a list of pages retrieved for an other instance of a page,
+   * so that each caller works on its own instances.
+   * 
+   * @param pages List of pages.
+   * @param copies Pages already copied.
+   * @return Copy of the list of pages.
+   */
+  private static List<Page> copyList(List<Page> pages, Map<Page, Page> copies) {
+    if (pages == null) {
+      return null;
+    }
+    List<Page> result = new ArrayList<>(pages.size());
+    for (Page page : pages) {
+      result.add(copyPage(page, copies));
+    }
+    return result;
+  }
+
+  /**
+   * Copy a page retrieved for an other instance of a page.
+   * 
+   * @param page Page.
+   * @param copies Pages already copied.
+   * @return Copy of the page.
+   */
+  private static Page copyPage(Page page, Map<Page, Page> copies) {
+    if (page == null) {
+      return null;
+    }
+    Page copy = copies.get(page);
+    if (copy != null) {
+      return copy;
+    }
+    copy = page.replicatePage();
+    copies.put(page, copy);
+    copy.setExisting(page.isExisting());
+    copy.setDisambiguationPage(page.isDisambiguationPage());
+    copy.setWiktionaryLink(page.hasWiktionaryLink());
+    copy.setContents(page.getContents());
+    copy.setContentsTimestamp(page.getContentsTimestamp());
+    copy.setStartTimestamp(page.getStartTimestamp());
+    copy.setEditProhibition(page.getEditProhibition());
+    copy.setEditProtectionLevel(page.getEditProtectionLevel());
+    PageRedirect redirects = page.getRedirects();
+    if (redirects.isRedirect()) {
+      copy.getRedirects().isRedirect(true);
+      if (redirects.getList() != null) {
+        for (Pair<Page, String> redirect : redirects.getList()) {
+          copy.getRedirects().add(copyPage(redirect.getLeft(), copies), redirect.getRight());
+        }
+      }
+    }
+    return copy;
   }
 
   /**
@@ -1227,7 +1432,7 @@ public class MediaWikiAPI implements API {
       EnumWikipedia wiki, Page page,
       boolean redirects)
       throws APIException {
-    ApiBacklinksResult result = new ApiXmlBacklinksResult(wiki, httpClient);
+    ApiBacklinksResult result = new ApiJsonBacklinksResult(wiki, httpClient);
     ApiBacklinksRequest request = new ApiBacklinksRequest(wiki, result);
     request.loadBacklinks(page, redirects);
   }*/
@@ -1248,7 +1453,7 @@ public class MediaWikiAPI implements API {
   public void retrieveCategoryMembers(
       EnumWikipedia wiki, Page category,
       int depth, boolean limit, int max) throws APIException {
-    ApiCategoryMembersResult result = new ApiXmlCategoryMembersResult(wiki, httpClient);
+    ApiCategoryMembersResult result = new ApiJsonCategoryMembersResult(wiki, httpClient);
     ApiCategoryMembersRequest request = new ApiCategoryMembersRequest(wiki, result);
     request.loadCategoryMembers(category, depth, limit, max);
   }
@@ -1268,7 +1473,7 @@ public class MediaWikiAPI implements API {
   public void retrieveEmbeddedIn(
       EnumWikipedia wiki, Page page,
       List<Integer> namespaces, boolean limit) throws APIException {
-    ApiEmbeddedInResult result = new ApiXmlEmbeddedInResult(wiki, httpClient);
+    ApiEmbeddedInResult result = new ApiJsonEmbeddedInResult(wiki, httpClient);
     ApiEmbeddedInRequest request = new ApiEmbeddedInRequest(wiki, result);
     request.loadEmbeddedIn(page, namespaces, limit);
   }
@@ -1575,7 +1780,8 @@ public class MediaWikiAPI implements API {
   @Override
   public TemplateData retrieveTemplateData(EnumWikipedia wiki, Page page)
       throws APIException {
-    ApiTemplateDataResult result = new ApiJsonTemplateDataResult(wiki, httpClient);
+    ApiJsonTemplateDataResult result = new ApiJsonTemplateDataResult(wiki, httpClient);
+    result.setCachePolicy(ApiCache.Policy.TEMPLATE_DATA);
     ApiTemplateDataRequest request = new ApiTemplateDataRequest(wiki, result);
     return request.retrieveTemplateData(page);
   }
@@ -1659,30 +1865,24 @@ public class MediaWikiAPI implements API {
       int                 maxTry)
       throws JDOMParseException, APIException {
     Element root = null;
-    HttpMethod method = null;
     int attempt = 0;
     for (;;) {
+      CloseableHttpResponse response = null;
       try {
         attempt++;
-        method = createHttpMethod(wikipedia, properties);
-        int statusCode = httpClient.executeMethod(method);
+        HttpUriRequest method = createHttpMethod(wikipedia, properties);
+        response = httpClient.execute(method);
+        int statusCode = response.getCode();
         if (statusCode != HttpStatus.SC_OK) {
-          String message = "URL access returned " + HttpStatus.getStatusText(statusCode);
+          String message = "URL access returned " + statusCode + " " + response.getReasonPhrase();
           log.error(message);
           if (attempt >= maxTry) {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message, statusCode);
           }
-          waitBeforeRetrying();
+          ConcurrencyLimiter.waitBeforeRetrying(attempt);
         } else {
-          InputStream stream = method.getResponseBodyAsStream();
-          stream = new BufferedInputStream(stream);
-          Header contentEncoding = method.getResponseHeader("Content-Encoding");
-          if (contentEncoding != null) {
-            if (contentEncoding.getValue().equals("gzip")) {
-              stream = new GZIPInputStream(stream);
-            }
-          }
+          InputStream stream = Hc5HttpUtils.getResponseStream(response);
           SAXBuilder sxb = new SAXBuilder();
           Document document = sxb.build(stream);
           traceDocument(document);
@@ -1698,7 +1898,7 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw e;
         }
-        waitBeforeRetrying();
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (JDOMException e) {
         String message = "JDOMException: " + e.getMessage();
         log.error(message);
@@ -1706,7 +1906,7 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error parsing XML result", e);
         }
-        waitBeforeRetrying();
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (IOException e) {
         String message = "" + e.getClass().getName() + ": " + e.getMessage();
         log.error(message);
@@ -1714,16 +1914,14 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        waitBeforeRetrying();
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
         }
         e.waitForRetry();
       } finally {
-        if (method != null) {
-          method.releaseConnection();
-        }
+        Hc5HttpUtils.releaseResponse(response);
       }
       log.warn("Error. Trying again");
     }
@@ -1743,53 +1941,14 @@ public class MediaWikiAPI implements API {
   /**
    * Check current time to see if edit is authorized (wait if needed).
    * 
-   * @param user Current user.
-   * @param namespace Name space for the edit.
+   * @param wiki Wiki.
+   * @param page Page to be edited.
+   * @throws APIException Exception if the wait is interrupted.
    */
-  private void checkTimeForEdit(User user, Integer namespace) {
-    Configuration config = Configuration.getConfiguration();
-    int minimumTime = config.getInt(null, ConfigurationValueInteger.TIME_BETWEEN_EDIT);
-    int maxEdits = 0;
-    if ((namespace == null) || (namespace.intValue() % 2 == 0)) {
-      config.getInt(null, ConfigurationValueInteger.MAX_EDITS_PER_MINUTE);
-      if ((maxEdits > ConfigurationValueInteger.MAX_EDITS_PER_MINUTE_NORMAL) ||
-          (maxEdits <= 0)) {
-        if (!user.isMemberOf("admin") &&
-            !user.isMemberOf("bot")) {
-          maxEdits = ConfigurationValueInteger.MAX_EDITS_PER_MINUTE_NORMAL;
-        }
-      }
-    }
-    if ((minimumTime <= 0) && (maxEdits <= 0)) {
-      return;
-    }
-    synchronized (editLock) {
-      long currentTime = System.currentTimeMillis();
-      if ((minimumTime > 0) && (!lastEditTimes.isEmpty())) {
-        long lastEditTime = lastEditTimes.getLast();
-        if (currentTime < lastEditTime + minimumTime * 1000) {
-          try {
-            Thread.sleep(lastEditTime + minimumTime * 1000 - currentTime);
-          } catch (InterruptedException e) {
-            // Nothing to do
-          }
-          currentTime = System.currentTimeMillis();
-        }
-      }
-      while ((!lastEditTimes.isEmpty()) &&
-             (lastEditTimes.getFirst() + 60 * 1000 <= currentTime)) {
-        lastEditTimes.removeFirst();
-      }
-      if ((maxEdits > 0) && (lastEditTimes.size() >= maxEdits)) {
-        try {
-          Thread.sleep(lastEditTimes.getFirst() + 60 * 1000 - currentTime);
-        } catch (InterruptedException e) {
-          // Nothing to do
-        }
-        currentTime = System.currentTimeMillis();
-      }
-      lastEditTimes.add(currentTime);
-    }
+  private void checkTimeForEdit(EnumWikipedia wiki, Page page) throws APIException {
+    EditScheduler scheduler = EditScheduler.getScheduler(wiki);
+    scheduler.acquire(wiki.getConnection().getUser(), page);
+    log.debug("Edit scheduler for {}: {}", wiki, scheduler);
   }
 
   /**
@@ -1799,13 +1958,14 @@ public class MediaWikiAPI implements API {
    * @param properties Properties to drive the API.
    * @return HttpMethod.
    */
-  private HttpMethod createHttpMethod(
+  private HttpUriRequest createHttpMethod(
       EnumWikipedia       wikipedia,
       Map<String, String> properties) {
+    ApiRequest.addMaxLag(properties);
     boolean getMethod = canUseGetMethod(properties);
     Configuration config = Configuration.getConfiguration();
     boolean useHttps = !config.getBoolean(null, ConfigurationValueBoolean.FORCE_HTTP_API);
-    return Hc3HttpUtils.createHttpMethod(
+    return Hc5HttpUtils.createMethod(
         wikipedia.getSettings().getApiURL(useHttps),
         properties,
         getMethod);
@@ -1824,7 +1984,7 @@ public class MediaWikiAPI implements API {
       return false;
     }
     if (ApiRequest.ACTION_QUERY.equals(action)) {
-      return true;
+      return ApiRequest.fitsInUrl(properties);
     }
     return false;
   }
@@ -7,21 +7,44 @@
 
 package org.wikipediacleaner.api.impl;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.RecentChangesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.RecentChange;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpClientPool;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
 
 /**
  * Utility class to manage Recent changes.
+ *
+ * Recent changes are received from the EventStreams feed (or by querying the API),
+ * and sent to the listeners in a separate thread, so that slow listeners
+ * don't delay the reception of recent changes.
+ * At most {@link #MAX_PENDING_DISPATCHES} batches wait for the listeners:
+ * beyond that, the source of recent changes waits for the listeners.
  */
 class RecentChangesManager {
 
+  /**
+   * Maximum number of batches of recent changes waiting for the listeners.
+   */
+  private final static int MAX_PENDING_DISPATCHES = 16;
+
   /**
    * Wiki.
    */
@@ -35,20 +58,59 @@ class RecentChangesManager {
   /**
    * Listeners.
    */
-  private final List<RecentChangesListener> listeners = new ArrayList<>();
+  private final List<RecentChangesListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
-   * Runnabel for querying recent changes.
+   * URL of the EventStreams feed, null to query the API.
    */
-  private RecentChangesRunnable runnable;
+  private final String streamUrl;
+
+  /**
+   * HTTP client for the EventStreams feed, null to use the shared one.
+   */
+  private final CloseableHttpClient streamClient;
+
+  /**
+   * Runnable for retrieving recent changes.
+   */
+  private RecentChangesSource runnable;
+
+  /**
+   * Name spaces needed by the listeners, null for every name space.
+   */
+  private Set<Integer> namespaces;
+
+  /**
+   * Executor sending recent changes to the listeners.
+   */
+  private ThreadPoolExecutor dispatcher;
 
   /**
    * @param wiki Wiki.
    * @param api API.
    */
   public RecentChangesManager(EnumWikipedia wiki, API api) {
+    this(
+        wiki, api,
+        Configuration.getConfiguration().getBoolean(
+            null, ConfigurationValueBoolean.RECENT_CHANGES_STREAM) ?
+                RecentChangesStreamRunnable.STREAM_URL : null,
+        null);
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param api API.
+   * @param streamUrl URL of the EventStreams feed, null to query the API.
+   * @param streamClient HTTP client for the EventStreams feed, null to use the shared one.
+   */
+  RecentChangesManager(
+      EnumWikipedia wiki, API api,
+      String streamUrl, CloseableHttpClient streamClient) {
     this.wiki = wiki;
     this.api = api;
+    this.streamUrl = streamUrl;
+    this.streamClient = streamClient;
   }
 
   /**
@@ -80,23 +142,86 @@ class RecentChangesManager {
    * @param currentTime Current time.
    */
   public void fireRecentChanges(List<RecentChange> rc, Date currentTime) {
+    ThreadPoolExecutor currentDispatcher = getDispatcher();
+    try {
+      currentDispatcher.execute(() -> {
+        for (RecentChangesListener listener : listeners) {
+          listener.recentChanges(rc, currentTime);
+        }
+      });
+    } catch (RuntimeException e) {
+      // Dispatcher stopped: nothing to do.
+    }
+  }
+
+  /**
+   * @return Executor sending recent changes to the listeners.
+   */
+  private synchronized ThreadPoolExecutor getDispatcher() {
+    if (dispatcher == null) {
+      dispatcher = new ThreadPoolExecutor(
+          1, 1, 60, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(MAX_PENDING_DISPATCHES),
+          new BasicThreadFactory.Builder().
+              namingPattern("RecentChangesListeners-" + wiki.getSettings().getCode() + "-%d").
+              daemon(true).build(),
+          (task, executor) -> {
+            // Wait for the listeners rather than dropping recent changes
+            try {
+              if (!executor.isShutdown()) {
+                executor.getQueue().put(task);
+              }
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          });
+      dispatcher.allowCoreThreadTimeOut(true);
+    }
+    return dispatcher;
+  }
+
+  /**
+   * @return Union of the name spaces needed by the listeners, null for every name space.
+   */
+  private Set<Integer> getListenersNamespaces() {
+    Set<Integer> result = new HashSet<>();
     for (RecentChangesListener listener : listeners) {
-      listener.recentChanges(rc, currentTime);
+      Collection<Integer> listenerNamespaces = listener.getNamespaces();
+      if (listenerNamespaces == null) {
+        return null;
+      }
+      result.addAll(listenerNamespaces);
     }
+    return result;
   }
 
   /**
    * Event fired when the list of listeners has changed.
    */
-  private void listenersChanged() {
+  private synchronized void listenersChanged() {
     if (listeners.isEmpty()) {
       if (runnable != null) {
         runnable.shouldStop();
+        runnable = null;
       }
     } else {
+      Set<Integer> newNamespaces = getListenersNamespaces();
+      if ((runnable != null) && !Objects.equals(namespaces, newNamespaces)) {
+        runnable.setNamespaces(newNamespaces);
+      }
+      namespaces = newNamespaces;
       if (runnable == null) {
-        runnable = new RecentChangesRunnable(this, wiki, api);
-        new Thread(runnable, "RecentChanges-" + wiki.getSettings().getCode()).start();
+        if (streamUrl != null) {
+          runnable = new RecentChangesStreamRunnable(
+              this, wiki, api, streamUrl,
+              (streamClient != null) ? streamClient : Hc5HttpClientPool.getInstance().getHttpClient(),
+              namespaces);
+        } else {
+          runnable = new RecentChangesRunnable(this, wiki, api, namespaces);
+        }
+        Thread thread = new Thread(runnable, "RecentChanges-" + wiki.getSettings().getCode());
+        thread.setDaemon(true);
+        thread.start();
       }
     }
   }
@@ -9,8 +9,12 @@ package org.wikipediacleaner.api.impl;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
@@ -22,7 +26,7 @@ import org.wikipediacleaner.api.data.RecentChange;
 /**
  * Runnable for querying recent changes.
  */
-class RecentChangesRunnable implements Runnable {
+class RecentChangesRunnable implements RecentChangesSource {
 
   /**
    * Recent changes manager.
@@ -47,19 +51,27 @@ class RecentChangesRunnable implements Runnable {
   /**
    * Flag set when it is requested to stop querying for recent changes.
    */
-  private boolean shouldStop;
+  private volatile boolean shouldStop;
+
+  /**
+   * Name spaces to keep, null to keep every name space.
+   */
+  private volatile Set<Integer> namespaces;
 
   /**
    * @param manager Recent changes manager.
    * @param wiki Wiki.
    * @param api API.
+   * @param namespaces Name spaces to keep, null to keep every name space.
    */
   public RecentChangesRunnable(
       RecentChangesManager manager,
-      EnumWikipedia wiki, API api) {
+      EnumWikipedia wiki, API api,
+      Collection<Integer> namespaces) {
     this.manager = manager;
     this.wiki = wiki;
     this.api = api;
+    setNamespaces(namespaces);
   }
 
   /**
@@ -73,6 +85,15 @@ class RecentChangesRunnable implements Runnable {
       try {
         List<RecentChange> recentChanges = new ArrayList<>();
         start = api.getRecentChanges(wiki, start, recentChanges);
+        Set<Integer> currentNamespaces = namespaces;
+        if (currentNamespaces != null) {
+          Iterator<RecentChange> itRC = recentChanges.iterator();
+          while (itRC.hasNext()) {
+            if (!currentNamespaces.contains(Integer.valueOf(itRC.next().getNamespace()))) {
+              itRC.remove();
+            }
+          }
+        }
         if (!recentChanges.isEmpty()) {
           Date currentTime = DataManager.convertIso8601DateTime(start);
           manager.fireRecentChanges(recentChanges, currentTime);
@@ -93,7 +114,18 @@ class RecentChangesRunnable implements Runnable {
   /**
    * Called to stop querying for recent changes.
    */
+  @Override
   public void shouldStop() {
     shouldStop = true;
   }
+
+  /**
+   * Change the name spaces of the recent changes to retrieve.
+   * 
+   * @param namespaces Name spaces to keep, null to keep every name space.
+   */
+  @Override
+  public void setNamespaces(Collection<Integer> namespaces) {
+    this.namespaces = (namespaces != null) ? new HashSet<>(namespaces) : null;
+  }
 }
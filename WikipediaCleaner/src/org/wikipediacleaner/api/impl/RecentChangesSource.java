@@ -0,0 +1,28 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.impl;
+
+import java.util.Collection;
+
+/**
+ * Source of recent changes, running in its own thread.
+ */
+interface RecentChangesSource extends Runnable {
+
+  /**
+   * Called to stop retrieving recent changes.
+   */
+  public void shouldStop();
+
+  /**
+   * Change the name spaces of the recent changes to retrieve.
+   * 
+   * @param namespaces Name spaces to keep, null to keep every name space.
+   */
+  public void setNamespaces(Collection<Integer> namespaces);
+}
@@ -0,0 +1,428 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.api.API;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.RecentChange;
+import org.wikipediacleaner.api.http.EventStreamReader;
+import org.wikipediacleaner.api.http.EventStreamReader.Event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Runnable for receiving recent changes from the Wikimedia EventStreams feed.
+ *
+ * The feed contains the changes of every wiki, so events are filtered on their
+ * raw data before being parsed. Recent changes are sent to the listeners in batches,
+ * at the latest {@link #MAX_BATCH_DELAY} after the first change of the batch was received,
+ * even if no other event arrives. When the connection is lost, the feed is resumed
+ * after the last event received. After too many failed connections,
+ * recent changes are retrieved by regularly querying the API instead.
+ *
+ * @see <a href="https://wikitech.wikimedia.org/wiki/Event_Platform/EventStreams">EventStreams</a>
+ */
+class RecentChangesStreamRunnable implements RecentChangesSource {
+
+  /** Logs. */
+  private final static Logger log = LoggerFactory.getLogger(RecentChangesStreamRunnable.class);
+
+  /** URL of the recent changes feed. */
+  public final static String STREAM_URL = "https://stream.wikimedia.org/v2/stream/recentchange";
+
+  /** Number of failed connections in a row before using the API instead. */
+  private final static int MAX_FAILURES = 5;
+
+  /** Maximum number of recent changes sent at once to the listeners. */
+  private final static int MAX_BATCH_SIZE = 100;
+
+  /** Maximum delay before sending recent changes to the listeners (in milliseconds). */
+  private final static long MAX_BATCH_DELAY = 1000;
+
+  /** Default delay before reconnecting (in milliseconds). */
+  private final static long DEFAULT_RETRY = 1000;
+
+  /** Maximum delay before reconnecting (in milliseconds). */
+  private final static long MAX_RETRY = 60000;
+
+  /** Parser for the events. */
+  private final static ObjectMapper mapper = new ObjectMapper();
+
+  /** Executor sending batches of recent changes when their delay is expired. */
+  private static ScheduledExecutorService flushExecutor;
+
+  /**
+   * @return Executor sending batches of recent changes when their delay is expired.
+   */
+  private static synchronized ScheduledExecutorService getFlushExecutor() {
+    if (flushExecutor == null) {
+      flushExecutor = Executors.newSingleThreadScheduledExecutor(
+          new BasicThreadFactory.Builder().namingPattern("RecentChangesFlush-%d").daemon(true).build());
+    }
+    return flushExecutor;
+  }
+
+  /**
+   * Recent changes manager.
+   */
+  private final RecentChangesManager manager;
+
+  /**
+   * Wiki.
+   */
+  private final EnumWikipedia wiki;
+
+  /**
+   * API.
+   */
+  private final API api;
+
+  /**
+   * URL of the feed.
+   */
+  private final String url;
+
+  /**
+   * HTTP client.
+   */
+  private final CloseableHttpClient httpClient;
+
+  /**
+   * Filter on the server of the events.
+   */
+  private final String serverFilter;
+
+  /**
+   * Filters on the name space of the events, null to accept every name space.
+   */
+  private volatile List<String> namespaceFilters;
+
+  /**
+   * Recent changes waiting to be sent to the listeners (most recent first).
+   */
+  private List<RecentChange> batch = new ArrayList<>();
+
+  /**
+   * Time of the last recent change received.
+   */
+  private Date batchTime;
+
+  /**
+   * Task sending the recent changes waiting when their delay is expired.
+   */
+  private ScheduledFuture<?> flushTask;
+
+  /**
+   * Identifier of the last event received.
+   */
+  private String lastEventId;
+
+  /**
+   * Current request to the feed.
+   */
+  private volatile HttpGet request;
+
+  /**
+   * Runnable querying the API after too many failed connections.
+   */
+  private volatile RecentChangesRunnable fallback;
+
+  /**
+   * Flag set when it is requested to stop receiving recent changes.
+   */
+  private volatile boolean shouldStop;
+
+  /**
+   * @param manager Recent changes manager.
+   * @param wiki Wiki.
+   * @param api API.
+   * @param url URL of the feed.
+   * @param httpClient HTTP client.
+   * @param namespaces Name spaces to keep, null to keep every name space.
+   */
+  public RecentChangesStreamRunnable(
+      RecentChangesManager manager,
+      EnumWikipedia wiki, API api,
+      String url, CloseableHttpClient httpClient,
+      Collection<Integer> namespaces) {
+    this.manager = manager;
+    this.wiki = wiki;
+    this.api = api;
+    this.url = url;
+    this.httpClient = httpClient;
+    this.serverFilter = "\"server_name\":\"" + wiki.getSettings().getHost() + "\"";
+    setNamespaces(namespaces);
+  }
+
+  /**
+   * Change the name spaces of the recent changes to retrieve.
+   *
+   * @param namespaces Name spaces to keep, null to keep every name space.
+   */
+  @Override
+  public void setNamespaces(Collection<Integer> namespaces) {
+    if (namespaces != null) {
+      List<String> filters = new ArrayList<>();
+      for (Integer namespace : namespaces) {
+        filters.add("\"namespace\":" + namespace);
+      }
+      namespaceFilters = filters;
+    } else {
+      namespaceFilters = null;
+    }
+    RecentChangesRunnable currentFallback = fallback;
+    if (currentFallback != null) {
+      currentFallback.setNamespaces(namespaces);
+    }
+  }
+
+  /**
+   * Receive recent changes from the feed.
+   *
+   * @see java.lang.Runnable#run()
+   */
+  @Override
+  public void run() {
+    int failures = 0;
+    long retry = DEFAULT_RETRY;
+    while (!shouldStop) {
+      try {
+        if (readStream() > 0) {
+          failures = 0;
+          retry = DEFAULT_RETRY;
+        } else {
+          failures++;
+        }
+      } catch (IOException e) {
+        failures++;
+        if (!shouldStop) {
+          log.warn("Error reading recent changes feed for {}: {}", wiki, e.getMessage());
+        }
+      }
+      if (shouldStop) {
+        return;
+      }
+      if (failures >= MAX_FAILURES) {
+        log.warn("Recent changes feed unavailable for {}, querying the API instead", wiki);
+        fallback = new RecentChangesRunnable(manager, wiki, api, getNamespaces());
+        if (!shouldStop) {
+          fallback.run();
+        }
+        return;
+      }
+      try {
+        Thread.sleep(retry);
+      } catch (InterruptedException e) {
+        // Nothing to do.
+      }
+      retry = Math.min(MAX_RETRY, 2 * retry);
+    }
+  }
+
+  /**
+   * Connect to the feed and read events until the connection is lost.
+   *
+   * @return Number of events received.
+   * @throws IOException Exception when reading the feed.
+   */
+  private int readStream() throws IOException {
+    HttpGet method = new HttpGet(url);
+    method.addHeader("Accept", "text/event-stream");
+    if (lastEventId != null) {
+      method.addHeader("Last-Event-ID", lastEventId);
+    }
+    int count = 0;
+    request = method;
+    if (shouldStop) {
+      return count;
+    }
+    try (CloseableHttpResponse currentResponse = httpClient.execute(method)) {
+      if (shouldStop) {
+        return count;
+      }
+      if (currentResponse.getCode() != HttpStatus.SC_OK) {
+        log.warn(
+            "Error connecting to recent changes feed for {}: {}",
+            wiki, Integer.valueOf(currentResponse.getCode()));
+        return count;
+      }
+      HttpEntity entity = currentResponse.getEntity();
+      if (entity == null) {
+        return count;
+      }
+      try (InputStream is = entity.getContent();
+           EventStreamReader reader = new EventStreamReader(is)) {
+        Event event = null;
+        while (!shouldStop && ((event = reader.readEvent()) != null)) {
+          count++;
+          if (event.getId() != null) {
+            lastEventId = event.getId();
+          }
+          if ("message".equals(event.getType()) && accept(event.getData())) {
+            RecentChange rc = parse(event.getData());
+            if (rc != null) {
+              addToBatch(rc);
+            }
+          }
+        }
+      } finally {
+        flush();
+      }
+    } finally {
+      request = null;
+    }
+    return count;
+  }
+
+  /**
+   * @return Name spaces to keep, null to keep every name space.
+   */
+  private List<Integer> getNamespaces() {
+    List<String> filters = namespaceFilters;
+    if (filters == null) {
+      return null;
+    }
+    List<Integer> namespaces = new ArrayList<>(filters.size());
+    for (String filter : filters) {
+      namespaces.add(Integer.valueOf(filter.substring(filter.indexOf(':') + 1)));
+    }
+    return namespaces;
+  }
+
+  /**
+   * Add a recent change to the batch waiting for the listeners.
+   *
+   * @param rc Recent change.
+   */
+  private synchronized void addToBatch(RecentChange rc) {
+    batch.add(0, rc);
+    if (rc.getTimestamp() != null) {
+      batchTime = rc.getTimestamp();
+    }
+    if (batch.size() >= MAX_BATCH_SIZE) {
+      flush();
+    } else if (flushTask == null) {
+      flushTask = getFlushExecutor().schedule(this::flush, MAX_BATCH_DELAY, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Send the batch of recent changes to the listeners.
+   */
+  private synchronized void flush() {
+    if (flushTask != null) {
+      flushTask.cancel(false);
+      flushTask = null;
+    }
+    if (batch.isEmpty() || shouldStop) {
+      return;
+    }
+    List<RecentChange> recentChanges = batch;
+    batch = new ArrayList<>();
+    manager.fireRecentChanges(recentChanges, batchTime);
+  }
+
+  /**
+   * Filter events on their raw data, to avoid parsing events for other wikis.
+   *
+   * @param data Data of the event.
+   * @return True if the event should be kept.
+   */
+  private boolean accept(String data) {
+    if ((data == null) || !data.contains(serverFilter)) {
+      return false;
+    }
+    List<String> filters = namespaceFilters;
+    if (filters == null) {
+      return true;
+    }
+    for (String namespaceFilter : filters) {
+      int index = data.indexOf(namespaceFilter);
+      if (index >= 0) {
+        int next = index + namespaceFilter.length();
+        if ((next >= data.length()) ||
+            (data.charAt(next) == ',') ||
+            (data.charAt(next) == '}')) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param data Data of the event.
+   * @return Recent change, null if the event can't be parsed.
+   */
+  private RecentChange parse(String data) {
+    try {
+      JsonNode node = mapper.readTree(data);
+      JsonNode revision = node.path("revision");
+      RecentChange rc = new RecentChange(
+          node.path("id").asInt(), node.path("namespace").asInt(),
+          node.path("title").asText(), 0,
+          revision.path("new").asInt());
+      String type = node.path("type").asText(null);
+      rc.setBot(node.path("bot").asBoolean());
+      rc.setComment(node.path("comment").asText(null));
+      rc.setLogAction(node.path("log_action").asText(null));
+      rc.setLogTarget(node.path("log_params").path("target").asText(null));
+      rc.setLogType(node.path("log_type").asText(null));
+      rc.setMinor(node.path("minor").asBoolean());
+      rc.setNew("new".equals(type));
+      rc.setType(type);
+      rc.setUser(node.path("user").asText(null));
+      String timestamp = node.path("meta").path("dt").asText(null);
+      if ((timestamp != null) && (timestamp.length() > 19)) {
+        rc.setTimestamp(timestamp.substring(0, 19) + "Z");
+      }
+      return rc;
+    } catch (IOException e) {
+      log.error("Error parsing recent change", e);
+      return null;
+    }
+  }
+
+  /**
+   * Called to stop receiving recent changes.
+   */
+  @Override
+  public void shouldStop() {
+    shouldStop = true;
+    RecentChangesRunnable currentFallback = fallback;
+    if (currentFallback != null) {
+      currentFallback.shouldStop();
+    }
+    // Abort the connection: closing the response would wait for the next events
+    HttpGet currentRequest = request;
+    if (currentRequest != null) {
+      currentRequest.cancel();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.ConnectionInformation;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.User;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+
+
+/**
+ * Split lists of pages in batches for MediaWiki API requests.
+ *
+ * The size of the batches is adapted to the answers received for previous batches:
+ * it is limited by the user limits (apihighlimits), by the maximum size of an answer
+ * estimated from the average size per page, and by the time taken by the requests.
+ */
+public class AdaptiveBatcher {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveBatcher.class);
+
+  /** Maximum number of pages in a request for normal users. */
+  public final static int LIMIT_DEFAULT = 50;
+
+  /** Maximum number of pages in a request for users with apihighlimits. */
+  public final static int LIMIT_HIGH = 500;
+
+  /** Kind of request for the disambiguation status (templates or categories). */
+  public final static String KIND_DISAMBIGUATION = "disambiguation";
+
+  /** Target duration for processing a batch (in milliseconds). */
+  private final static long TARGET_DURATION = 10000;
+
+  /** Weight of the last batch in the average size per page. */
+  private final static double WEIGHT = 0.3;
+
+  /** Batchers for each wiki and kind of request. */
+  private final static Map<String, AdaptiveBatcher> batchers = new ConcurrentHashMap<>();
+
+  /**
+   * @param wiki Wiki.
+   * @param kind Kind of request.
+   * @return Batcher for the wiki and the kind of request.
+   */
+  public static AdaptiveBatcher getBatcher(EnumWikipedia wiki, String kind) {
+    return batchers.computeIfAbsent(
+        wiki.name() + "|" + kind,
+        key -> new AdaptiveBatcher(wiki, kind));
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @return Maximum number of pages in a request for the current user.
+   */
+  public static int getLimit(EnumWikipedia wiki) {
+    ConnectionInformation connection = (wiki != null) ? wiki.getConnection() : null;
+    User user = (connection != null) ? connection.getUser() : null;
+    if ((user != null) && user.hasRight(User.RIGHT_APIHIGHLIMITS)) {
+      return LIMIT_HIGH;
+    }
+    return LIMIT_DEFAULT;
+  }
+
+  /** Wiki. */
+  private final EnumWikipedia wiki;
+
+  /** Kind of request. */
+  private final String kind;
+
+  /** Current batch size, before applying the size limit. */
+  private double batchSize;
+
+  /** Average size of the answer for each page (in bytes), 0 if unknown. */
+  private double bytesPerPage;
+
+  /**
+   * @param wiki Wiki.
+   * @param kind Kind of request.
+   */
+  private AdaptiveBatcher(EnumWikipedia wiki, String kind) {
+    this.wiki = wiki;
+    this.kind = kind;
+    this.batchSize = LIMIT_DEFAULT;
+    this.bytesPerPage = 0;
+  }
+
+  /**
+   * @return Number of pages to put in the next batch.
+   */
+  public synchronized int getBatchSize() {
+    int limit = getLimit(wiki);
+    double size = Math.min(batchSize, limit);
+    if (bytesPerPage > 0) {
+      Configuration config = Configuration.getConfiguration();
+      long maxBytes = 1024L * Math.max(1, config.getInt(
+          null, ConfigurationValueInteger.API_BATCH_MAX_SIZE));
+      size = Math.min(size, maxBytes / bytesPerPage);
+    }
+    return Math.max(1, Math.min(limit, (int) size));
+  }
+
+  /**
+   * Take into account the result of a batch.
+   *
+   * @param pagesCount Number of pages in the batch.
+   * @param full True if the batch was as large as allowed.
+   * @param bytes Size of the answers (in bytes), 0 if unknown.
+   * @param duration Duration of the requests (in milliseconds).
+   */
+  public synchronized void record(int pagesCount, boolean full, long bytes, long duration) {
+    if (pagesCount <= 0) {
+      return;
+    }
+
+    // Update average size per page
+    if (bytes > 0) {
+      double pageBytes = bytes / (double) pagesCount;
+      if (bytesPerPage <= 0) {
+        bytesPerPage = pageBytes;
+      } else {
+        bytesPerPage = (1 - WEIGHT) * bytesPerPage + WEIGHT * pageBytes;
+      }
+    }
+
+    // Adapt batch size to the duration
+    int limit = getLimit(wiki);
+    if (duration > TARGET_DURATION) {
+      batchSize = Math.max(1, pagesCount / 2.0);
+    } else if (full && (duration < TARGET_DURATION / 2)) {
+      batchSize = Math.min(limit, Math.max(batchSize, pagesCount) * 1.5);
+    }
+    log.debug(
+        "Batch of {} pages for {}: {} bytes in {} ms, next batch size {}",
+        Integer.valueOf(pagesCount), kind, Long.valueOf(bytes),
+        Long.valueOf(duration), Integer.valueOf(getBatchSize()));
+  }
+
+  /**
+   * Process a list of pages by batches.
+   *
+   * @param pages List of pages.
+   * @param action Action to execute on each batch.
+   * @throws APIException Exception thrown by the API.
+   */
+  public void process(Collection<Page> pages, BatchAction action) throws APIException {
+    if ((pages == null) || pages.isEmpty()) {
+      return;
+    }
+    List<Page> remaining = new ArrayList<>(pages);
+    int index = 0;
+    while (index < remaining.size()) {
+      int size = getBatchSize();
+      boolean full = (remaining.size() - index >= size);
+      List<Page> batch = new ArrayList<>(remaining.subList(
+          index, Math.min(remaining.size(), index + size)));
+      index += batch.size();
+      long bytesBefore = Hc5HttpUtils.getReceivedBytes();
+      long start = System.currentTimeMillis();
+      action.execute(batch);
+      record(
+          batch.size(), full,
+          Hc5HttpUtils.getReceivedBytes() - bytesBefore,
+          System.currentTimeMillis() - start);
+    }
+  }
+
+  /**
+   * Action executed on a batch of pages.
+   */
+  @FunctionalInterface
+  public interface BatchAction {
+
+    /**
+     * @param batch Batch of pages.
+     * @throws APIException Exception thrown by the API.
+     */
+    void execute(List<Page> batch) throws APIException;
+  }
+}
@@ -0,0 +1,476 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.Version;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.request.login.ApiLoginRequest;
+import org.wikipediacleaner.api.request.query.meta.ApiAllMessagesRequest;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+
+
+/**
+ * Local disk cache for answers of idempotent MediaWiki API requests.
+ *
+ * Answers are stored by wiki and normalized request parameters.
+ * Each kind of request has its own time to live, and answers containing pages
+ * can be validated against the current revisions of the pages once they have expired.
+ * The total size of the cache is bounded, least recently used answers are removed first.
+ */
+public class ApiCache {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(ApiCache.class);
+
+  /** Version of the format of the files. */
+  private final static int FORMAT_VERSION = 2;
+
+  /** Suffix of the files. */
+  private final static String SUFFIX = ".cache";
+
+  /** Parameters that don't change the answer. */
+  private final static List<String> IGNORED_PARAMETERS = Arrays.asList(
+      ApiRequest.MAX_LAG,
+      ApiLoginRequest.PROPERTY_TOKEN,
+      ApiLoginRequest.PROPERTY_USER_ID,
+      ApiLoginRequest.PROPERTY_USER_NAME);
+
+  /** Maximum length of a key. */
+  private final static int MAX_KEY_LENGTH = 30000;
+
+  /** Milliseconds in an hour. */
+  private final static long HOUR = 3600L * 1000L;
+
+  /**
+   * Kind of requests that can be cached.
+   */
+  public enum Policy {
+
+    /** Site information (namespaces, magic words, ...). */
+    SITE_INFO(24 * HOUR, false, false),
+
+    /** Interface messages, depending on the language of the user. */
+    MESSAGES(24 * HOUR, false, true),
+
+    /** TemplateData of templates. */
+    TEMPLATE_DATA(6 * HOUR, false, false),
+
+    /** Contents of configuration pages, validated against the current revisions. */
+    CONFIGURATION(0, true, false);
+
+    /** Time to live (in milliseconds). */
+    private final long ttl;
+
+    /** True if expired answers can be validated against the current revisions. */
+    private final boolean revisionValidated;
+
+    /** True if answers depend on the user and on the language. */
+    private final boolean userDependent;
+
+    /**
+     * @param ttl Time to live (in milliseconds).
+     * @param revisionValidated True if expired answers can be validated against the current revisions.
+     * @param userDependent True if answers depend on the user and on the language.
+     */
+    private Policy(long ttl, boolean revisionValidated, boolean userDependent) {
+      this.ttl = ttl;
+      this.revisionValidated = revisionValidated;
+      this.userDependent = userDependent;
+    }
+
+    /**
+     * @return Time to live (in milliseconds).
+     */
+    public long getTtl() {
+      return ttl;
+    }
+
+    /**
+     * @return True if expired answers can be validated against the current revisions.
+     */
+    public boolean isRevisionValidated() {
+      return revisionValidated;
+    }
+
+    /**
+     * @return True if answers depend on the user and on the language.
+     */
+    public boolean isUserDependent() {
+      return userDependent;
+    }
+  }
+
+  /**
+   * Answer stored in the cache.
+   */
+  public static class Entry {
+
+    /** Time when the answer was stored or validated. */
+    private final long time;
+
+    /** Signature of the revisions in the answer, empty if none. */
+    private final String signature;
+
+    /** Answer. */
+    private final byte[] data;
+
+    /**
+     * @param time Time when the answer was stored or validated.
+     * @param signature Signature of the revisions in the answer.
+     * @param data Answer.
+     */
+    Entry(long time, String signature, byte[] data) {
+      this.time = time;
+      this.signature = (signature != null) ? signature : "";
+      this.data = data;
+    }
+
+    /**
+     * @param policy Cache policy.
+     * @return True if the answer can be used without validation.
+     */
+    public boolean isFresh(Policy policy) {
+      return System.currentTimeMillis() - time < policy.getTtl();
+    }
+
+    /**
+     * @return Signature of the revisions in the answer, empty if none.
+     */
+    public String getSignature() {
+      return signature;
+    }
+
+    /**
+     * @return Answer.
+     */
+    public byte[] getData() {
+      return data;
+    }
+  }
+
+  /** Global cache. */
+  private static ApiCache cache;
+
+  /**
+   * @return Global cache.
+   */
+  public static synchronized ApiCache getCache() {
+    if (cache == null) {
+      File directory = new File(
+          new File(SystemUtils.getUserHome(), "." + Version.PROGRAM),
+          "cache");
+      cache = new ApiCache(directory);
+    }
+    return cache;
+  }
+
+  /**
+   * Use a specific directory for the global cache, for example for tests.
+   *
+   * @param directory Directory for the cache.
+   */
+  public static synchronized void setDirectory(File directory) {
+    cache = new ApiCache(directory);
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param policy Policy for caching the answer.
+   * @param properties Properties defining the request.
+   * @return Key for the request, null if the request can't be cached.
+   */
+  public static String getKey(
+      EnumWikipedia wiki, Policy policy, Map<String, String> properties) {
+    if ((wiki == null) || (properties == null)) {
+      return null;
+    }
+    StringBuilder key = new StringBuilder(wiki.name());
+    if ((policy != null) && policy.isUserDependent()) {
+      // Without an explicit language, the answer is in the language of the user
+      String userName = wiki.getConnection().getLgUserName();
+      String language = properties.get(ApiAllMessagesRequest.PROPERTY_LANG);
+      key.append("\nuser:");
+      key.append((userName != null) ? userName : "");
+      key.append("\nlanguage:");
+      key.append((language != null) ? language : wiki.getSettings().getLanguage());
+    }
+    for (Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()) {
+      if (!IGNORED_PARAMETERS.contains(property.getKey())) {
+        key.append('\n');
+        key.append(property.getKey());
+        key.append('=');
+        key.append(property.getValue());
+      }
+    }
+    if (key.length() > MAX_KEY_LENGTH) {
+      return null;
+    }
+    return key.toString();
+  }
+
+  /** Directory for the cache. */
+  private final File directory;
+
+  /** Total size of the files in the cache, -1 if unknown. */
+  private long totalSize;
+
+  /**
+   * @param directory Directory for the cache.
+   */
+  ApiCache(File directory) {
+    this.directory = directory;
+    this.totalSize = -1;
+  }
+
+  /**
+   * @return Maximum size of the cache (in bytes), 0 if the cache is disabled.
+   */
+  private long getMaxSize() {
+    Configuration config = Configuration.getConfiguration();
+    int maxSize = config.getInt(null, ConfigurationValueInteger.API_CACHE_MAX_SIZE);
+    return Math.max(0, maxSize) * 1024L * 1024L;
+  }
+
+  /**
+   * @return True if the cache is enabled.
+   */
+  public boolean isEnabled() {
+    return getMaxSize() > 0;
+  }
+
+  /**
+   * @param key Key for the request.
+   * @return File for the request.
+   */
+  private File getFile(String key) {
+    return new File(directory, DigestUtils.sha1Hex(key.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+  }
+
+  /**
+   * Retrieve an answer from the cache.
+   *
+   * @param key Key for the request.
+   * @return Answer stored in the cache, null if none.
+   */
+  public synchronized Entry get(String key) {
+    if ((key == null) || !isEnabled()) {
+      return null;
+    }
+    File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    try (DataInputStream is = new DataInputStream(new FileInputStream(file))) {
+      if ((is.readInt() != FORMAT_VERSION) || !key.equals(readString(is))) {
+        return null;
+      }
+      long time = is.readLong();
+      String signature = readString(is);
+      byte[] data = new byte[is.readInt()];
+      is.readFully(data);
+      if (!file.setLastModified(System.currentTimeMillis())) {
+        log.debug("Unable to update access time of {}", file.getName());
+      }
+      return new Entry(time, signature, data);
+    } catch (IOException e) {
+      log.warn("Error reading cached answer: {}", e.getMessage());
+      remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Store an answer in the cache.
+   *
+   * @param key Key for the request.
+   * @param signature Signature of the revisions in the answer.
+   * @param data Answer.
+   */
+  public synchronized void put(String key, String signature, byte[] data) {
+    long maxSize = getMaxSize();
+    if ((key == null) || (data == null) || (data.length > maxSize)) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      log.warn("Unable to create cache directory {}", directory);
+      return;
+    }
+    File file = getFile(key);
+    File tmpFile = new File(directory, file.getName() + ".tmp");
+    long previousSize = file.isFile() ? file.length() : 0;
+    try (DataOutputStream os = new DataOutputStream(new FileOutputStream(tmpFile))) {
+      os.writeInt(FORMAT_VERSION);
+      writeString(os, key);
+      os.writeLong(System.currentTimeMillis());
+      writeString(os, (signature != null) ? signature : "");
+      os.writeInt(data.length);
+      os.write(data);
+    } catch (IOException e) {
+      log.warn("Error writing cached answer: {}", e.getMessage());
+      deleteFile(tmpFile);
+      return;
+    }
+    deleteFile(file);
+    if (!tmpFile.renameTo(file)) {
+      log.warn("Unable to store cached answer in {}", file.getName());
+      deleteFile(tmpFile);
+      return;
+    }
+    if (totalSize >= 0) {
+      totalSize += file.length() - previousSize;
+    }
+    evict(maxSize);
+  }
+
+  /**
+   * Write a string of any length, as its UTF-8 bytes prefixed by their number.
+   *
+   * @param os Output stream.
+   * @param value String.
+   * @throws IOException Exception when writing.
+   */
+  private static void writeString(DataOutputStream os, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    os.writeInt(bytes.length);
+    os.write(bytes);
+  }
+
+  /**
+   * Read a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param is Input stream.
+   * @return String.
+   * @throws IOException Exception when reading.
+   */
+  private static String readString(DataInputStream is) throws IOException {
+    int length = is.readInt();
+    if ((length < 0) || (length > is.available())) {
+      throw new IOException("Invalid length " + length);
+    }
+    byte[] bytes = new byte[length];
+    is.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Mark an answer as validated.
+   *
+   * @param key Key for the request.
+   * @param entry Answer stored in the cache.
+   */
+  public void validate(String key, Entry entry) {
+    if (entry != null) {
+      put(key, entry.getSignature(), entry.getData());
+    }
+  }
+
+  /**
+   * Remove an answer from the cache.
+   *
+   * @param key Key for the request.
+   */
+  public synchronized void remove(String key) {
+    if (key == null) {
+      return;
+    }
+    File file = getFile(key);
+    long size = file.isFile() ? file.length() : 0;
+    if (deleteFile(file) && (totalSize >= 0)) {
+      totalSize -= size;
+    }
+  }
+
+  /**
+   * Remove every answer from the cache.
+   */
+  public synchronized void clear() {
+    for (File file : listFiles()) {
+      deleteFile(file);
+    }
+    totalSize = 0;
+  }
+
+  /**
+   * Remove least recently used answers until the cache fits in its maximum size.
+   *
+   * @param maxSize Maximum size of the cache (in bytes).
+   */
+  private void evict(long maxSize) {
+    if ((totalSize >= 0) && (totalSize <= maxSize)) {
+      return;
+    }
+    List<File> files = listFiles();
+    totalSize = 0;
+    for (File file : files) {
+      totalSize += file.length();
+    }
+    if (totalSize <= maxSize) {
+      return;
+    }
+    files.sort(Comparator.comparingLong(File::lastModified));
+    for (File file : files) {
+      if (totalSize <= maxSize) {
+        break;
+      }
+      long size = file.length();
+      if (deleteFile(file)) {
+        totalSize -= size;
+      }
+    }
+  }
+
+  /**
+   * @return List of files in the cache.
+   */
+  private List<File> listFiles() {
+    List<File> result = new ArrayList<>();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isFile() && file.getName().endsWith(SUFFIX)) {
+          result.add(file);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param file File to delete.
+   * @return True if the file has been deleted.
+   */
+  private static boolean deleteFile(File file) {
+    if (!file.exists()) {
+      return false;
+    }
+    if (!file.delete()) {
+      log.warn("Unable to delete {}", file.getName());
+      return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,734 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikipediacleaner.api.APIException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+
+/**
+ * Answer of a query to MediaWiki API, read directly from the stream of JSON tokens.
+ *
+ * Only the information used by WPCleaner is kept, no JSON tree is built.
+ * Both the original JSON format and format version 2 are supported.
+ */
+public class ApiJsonQueryAnswer {
+
+  /** Logger */
+  private static final Logger log = LoggerFactory.getLogger(ApiJsonQueryAnswer.class);
+
+  /** Values for continuing the query */
+  private final Map<String, String> continueValues;
+
+  /** Current timestamp */
+  private String currentTimestamp;
+
+  /** Title normalization (key=From, value=To) */
+  private final Map<String, String> normalization;
+
+  /** Redirects */
+  private final List<Redirect> redirects;
+
+  /** Pages */
+  private final List<PageInfo> pages;
+
+  /** Items of the requested list */
+  private final List<PageInfo> listItems;
+
+  /**
+   * Create an empty answer.
+   */
+  private ApiJsonQueryAnswer() {
+    continueValues = new HashMap<>();
+    normalization = new HashMap<>();
+    redirects = new ArrayList<>();
+    pages = new ArrayList<>();
+    listItems = new ArrayList<>();
+  }
+
+  /**
+   * @return Values for continuing the query.
+   */
+  public Map<String, String> getContinueValues() {
+    return continueValues;
+  }
+
+  /**
+   * @return Current timestamp.
+   */
+  public String getCurrentTimestamp() {
+    return currentTimestamp;
+  }
+
+  /**
+   * @return Title normalization (key=From, value=To).
+   */
+  public Map<String, String> getNormalization() {
+    return normalization;
+  }
+
+  /**
+   * @return Redirects.
+   */
+  public List<Redirect> getRedirects() {
+    return redirects;
+  }
+
+  /**
+   * @return Pages.
+   */
+  public List<PageInfo> getPages() {
+    return pages;
+  }
+
+  /**
+   * @return Items of the requested list.
+   */
+  public List<PageInfo> getListItems() {
+    return listItems;
+  }
+
+  // ==========================================================================
+  // Reading
+  // ==========================================================================
+
+  /**
+   * Read the answer of a query.
+   *
+   * @param parser JSON parser positioned before the answer.
+   * @param listName Name of the list requested (embeddedin, categorymembers, ...), or null.
+   * @return Answer.
+   * @throws IOException Exception when reading the answer.
+   * @throws APIException Exception reported by the API.
+   */
+  public static ApiJsonQueryAnswer read(
+      JsonParser parser, String listName) throws IOException, APIException {
+    ApiJsonQueryAnswer answer = new ApiJsonQueryAnswer();
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Unexpected JSON answer");
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      switch (name) {
+      case "error":
+        readError(parser);
+        break;
+      case "warnings":
+        readWarnings(parser);
+        break;
+      case "continue":
+        answer.readContinue(parser);
+        break;
+      case "curtimestamp":
+        answer.currentTimestamp = parser.getValueAsString();
+        break;
+      case "query":
+        answer.readQuery(parser, listName);
+        break;
+      default:
+        parser.skipChildren();
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Read an error and report it.
+   *
+   * @param parser JSON parser positioned on the error.
+   * @throws IOException Exception when reading the answer.
+   * @throws APIException Exception reported by the API.
+   */
+  private static void readError(JsonParser parser) throws IOException, APIException {
+    String code = "?";
+    String info = "?";
+    if (parser.currentToken() == JsonToken.START_OBJECT) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if ("code".equals(name)) {
+          code = parser.getValueAsString(code);
+        } else if ("info".equals(name)) {
+          info = parser.getValueAsString(info);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    String text = "Error reported: " + code + " - " + info;
+    log.warn(text);
+    throw new APIException(text, code);
+  }
+
+  /**
+   * Read warnings and log them.
+   *
+   * @param parser JSON parser positioned on the warnings.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static void readWarnings(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    int depth = 0;
+    do {
+      if ((token == JsonToken.START_OBJECT) || (token == JsonToken.START_ARRAY)) {
+        depth++;
+      } else if ((token == JsonToken.END_OBJECT) || (token == JsonToken.END_ARRAY)) {
+        depth--;
+      } else if (token == JsonToken.VALUE_STRING) {
+        log.warn("Warning reported: {}", parser.getText());
+      }
+      if (depth > 0) {
+        token = parser.nextToken();
+      }
+    } while ((depth > 0) && (token != null));
+  }
+
+  /**
+   * Read values for continuing the query.
+   *
+   * @param parser JSON parser positioned on the continue object.
+   * @throws IOException Exception when reading the answer.
+   */
+  private void readContinue(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      String value = parser.getValueAsString();
+      if (value != null) {
+        continueValues.put(name, value);
+      }
+      parser.skipChildren();
+    }
+  }
+
+  /**
+   * Read the query part of the answer.
+   *
+   * @param parser JSON parser positioned on the query object.
+   * @param listName Name of the list requested, or null.
+   * @throws IOException Exception when reading the answer.
+   */
+  private void readQuery(JsonParser parser, String listName) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("normalized".equals(name)) {
+        while (nextElement(parser, token)) {
+          Redirect normalized = readRedirect(parser);
+          if ((normalized.from != null) && (normalized.to != null)) {
+            normalization.put(normalized.from, normalized.to);
+          }
+        }
+      } else if ("redirects".equals(name)) {
+        while (nextElement(parser, token)) {
+          redirects.add(readRedirect(parser));
+        }
+      } else if ("pages".equals(name)) {
+        while (nextElement(parser, token)) {
+          pages.add(readPage(parser));
+        }
+      } else if ((listName != null) && listName.equals(name)) {
+        while (nextElement(parser, token)) {
+          listItems.add(readPage(parser));
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Move to the next element of a collection.
+   *
+   * Collections are arrays in format version 2,
+   * but some of them are objects indexed by identifiers in the original format.
+   *
+   * @param parser JSON parser.
+   * @param container Token starting the collection.
+   * @return True if the parser is positioned on the start of an element.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static boolean nextElement(JsonParser parser, JsonToken container) throws IOException {
+    if (container == JsonToken.START_ARRAY) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_OBJECT) {
+        return true;
+      }
+      if ((token != null) && (token != JsonToken.END_ARRAY)) {
+        parser.skipChildren();
+        return nextElement(parser, container);
+      }
+      return false;
+    }
+    if (container == JsonToken.START_OBJECT) {
+      if (parser.nextToken() != JsonToken.FIELD_NAME) {
+        return false;
+      }
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        return true;
+      }
+      parser.skipChildren();
+      return nextElement(parser, container);
+    }
+    parser.skipChildren();
+    return false;
+  }
+
+  /**
+   * @param token Token.
+   * @return True if the token represents a flag which is set.
+   */
+  private static boolean isSet(JsonToken token) {
+    return (token != null) && (token != JsonToken.VALUE_FALSE) && (token != JsonToken.VALUE_NULL);
+  }
+
+  /**
+   * @param parser JSON parser positioned on a value.
+   * @return Integer value, or null if not available.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static Integer readInteger(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      return Integer.valueOf(parser.getIntValue());
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      try {
+        return Integer.valueOf(parser.getText());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  /**
+   * Read a redirect or normalization information.
+   *
+   * @param parser JSON parser positioned on the start of the object.
+   * @return Redirect.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static Redirect readRedirect(JsonParser parser) throws IOException {
+    Redirect redirect = new Redirect();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ("from".equals(name)) {
+        redirect.from = parser.getValueAsString();
+      } else if ("to".equals(name)) {
+        redirect.to = parser.getValueAsString();
+      } else if ("tofragment".equals(name)) {
+        redirect.toFragment = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return redirect;
+  }
+
+  /**
+   * Read information about a page.
+   *
+   * @param parser JSON parser positioned on the start of the object.
+   * @return Page information.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static PageInfo readPage(JsonParser parser) throws IOException {
+    PageInfo page = new PageInfo();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      switch (name) {
+      case "pageid":
+        page.pageId = readInteger(parser);
+        break;
+      case "ns":
+        page.namespace = readInteger(parser);
+        break;
+      case "title":
+        page.title = parser.getValueAsString();
+        break;
+      case "lastrevid":
+        page.lastRevisionId = parser.getValueAsString();
+        break;
+      case "starttimestamp":
+        page.startTimestamp = parser.getValueAsString();
+        break;
+      case "missing":
+        page.missing = isSet(token);
+        break;
+      case "redirect":
+        page.redirect = isSet(token);
+        break;
+      case "protection":
+        while (nextElement(parser, token)) {
+          readProtection(parser, page);
+        }
+        break;
+      case "actions":
+        readActions(parser, page);
+        break;
+      case "pageprops":
+        readPageProps(parser, page);
+        break;
+      case "revisions":
+        while (nextElement(parser, token)) {
+          if (page.revisionId == null) {
+            readRevision(parser, page);
+          } else {
+            parser.skipChildren();
+          }
+        }
+        break;
+      case "links":
+      case "redirlinks":
+        while (nextElement(parser, token)) {
+          if (page.links == null) {
+            page.links = new ArrayList<>();
+          }
+          page.links.add(readPage(parser));
+        }
+        break;
+      default:
+        parser.skipChildren();
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Read protection information.
+   *
+   * @param parser JSON parser positioned on the start of the object.
+   * @param page Page information.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static void readProtection(JsonParser parser, PageInfo page) throws IOException {
+    String type = null;
+    String level = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ("type".equals(name)) {
+        type = parser.getValueAsString();
+      } else if ("level".equals(name)) {
+        level = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    if ("edit".equals(type)) {
+      page.editProtectionLevel = level;
+    }
+  }
+
+  /**
+   * Read information about actions.
+   *
+   * @param parser JSON parser positioned on the actions.
+   * @param page Page information.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static void readActions(JsonParser parser, PageInfo page) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("edit".equals(name) && (token == JsonToken.START_ARRAY)) {
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+          page.editProhibition = true;
+          parser.skipChildren();
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Read page properties.
+   *
+   * @param parser JSON parser positioned on the page properties.
+   * @param page Page information.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static void readPageProps(JsonParser parser, PageInfo page) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("disambiguation".equals(name) && isSet(token)) {
+        page.disambiguation = true;
+      }
+      parser.skipChildren();
+    }
+  }
+
+  /**
+   * Read a revision.
+   *
+   * @param parser JSON parser positioned on the start of the object.
+   * @param page Page information.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static void readRevision(JsonParser parser, PageInfo page) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      switch (name) {
+      case "revid":
+        page.revisionId = parser.getValueAsString();
+        break;
+      case "timestamp":
+        page.revisionTimestamp = parser.getValueAsString();
+        break;
+      case "*":
+      case "content":
+        page.contents = parser.getValueAsString();
+        break;
+      case "slots":
+        if (token == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String slot = parser.getCurrentName();
+            JsonToken slotToken = parser.nextToken();
+            if ("main".equals(slot) && (slotToken == JsonToken.START_OBJECT)) {
+              readRevision(parser, page);
+            } else {
+              parser.skipChildren();
+            }
+          }
+        } else {
+          parser.skipChildren();
+        }
+        break;
+      default:
+        parser.skipChildren();
+      }
+    }
+  }
+
+  // ==========================================================================
+  // Answer elements
+  // ==========================================================================
+
+  /**
+   * Redirect or normalization information.
+   */
+  public static class Redirect {
+
+    /** Origin title */
+    String from;
+
+    /** Destination title */
+    String to;
+
+    /** Fragment in the destination */
+    String toFragment;
+
+    /**
+     * @return Origin title.
+     */
+    public String getFrom() {
+      return from;
+    }
+
+    /**
+     * @return Destination title.
+     */
+    public String getTo() {
+      return to;
+    }
+
+    /**
+     * @return Fragment in the destination.
+     */
+    public String getToFragment() {
+      return toFragment;
+    }
+  }
+
+  /**
+   * Information about a page.
+   */
+  public static class PageInfo {
+
+    /** Page identifier */
+    Integer pageId;
+
+    /** Namespace */
+    Integer namespace;
+
+    /** Title */
+    String title;
+
+    /** Last revision identifier */
+    String lastRevisionId;
+
+    /** Start timestamp */
+    String startTimestamp;
+
+    /** True if the page is missing */
+    boolean missing;
+
+    /** True if the page is a redirect */
+    boolean redirect;
+
+    /** Edit protection level */
+    String editProtectionLevel;
+
+    /** True if edition is prohibited */
+    boolean editProhibition;
+
+    /** True if the page is a disambiguation page */
+    boolean disambiguation;
+
+    /** Revision identifier */
+    String revisionId;
+
+    /** Revision timestamp */
+    String revisionTimestamp;
+
+    /** Contents of the revision */
+    String contents;
+
+    /** Links (or links through redirects) */
+    List<PageInfo> links;
+
+    /**
+     * @return Page identifier.
+     */
+    public Integer getPageId() {
+      return pageId;
+    }
+
+    /**
+     * @return Namespace.
+     */
+    public Integer getNamespace() {
+      return namespace;
+    }
+
+    /**
+     * @return Title.
+     */
+    public String getTitle() {
+      return title;
+    }
+
+    /**
+     * @return Last revision identifier.
+     */
+    public String getLastRevisionId() {
+      return lastRevisionId;
+    }
+
+    /**
+     * @return Start timestamp.
+     */
+    public String getStartTimestamp() {
+      return startTimestamp;
+    }
+
+    /**
+     * @return True if the page is missing.
+     */
+    public boolean isMissing() {
+      return missing;
+    }
+
+    /**
+     * @return True if the page is a redirect.
+     */
+    public boolean isRedirect() {
+      return redirect;
+    }
+
+    /**
+     * @return Edit protection level.
+     */
+    public String getEditProtectionLevel() {
+      return editProtectionLevel;
+    }
+
+    /**
+     * @return True if edition is prohibited.
+     */
+    public boolean isEditProhibited() {
+      return editProhibition;
+    }
+
+    /**
+     * @return True if the page is a disambiguation page.
+     */
+    public boolean isDisambiguation() {
+      return disambiguation;
+    }
+
+    /**
+     * @return Revision identifier.
+     */
+    public String getRevisionId() {
+      return revisionId;
+    }
+
+    /**
+     * @return Revision timestamp.
+     */
+    public String getRevisionTimestamp() {
+      return revisionTimestamp;
+    }
+
+    /**
+     * @return Contents of the revision.
+     */
+    public String getContents() {
+      return contents;
+    }
+
+    /**
+     * @return Links (or links through redirects).
+     */
+    public List<PageInfo> getLinks() {
+      if (links == null) {
+        return Collections.emptyList();
+      }
+      return links;
+    }
+  }
+}
@@ -7,29 +7,38 @@
 
 package org.wikipediacleaner.api.request;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.jdom2.Attribute;
 import org.jdom2.Element;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
+import org.wikipediacleaner.api.request.query.prop.ApiPropertiesRequest;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -53,6 +62,16 @@ public abstract class ApiJsonResult extends BasicApiResult {
    */
   protected final static JsonFactory factory = new JsonFactory();
 
+  /**
+   * Parameters kept when checking the current revisions of pages in a cached answer.
+   */
+  private final static List<String> VALIDATION_PARAMETERS = Arrays.asList(
+      ApiRequest.ACTION,
+      ApiRequest.FORMAT,
+      ApiPropertiesRequest.PROPERTY_PAGEIDS,
+      ApiPropertiesRequest.PROPERTY_REDIRECTS,
+      ApiPropertiesRequest.PROPERTY_TITLES);
+
   /**
    * Update configuration.
    */
@@ -72,7 +91,7 @@ public abstract class ApiJsonResult extends BasicApiResult {
    */
   public ApiJsonResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -96,33 +115,102 @@ public abstract class ApiJsonResult extends BasicApiResult {
       Map<String, String> properties,
       int maxTry)
           throws APIException {
+    return getAnswer(properties, maxTry, parser -> {
+      ObjectMapper mapper = new ObjectMapper(factory);
+      JsonNode root = mapper.readTree(parser);
+      traceDocument(root);
+      checkForError(root);
+      return root;
+    });
+  }
+
+  /**
+   * Reader for the answer of MediaWiki API.
+   *
+   * @param <T> Type of the answer.
+   */
+  @FunctionalInterface
+  protected interface AnswerReader<T> {
+
+    /**
+     * Read the answer of MediaWiki API.
+     * 
+     * @param parser JSON parser positioned before the answer.
+     * @return Answer.
+     * @throws IOException Exception when reading the answer.
+     * @throws APIException Exception thrown by the API.
+     */
+    T read(JsonParser parser) throws IOException, APIException;
+  }
+
+  /**
+   * Send a request to MediaWiki API and read the answer with a JSON parser.
+   * 
+   * The reader is called again for each attempt,
+   * so it should not modify anything outside of the returned answer.
+   * 
+   * @param properties Properties defining the request.
+   * @param maxTry Maximum number of tries.
+   * @param reader Reader for the answer.
+   * @return Answer of MediaWiki API.
+   * @throws APIException Exception thrown by the API.
+   */
+  protected <T> T getAnswer(
+      Map<String, String> properties,
+      int maxTry,
+      AnswerReader<T> reader)
+          throws APIException {
+    String cacheKey = getCacheKey(properties);
+    if (cacheKey != null) {
+      T answer = getCachedAnswer(cacheKey, properties, reader);
+      if (answer != null) {
+        return answer;
+      }
+    }
+    return getAnswer(properties, maxTry, reader, cacheKey);
+  }
+
+  /**
+   * Send a request to MediaWiki API and read the answer with a JSON parser.
+   * 
+   * @param properties Properties defining the request.
+   * @param maxTry Maximum number of tries.
+   * @param reader Reader for the answer.
+   * @param cacheKey Key for storing the answer in the local cache, null if it shouldn't be stored.
+   * @return Answer of MediaWiki API.
+   * @throws APIException Exception thrown by the API.
+   */
+  private <T> T getAnswer(
+      Map<String, String> properties,
+      int maxTry,
+      AnswerReader<T> reader,
+      String cacheKey)
+          throws APIException {
     int attempt = 0;
     for (;;) {
-      JsonNode root = null;
-      HttpMethod method = null;
+      T answer = null;
+      CloseableHttpResponse response = null;
       InputStream stream = null;
       try {
         // Executing HTTP method
         attempt++;
-        method = createHttpMethod(properties);
-        int statusCode = getHttpClient().executeMethod(method);
+        HttpUriRequest method = createHttpMethod(properties);
+        response = getHttpClient().execute(method);
+        int statusCode = response.getCode();
 
         // Accessing response
-        stream = method.getResponseBodyAsStream();
-        stream = new BufferedInputStream(stream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            stream = new GZIPInputStream(stream);
-          }
-        }
+        stream = Hc5HttpUtils.getResponseStream(response);
 
         // Read the response
-        if (statusCode == HttpStatus.SC_OK){
-          ObjectMapper mapper = new ObjectMapper(factory);
-          root = mapper.readValue(stream, JsonNode.class);
-          traceDocument(root);
-          checkForError(root);
+        if ((statusCode == HttpStatus.SC_OK) && (cacheKey != null)) {
+          byte[] data = IOUtils.toByteArray(stream);
+          answer = readAnswer(data, reader);
+          String signature = getCachePolicy().isRevisionValidated() ? getRevisionSignature(data) : null;
+          ApiCache.getCache().put(cacheKey, signature, data);
+        } else if (statusCode == HttpStatus.SC_OK) {
+          try (JsonParser parser = factory.createParser(stream)) {
+            answer = reader.read(parser);
+          }
         } else {
           try {
             while (stream.read() >= 0) {
@@ -135,19 +223,15 @@ public abstract class ApiJsonResult extends BasicApiResult {
 
         // Act depending on the status
         if (statusCode != HttpStatus.SC_OK) {
-          String message = "URL access returned " + HttpStatus.getStatusText(statusCode);
+          String message = "URL access returned " + statusCode + " " + response.getReasonPhrase();
           log.error(message);
           if (attempt > maxTry) {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message);
           }
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException e) {
-            // Nothing
-          }
+          ConcurrencyLimiter.waitBeforeRetrying(attempt);
         } else {
-          return root;
+          return answer;
         }
       } catch (IOException e) {
         String message = "IOException: " + e.getMessage();
@@ -156,11 +240,7 @@ public abstract class ApiJsonResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
@@ -174,14 +254,121 @@ public abstract class ApiJsonResult extends BasicApiResult {
             log.warn("Error closing stream");
           }
         }
-        if (method != null) {
-          method.releaseConnection();
-        }
+        Hc5HttpUtils.releaseResponse(response);
       }
       log.warn("Error. Trying again");
     }
   }
 
+  /**
+   * Read an answer from the local cache.
+   * 
+   * @param cacheKey Key for the answer in the local cache.
+   * @param properties Properties defining the request.
+   * @param reader Reader for the answer.
+   * @return Answer from the local cache, null if there's no valid answer in the cache.
+   */
+  private <T> T getCachedAnswer(
+      String cacheKey,
+      Map<String, String> properties,
+      AnswerReader<T> reader) {
+    ApiCache cache = ApiCache.getCache();
+    ApiCache.Entry entry = cache.get(cacheKey);
+    if (entry == null) {
+      return null;
+    }
+    ApiCache.Policy policy = getCachePolicy();
+    if (!entry.isFresh(policy)) {
+      if (!policy.isRevisionValidated()) {
+        return null;
+      }
+      try {
+        if (!entry.getSignature().equals(getCurrentRevisionSignature(properties))) {
+          return null;
+        }
+      } catch (APIException e) {
+        return null;
+      }
+      cache.validate(cacheKey, entry);
+    }
+    try {
+      return readAnswer(entry.getData(), reader);
+    } catch (IOException | APIException e) {
+      log.warn("Error reading cached answer: " + e.getMessage());
+      cache.remove(cacheKey);
+      return null;
+    }
+  }
+
+  /**
+   * @param data Answer of MediaWiki API.
+   * @param reader Reader for the answer.
+   * @return Answer.
+   * @throws IOException Exception when reading the answer.
+   * @throws APIException Exception thrown by the API.
+   */
+  private static <T> T readAnswer(byte[] data, AnswerReader<T> reader)
+      throws IOException, APIException {
+    try (JsonParser parser = factory.createParser(new ByteArrayInputStream(data))) {
+      return reader.read(parser);
+    }
+  }
+
+  /**
+   * @param data Answer of MediaWiki API.
+   * @return Signature of the last revisions of the pages in the answer.
+   * @throws IOException Exception when reading the answer.
+   */
+  private static String getRevisionSignature(byte[] data) throws IOException {
+    ObjectMapper mapper = new ObjectMapper(factory);
+    List<String> revisions = new ArrayList<>(mapper.readTree(data).findValuesAsText("lastrevid"));
+    Collections.sort(revisions);
+    return String.join(",", revisions);
+  }
+
+  /**
+   * @param properties Properties defining the request.
+   * @return Signature of the current last revisions of the pages requested.
+   * @throws APIException Exception thrown by the API.
+   */
+  private String getCurrentRevisionSignature(Map<String, String> properties)
+      throws APIException {
+    Map<String, String> infoProperties = new HashMap<>();
+    for (String parameter : VALIDATION_PARAMETERS) {
+      if (properties.containsKey(parameter)) {
+        infoProperties.put(parameter, properties.get(parameter));
+      }
+    }
+    infoProperties.put(
+        ApiPropertiesRequest.PROPERTY_PROP,
+        ApiPropertiesRequest.PROPERTY_PROP_INFO);
+    return getAnswer(infoProperties, ApiRequest.MAX_ATTEMPTS, parser -> {
+      ObjectMapper mapper = new ObjectMapper(factory);
+      JsonNode root = mapper.readTree(parser);
+      checkForError(root);
+      List<String> revisions = new ArrayList<>(root.findValuesAsText("lastrevid"));
+      Collections.sort(revisions);
+      return String.join(",", revisions);
+    }, null);
+  }
+
+  /**
+   * Send a query to MediaWiki API and read the answer as a stream.
+   * 
+   * @param properties Properties defining the request.
+   * @param listName Name of the list requested, or null.
+   * @return Answer of MediaWiki API.
+   * @throws APIException Exception thrown by the API.
+   */
+  protected ApiJsonQueryAnswer getQueryAnswer(
+      Map<String, String> properties,
+      String listName)
+          throws APIException {
+    return getAnswer(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        parser -> ApiJsonQueryAnswer.read(parser, listName));
+  }
+
   /**
    * Check for errors reported by the API.
    * 
@@ -251,6 +438,64 @@ public abstract class ApiJsonResult extends BasicApiResult {
     return result;
   }
 
+  /**
+   * Manage continue in request.
+   * 
+   * @param answer Answer of MediaWiki API.
+   * @param properties Properties defining request.
+   * @return True if request should be continued.
+   */
+  protected boolean shouldContinue(
+      ApiJsonQueryAnswer answer,
+      Map<String, String> properties) {
+    if (answer == null) {
+      return false;
+    }
+    boolean result = false;
+    for (Entry<String, String> continueElement : answer.getContinueValues().entrySet()) {
+      properties.put(continueElement.getKey(), continueElement.getValue());
+      if (!"".equals(continueElement.getValue())) {
+        result = true;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get a page corresponding to page information.
+   * 
+   * @param wiki Wiki.
+   * @param pageInfo Page information.
+   * @param knownPages Already known pages.
+   * @param useDisambig True if disambiguation property should be used.
+   * @return Page.
+   */
+  protected static Page getPage(
+      EnumWikipedia wiki,
+      ApiJsonQueryAnswer.PageInfo pageInfo, PageRegistry knownPages,
+      boolean useDisambig) {
+    if (pageInfo == null) {
+      return null;
+    }
+    Integer pageId = pageInfo.getPageId();
+    Page page = (knownPages != null) ?
+        knownPages.getPage(wiki, pageInfo.getTitle(), pageId, pageInfo.getLastRevisionId()) :
+        DataManager.getPage(wiki, pageInfo.getTitle(), pageId, pageInfo.getLastRevisionId(), null);
+    page.setNamespace(pageInfo.getNamespace());
+    if (pageInfo.isMissing()) {
+      page.setExisting(Boolean.FALSE);
+    } else if (pageId != null) {
+      page.setExisting(Boolean.TRUE);
+    }
+    if (pageInfo.isRedirect()) {
+      page.getRedirects().isRedirect(true);
+    }
+    if (useDisambig) {
+      page.setDisambiguationPage(Boolean.valueOf(pageInfo.isDisambiguation()));
+    }
+    return page;
+  }
+
   /**
    * Get a page corresponding to a page node.
    * 
@@ -262,7 +507,7 @@ public abstract class ApiJsonResult extends BasicApiResult {
    */
   protected static Page getPage(
       EnumWikipedia wiki,
-      Element pageNode, List<Page> knownPages,
+      Element pageNode, PageRegistry knownPages,
       boolean useDisambig) {
     if (pageNode == null) {
       return null;
@@ -279,7 +524,9 @@ public abstract class ApiJsonResult extends BasicApiResult {
       }
     }
     String revisionId = pageNode.getAttributeValue("lastrevid");
-    Page page = DataManager.getPage(wiki, title, pageId, revisionId, knownPages);
+    Page page = (knownPages != null) ?
+        knownPages.getPage(wiki, title, pageId, revisionId) :
+        DataManager.getPage(wiki, title, pageId, revisionId, null);
     page.setNamespace(pageNode.getAttributeValue("ns"));
     if (pageNode.getAttribute("missing") != null) {
       page.setExisting(Boolean.FALSE);
@@ -123,15 +123,20 @@ public abstract class ApiRequest {
   public final static String LIMIT_MAX = "max";
 
   /**
-   * Maximum number of pages in a request.
+   * Maximum replication lag accepted for a request.
    */
-  public final static int MAX_PAGES_PER_QUERY = 50;
+  public final static String MAX_LAG = "maxlag";
 
   /**
    * Maximum size for an URL encoded list.
    */
   public final static int MAX_LENGTH_LIST_URLENCODED = 1500;
 
+  /**
+   * Maximum size for URL encoded parameters sent with a GET request.
+   */
+  public final static int MAX_LENGTH_GET_PARAMETERS = 4000;
+
   // ==========================================================================
   // Various parameters
   // ==========================================================================
@@ -152,6 +157,58 @@ public abstract class ApiRequest {
   /** Value to include current timestamp in the response */
   public final static String PROPERTY_CURRENT_TIMESTAMP_YES = "1";
 
+  // ==========================================================================
+  // Automatic processing
+  // ==========================================================================
+
+  /** True if every request is made by an automatic process. */
+  private static volatile boolean automaticProcess;
+
+  /** True if the requests of the current thread are made by an automatic process. */
+  private static final ThreadLocal<Boolean> automaticThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  /**
+   * @param automatic True if every request is made by an automatic process (bot).
+   */
+  public static void setAutomaticProcess(boolean automatic) {
+    automaticProcess = automatic;
+  }
+
+  /**
+   * @param automatic True if the requests of the current thread are made by an automatic process.
+   */
+  public static void setAutomaticThread(boolean automatic) {
+    automaticThread.set(Boolean.valueOf(automatic));
+  }
+
+  /**
+   * @return True if the requests of the current thread are made by an automatic process.
+   */
+  public static boolean isAutomatic() {
+    return automaticProcess || automaticThread.get().booleanValue();
+  }
+
+  /**
+   * Run a task in another thread as an automatic process if the current thread is one.
+   * 
+   * @param runnable Task to be run in another thread.
+   * @return Task running with the same kind of process as the current thread.
+   */
+  public static Runnable propagateAutomatic(Runnable runnable) {
+    if (!automaticThread.get().booleanValue()) {
+      return runnable;
+    }
+    return () -> {
+      Boolean previous = automaticThread.get();
+      automaticThread.set(Boolean.TRUE);
+      try {
+        runnable.run();
+      } finally {
+        automaticThread.set(previous);
+      }
+    };
+  }
+
   // ==========================================================================
   // Wiki management
   // ==========================================================================
@@ -192,6 +249,46 @@ public abstract class ApiRequest {
     return properties;
   }
 
+  /**
+   * Add the maximum replication lag to a request made by an automatic process, if configured.
+   * 
+   * Interactive requests are not delayed when the servers are lagging.
+   * 
+   * @param properties Properties defining a request.
+   */
+  public static void addMaxLag(Map<String, String> properties) {
+    if ((properties == null) || properties.containsKey(MAX_LAG) || !isAutomatic()) {
+      return;
+    }
+    Configuration config = Configuration.getConfiguration();
+    int maxLag = config.getInt(null, ConfigurationValueInteger.API_MAX_LAG);
+    if (maxLag > 0) {
+      properties.put(MAX_LAG, Integer.toString(maxLag));
+    }
+  }
+
+  /**
+   * @param properties Properties defining a request.
+   * @return True if the properties are short enough to be sent in an URL.
+   */
+  public static boolean fitsInUrl(Map<String, String> properties) {
+    if (properties == null) {
+      return true;
+    }
+    int length = 0;
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      length += property.getKey().length() + 2;
+      if (property.getValue() != null) {
+        try {
+          length += URLEncoder.encode(property.getValue(), "UTF8").length();
+        } catch (UnsupportedEncodingException e) {
+          // Not supposed to happen.
+        }
+      }
+    }
+    return length <= MAX_LENGTH_GET_PARAMETERS;
+  }
+
   /**
    * Split a list of pages in smaller lists.
    * 
@@ -7,21 +7,21 @@
 
 package org.wikipediacleaner.api.request;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
 
 import javax.annotation.Nonnull;
 
-import org.apache.commons.httpclient.Header;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.jdom2.Attribute;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -37,6 +37,9 @@ import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
@@ -74,7 +77,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
    */
   public ApiXmlResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -99,40 +102,41 @@ public abstract class ApiXmlResult extends BasicApiResult {
       Map<String, String> properties,
       int maxTry)
           throws JDOMParseException, APIException {
+    String cacheKey = getCacheKey(properties);
+    if (cacheKey != null) {
+      Element root = getCachedRoot(cacheKey);
+      if (root != null) {
+        return root;
+      }
+    }
     int attempt = 0;
     for (;;) {
       Element root = null;
-      HttpMethod method = null;
+      CloseableHttpResponse response = null;
       InputStream stream = null;
       try {
         // Executing HTTP method
         attempt++;
-        method = createHttpMethod(properties);
-        int statusCode = getHttpClient().executeMethod(method);
+        HttpUriRequest method = createHttpMethod(properties);
+        response = getHttpClient().execute(method);
+        int statusCode = response.getCode();
 
         // Accessing response
-        stream = method.getResponseBodyAsStream();
-        stream = new BufferedInputStream(stream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            stream = new GZIPInputStream(stream);
-          }
-        }
-        // for (Header header : method.getRequestHeaders()) {
-        //   System.out.println("Request header:" + header);
-        // }
-        // for (Header header : method.getResponseHeaders()) {
-        //   System.out.println("Response header:" + header);
-        // }
+        stream = Hc5HttpUtils.getResponseStream(response);
 
         // Read the response
         if (statusCode == HttpStatus.SC_OK){
+          byte[] data = (cacheKey != null) ? IOUtils.toByteArray(stream) : null;
           SAXBuilder sxb = new SAXBuilder();
-          Document document = sxb.build(stream);
+          Document document = (data != null) ?
+              sxb.build(new ByteArrayInputStream(data)) :
+              sxb.build(stream);
           traceDocument(document);
           root = document.getRootElement();
           checkForError(root);
+          if (data != null) {
+            ApiCache.getCache().put(cacheKey, null, data);
+          }
         } else {
           try {
             while (stream.read() >= 0) {
@@ -145,17 +149,13 @@ public abstract class ApiXmlResult extends BasicApiResult {
 
         // Act depending on the status
         if (statusCode != HttpStatus.SC_OK) {
-          String message = "URL access returned " + HttpStatus.getStatusText(statusCode);
+          String message = "URL access returned " + statusCode + " " + response.getReasonPhrase();
           log.error(message);
           if (attempt > maxTry) {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message);
           }
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException e) {
-            // Nothing
-          }
+          ConcurrencyLimiter.waitBeforeRetrying(attempt);
         } else {
           return root;
         }
@@ -166,11 +166,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error parsing XML result", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (IOException e) {
         String message = "IOException: " + e.getMessage();
         log.error(message);
@@ -178,11 +174,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
@@ -196,14 +188,38 @@ public abstract class ApiXmlResult extends BasicApiResult {
             log.warn("Error closing stream");
           }
         }
-        if (method != null) {
-          method.releaseConnection();
-        }
+        Hc5HttpUtils.releaseResponse(response);
       }
       log.warn("Error. Trying again");
     }
   }
 
+  /**
+   * Read an answer from the local cache.
+   * 
+   * @param cacheKey Key for the answer in the local cache.
+   * @return Answer from the local cache, null if there's no valid answer in the cache.
+   */
+  private Element getCachedRoot(String cacheKey) {
+    ApiCache cache = ApiCache.getCache();
+    ApiCache.Entry entry = cache.get(cacheKey);
+    if ((entry == null) || !entry.isFresh(getCachePolicy())) {
+      return null;
+    }
+    try {
+      SAXBuilder sxb = new SAXBuilder();
+      Document document = sxb.build(new ByteArrayInputStream(entry.getData()));
+      traceDocument(document);
+      Element root = document.getRootElement();
+      checkForError(root);
+      return root;
+    } catch (JDOMException | IOException | APIException e) {
+      log.warn("Error reading cached answer: " + e.getMessage());
+      cache.remove(cacheKey);
+      return null;
+    }
+  }
+
   /**
    * Check for errors reported by the API.
    * 
@@ -309,7 +325,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
    */
   protected static Page getPage(
       EnumWikipedia wiki,
-      Element pageNode, List<Page> knownPages,
+      Element pageNode, PageRegistry knownPages,
       boolean useDisambig) {
     if (pageNode == null) {
       return null;
@@ -326,7 +342,9 @@ public abstract class ApiXmlResult extends BasicApiResult {
       }
     }
     String revisionId = pageNode.getAttributeValue("lastrevid");
-    Page page = DataManager.getPage(wiki, title, pageId, revisionId, knownPages);
+    Page page = (knownPages != null) ?
+        knownPages.getPage(wiki, title, pageId, revisionId) :
+        DataManager.getPage(wiki, title, pageId, revisionId, null);
     page.setNamespace(pageNode.getAttributeValue("ns"));
     if (pageNode.getAttribute("missing") != null) {
       page.setExisting(Boolean.FALSE);
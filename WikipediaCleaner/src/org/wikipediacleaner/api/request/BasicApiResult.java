@@ -9,13 +9,13 @@ package org.wikipediacleaner.api.request;
 
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpMethod;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikipediacleaner.api.constants.ConnectionInformation;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
-import org.wikipediacleaner.api.http.hc3.Hc3HttpUtils;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
 import org.wikipediacleaner.api.request.login.ApiLoginRequest;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
@@ -39,7 +39,12 @@ public abstract class BasicApiResult implements ApiResult {
   /**
    * HTTP client for making requests.
    */
-  private final HttpClient httpClient;
+  private final CloseableHttpClient httpClient;
+
+  /**
+   * Policy for caching answers locally, null if answers shouldn't be cached.
+   */
+  private ApiCache.Policy cachePolicy;
 
   /**
    * @param wiki Wiki on which requests are made.
@@ -47,7 +52,7 @@ public abstract class BasicApiResult implements ApiResult {
    */
   protected BasicApiResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     this.wiki = wiki;
     this.httpClient = httpClient;
   }
@@ -64,10 +69,35 @@ public abstract class BasicApiResult implements ApiResult {
    * @return HTTP client for making requests.
    */
   @Override
-  public HttpClient getHttpClient() {
+  public CloseableHttpClient getHttpClient() {
     return httpClient;
   }
 
+  /**
+   * @param policy Policy for caching answers locally, null if answers shouldn't be cached.
+   */
+  public void setCachePolicy(ApiCache.Policy policy) {
+    this.cachePolicy = policy;
+  }
+
+  /**
+   * @return Policy for caching answers locally, null if answers shouldn't be cached.
+   */
+  public ApiCache.Policy getCachePolicy() {
+    return cachePolicy;
+  }
+
+  /**
+   * @param properties Properties defining the request.
+   * @return Key for caching the answer locally, null if the answer shouldn't be cached.
+   */
+  protected String getCacheKey(Map<String, String> properties) {
+    if ((cachePolicy == null) || !ApiCache.getCache().isEnabled()) {
+      return null;
+    }
+    return ApiCache.getKey(wiki, cachePolicy, properties);
+  }
+
   // ==========================================================================
   // HTTP management
   // ==========================================================================
@@ -78,7 +108,7 @@ public abstract class BasicApiResult implements ApiResult {
    * @param properties Properties to drive the API.
    * @return HttpMethod.
    */
-  protected HttpMethod createHttpMethod(
+  protected HttpUriRequest createHttpMethod(
       Map<String, String> properties) {
     if (shouldSendIdentification()) {
       ConnectionInformation connection = wiki.getConnection();
@@ -98,10 +128,11 @@ public abstract class BasicApiResult implements ApiResult {
             connection.getLgUserId());
       }
     }
+    ApiRequest.addMaxLag(properties);
     boolean getMethod = canUseGetMethod(properties);
     Configuration config = Configuration.getConfiguration();
     boolean useHttps = !config.getBoolean(null, ConfigurationValueBoolean.FORCE_HTTP_API);
-    return Hc3HttpUtils.createHttpMethod(
+    return Hc5HttpUtils.createMethod(
         getWiki().getSettings().getApiURL(useHttps),
         properties,
         getMethod);
@@ -127,7 +158,7 @@ public abstract class BasicApiResult implements ApiResult {
       return false;
     }
     if (ApiRequest.ACTION_QUERY.equals(action)) {
-      return true;
+      return ApiRequest.fitsInUrl(properties);
     }
     return false;
   }
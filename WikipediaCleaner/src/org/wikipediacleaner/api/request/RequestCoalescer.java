@@ -0,0 +1,335 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Coalesce concurrent reads of the same kind for the same pages.
+ *
+ * A page already being retrieved by an other thread is not requested again:
+ * the thread waits for the result and copies it into its own page.
+ * When too many batches are in flight, lookups wait in a queue
+ * and are merged into the next outgoing batch, whichever thread sends it.
+ * Pages are identified by their normalized title (or by their page identifier),
+ * and lookups still waiting are withdrawn when every thread waiting for them gives up.
+ * An explicit lock is used rather than monitors, so that virtual threads
+ * waiting for a batch don't pin their carrier thread.
+ */
+public class RequestCoalescer {
+
+  /** Maximum number of batches in flight for each wiki and kind of request. */
+  private final static int MAX_BATCHES_IN_FLIGHT = 4;
+
+  /** Coalescers for each wiki and kind of request. */
+  private final static Map<String, RequestCoalescer> coalescers = new ConcurrentHashMap<>();
+
+  /**
+   * @param wiki Wiki.
+   * @param kind Kind of request, including every option changing the result.
+   * @return Coalescer for the wiki and the kind of request.
+   */
+  public static RequestCoalescer getCoalescer(EnumWikipedia wiki, String kind) {
+    return coalescers.computeIfAbsent(
+        wiki.name() + "|" + kind,
+        key -> new RequestCoalescer());
+  }
+
+  /**
+   * Retrieve information for a batch of pages.
+   */
+  @FunctionalInterface
+  public interface Loader {
+
+    /**
+     * @param pages List of pages.
+     * @throws APIException Exception thrown by the API.
+     */
+    void load(List<Page> pages) throws APIException;
+  }
+
+  /**
+   * Copy retrieved information from a page to an other instance of the same page.
+   */
+  @FunctionalInterface
+  public interface Copier {
+
+    /**
+     * @param from Page for which information has been retrieved.
+     * @param to Other instance of the same page.
+     */
+    void copy(Page from, Page to);
+  }
+
+  /**
+   * Lookup of a page.
+   */
+  private static class Lookup {
+
+    /** Key of the lookup. */
+    final String key;
+
+    /** Page actually sent in the request. */
+    final Page page;
+
+    /** Number of pages waiting for the lookup. */
+    int waiters;
+
+    /** True when the lookup is finished. */
+    boolean done;
+
+    /** Error if the lookup failed. */
+    APIException error;
+
+    /**
+     * @param key Key of the lookup.
+     * @param page Page actually sent in the request.
+     */
+    Lookup(String key, Page page) {
+      this.key = key;
+      this.page = page;
+    }
+  }
+
+  /** Lock protecting the state of the coalescer. */
+  private final ReentrantLock lock;
+
+  /** Condition signaled when a batch is finished. */
+  private final Condition batchDone;
+
+  /** Lookups waiting or in flight, by key. */
+  private final Map<String, Lookup> lookups;
+
+  /** Lookups waiting for the next batch. */
+  private final LinkedList<Lookup> pending;
+
+  /** Number of batches in flight. */
+  private int batchesInFlight;
+
+  /** Number of lookups that have been answered by an other lookup. */
+  private long coalescedCount;
+
+  /**
+   * Create a coalescer.
+   */
+  private RequestCoalescer() {
+    this.lock = new ReentrantLock();
+    this.batchDone = lock.newCondition();
+    this.lookups = new HashMap<>();
+    this.pending = new LinkedList<>();
+    this.batchesInFlight = 0;
+    this.coalescedCount = 0;
+  }
+
+  /**
+   * @return Number of lookups that have been answered by an other lookup.
+   */
+  public long getCoalescedCount() {
+    lock.lock();
+    try {
+      return coalescedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Retrieve information for a list of pages.
+   *
+   * @param pages List of pages.
+   * @param usePageId True if pages are identified by their page identifiers.
+   * @param batchSize Maximum number of pages in a batch.
+   * @param loader Loader for retrieving information for a batch of pages.
+   * @param copier Copier for pages retrieved in an other lookup.
+   * @throws APIException Exception thrown by the API.
+   */
+  public void load(
+      Collection<Page> pages, boolean usePageId, int batchSize,
+      Loader loader, Copier copier) throws APIException {
+    if ((pages == null) || pages.isEmpty()) {
+      return;
+    }
+
+    // Register lookups, reusing lookups already waiting or in flight
+    List<Page> direct = new ArrayList<>();
+    Map<Page, Lookup> waited = new IdentityHashMap<>();
+    lock.lock();
+    try {
+      for (Page page : pages) {
+        String key = getKey(page, usePageId);
+        if (key == null) {
+          direct.add(page);
+        } else if (!waited.containsKey(page)) {
+          Lookup lookup = lookups.get(key);
+          if (lookup == null) {
+            lookup = new Lookup(key, page);
+            lookups.put(key, lookup);
+            pending.add(lookup);
+          } else {
+            coalescedCount++;
+          }
+          lookup.waiters++;
+          waited.put(page, lookup);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    boolean finished = false;
+    try {
+      if (!direct.isEmpty()) {
+        loader.load(direct);
+      }
+      sendBatches(waited.values(), batchSize, loader);
+      finished = true;
+    } finally {
+      if (!finished) {
+        withdraw(waited.values());
+      }
+    }
+
+    // Copy results to other instances of the pages
+    APIException error = null;
+    for (Map.Entry<Page, Lookup> entry : waited.entrySet()) {
+      Lookup lookup = entry.getValue();
+      if (lookup.error != null) {
+        error = lookup.error;
+      } else if ((lookup.page != entry.getKey()) && (copier != null)) {
+        copier.copy(lookup.page, entry.getKey());
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Send batches until every lookup is finished.
+   *
+   * @param waited Lookups waited by the current thread.
+   * @param batchSize Maximum number of pages in a batch.
+   * @param loader Loader for retrieving information for a batch of pages.
+   * @throws APIException Exception if interrupted while waiting.
+   */
+  private void sendBatches(
+      Collection<Lookup> waited, int batchSize,
+      Loader loader) throws APIException {
+    while (true) {
+      List<Lookup> batch = null;
+      lock.lock();
+      try {
+        if (isDone(waited)) {
+          return;
+        }
+        if (pending.isEmpty() || (batchesInFlight >= MAX_BATCHES_IN_FLIGHT)) {
+          try {
+            batchDone.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for a request", e);
+          }
+          continue;
+        }
+        batch = new ArrayList<>();
+        while (!pending.isEmpty() && (batch.size() < Math.max(1, batchSize))) {
+          batch.add(pending.removeFirst());
+        }
+        batchesInFlight++;
+      } finally {
+        lock.unlock();
+      }
+      APIException error = null;
+      try {
+        List<Page> batchPages = new ArrayList<>(batch.size());
+        for (Lookup lookup : batch) {
+          batchPages.add(lookup.page);
+        }
+        loader.load(batchPages);
+      } catch (APIException e) {
+        error = e;
+      } catch (RuntimeException e) {
+        error = new APIException("Error retrieving pages", e);
+      } finally {
+        lock.lock();
+        try {
+          batchesInFlight--;
+          for (Lookup lookup : batch) {
+            lookup.done = true;
+            lookup.error = error;
+            lookups.remove(lookup.key);
+          }
+          batchDone.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Withdraw the lookups of a thread giving up,
+   * removing the ones still waiting for a batch that no other thread needs.
+   *
+   * @param waited Lookups waited by the thread.
+   */
+  private void withdraw(Collection<Lookup> waited) {
+    lock.lock();
+    try {
+      for (Lookup lookup : waited) {
+        lookup.waiters--;
+        if ((lookup.waiters <= 0) && !lookup.done && pending.remove(lookup)) {
+          lookups.remove(lookup.key);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param lookups List of lookups.
+   * @return True if every lookup is finished.
+   */
+  private static boolean isDone(Collection<Lookup> lookups) {
+    for (Lookup lookup : lookups) {
+      if (!lookup.done) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param page Page.
+   * @param usePageId True if pages are identified by their page identifiers.
+   * @return Key for the page, null if the page can't be coalesced.
+   */
+  private static String getKey(Page page, boolean usePageId) {
+    if (page == null) {
+      return null;
+    }
+    if (usePageId) {
+      return (page.getPageId() != null) ? "#" + page.getPageId() : null;
+    }
+    return Page.normalizeTitle(page.getTitle());
+  }
+}
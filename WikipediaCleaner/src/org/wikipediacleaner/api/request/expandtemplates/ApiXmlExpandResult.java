@@ -9,7 +9,7 @@ package org.wikipediacleaner.api.request.expandtemplates;
 
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
@@ -32,7 +32,7 @@ public class ApiXmlExpandResult extends ApiXmlResult implements ApiExpandResult
    */
   public ApiXmlExpandResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -9,7 +9,7 @@ package org.wikipediacleaner.api.request.login;
 
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.Element;
 import org.jdom2.filter.Filters;
 import org.jdom2.input.JDOMParseException;
@@ -33,7 +33,7 @@ public class ApiXmlLoginResult extends ApiXmlResult implements ApiLoginResult {
    */
   public ApiXmlLoginResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
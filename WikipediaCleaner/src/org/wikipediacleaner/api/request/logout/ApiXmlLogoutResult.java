@@ -9,7 +9,7 @@ package org.wikipediacleaner.api.request.logout;
 
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.input.JDOMParseException;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
@@ -26,7 +26,7 @@ public class ApiXmlLogoutResult extends ApiXmlResult implements ApiLogoutResult
    */
   public ApiXmlLogoutResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
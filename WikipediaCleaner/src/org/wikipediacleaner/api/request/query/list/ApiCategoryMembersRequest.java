@@ -10,9 +10,12 @@ package org.wikipediacleaner.api.request.query.list;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
@@ -183,6 +186,8 @@ public class ApiCategoryMembersRequest extends ApiListRequest {
   /**
    * Load list of category members.
    * 
+   * Large categories are loaded in ranges of sort keys loaded concurrently.
+   * 
    * @param category Category for which members are requested.
    * @param depth Depth of lookup for sub-categories.
    * @param limit Flag indicating if the number of results should be limited.
@@ -232,15 +237,101 @@ public class ApiCategoryMembersRequest extends ApiListRequest {
         properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
         properties.put(PROPERTY_LIMIT, LIMIT_MAX);
         properties.put(PROPERTY_TITLE, categoryName);
+        Map<String, String> initialProperties = new HashMap<>(properties);
         List<Page> list = new ArrayList<>();
-        while (result.executeCategoryMembers(
-            properties, list, categories, currentDepth) &&
+        boolean shouldContinue = result.executeCategoryMembers(
+            properties, list, categories, currentDepth);
+
+        // Load the rest of large categories in partitions
+        int partitions = (maxSize == Integer.MAX_VALUE) ? getPartitionsCount(limit) : 1;
+        if (shouldContinue && (partitions > 1)) {
+          Set<Page> knownPages = new HashSet<>(list);
+          for (Page page : loadSortKeyPartitions(
+              initialProperties, properties, categories, currentDepth, partitions)) {
+            if (knownPages.add(page)) {
+              list.add(page);
+            }
+          }
+          shouldContinue = false;
+        }
+
+        while (shouldContinue &&
             (list.size() < maxSize)) {
-          //
+          shouldContinue = result.executeCategoryMembers(
+              properties, list, categories, currentDepth);
         }
         Collections.sort(list);
         currentCategory.setRelatedPages(Page.RelatedPages.CATEGORY_MEMBERS, list);
       }
     }
   }
+
+  /**
+   * Load the rest of a list of category members in ranges of sort keys loaded concurrently.
+   * 
+   * The first range is continued from where the first request stopped,
+   * the other ranges are started from their sort key prefix.
+   * If the first request went beyond the end of the first range,
+   * some of the pages it loaded may be returned again.
+   * 
+   * @param properties Properties defining request, before any request.
+   * @param continueProperties Properties defining request, after a first request.
+   * @param categories Map of categories to be analyzed with their depth.
+   * @param depth Current depth of the analysis.
+   * @param partitions Number of partitions.
+   * @return List of category members.
+   * @throws APIException Exception thrown by the API.
+   */
+  private List<Page> loadSortKeyPartitions(
+      Map<String, String> properties,
+      Map<String, String> continueProperties,
+      Map<Page, Integer> categories, int depth,
+      int partitions) throws APIException {
+    List<String> boundaries = getSortKeyBoundaries(partitions);
+    List<Map<Page, Integer>> partitionCategories = new ArrayList<>();
+    List<Callable<List<Page>>> tasks = new ArrayList<>();
+    for (int index = 0; index <= boundaries.size(); index++) {
+      Map<String, String> tmpProperties = new HashMap<>((index > 0) ? properties : continueProperties);
+      tmpProperties.put(PROPERTY_SORT, PROPERTY_SORT_SORTKEY);
+      if (index > 0) {
+        tmpProperties.put(PROPERTY_STARTSORTKEYPREFIX, boundaries.get(index - 1));
+      }
+      if (index < boundaries.size()) {
+        tmpProperties.put(PROPERTY_ENDSORTKEYPREFIX, boundaries.get(index));
+      }
+      Map<Page, Integer> tmpCategories = new HashMap<>();
+      partitionCategories.add(tmpCategories);
+      tasks.add(() -> {
+        List<Page> tmpList = new ArrayList<>();
+        while (result.executeCategoryMembers(
+            tmpProperties, tmpList, tmpCategories, depth)) {
+          //
+        }
+        return tmpList;
+      });
+    }
+    List<Page> list = loadPartitions(tasks);
+    for (Map<Page, Integer> tmpCategories : partitionCategories) {
+      categories.putAll(tmpCategories);
+    }
+    return list;
+  }
+
+  /**
+   * Boundaries are spread between A and Z,
+   * so sort keys outside this range all fall in the first or the last partition.
+   * 
+   * @param partitions Number of partitions.
+   * @return Sort key prefixes separating the partitions.
+   */
+  private static List<String> getSortKeyBoundaries(int partitions) {
+    List<String> boundaries = new ArrayList<>();
+    for (int index = 1; index < partitions; index++) {
+      String boundary = Character.toString((char) ('A' + (index * 26) / partitions));
+      if (!boundaries.contains(boundary)) {
+        boundaries.add(boundary);
+      }
+    }
+    return boundaries;
+  }
 }
@@ -9,6 +9,7 @@ package org.wikipediacleaner.api.request.query.list;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,26 @@ public class ApiEmbeddedInRequest extends ApiListRequest {
   // API properties
   // ==========================================================================
 
+  /**
+   * Property for Continue.
+   */
+  public final static String PROPERTY_CONTINUE_LIST = "eicontinue";
+
+  /**
+   * Property for Direction.
+   */
+  public final static String PROPERTY_DIR = "eidir";
+
+  /**
+   * Property value for Direction / Ascending.
+   */
+  public final static String PROPERTY_DIR_ASC = "ascending";
+
+  /**
+   * Property value for Direction / Descending.
+   */
+  public final static String PROPERTY_DIR_DESC = "descending";
+
   /**
    * Property for Filter redirection.
    */
@@ -80,6 +101,9 @@ public class ApiEmbeddedInRequest extends ApiListRequest {
   /**
    * Load list of pages embedding a page.
    * 
+   * Large lists restricted to one name space are loaded
+   * in ranges of page identifiers loaded concurrently.
+   * 
    * @param page Page for list of embedding pages is requested.
    * @param namespaces List of name spaces to restrict result.
    * @param limit Flag indicating if the number of results should be limited.
@@ -96,11 +120,31 @@ public class ApiEmbeddedInRequest extends ApiListRequest {
       properties.put(PROPERTY_NAMESPACE, constructList(namespaces));
     }
     properties.put(PROPERTY_TITLE, page.getTitle());
+    Map<String, String> initialProperties = new HashMap<>(properties);
     List<Page> list = new ArrayList<>();
     int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_EMBEDDED_IN);
-    while (result.executeEmbeddedIn(properties, list) &&
+    boolean shouldContinue = result.executeEmbeddedIn(properties, list);
+
+    // Load the rest of large lists in partitions
+    int partitions = getPartitionsCount(limit);
+    if (shouldContinue && (partitions > 1) &&
+        (namespaces != null) && (namespaces.size() == 1)) {
+      Integer firstId = getContinuePageId(properties.get(PROPERTY_CONTINUE_LIST));
+      Integer lastId = getLastPageId(
+          initialProperties, PROPERTY_DIR, PROPERTY_DIR_DESC, PROPERTY_LIMIT,
+          result::executeEmbeddedIn);
+      if ((firstId != null) && (lastId != null) && (lastId.intValue() >= firstId.intValue())) {
+        list.addAll(loadPageIdPartitions(
+            properties, PROPERTY_CONTINUE_LIST, namespaces.get(0) + "|",
+            firstId.intValue(), lastId.intValue(), partitions,
+            result::executeEmbeddedIn));
+        shouldContinue = false;
+      }
+    }
+
+    while (shouldContinue &&
            (list.size() < maxSize)) {
-      //
+      shouldContinue = result.executeEmbeddedIn(properties, list);
     }
     Collections.sort(list);
     page.setRelatedPages(Page.RelatedPages.EMBEDDED_IN, list);
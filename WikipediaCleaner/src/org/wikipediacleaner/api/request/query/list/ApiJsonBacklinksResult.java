@@ -0,0 +1,90 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.list;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+
+
+/**
+ * MediaWiki API JSON back links results.
+ */
+@Deprecated
+public class ApiJsonBacklinksResult extends ApiJsonResult implements ApiBacklinksResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonBacklinksResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute back links request.
+   * 
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param list List of pages to be filled with the back links.
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean executeBacklinks(
+      Map<String, String> properties,
+      Page page,
+      List<Page> list)
+          throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, "backlinks");
+
+    // Retrieve back links
+    for (PageInfo currentBacklink : answer.getListItems()) {
+      Page link = DataManager.getPage(
+          getWiki(), currentBacklink.getTitle(), null, null, null);
+      link.setNamespace(currentBacklink.getNamespace());
+      link.setPageId(currentBacklink.getPageId());
+      if (currentBacklink.isRedirect()) {
+        link.getRedirects().add(page, null); // TODO: Check if fragment is available
+      }
+      if (!list.contains(link)) {
+        list.add(link);
+      }
+
+      // Links through redirects
+      List<Page> linkList = new ArrayList<>();
+      for (PageInfo currentRedirLink : currentBacklink.getLinks()) {
+        Page link2 = DataManager.getPage(
+            getWiki(), currentRedirLink.getTitle(), null, null, null);
+        link2.setNamespace(currentRedirLink.getNamespace());
+        link2.setPageId(currentRedirLink.getPageId());
+        if (!list.contains(link2)) {
+          list.add(link2);
+        }
+        if (!linkList.contains(link2)) {
+          linkList.add(link2);
+        }
+      }
+      link.setRelatedPages(Page.RelatedPages.BACKLINKS, linkList);
+    }
+
+    // Retrieve continue
+    return shouldContinue(answer, properties);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.list;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+
+
+/**
+ * MediaWiki API JSON category members results.
+ */
+public class ApiJsonCategoryMembersResult extends ApiJsonResult implements ApiCategoryMembersResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonCategoryMembersResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute category members request.
+   * 
+   * @param properties Properties defining request.
+   * @param list List to be filled with category members.
+   * @param categories Map of categories to be analyzed with their depth.
+   * @param depth Current depth of the analysis.
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean executeCategoryMembers(
+      Map<String, String> properties,
+      List<Page> list,
+      Map<Page, Integer> categories, int depth) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, "categorymembers");
+
+    // Retrieve category members
+    for (PageInfo currentNode : answer.getListItems()) {
+      Page page = DataManager.getPage(
+          getWiki(), currentNode.getTitle(), null, null, null);
+      page.setNamespace(currentNode.getNamespace());
+      page.setPageId(currentNode.getPageId());
+      if ((page.getNamespace() != null) &&
+          (page.getNamespace().intValue() == Namespace.CATEGORY)) {
+        categories.put(page, depth + 1);
+      } else {
+        if (!list.contains(page)) {
+          list.add(page);
+        }
+      }
+    }
+
+    // Retrieve continue
+    return shouldContinue(answer, properties);
+  }
+}
@@ -7,8 +7,23 @@
 
 package org.wikipediacleaner.api.request.query.list;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
 /**
@@ -77,4 +92,175 @@ public class ApiListRequest extends ApiRequest {
   protected ApiListRequest(EnumWikipedia wiki) {
     super(wiki);
   }
+
+  // ==========================================================================
+  // Partitioned lists
+  // ==========================================================================
+
+  /**
+   * Execute one request of a list query.
+   */
+  @FunctionalInterface
+  protected interface ListExecutor {
+
+    /**
+     * @param properties Properties defining request.
+     * @param list List to be filled with pages.
+     * @return True if request should be continued.
+     * @throws APIException Exception thrown by the API.
+     */
+    boolean execute(Map<String, String> properties, List<Page> list) throws APIException;
+  }
+
+  /** Executor for loading partitions of lists concurrently. */
+  private static ExecutorService partitionExecutor;
+
+  /**
+   * @return Executor for loading partitions of lists concurrently.
+   */
+  private static synchronized ExecutorService getPartitionExecutor() {
+    if (partitionExecutor == null) {
+      partitionExecutor = Executors.newCachedThreadPool(
+          new BasicThreadFactory.Builder().namingPattern("List-%d").daemon(true).build());
+    }
+    return partitionExecutor;
+  }
+
+  /**
+   * @param limit Flag indicating if the number of results should be limited.
+   * @return Number of partitions for loading a list concurrently (1 if it should be loaded sequentially).
+   */
+  protected int getPartitionsCount(boolean limit) {
+    if (limit) {
+      return 1;
+    }
+    Configuration config = Configuration.getConfiguration();
+    return Math.max(1, config.getInt(null, ConfigurationValueInteger.API_LIST_PARTITIONS));
+  }
+
+  /**
+   * Load partitions of a list concurrently.
+   * 
+   * @param partitions Loaders for each partition.
+   * @return Pages of every partition, in the order of the partitions.
+   * @throws APIException Exception thrown by the API.
+   */
+  protected List<Page> loadPartitions(
+      List<Callable<List<Page>>> partitions) throws APIException {
+    List<Future<List<Page>>> futures = new ArrayList<>();
+    for (Callable<List<Page>> partition : partitions) {
+      futures.add(getPartitionExecutor().submit(partition));
+    }
+    List<Page> list = new ArrayList<>();
+    APIException error = null;
+    for (Future<List<Page>> future : futures) {
+      try {
+        if (error == null) {
+          list.addAll(future.get());
+        } else {
+          future.cancel(true);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        error = new APIException("Interrupted while loading a list", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof APIException) {
+          error = (APIException) e.getCause();
+        } else {
+          error = new APIException("Error loading a list", e.getCause());
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+    return list;
+  }
+
+  /**
+   * Load the rest of a list ordered by page identifiers, in ranges of page identifiers loaded concurrently.
+   * 
+   * The requests are started from the beginning of each range by setting the continue parameter.
+   * 
+   * @param properties Properties defining request, after a first request.
+   * @param continueProperty Name of the continue parameter for the list.
+   * @param continuePrefix Prefix of the value of the continue parameter before the page identifier.
+   * @param firstId First page identifier.
+   * @param lastId Last page identifier known in the list.
+   * @param partitions Number of partitions.
+   * @param executor Executor for one request.
+   * @return Pages of the list from the first page identifier.
+   * @throws APIException Exception thrown by the API.
+   */
+  protected List<Page> loadPageIdPartitions(
+      Map<String, String> properties,
+      String continueProperty, String continuePrefix,
+      int firstId, int lastId, int partitions,
+      ListExecutor executor) throws APIException {
+    List<Callable<List<Page>>> tasks = new ArrayList<>();
+    long step = Math.max(1, ((long) lastId - firstId + partitions) / partitions);
+    for (long start = firstId; start <= lastId; start += step) {
+      Map<String, String> tmpProperties = new HashMap<>(properties);
+      tmpProperties.put(continueProperty, continuePrefix + start);
+      long end = start + step;
+      boolean lastPartition = (end > lastId);
+      tasks.add(() -> {
+        List<Page> tmpList = new ArrayList<>();
+        boolean shouldContinue = true;
+        while (shouldContinue) {
+          int previousSize = tmpList.size();
+          shouldContinue = executor.execute(tmpProperties, tmpList);
+          if (!lastPartition) {
+            for (int index = previousSize; index < tmpList.size(); index++) {
+              Integer pageId = tmpList.get(index).getPageId();
+              if ((pageId != null) && (pageId.longValue() >= end)) {
+                tmpList.subList(index, tmpList.size()).clear();
+                shouldContinue = false;
+              }
+            }
+          }
+        }
+        return tmpList;
+      });
+    }
+    return loadPartitions(tasks);
+  }
+
+  /**
+   * Retrieve the last page identifier of a list ordered by page identifiers.
+   * 
+   * @param properties Properties defining request, before any request.
+   * @param dirProperty Name of the direction parameter for the list.
+   * @param dirDescending Value of the direction parameter for a descending order.
+   * @param limitProperty Name of the limit parameter for the list.
+   * @param executor Executor for one request.
+   * @return Last page identifier of the list, null if unknown.
+   * @throws APIException Exception thrown by the API.
+   */
+  protected Integer getLastPageId(
+      Map<String, String> properties,
+      String dirProperty, String dirDescending, String limitProperty,
+      ListExecutor executor) throws APIException {
+    Map<String, String> tmpProperties = new HashMap<>(properties);
+    tmpProperties.put(dirProperty, dirDescending);
+    tmpProperties.put(limitProperty, "1");
+    List<Page> tmpList = new ArrayList<>();
+    executor.execute(tmpProperties, tmpList);
+    return tmpList.isEmpty() ? null : tmpList.get(0).getPageId();
+  }
+
+  /**
+   * @param value Value of a continue parameter ending with a page identifier.
+   * @return Page identifier, null if none.
+   */
+  protected static Integer getContinuePageId(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Integer.valueOf(value.substring(value.lastIndexOf('|') + 1));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 }
@@ -9,6 +9,7 @@ package org.wikipediacleaner.api.request.query.list;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,11 @@ public class ApiPagesWithPropRequest extends ApiListRequest {
   // API properties
   // ==========================================================================
 
+  /**
+   * Property for Continue.
+   */
+  public final static String PROPERTY_CONTINUE_LIST = "pwpcontinue";
+
   /**
    * Property for Direction.
    */
@@ -90,6 +96,8 @@ public class ApiPagesWithPropRequest extends ApiListRequest {
   /**
    * Load list of pages with a given property.
    * 
+   * Large lists are loaded in ranges of page identifiers loaded concurrently.
+   * 
    * @param property Property name.
    * @param limit Flag indicating if the number of results should be limited.
    * @return List of protected titles.
@@ -104,11 +112,30 @@ public class ApiPagesWithPropRequest extends ApiListRequest {
         PROPERTY_LIST_PAGESWITHPROP);
     properties.put(PROPERTY_LIMIT, LIMIT_MAX);
     properties.put(PROPERTY_PROPERTY_NAME, property);
+    Map<String, String> initialProperties = new HashMap<>(properties);
     List<Page> list = new ArrayList<>();
     int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_PAGES_WITH_PROP);
-    while (result.executePagesWithProp(properties, list) &&
+    boolean shouldContinue = result.executePagesWithProp(properties, list);
+
+    // Load the rest of large lists in partitions
+    int partitions = getPartitionsCount(limit);
+    if (shouldContinue && (partitions > 1)) {
+      Integer firstId = getContinuePageId(properties.get(PROPERTY_CONTINUE_LIST));
+      Integer lastId = getLastPageId(
+          initialProperties, PROPERTY_DIR, PROPERTY_DIR_DESC, PROPERTY_LIMIT,
+          result::executePagesWithProp);
+      if ((firstId != null) && (lastId != null) && (lastId.intValue() >= firstId.intValue())) {
+        list.addAll(loadPageIdPartitions(
+            properties, PROPERTY_CONTINUE_LIST, "",
+            firstId.intValue(), lastId.intValue(), partitions,
+            result::executePagesWithProp));
+        shouldContinue = false;
+      }
+    }
+
+    while (shouldContinue &&
            (list.size() < maxSize)) {
-      //
+      shouldContinue = result.executePagesWithProp(properties, list);
     }
     Collections.sort(list);
     return list;
@@ -11,7 +11,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
@@ -35,7 +35,7 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
    */
   public ApiXmlRecentChangesResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -81,6 +81,8 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
         String user = currentNode.getAttributeValue("user");
         String logType = currentNode.getAttributeValue("logtype");
         String logAction = currentNode.getAttributeValue("logaction");
+        Element logParams = currentNode.getChild("logparams");
+        String logTarget = (logParams != null) ? logParams.getAttributeValue("target_title") : null;
         try {
           RecentChange rc = new RecentChange(
               Integer.valueOf(rcId), Integer.valueOf(ns),
@@ -90,6 +92,7 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
           rc.setBot(isBot);
           rc.setComment(comment);
           rc.setLogAction(logAction);
+          rc.setLogTarget(logTarget);
           rc.setLogType(logType);
           rc.setMinor(isMinor);
           rc.setNew(isNew);
@@ -9,7 +9,7 @@ package org.wikipediacleaner.api.request.query.meta;
 
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.User;
@@ -30,7 +30,7 @@ public class ApiJsonTokensResult extends ApiJsonResult implements ApiTokensResul
    */
   public ApiJsonTokensResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
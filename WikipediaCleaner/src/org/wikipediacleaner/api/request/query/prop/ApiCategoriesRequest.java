@@ -17,6 +17,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 import org.wikipediacleaner.api.data.Page.RelatedPages;
 
 
@@ -130,8 +131,8 @@ public class ApiCategoriesRequest extends ApiPropertiesRequest {
     }
 
     // Search disambiguation categories for pages in the main name space
-    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
-    for (Collection<Page> splitPages : splitPagesList) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), AdaptiveBatcher.KIND_DISAMBIGUATION);
+    batcher.process(pages, splitPages -> {
       for (Page page : splitPages) {
         Iterator<Page> itPage = page.getRedirects().getIteratorWithPage();
         while (itPage.hasNext()) {
@@ -165,6 +166,6 @@ public class ApiCategoriesRequest extends ApiPropertiesRequest {
           }
         }
       }
-    }
+    });
   }
 }
@@ -14,6 +14,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 
 
 /**
@@ -149,12 +150,12 @@ public class ApiInfoRequest extends ApiPropertiesRequest {
           PROPERTY_TEST_ACTIONS_DETAIL_FULL);
     }
     properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
-    List<Collection<Page>> tmpPages = splitListPages(pages, MAX_PAGES_PER_QUERY);
-    for (Collection<Page> tmpPages2 : tmpPages) {
-      properties.put(PROPERTY_TITLES, constructListTitles(tmpPages2));
-      while (result.executeInformations(properties, tmpPages2)) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), PROPERTY_PROP_INFO);
+    batcher.process(pages, tmpPages -> {
+      properties.put(PROPERTY_TITLES, constructListTitles(tmpPages));
+      while (result.executeInformations(properties, tmpPages)) {
         //
       }
-    }
+    });
   }
 }
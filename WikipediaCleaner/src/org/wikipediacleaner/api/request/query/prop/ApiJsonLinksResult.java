@@ -0,0 +1,118 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+
+
+/**
+ * MediaWiki API JSON links results.
+ */
+public class ApiJsonLinksResult extends ApiJsonPropertiesResult implements ApiLinksResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonLinksResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute links request.
+   * 
+   * @param properties Properties defining request.
+   * @param lists Map of lists to be filled with links.
+   * @param normalization Map containing information about title normalization (key=From, value=To).
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean executeLinks(
+      Map<String, String> properties,
+      Map<String, List<Page>> lists,
+      Map<String, String> normalization) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, null);
+
+    // Retrieve normalization information
+    if (normalization != null) {
+      normalization.putAll(answer.getNormalization());
+    }
+
+    // Retrieve links
+    for (PageInfo pageInfo : answer.getPages()) {
+      String pageTitle = pageInfo.getTitle();
+      List<Page> links = lists.get(pageTitle);
+      if (links == null) {
+        links = new ArrayList<>();
+        lists.put(pageTitle, links);
+      }
+      for (PageInfo linkInfo : pageInfo.getLinks()) {
+        Page link = DataManager.getPage(
+            getWiki(), linkInfo.getTitle(), null, null, null);
+        link.setNamespace(linkInfo.getNamespace());
+        links.add(link);
+      }
+    }
+
+    // Retrieve continue
+    return shouldContinue(answer, properties);
+  }
+
+  /**
+   * Execute links request.
+   * 
+   * @param properties Properties defining request.
+   * @param links List to be filled with links.
+   * @param knownPages Already known pages.
+   * @param normalization Map containing information about title normalization (key=From, value=To).
+   * @param redirects List of redirects filled by the method.
+   * @param useDisambig Flag indicating if disambiguation property should be used.
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean executeLinks(
+      Map<String, String> properties,
+      List<Page> links,
+      PageRegistry knownPages,
+      Map<String, String> normalization,
+      List<Page> redirects, boolean useDisambig) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, null);
+
+    // Retrieve normalization information
+    if (normalization != null) {
+      normalization.putAll(answer.getNormalization());
+    }
+
+    // Retrieve links
+    for (PageInfo linkInfo : answer.getPages()) {
+      Page link = getPage(getWiki(), linkInfo, knownPages, useDisambig);
+      if ((redirects != null) && (link.getRedirects().isRedirect())) {
+        redirects.add(link);
+      }
+      links.add(link);
+    }
+
+    // Retrieve continue
+    return shouldContinue(answer, properties);
+  }
+}
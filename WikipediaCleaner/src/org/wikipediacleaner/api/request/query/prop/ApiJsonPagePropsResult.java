@@ -0,0 +1,79 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+
+
+/**
+ * MediaWiki API JSON page properties results.
+ */
+public class ApiJsonPagePropsResult extends ApiJsonPropertiesResult implements ApiPagePropsResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonPagePropsResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Set disambiguation status of a list of pages.
+   * 
+   * @param properties Properties defining request.
+   * @param pages List of pages for which disambiguation status needs to be set.
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean setDiambiguationStatus(
+      Map<String, String> properties,
+      Collection<Page> pages) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, null);
+
+    // Manage redirects and missing pages
+    updateRedirect(answer, pages);
+
+    // Set disambiguation status
+    List<Page> tmpPages = new ArrayList<>();
+    for (PageInfo pageInfo : answer.getPages()) {
+      String title = pageInfo.getTitle();
+      Boolean disambig = Boolean.valueOf(pageInfo.isDisambiguation());
+      for (Page p : pages) {
+        tmpPages.clear();
+        Iterator<Page> it = p.getRedirects().getIteratorWithPage();
+        while (it.hasNext()) {
+          Page p2 = it.next();
+          tmpPages.add(p2);
+          if ((p2.getTitle() != null) &&
+              (Page.areSameTitle(p2.getTitle(), title))) {
+            for (Page p3 : tmpPages) {
+              p3.setDisambiguationPage(disambig);
+            }
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.Redirect;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+
+
+/**
+ * MediaWiki API JSON results for properties.
+ */
+public class ApiJsonPropertiesResult extends ApiJsonResult implements ApiPropertiesResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonPropertiesResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Update page information.
+   * 
+   * @param pageInfo Information about the page.
+   * @param page Page.
+   */
+  public void updatePageInformation(PageInfo pageInfo, Page page) {
+
+    // Retrieve basic page information
+    if (pageInfo.getPageId() != null) {
+      page.setPageId(pageInfo.getPageId());
+    }
+    if (pageInfo.getTitle() != null) {
+      page.setTitle(pageInfo.getTitle());
+    }
+    if (pageInfo.getStartTimestamp() != null) {
+      page.setStartTimestamp(pageInfo.getStartTimestamp());
+    }
+    if (pageInfo.isRedirect()) {
+      page.getRedirects().isRedirect(true);
+    }
+    if (pageInfo.isMissing()) {
+      page.setExisting(Boolean.FALSE);
+    }
+
+    // Retrieve protection information
+    if (pageInfo.getEditProtectionLevel() != null) {
+      page.setEditProtectionLevel(pageInfo.getEditProtectionLevel());
+    }
+  }
+
+  /**
+   * Execute redirect request.
+   * 
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with redirect information.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public void executeRedirect(
+      Map<String, String> properties,
+      List<Page> pages) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, null);
+
+    // Manage redirects and missing pages
+    updateRedirect(answer, pages);
+  }
+
+  /**
+   * Retrieve the normalized title of a page.
+   * 
+   * @param title Title.
+   * @param normalization Normalization information.
+   * @return Normalized title.
+   */
+  public String getNormalizedTitle(String title, Map<String, String> normalization) {
+    if ((title == null) || (normalization == null)) {
+      return title;
+    }
+    String tmp = normalization.get(title);
+    if (tmp != null) {
+      return tmp;
+    }
+    return title;
+  }
+
+  /**
+   * Update redirect and missing information of a list of pages.
+   * 
+   * @param answer Answer of MediaWiki API.
+   * @param pages List of pages.
+   */
+  public void updateRedirect(ApiJsonQueryAnswer answer, Collection<Page> pages) {
+    List<PageInfo> listPages = answer.getPages();
+    Map<String, String> normalization = answer.getNormalization();
+
+    // Analyzing redirects
+    for (Redirect currentRedirect : answer.getRedirects()) {
+      String fromPage = currentRedirect.getFrom();
+      String toPage = currentRedirect.getTo();
+      for (Page p : pages) {
+
+        // Find if the redirect is already taken into account
+        boolean exists = false;
+        Iterator<Page> itPage = p.getRedirects().getIteratorWithPage();
+        while (itPage.hasNext()) {
+          Page tmp = itPage.next();
+          String title = getNormalizedTitle(tmp.getTitle(), normalization);
+          if (Page.areSameTitle(title, toPage)) {
+            exists = true;
+          }
+        }
+
+        // Add the redirect if needed
+        itPage = p.getRedirects().getIteratorWithPage();
+        while (itPage.hasNext()) {
+          Page tmp = itPage.next();
+          String title = getNormalizedTitle(tmp.getTitle(), normalization);
+          if (!exists && Page.areSameTitle(title, fromPage)) {
+            PageInfo to = null;
+            for (PageInfo page : listPages) {
+              if ((to == null) && Page.areSameTitle(toPage, page.getTitle())) {
+                to = page;
+              }
+            }
+            if (to != null) {
+              Page pageTo = DataManager.getPage(
+                  p.getWikipedia(), to.getTitle(), null, null, null);
+              pageTo.setNamespace(to.getNamespace());
+              pageTo.setPageId(to.getPageId());
+              p.getRedirects().add(pageTo, currentRedirect.getToFragment());
+            }
+          }
+        }
+      }
+    }
+
+    // Retrieve extra information about the pages
+    for (Page p : pages) {
+      Iterator<Page> itPage = p.getRedirects().getIteratorWithPage();
+      while (itPage.hasNext()) {
+        Page tmp = itPage.next();
+        String title = getNormalizedTitle(tmp.getTitle(), normalization);
+        PageInfo page = null;
+        for (PageInfo tmpPage : listPages) {
+          if ((page == null) && title.equals(tmpPage.getTitle())) {
+            page = tmpPage;
+          }
+        }
+        if (page != null) {
+
+          // Add information about missing pages
+          if (page.getPageId() != null) {
+            tmp.setExisting(Boolean.TRUE);
+          } else if (page.isMissing()) {
+            tmp.setExisting(Boolean.FALSE);
+          }
+
+          // Add information about translated pages
+          if (page.isEditProhibited()) {
+            tmp.setEditProhibition(true);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer;
+import org.wikipediacleaner.api.request.ApiJsonQueryAnswer.PageInfo;
+
+
+/**
+ * MediaWiki API JSON revisions results.
+ * 
+ * The answer is read as a stream, so the contents of the pages are not kept in a tree.
+ */
+public class ApiJsonRevisionsResult extends ApiJsonPropertiesResult implements ApiRevisionsResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonRevisionsResult(
+      EnumWikipedia wiki,
+      CloseableHttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute last revision request.
+   * 
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with last revision content.
+   * @return True if request should be continued.
+   * @throws APIException Exception thrown by the API.
+   */
+  @Override
+  public boolean executeLastRevision(
+      Map<String, String> properties,
+      Collection<Page> pages) throws APIException {
+    ApiJsonQueryAnswer answer = getQueryAnswer(properties, null);
+
+    // Manage redirects and missing pages
+    updateRedirect(answer, pages);
+
+    // Retrieving normalization information
+    Map<String, String> normalization = answer.getNormalization();
+
+    // Retrieve current timestamp
+    String currentTimestamp = answer.getCurrentTimestamp();
+
+    // Retrieve pages
+    for (PageInfo pageInfo : answer.getPages()) {
+      String title = pageInfo.getTitle();
+      Integer pageId = pageInfo.getPageId();
+      for (Page tmpPage : pages) {
+        Iterator<Page> itPage = tmpPage.getRedirects().getIteratorWithPage();
+        while (itPage.hasNext()) {
+          Page page = itPage.next();
+          boolean samePage = false;
+          if ((pageId != null) && (page.getPageId() != null)) {
+            samePage = pageId.equals(page.getPageId());
+          } else {
+            samePage = Page.areSameTitle(page.getTitle(), title);
+            if (!samePage) {
+              String normalizedTitle = getNormalizedTitle(page.getTitle(), normalization);
+              samePage = Page.areSameTitle(normalizedTitle, title);
+            }
+          }
+          if (samePage) {
+            page.setNamespace(pageInfo.getNamespace());
+            if (currentTimestamp != null) {
+              page.setStartTimestamp(currentTimestamp);
+            }
+            updatePageInformation(pageInfo, page);
+
+            // Retrieve revisions
+            if (!Boolean.FALSE.equals(page.isExisting()) &&
+                (pageInfo.getContents() != null)) {
+              page.setContents(pageInfo.getContents());
+              page.setExisting(Boolean.TRUE);
+              page.setRevisionId(pageInfo.getRevisionId());
+              page.setContentsTimestamp(pageInfo.getRevisionTimestamp());
+            }
+          }
+        }
+      }
+    }
+
+    // Retrieve continue
+    return shouldContinue(answer, properties);
+  }
+}
@@ -18,6 +18,7 @@ import java.util.Map.Entry;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 import org.wikipediacleaner.api.data.Page.RelatedPages;
 
 
@@ -109,14 +110,14 @@ public class ApiLinksHereRequest extends ApiPropertiesRequest {
     if (redirects) {
       pages.addAll(page.getRelatedPages(RelatedPages.REDIRECTS));
     }
-    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
     Map<String, List<Page>> results = new HashMap<>();
-    for (Collection<Page> splitPages : splitPagesList) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), PROPERTY_PROP_LINKSHERE);
+    batcher.process(pages, splitPages -> {
       properties.put(PROPERTY_TITLES, constructListTitles(splitPages));
       while (result.executeLinksHere(properties, page, results)) {
         //
       }
-    }
+    });
     for (Entry<String, List<Page>> tmpResult : results.entrySet()) {
       Collections.sort(tmpResult.getValue());
       for (Page tmpPage : pages) {
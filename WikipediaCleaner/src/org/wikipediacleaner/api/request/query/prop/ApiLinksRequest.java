@@ -17,6 +17,8 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 
 
 /**
@@ -60,8 +62,8 @@ public class ApiLinksRequest extends ApiPropertiesRequest {
    * @throws APIException Exception thrown by the API.
    */
   public void loadLinks(Collection<Page> pages) throws APIException {
-    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
-    for (Collection<Page> splitPages : splitPagesList) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), PROPERTY_PROP_LINKS);
+    batcher.process(pages, splitPages -> {
       Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
       properties.put(PROPERTY_PROP, PROPERTY_PROP_LINKS);
       properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
@@ -83,7 +85,7 @@ public class ApiLinksRequest extends ApiPropertiesRequest {
         }
         page.setLinks(list);
       }
-    }
+    });
   }
 
   /**
@@ -121,7 +123,8 @@ public class ApiLinksRequest extends ApiPropertiesRequest {
     properties.put(PROPERTY_TITLES, page.getTitle());
     properties.put(GENERATOR_PREFIX + PROPERTY_LIMIT, LIMIT_MAX);
     List<Page> links = new ArrayList<>();
-    while (result.executeLinks(properties, links, knownPages, null, redirects, disambig)) {
+    PageRegistry registry = (knownPages != null) ? new PageRegistry(knownPages) : null;
+    while (result.executeLinks(properties, links, registry, null, redirects, disambig)) {
       //
     }
     page.setLinks(links);
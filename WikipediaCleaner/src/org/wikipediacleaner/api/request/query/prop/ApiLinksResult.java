@@ -12,6 +12,7 @@ import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
 
 
 /**
@@ -48,7 +49,7 @@ public interface ApiLinksResult extends ApiPropertiesResult {
   public boolean executeLinks(
       Map<String, String> properties,
       List<Page> links,
-      List<Page> knownPages,
+      PageRegistry knownPages,
       Map<String, String> normalization,
       List<Page> redirects, boolean useDisambig) throws APIException;
 }
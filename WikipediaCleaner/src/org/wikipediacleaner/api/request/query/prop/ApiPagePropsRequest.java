@@ -16,6 +16,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 
 
 /**
@@ -73,8 +74,8 @@ public class ApiPagePropsRequest extends ApiPropertiesRequest {
     }
 
     // Search disambiguation categories for pages in the main name space
-    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
-    for (Collection<Page> splitPages : splitPagesList) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), PROPERTY_PROP_PAGEPROPS);
+    batcher.process(pages, splitPages -> {
       for (Page page : splitPages) {
         Iterator<Page> itPage = page.getRedirects().getIteratorWithPage();
         while (itPage.hasNext()) {
@@ -99,6 +100,6 @@ public class ApiPagePropsRequest extends ApiPropertiesRequest {
           }
         }
       }
-    }
+    });
   }
 }
@@ -15,6 +15,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 
 
 /**
@@ -207,6 +208,23 @@ public class ApiRevisionsRequest extends ApiPropertiesRequest {
       }
     }
 
+    // Load pages by batches
+    final boolean useIds = usePageId;
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), PROPERTY_PROP_REVISIONS);
+    batcher.process(pages, batch -> loadContentBatch(batch, useIds, withRedirects));
+  }
+
+  /**
+   * Load content of a batch of pages.
+   * 
+   * @param pages Pages for which content is requested.
+   * @param usePageId True if page identifiers should be used.
+   * @param withRedirects Flag indicating if redirects information should be retrieved.
+   * @throws APIException Exception thrown by the API.
+   */
+  private void loadContentBatch(
+      Collection<Page> pages, boolean usePageId,
+      boolean withRedirects) throws APIException {
     Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
     properties.put(
         PROPERTY_CURRENT_TIMESTAMP,
@@ -17,6 +17,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.AdaptiveBatcher;
 
 
 /**
@@ -105,8 +106,8 @@ public class ApiTemplatesRequest extends ApiPropertiesRequest {
     }
 
     // Search disambiguation templates for pages in the main name space
-    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
-    for (Collection<Page> splitPages : splitPagesList) {
+    AdaptiveBatcher batcher = AdaptiveBatcher.getBatcher(getWiki(), AdaptiveBatcher.KIND_DISAMBIGUATION);
+    batcher.process(pages, splitPages -> {
       for (Page page : splitPages) {
         Iterator<Page> itPage = page.getRedirects().getIteratorWithPage();
         while (itPage.hasNext()) {
@@ -139,6 +140,6 @@ public class ApiTemplatesRequest extends ApiPropertiesRequest {
           }
         }
       }
-    }
+    });
   }
 }
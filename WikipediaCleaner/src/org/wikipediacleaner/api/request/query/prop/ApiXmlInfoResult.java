@@ -10,7 +10,7 @@ package org.wikipediacleaner.api.request.query.prop;
 import java.util.Collection;
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.wikipediacleaner.api.APIException;
@@ -30,7 +30,7 @@ public class ApiXmlInfoResult extends ApiXmlPropertiesResult implements ApiInfoR
    */
   public ApiXmlInfoResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -12,7 +12,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.httpclient.HttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
@@ -22,6 +22,7 @@ import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageRegistry;
 import org.wikipediacleaner.api.request.ApiRequest;
 
 
@@ -36,7 +37,7 @@ public class ApiXmlLinksResult extends ApiXmlPropertiesResult implements ApiLink
    */
   public ApiXmlLinksResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -112,7 +113,7 @@ public class ApiXmlLinksResult extends ApiXmlPropertiesResult implements ApiLink
   public boolean executeLinks(
       Map<String, String> properties,
       List<Page> links,
-      List<Page> knownPages,
+      PageRegistry knownPages,
       Map<String, String> normalization,
       List<Page> redirects, boolean useDisambig) throws APIException {
     try {
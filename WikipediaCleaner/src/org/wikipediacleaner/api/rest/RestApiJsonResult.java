@@ -7,18 +7,18 @@
 
 package org.wikipediacleaner.api.rest;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.HttpStatus;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.http.ConcurrencyLimiter;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
@@ -62,7 +62,7 @@ public abstract class RestApiJsonResult extends BasicRestApiResult {
    */
   public RestApiJsonResult(
       EnumWikipedia wiki,
-      HttpClient httpClient) {
+      CloseableHttpClient httpClient) {
     super(wiki, httpClient);
   }
 
@@ -84,23 +84,17 @@ public abstract class RestApiJsonResult extends BasicRestApiResult {
     int attempt = 0;
     for (;;) {
       JsonNode root = null;
-      HttpMethod method = null;
+      CloseableHttpResponse response = null;
       InputStream stream = null;
       try {
         // Executing HTTP method
         attempt++;
-        method = createHttpMethod(properties, path, param);
-        int statusCode = getHttpClient().executeMethod(method);
+        HttpUriRequest method = createHttpMethod(properties, path, param);
+        response = getHttpClient().execute(method);
+        int statusCode = response.getCode();
 
         // Accessing response
-        stream = method.getResponseBodyAsStream();
-        stream = new BufferedInputStream(stream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            stream = new GZIPInputStream(stream);
-          }
-        }
+        stream = Hc5HttpUtils.getResponseStream(response);
 
         // Read the response
         if (statusCode == HttpStatus.SC_OK){
@@ -120,17 +114,13 @@ public abstract class RestApiJsonResult extends BasicRestApiResult {
 
         // Act depending on the status
         if (statusCode != HttpStatus.SC_OK) {
-          String message = "URL access returned " + HttpStatus.getStatusText(statusCode);
+          String message = "URL access returned " + statusCode + " " + response.getReasonPhrase();
           log.error(message);
           if (attempt > maxTry) {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message);
           }
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException e) {
-            // Nothing
-          }
+          ConcurrencyLimiter.waitBeforeRetrying(attempt);
         } else {
           return root;
         }
@@ -141,11 +131,7 @@ public abstract class RestApiJsonResult extends BasicRestApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        ConcurrencyLimiter.waitBeforeRetrying(attempt);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
@@ -159,9 +145,7 @@ public abstract class RestApiJsonResult extends BasicRestApiResult {
             log.warn("Error closing stream");
           }
         }
-        if (method != null) {
-          method.releaseConnection();
-        }
+        Hc5HttpUtils.releaseResponse(response);
       }
       log.warn("Error. Trying again");
     }
@@ -9,6 +9,7 @@ package org.wikipediacleaner.gui.swing.basic;
 
 import org.wikipediacleaner.api.MediaWikiListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.request.ApiRequest;
 
 
 /**
@@ -102,6 +103,21 @@ public class BasicWorker extends SwingWorker implements MediaWikiListener {
     }
   }
 
+  /**
+   * @return True if the worker is an automatic process rather than an interactive one.
+   */
+  protected boolean isAutomatic() {
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see org.wikipediacleaner.gui.swing.basic.SwingWorker#beforeConstruct()
+   */
+  @Override
+  protected void beforeConstruct() {
+    ApiRequest.setAutomaticThread(isAutomatic());
+  }
+
   /* (non-Javadoc)
    * @see org.wikipediacleaner.gui.swing.basic.SwingWorker#construct()
    */
@@ -56,6 +56,13 @@ public abstract class SwingWorker {
    */
   public abstract Object construct();
 
+  /**
+   * Called on the worker thread before the <code>construct</code> method.
+   */
+  protected void beforeConstruct() {
+    //
+  }
+
   /**
    * Called on the event dispatching thread (not on the worker thread)
    * after the <code>construct</code> method has returned.
@@ -113,6 +120,7 @@ public abstract class SwingWorker {
       @Override
       public void run() {
         try {
+          beforeConstruct();
           setValue(construct());
         } finally {
           threadVar.clear();
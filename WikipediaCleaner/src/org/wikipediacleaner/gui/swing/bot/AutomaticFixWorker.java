@@ -121,6 +121,15 @@ public abstract class AutomaticFixWorker extends BasicWorker {
     this.countMarkedOther = 0;
   }
 
+  /**
+   * @return True: the worker is an automatic process.
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorker#isAutomatic()
+   */
+  @Override
+  protected boolean isAutomatic() {
+    return true;
+  }
+
   /**
    * Restrict the range of pages to work on.
    * 
@@ -277,6 +286,10 @@ public abstract class AutomaticFixWorker extends BasicWorker {
       return;
     }
 
+    // Reserve a permit for saving the page while fixing it
+    API api = APIFactory.getAPI();
+    api.reserveEdit(getWikipedia(), page);
+
     // Fix all errors that can be fixed
     String newContents = page.getContents();
     List<AlgorithmError.Progress> errorsFixed = new ArrayList<>();
@@ -306,7 +319,6 @@ public abstract class AutomaticFixWorker extends BasicWorker {
         setText(
             ((prefix != null) ? (prefix + " - ") : "") +
             GT._T("Fixing page {0}", page.getTitle()));
-        API api = APIFactory.getAPI();
         api.updatePage(
             getWikipedia(), page, newContents,
             comment.toString(),
@@ -330,8 +342,11 @@ public abstract class AutomaticFixWorker extends BasicWorker {
         LOGGER.error("Error updating page {}: ", page.getTitle(), result.getCode());
         throw e;
       }
-    } else if (analyzeNonFixed) {
-      Controller.runFullAnalysis(page.getTitle(), null, getWikipedia());
+    } else {
+      api.cancelEdit(getWikipedia(), page);
+      if (analyzeNonFixed) {
+        Controller.runFullAnalysis(page.getTitle(), null, getWikipedia());
+      }
     }
   }
 
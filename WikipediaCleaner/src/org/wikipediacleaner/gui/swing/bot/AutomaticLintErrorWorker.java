@@ -18,7 +18,6 @@ import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.LinterCategory;
 import org.wikipediacleaner.api.data.Page;
-import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 
 
@@ -66,13 +65,14 @@ public class AutomaticLintErrorWorker extends AutomaticFixWorker {
   public Object construct() {
     try {
       API api = APIFactory.getAPI();
+      int maxPages = api.getMaxPagesPerQuery(getWikipedia());
       for (Integer namespace : selectedNamespaces) {
         List<Page> pages = api.retrieveLinterCategory(
             getWikipedia(), category.getCategory(), namespace,
             false, false, Integer.MAX_VALUE);
         while (!pages.isEmpty()) {
           List<Page> tmpPages = new ArrayList<>();
-          while (!pages.isEmpty() && (tmpPages.size() < ApiRequest.MAX_PAGES_PER_QUERY)) {
+          while (!pages.isEmpty() && (tmpPages.size() < maxPages)) {
             Page page = pages.remove(0);
             tmpPages.add(page);
           }
@@ -50,6 +50,15 @@ class CWCheckWhiteListsWorker extends BasicWorker {
     super(wiki, window);
   }
 
+  /**
+   * @return True: the worker is an automatic process.
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorker#isAutomatic()
+   */
+  @Override
+  protected boolean isAutomatic() {
+    return true;
+  }
+
   /** 
    * Compute the value to be returned by the <code>get</code> method. 
    * 
@@ -14,8 +14,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +23,7 @@ import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.APIFactory;
 import org.wikipediacleaner.api.MediaWikiController;
 import org.wikipediacleaner.api.MediaWikiListener;
+import org.wikipediacleaner.api.algorithm.AlgorithmError;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
@@ -38,6 +38,8 @@ import org.wikipediacleaner.api.execution.MediaWikiCallable;
 import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.metrics.Counter;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -58,7 +60,12 @@ public class FixDumpWorker extends AutomaticFixWorker {
   AnalysisPerformance analysisTime;
 
   /** Count of pages analyzed */
-  int countAnalyzed;
+  final AtomicInteger countAnalyzed = new AtomicInteger();
+
+  /** Metrics for the count of pages analyzed. */
+  private final static Counter analyzedMetrics = MetricsRegistry.getRegistry().counter(
+      "wpcleaner_bot_pages_analyzed_total", "Pages analyzed by the bot",
+      "worker", "FixDump");
 
   /**
    * @param wiki Wiki.
@@ -81,7 +88,7 @@ public class FixDumpWorker extends AutomaticFixWorker {
         null, true, false, false);
     this.dumpFile = dumpFile;
     this.analysisTime = new AnalysisPerformance();
-    this.countAnalyzed = 0;
+    this.countAnalyzed.set(0);
   }
 
   /** 
@@ -101,12 +108,10 @@ public class FixDumpWorker extends AutomaticFixWorker {
     CWPageProcessor pageProcessor = new CWPageProcessor(getWikipedia(), this, selectedNamespaces);
     DumpProcessor dumpProcessor = new DumpProcessor(pageProcessor);
     dumpProcessor.processDump(dumpFile);
-    while (!pageProcessor.hasFinished()) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        // Nothing to do
-      }
+    try {
+      pageProcessor.waitForCompletion();
+    } catch (APIException e) {
+      // Nothing to do
     }
 
     return null;
@@ -141,7 +146,7 @@ public class FixDumpWorker extends AutomaticFixWorker {
     message.append(GT.__(
         "{0} page has been analyzed",
         "{0} pages have been analyzed",
-        countAnalyzed, Integer.toString(countAnalyzed)));
+        countAnalyzed.get(), Integer.toString(countAnalyzed.get())));
 
     // Log final message
     logCW.info(message.toString());
@@ -171,13 +176,12 @@ public class FixDumpWorker extends AutomaticFixWorker {
      */
     @Override
     public void addTask(Callable<?> task) {
-      // hasFinished(); // To clean up done tasks
       while (getRemainingTasksCount() > 10000) {
         try {
-          // logCW.info("Too many tasks remaining, waiting a bit");
-          TimeUnit.MILLISECONDS.sleep(1000);
-        } catch (InterruptedException e) {
-          // Do nothing
+          // Too many tasks remaining, wait for one to finish
+          waitForNextDoneResult();
+        } catch (APIException e) {
+          break;
         }
         cleanUpDone();
       }
@@ -195,16 +199,12 @@ public class FixDumpWorker extends AutomaticFixWorker {
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for all tasks to be completed.
+     * 
+     * @throws APIException Exception if the wait is interrupted.
      */
-    public boolean hasFinished() {
-      while (hasRemainingTask()) {
-        Future<?> result = getFirstResultIfDone();
-        if (result == null) {
-          return false;
-        }
-      }
-      return !hasRemainingTask();
+    public void waitForCompletion() throws APIException {
+      waitForAllTasks();
     }
   }
 
@@ -230,6 +230,15 @@ public class FixDumpWorker extends AutomaticFixWorker {
       this.page = page;
     }
 
+    /**
+     * @return True: the page is fully analyzed.
+     * @see org.wikipediacleaner.api.execution.MediaWikiCallable#isCpuBound()
+     */
+    @Override
+    public boolean isCpuBound() {
+      return true;
+    }
+
     /* (non-Javadoc)
      * @see java.util.concurrent.Callable#call()
      */
@@ -244,7 +253,7 @@ public class FixDumpWorker extends AutomaticFixWorker {
       String initialContents = page.getContents();
       for (CheckErrorAlgorithm algorithm : selectedAlgorithms) {
         if (!automaticFix && !algorithm.isInWhiteList(page.getTitle())) {
-          if (algorithm.analyze(analysis, null, true)) {
+          if (AlgorithmError.analyze(algorithm, analysis, null, true)) {
             String newContents = algorithm.automaticFix(analysis);
             automaticFix = !newContents.equals(initialContents);
           }
@@ -257,12 +266,13 @@ public class FixDumpWorker extends AutomaticFixWorker {
         analyzePage(currentPage, selectedAlgorithms, null);
       }
 
-      countAnalyzed++;
-      if (countAnalyzed % 100000 == 0) {
+      int count = countAnalyzed.incrementAndGet();
+      analyzedMetrics.increment();
+      if (count % 100000 == 0) {
         reportProgress();
       }
-      if (countAnalyzed % 1000 == 0) {
-        setText(GT._T("{0} pages processed", Integer.toString(countAnalyzed)));
+      if (count % 1000 == 0) {
+        setText(GT._T("{0} pages processed", Integer.toString(count)));
       }
       return page;
     }
@@ -341,10 +351,12 @@ public class FixDumpWorker extends AutomaticFixWorker {
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for all tasks to be completed.
+     * 
+     * @throws APIException Exception if the wait is interrupted.
      */
-    public boolean hasFinished() {
-      return controller.hasFinished();
+    public void waitForCompletion() throws APIException {
+      controller.waitForCompletion();
     }
   }
 
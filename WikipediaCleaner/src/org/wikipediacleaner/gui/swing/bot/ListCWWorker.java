@@ -20,12 +20,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -35,6 +38,7 @@ import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.APIFactory;
 import org.wikipediacleaner.api.MediaWikiController;
 import org.wikipediacleaner.api.MediaWikiListener;
+import org.wikipediacleaner.api.algorithm.AlgorithmError;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
@@ -57,6 +61,8 @@ import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.metrics.Counter;
+import org.wikipediacleaner.utils.metrics.MetricsRegistry;
 
 
 /**
@@ -95,10 +101,20 @@ public class ListCWWorker extends BasicWorker {
   AnalysisPerformance analysisTime;
 
   /** Count of pages analyzed */
-  int countAnalyzed;
+  final AtomicInteger countAnalyzed = new AtomicInteger();
 
   /** Count of pages found with errors */
-  int countDetections;
+  final AtomicInteger countDetections = new AtomicInteger();
+
+  /** Metrics for the count of pages analyzed. */
+  private final static Counter analyzedMetrics = MetricsRegistry.getRegistry().counter(
+      "wpcleaner_bot_pages_analyzed_total", "Pages analyzed by the bot",
+      "worker", "ListCW");
+
+  /** Metrics for the count of pages found with errors. */
+  private final static Counter detectionsMetrics = MetricsRegistry.getRegistry().counter(
+      "wpcleaner_bot_detections_total", "Errors detected by the bot",
+      "worker", "ListCW");
 
   /**
    * @param wiki Wiki.
@@ -127,8 +143,8 @@ public class ListCWWorker extends BasicWorker {
       this.selectedNamespaces.add(Namespace.MAIN);
     }
     this.analysisTime = new AnalysisPerformance();
-    this.countAnalyzed = 0;
-    this.countDetections = 0;
+    this.countAnalyzed.set(0);
+    this.countDetections.set(0);
     this.checkWiki = checkWiki;
     this.onlyRecheck = false;
   }
@@ -161,12 +177,21 @@ public class ListCWWorker extends BasicWorker {
       this.selectedNamespaces.add(Namespace.MAIN);
     }
     this.analysisTime = new AnalysisPerformance();
-    this.countAnalyzed = 0;
-    this.countDetections = 0;
+    this.countAnalyzed.set(0);
+    this.countDetections.set(0);
     this.checkWiki = checkWiki;
     this.onlyRecheck = onlyRecheck;
   }
 
+  /**
+   * @return True: the worker is an automatic process.
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorker#isAutomatic()
+   */
+  @Override
+  protected boolean isAutomatic() {
+    return true;
+  }
+
   /** 
    * Compute the value to be returned by the <code>get</code> method. 
    * 
@@ -218,12 +243,10 @@ public class ListCWWorker extends BasicWorker {
     }
     DumpProcessor dumpProcessor = new DumpProcessor(pageProcessor);
     dumpProcessor.processDump(dumpFile);
-    while (!pageProcessor.hasFinished()) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        // Nothing to do
-      }
+    try {
+      pageProcessor.waitForCompletion();
+    } catch (APIException e) {
+      // Nothing to do
     }
     logCW.info("Beginning of result output");
     for (AlgorithmInformation algorithm : selectedAlgorithms) {
@@ -667,7 +690,7 @@ public class ListCWWorker extends BasicWorker {
     message.append(GT.__(
         "{0} page has been analyzed",
         "{0} pages have been analyzed",
-        countAnalyzed, Integer.toString(countAnalyzed)));
+        countAnalyzed.get(), Integer.toString(countAnalyzed.get())));
     for (AlgorithmInformation algorithmInfo : selectedAlgorithms) {
       CheckErrorAlgorithm algorithm = algorithmInfo.algorithm;
       Map<String, Detection> pages = algorithmInfo.getDetections();
@@ -708,13 +731,12 @@ public class ListCWWorker extends BasicWorker {
      */
     @Override
     public void addTask(Callable<?> task) {
-      // hasFinished(); // To clean up done tasks
       while (getRemainingTasksCount() > 10000) {
         try {
-          // logCW.info("Too many tasks remaining, waiting a bit");
-          TimeUnit.MILLISECONDS.sleep(1000);
-        } catch (InterruptedException e) {
-          // Do nothing
+          // Too many tasks remaining, wait for one to finish
+          waitForNextDoneResult();
+        } catch (APIException e) {
+          break;
         }
         cleanUpDone();
       }
@@ -722,6 +744,15 @@ public class ListCWWorker extends BasicWorker {
       cleanUpDone();
     }
 
+    /**
+     * Add a task following a running task, without waiting for other tasks to finish.
+     * 
+     * @param task Task to be performed in background.
+     */
+    public void addFollowingTask(Callable<?> task) {
+      super.addTask(task);
+    }
+
     /**
      * Clean up tasks that are done and finished.
      */
@@ -732,57 +763,103 @@ public class ListCWWorker extends BasicWorker {
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for all tasks to be completed.
+     * 
+     * @throws APIException Exception if the wait is interrupted.
      */
-    public boolean hasFinished() {
-      while (hasRemainingTask()) {
-        Future<?> result = getFirstResultIfDone();
-        if (result == null) {
-          return false;
-        }
-      }
-      return !hasRemainingTask();
+    public void waitForCompletion() throws APIException {
+      waitForAllTasks();
     }
   }
 
   /**
-   * Background task.
+   * Perform a full analysis of a given page.
+   * 
+   * @param analyzedPage Given page.
+   * @return Analysis.
+   */
+  PageAnalysis performFullPageAnalysis(Page analyzedPage) {
+    PageAnalysis analysis = null;
+    try {
+      analysis = analyzedPage.getAnalysis(analyzedPage.getContents(), false);
+      analysis.performFullPageAnalysis(analysisTime);
+    } catch (Exception e) {
+      logCW.error("Error analyzing page {}: {}", analyzedPage.getTitle(), e.getMessage(), e);
+      throw e;
+    }
+    return analysis;
+  }
+
+  /**
+   * Analyze a page with an algorithm.
+   * 
+   * @param algorithm Algorithm.
+   * @param analysis Page analysis.
+   * @param errors List of errors to be completed.
+   * @return True if the error is detected.
+   */
+  static boolean analyze(
+      AlgorithmInformation algorithm, PageAnalysis analysis,
+      List<CheckErrorResult> errors) {
+    long beginTime = System.nanoTime();
+    boolean detected = AlgorithmError.analyze(algorithm.algorithm, analysis, errors, false);
+    long endTime = System.nanoTime();
+    algorithm.addTimeSpent(endTime - beginTime);
+    return detected;
+  }
+
+  /**
+   * Memorize a confirmed detection.
+   * 
+   * @param algorithm Algorithm.
+   * @param page Page.
+   * @param errors List of errors.
+   */
+  void confirmDetection(
+      AlgorithmInformation algorithm, Page page,
+      List<CheckErrorResult> errors) {
+    logCW.info(
+        "Detection confirmed for " + page.getTitle() +
+        ": " + algorithm.algorithm.getErrorNumberString() +
+        " - " + algorithm.algorithm.getShortDescription());
+    algorithm.addDetection(page, errors);
+    countDetections.incrementAndGet();
+    detectionsMetrics.increment();
+  }
+
+  /**
+   * Background task analyzing a page from the dump.
    */
   private class CWPageCallable extends MediaWikiCallable<Page> {
 
+    /** Controller for background tasks */
+    private final CWController controller;
+
     /** Page to analyze */
     private final Page page;
 
     /**
-     * @param wikipedia Wikipedia.
+     * @param wiki Wiki.
      * @param listener Listener of MediaWiki events.
      * @param api MediaWiki API.
+     * @param controller Controller for background tasks.
      * @param page Page.
-     * @param checkWiki True if last version should be checked on wiki.
      */
     public CWPageCallable(
         EnumWikipedia wiki, MediaWikiListener listener, API api,
-        Page page) {
+        CWController controller, Page page) {
       super(wiki, listener, api);
+      this.controller = controller;
       this.page = page;
     }
 
     /**
-     * Perform a full analysis of a given page.
-     * 
-     * @param analyzedPage Given page.
-     * @return Analysis.
+     * @return True: the page is fully analyzed.
+     * @see org.wikipediacleaner.api.execution.MediaWikiCallable#isCpuBound()
      */
-    private PageAnalysis performFullPageAnalysis(Page analyzedPage) {
-      PageAnalysis analysis = null;
-      try {
-        analysis = analyzedPage.getAnalysis(analyzedPage.getContents(), false);
-        analysis.performFullPageAnalysis(analysisTime);
-      } catch (Exception e) {
-        logCW.error("Error analyzing page {}: {}", analyzedPage.getTitle(), e.getMessage(), e);
-        throw e;
-      }
-      return analysis;
+    @Override
+    public boolean isCpuBound() {
+      return true;
     }
 
     /* (non-Javadoc)
@@ -790,81 +867,153 @@ public class ListCWWorker extends BasicWorker {
      */
     @Override
     public Page call() throws APIException {
-      EnumWikipedia wiki = getWikipedia();
       PageAnalysis analysis = performFullPageAnalysis(page);
-      Page currentPage = null;
-      PageAnalysis currentAnalysis = null; 
+      Map<AlgorithmInformation, List<CheckErrorResult>> detections = new LinkedHashMap<>();
       for (AlgorithmInformation algorithm : selectedAlgorithms) {
-        List<CheckErrorResult> errors = new ArrayList<>();
-        boolean detected = false;
         if (!algorithm.algorithm.isInWhiteList(page.getTitle())) {
-          long beginTime = System.nanoTime();
-          if (algorithm.algorithm.analyze(analysis, errors, false)) {
-            detected = true;
+          List<CheckErrorResult> errors = new ArrayList<>();
+          if (analyze(algorithm, analysis, errors)) {
+            detections.put(algorithm, errors);
           }
-          long endTime = System.nanoTime();
-          algorithm.addTimeSpent(endTime - beginTime);
         }
-        if (detected) {
-          boolean detectionConfirmed = false;
-
-          // Confirm detection
-          if (checkWiki) {
-            try {
-              if (currentPage == null) {
-                currentPage = DataManager.createSimplePage(wiki, page.getTitle(), null, null, page.getNamespace());
-              }
-              if (currentAnalysis == null) {
-                api.retrieveContents(wiki, Collections.singleton(currentPage), false, false);
-                if (currentPage.getContents().equals(page.getContents())) {
-                  currentAnalysis = analysis; 
-                } else {
-                  currentAnalysis = performFullPageAnalysis(currentPage);
-                }
-              }
-              if (Boolean.FALSE.equals(currentPage.isExisting())) {
-                detectionConfirmed = false;
-              } else if (currentAnalysis == analysis) {
-                detectionConfirmed = true;
-              } else {
-                errors.clear();
-                long beginTime = System.nanoTime();
-                if (algorithm.algorithm.analyze(currentAnalysis, errors, false)) {
-                  detectionConfirmed = true;
-                }
-                long endTime = System.nanoTime();
-                algorithm.addTimeSpent(endTime - beginTime);
-              }
-            } catch (APIException e) {
-              // Nothing to do
-            }
-          } else {
-            detectionConfirmed = true;
-            currentPage = page;
-          }
+      }
 
-          // Memorize detection
-          if (detectionConfirmed) {
-            logCW.info(
-                "Detection confirmed for " + page.getTitle() +
-                ": " + algorithm.algorithm.getErrorNumberString() +
-                " - " + algorithm.algorithm.getShortDescription());
-            algorithm.addDetection(currentPage, errors);
-            countDetections++;
+      // Confirm detections on wiki in a separate task, not to block the analysis
+      if (!detections.isEmpty()) {
+        if (checkWiki) {
+          controller.addFollowingTask(new CWConfirmationCallable(
+              getWikipedia(), this, api, controller, page, detections));
+        } else {
+          for (Map.Entry<AlgorithmInformation, List<CheckErrorResult>> detection : detections.entrySet()) {
+            confirmDetection(detection.getKey(), page, detection.getValue());
           }
         }
       }
-      countAnalyzed++;
-      if (countAnalyzed % 100000 == 0) {
+
+      int count = countAnalyzed.incrementAndGet();
+      analyzedMetrics.increment();
+      if (count % 100000 == 0) {
         reportProgress();
       }
-      if (countAnalyzed % 1000 == 0) {
-        setText(GT._T("{0} pages processed", Integer.toString(countAnalyzed)));
+      if (count % 1000 == 0) {
+        setText(GT._T("{0} pages processed", Integer.toString(count)));
+      }
+      return page;
+    }
+  }
+
+  /**
+   * Background task retrieving the current version of a page to confirm detections.
+   */
+  private class CWConfirmationCallable extends MediaWikiCallable<Page> {
+
+    /** Controller for background tasks */
+    private final CWController controller;
+
+    /** Page from the dump */
+    private final Page page;
+
+    /** Errors detected in the page from the dump */
+    private final Map<AlgorithmInformation, List<CheckErrorResult>> detections;
+
+    /**
+     * @param wiki Wiki.
+     * @param listener Listener of MediaWiki events.
+     * @param api MediaWiki API.
+     * @param controller Controller for background tasks.
+     * @param page Page from the dump.
+     * @param detections Errors detected in the page from the dump.
+     */
+    public CWConfirmationCallable(
+        EnumWikipedia wiki, MediaWikiListener listener, API api,
+        CWController controller, Page page,
+        Map<AlgorithmInformation, List<CheckErrorResult>> detections) {
+      super(wiki, listener, api);
+      this.controller = controller;
+      this.page = page;
+      this.detections = detections;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public Page call() throws APIException {
+      EnumWikipedia wiki = getWikipedia();
+      Page currentPage = DataManager.createSimplePage(wiki, page.getTitle(), null, null, page.getNamespace());
+      try {
+        api.retrieveContents(wiki, Collections.singleton(currentPage), false, false);
+      } catch (APIException e) {
+        return page;
+      }
+      if (Boolean.FALSE.equals(currentPage.isExisting())) {
+        return page;
+      }
+      if (currentPage.getContents().equals(page.getContents())) {
+        for (Map.Entry<AlgorithmInformation, List<CheckErrorResult>> detection : detections.entrySet()) {
+          confirmDetection(detection.getKey(), currentPage, detection.getValue());
+        }
+        return page;
       }
+
+      // Analyze the current version in a separate task, not to block the requests
+      controller.addFollowingTask(new CWRecheckCallable(
+          wiki, this, api, currentPage, detections.keySet()));
       return page;
     }
   }
 
+  /**
+   * Background task analyzing the current version of a page to confirm detections.
+   */
+  private class CWRecheckCallable extends MediaWikiCallable<Page> {
+
+    /** Current version of the page */
+    private final Page currentPage;
+
+    /** Algorithms for which errors were detected in the page from the dump */
+    private final Collection<AlgorithmInformation> algorithms;
+
+    /**
+     * @param wiki Wiki.
+     * @param listener Listener of MediaWiki events.
+     * @param api MediaWiki API.
+     * @param currentPage Current version of the page.
+     * @param algorithms Algorithms for which errors were detected in the page from the dump.
+     */
+    public CWRecheckCallable(
+        EnumWikipedia wiki, MediaWikiListener listener, API api,
+        Page currentPage, Collection<AlgorithmInformation> algorithms) {
+      super(wiki, listener, api);
+      this.currentPage = currentPage;
+      this.algorithms = algorithms;
+    }
+
+    /**
+     * @return True: the page is fully analyzed.
+     * @see org.wikipediacleaner.api.execution.MediaWikiCallable#isCpuBound()
+     */
+    @Override
+    public boolean isCpuBound() {
+      return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public Page call() throws APIException {
+      PageAnalysis analysis = performFullPageAnalysis(currentPage);
+      for (AlgorithmInformation algorithm : algorithms) {
+        List<CheckErrorResult> errors = new ArrayList<>();
+        if (analyze(algorithm, analysis, errors)) {
+          confirmDetection(algorithm, currentPage, errors);
+        }
+      }
+      return currentPage;
+    }
+  }
+
   /**
    * Process pages in the dump.
    */
@@ -964,12 +1113,12 @@ public class ListCWWorker extends BasicWorker {
         return;
       }
       if (pagesList == null) {
-        controller.addTask(new CWPageCallable(wiki, listener, api, page));
+        controller.addTask(new CWPageCallable(wiki, listener, api, controller, page));
         return;
       }
       if (pagesList.contains(page.getTitle())) {
         pagesList.remove(page.getTitle());
-        controller.addTask(new CWPageCallable(wiki, listener, api, page));
+        controller.addTask(new CWPageCallable(wiki, listener, api, controller, page));
         if (pagesList.size() % 1000 == 0) {
         	logCW.info("{} pages left in list", pagesList.size());
         }
@@ -978,10 +1127,12 @@ public class ListCWWorker extends BasicWorker {
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for all tasks to be completed.
+     * 
+     * @throws APIException Exception if the wait is interrupted.
      */
-    public boolean hasFinished() {
-      return controller.hasFinished();
+    public void waitForCompletion() throws APIException {
+      controller.waitForCompletion();
     }
   }
 
@@ -1085,15 +1236,15 @@ public class ListCWWorker extends BasicWorker {
     private final Map<String, Detection> detections;
 
     /** Time spent in analysis. */
-    private long timeSpent;
+    private final LongAdder timeSpent;
 
     /**
      * @param algorithm Algorithm.
      */
     private AlgorithmInformation(CheckErrorAlgorithm algorithm) {
       this.algorithm = algorithm;
-      this.detections = new HashMap<>();
-      this.timeSpent = 0;
+      this.detections = new ConcurrentHashMap<>();
+      this.timeSpent = new LongAdder();
     }
 
     /**
@@ -1129,14 +1280,14 @@ public class ListCWWorker extends BasicWorker {
      * @param time Time spent.
      */
     public void addTimeSpent(long time) {
-      timeSpent += time;
+      timeSpent.add(time);
     }
 
     /**
      * @return Time spent.
      */
     public long getTimeSpent() {
-      return timeSpent;
+      return timeSpent.sum();
     }
   }
 }
@@ -15,14 +15,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.text.JTextComponent;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpConnectionManager;
-import org.apache.commons.httpclient.HttpMethod;
-import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikipediacleaner.api.API;
@@ -31,7 +32,8 @@ import org.wikipediacleaner.api.APIFactory;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageElementExternalLink;
-import org.wikipediacleaner.api.http.hc3.Hc3HttpUtils;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpClientPool;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
 import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.i18n.GT;
@@ -102,8 +104,11 @@ public class DeadLinkWorker extends BasicWorker {
           page.setContents(textPane.getText());
         }
       }
-      HttpConnectionManager manager = new MultiThreadedHttpConnectionManager();
-      HttpClient client = new HttpClient(manager);
+      CloseableHttpClient client = Hc5HttpClientPool.getInstance().getHttpClient();
+      RequestConfig requestConfig = RequestConfig.custom().
+          setResponseTimeout(30, TimeUnit.SECONDS).
+          setRedirectsEnabled(false).
+          build();
       Map<String, DeadLink> checkedLinks = new HashMap<>();
       for (Page page : pages) {
         if (!shouldContinue()) {
@@ -127,24 +132,24 @@ public class DeadLinkWorker extends BasicWorker {
               while (retry && (count < 3)) {
                 retry = false;
                 deadLink = null;
-                HttpMethod method = null;
+                CloseableHttpResponse response = null;
                 try {
-                  method = Hc3HttpUtils.createHttpHeadMethod(url, null);
-                  int questionIndex = url.indexOf('?');
-                  if (questionIndex > 0) {
-                    method.setQueryString(url.substring(questionIndex + 1));
+                  HttpHead method = Hc5HttpUtils.createHttpHeadMethod(url);
+                  if (method == null) {
+                    throw new IllegalStateException(GT._T("Invalid URL {0}", url));
                   }
-                  method.getParams().setSoTimeout(30000);
-                  method.setRequestHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3");
-                  method.setRequestHeader("Accept-Encoding", "gzip, deflate");
-                  method.setRequestHeader("Accept-Language", "en-US,en");
-                  method.setRequestHeader("Cache-Control", "no-cache");
-                  method.setRequestHeader("Connection", "keep-alive");
-                  method.setRequestHeader("Pragma", "no-cache");
-                  method.setRequestHeader("Upgrade-Insecure-Requests", "1");
-                  //method.setRequestHeader("Content-Type", "text/html");
-                  method.setRequestHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/76.0.3809.100 Safari/537.36");
-                  int statusCode = client.executeMethod(method);
+                  method.setConfig(requestConfig);
+                  method.setHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3");
+                  method.setHeader("Accept-Encoding", "gzip, deflate");
+                  method.setHeader("Accept-Language", "en-US,en");
+                  method.setHeader("Cache-Control", "no-cache");
+                  method.setHeader("Connection", "keep-alive");
+                  method.setHeader("Pragma", "no-cache");
+                  method.setHeader("Upgrade-Insecure-Requests", "1");
+                  //method.setHeader("Content-Type", "text/html");
+                  method.setHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/76.0.3809.100 Safari/537.36");
+                  response = client.execute(method);
+                  int statusCode = response.getCode();
                   if (statusCode != HttpStatus.SC_OK) {
                     deadLink = new DeadLink(page.getTitle(), link, statusCode);
                   }
@@ -164,9 +169,7 @@ public class DeadLinkWorker extends BasicWorker {
                   log.error("{} when accessing {}: {}", e.getClass().getSimpleName(), url, e.getMessage());
                   deadLink = new DeadLink(page.getTitle(), link, e.getMessage());
                 } finally {
-                  if (method != null) {
-                    method.releaseConnection();
-                  }
+                  Hc5HttpUtils.releaseResponse(response);
                 }
               }
             }
@@ -93,6 +93,24 @@ public class GeneralOptionsPanel extends OptionsPanel {
     add(chk, constraints);
     constraints.gridy++;
 
+    // Use EventStreams feed for recent changes
+    chk = createJCheckBox(
+        GT._T("Receive recent changes from the EventStreams feed"),
+        ConfigurationValueBoolean.RECENT_CHANGES_STREAM);
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(chk, constraints);
+    constraints.gridy++;
+
+    // Keep the list of disambiguation pages up to date
+    chk = createJCheckBox(
+        GT._T("Keep the list of disambiguation pages up to date from recent changes"),
+        ConfigurationValueBoolean.MAINTAIN_DAB_LIST);
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(chk, constraints);
+    constraints.gridy++;
+
     // Mark edits as minor
     chk = createJCheckBox(
         GT._T("Mark edits as minor"),
@@ -13,6 +13,7 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
@@ -20,6 +21,7 @@ import javax.swing.SwingConstants;
 
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
@@ -183,6 +185,135 @@ public class LimitOptionsPanel extends OptionsPanel {
     add(spin, constraints);
     constraints.gridy++;
 
+    // Analysis threads
+    spin = createJSpinner(
+        ConfigurationValueInteger.ANALYSIS_THREADS,
+        0, 99, 1);
+    JLabel labelAnalysisThreads = Utilities.createJLabel(GT._T("Number of analysis threads (0 for the number of processors) :"));
+    labelAnalysisThreads.setLabelFor(spin);
+    labelAnalysisThreads.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelAnalysisThreads, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Virtual threads
+    JCheckBox chk = createJCheckBox(
+        GT._T("Use virtual threads for interrogations (Java 21+, needs a restart)"),
+        ConfigurationValueBoolean.VIRTUAL_THREADS);
+    constraints.gridwidth = 3;
+    constraints.gridx = 0;
+    constraints.weightx = 1;
+    add(chk, constraints);
+    constraints.gridy++;
+
+    // HTTP connections per host
+    spin = createJSpinner(
+        ConfigurationValueInteger.HTTP_MAX_CONNECTIONS_PER_HOST,
+        1, 200, 1);
+    JLabel labelConnections = Utilities.createJLabel(GT._T("Maximum number of HTTP connections per host :"));
+    labelConnections.setLabelFor(spin);
+    labelConnections.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelConnections, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Size of API batches
+    spin = createJSpinner(
+        ConfigurationValueInteger.API_BATCH_MAX_SIZE,
+        64, 65536, 64);
+    JLabel labelBatch = Utilities.createJLabel(GT._T("Maximum size of a batch of pages (kB) :"));
+    labelBatch.setLabelFor(spin);
+    labelBatch.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelBatch, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Maximum replication lag
+    spin = createJSpinner(
+        ConfigurationValueInteger.API_MAX_LAG,
+        0, 60, 1);
+    JLabel labelMaxLag = Utilities.createJLabel(GT._T("Maximum replication lag for API requests (s) :"));
+    labelMaxLag.setLabelFor(spin);
+    labelMaxLag.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelMaxLag, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Size of the local cache for API answers
+    spin = createJSpinner(
+        ConfigurationValueInteger.API_CACHE_MAX_SIZE,
+        0, 4096, 10);
+    JLabel labelCache = Utilities.createJLabel(GT._T("Maximum size of the local cache for API answers (MB) :"));
+    labelCache.setLabelFor(spin);
+    labelCache.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelCache, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Size of the shared cache for page analyses
+    spin = createJSpinner(
+        ConfigurationValueInteger.ANALYSIS_CACHE_MAX_SIZE,
+        0, 4096, 10);
+    JLabel labelAnalysisCache = Utilities.createJLabel(GT._T("Maximum memory for shared page analyses (MB) :"));
+    labelAnalysisCache.setLabelFor(spin);
+    labelAnalysisCache.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelAnalysisCache, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Number of partitions loaded concurrently for large lists
+    spin = createJSpinner(
+        ConfigurationValueInteger.API_LIST_PARTITIONS,
+        1, 32, 1);
+    JLabel labelPartitions = Utilities.createJLabel(GT._T("Number of parts loaded simultaneously for large lists :"));
+    labelPartitions.setLabelFor(spin);
+    labelPartitions.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelPartitions, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
     // Add size limit for syntax highlighting
     spin = createJSpinner(
         ConfigurationValueInteger.SYNTAX_HIGHLIGHTING_LIMIT,
@@ -97,7 +97,7 @@ public class UpdateDabWarningTools extends UpdateWarningTools {
     dabPages.clear();
     nonDabPages.clear();
     try {
-      wiki.loadDisambiguationPages(api);
+      wiki.loadDisambiguationPages(api, true);
     } catch (APIException e) {
       log.error("Error preloading disambiguation pages", e);
     }
@@ -15,13 +15,21 @@ import java.util.prefs.Preferences;
  */
 public enum ConfigurationValueInteger {
 
+  ANALYSIS_CACHE_MAX_SIZE("AnalysisCacheMaxSize", 100),
   ANALYSIS_NB_PAGES("AnalysisNbPages", 10),
+  ANALYSIS_THREADS("AnalysisThreads", 0),
   ANALYSIS_UNDO_LVL("AnalysisUndoLevels", 10),
+  API_BATCH_MAX_SIZE("ApiBatchMaxSize", 2048),
+  API_CACHE_MAX_SIZE("ApiCacheMaxSize", 50),
+  API_LIST_PARTITIONS("ApiListPartitions", 4),
+  API_MAX_LAG("ApiMaxLag", 5),
   CHECK_BOT_NB_PAGES("CheckBotNbPages", 100),
   CHECK_NB_ERRORS("CheckNbErrors", 100),
   CONFIG_VERSION("ConfigurationVersion", 1),
   FONT_SIZE("FontSize", 0),
   FONT_SIZE_EDITOR("EditorFontSize", 12),
+  HTTP_IDLE_TIMEOUT("HttpIdleTimeout", 60),
+  HTTP_MAX_CONNECTIONS_PER_HOST("HttpMaxConnectionsPerHost", 30),
   INTERROG_THREAD("InterrogationThreads", 30),
   MAXIMUM_PAGES("MaximumPages", 20),
   MAX_CATEGORY_MEMBERS("MaxCategoryMembers", 1000),
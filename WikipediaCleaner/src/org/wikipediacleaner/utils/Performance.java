@@ -7,11 +7,14 @@
 
 package org.wikipediacleaner.utils;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +22,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Utility class to measure performance.
+ * 
+ * An instance is a timing scope confined to the thread that created it:
+ * messages are only built when the threshold is exceeded,
+ * and the duration is aggregated by method name in lock-free counters when the scope is released.
  */
-public class Performance {
+public class Performance implements AutoCloseable {
 
   /** Logger */
   private final static Logger log = LoggerFactory.getLogger("PERF");
@@ -31,11 +38,14 @@ public class Performance {
   /** Global flag for using high precision */
   private final static boolean highPrecision = false;
 
+  /** Unit of time */
+  private final static String unit = highPrecision ? "ns" : "ms";
+
   /** Method name */
-  private String method;
+  private final String method;
 
-  /** Unit of time */
-  private String unit;
+  /** Details about the execution, added to the method name in messages */
+  private final String detail;
 
   /** Initial time */
   private long initialTime;
@@ -52,48 +62,29 @@ public class Performance {
   /** Initial time for a part of the execution */
   private long partInitialTime;
 
-  /**
-   * @param method Method name.
-   */
-  private Performance(String method) {
-    this(method, 0);
-  }
+  /** True when the instance has been released */
+  private boolean released;
 
   /**
    * @param method Method name.
+   * @param detail Details about the execution.
    * @param threshold Threshold for printing results.
    */
-  private Performance(String method, long threshold) {
-    initialize(method, threshold);
-  }
-
-  /**
-   * Initialize a performance instance.
-   * 
-   * @param methodName Method name.
-   * @param thresholdValue Threshold for printing results.
-   */
-  private void initialize(String methodName, long thresholdValue) {
-    this.method = methodName;
-    this.unit = highPrecision ? "ns" : "ms";
-    this.threshold = thresholdValue;
+  private Performance(String method, String detail, long threshold) {
+    this.method = method;
+    this.detail = detail;
+    this.threshold = threshold;
     initialTime = currentTime();
     partInitialTime = initialTime;
     lastTime = initialTime;
   }
 
-  /** Available instances to measure performance. */
-  private final static List<Performance> availablePerformances = new LinkedList<>();
-
-  /** Instances currently used to measure performance. */
-  private final static List<Performance> usedPerformances = new LinkedList<>();
-
   /**
    * @param method Method name.
    * @return An instance for measuring performance.
    */
   public static Performance getInstance(String method) {
-    return getInstance(method, 0);
+    return getInstance(method, null, 0);
   }
 
   /**
@@ -102,36 +93,43 @@ public class Performance {
    * @return An instance for measuring performance.
    */
   public static Performance getInstance(String method, long threshold) {
-    Performance perf = null;
+    return getInstance(method, null, threshold);
+  }
 
-    // Look for already created instances
-    synchronized (availablePerformances) {
-      if (!availablePerformances.isEmpty()) {
-        perf = availablePerformances.remove(0);
-        perf.initialize(method, threshold);
-      }
-    }
+  /**
+   * @param method Method name, used for aggregating durations.
+   * @param detail Details about the execution, only used in messages.
+   * @param threshold Threshold for printing results.
+   * @return An instance for measuring performance.
+   */
+  public static Performance getInstance(String method, String detail, long threshold) {
+    return new Performance(method, detail, threshold);
+  }
 
-    // Create a new instance if needed
-    if (perf == null) {
-      perf = new Performance(method, threshold);
+  /**
+   * Release the instance and aggregate its duration in the statistics of the method.
+   */
+  public void release() {
+    if (released) {
+      return;
     }
-
-    // Register instance
-    synchronized (usedPerformances) {
-      usedPerformances.add(0, perf);
+    released = true;
+    long duration = currentTime() - initialTime;
+    Statistic statistic = statistics.get(method);
+    if (statistic == null) {
+      statistic = statistics.computeIfAbsent(method, key -> new Statistic());
     }
-
-    return perf;
+    statistic.add(duration);
   }
 
   /**
-   * Release a performance instance from the pool of performance objects.
+   * Release the instance at the end of a try-with-resources block.
+   * 
+   * @see java.lang.AutoCloseable#close()
    */
-  public void release() {
-    synchronized (usedPerformances) {
-      usedPerformances.remove(this);
-    }
+  @Override
+  public void close() {
+    release();
   }
   /**
    * @param threshold Threshold for printing duration.
@@ -149,6 +147,11 @@ public class Performance {
     if (print) {
       StringBuilder text = new StringBuilder();
       text.append(method);
+      if (detail != null) {
+        text.append(" (");
+        text.append(detail);
+        text.append(")");
+      }
       if (message != null) {
         text.append(": ");
         text.append(message);
@@ -284,6 +287,90 @@ public class Performance {
     }
   }
 
+  // ==========================================================================
+  // Statistics
+  // ==========================================================================
+
+  /** Statistics by method name */
+  private final static Map<String, Statistic> statistics = new ConcurrentHashMap<>();
+
+  /**
+   * @return Statistics by method name, sorted by method name.
+   */
+  public static Map<String, Statistic> getStatistics() {
+    return Collections.unmodifiableMap(new TreeMap<>(statistics));
+  }
+
+  /**
+   * Print statistics for every method.
+   */
+  public static void printStatistics() {
+    for (Entry<String, Statistic> entry : getStatistics().entrySet()) {
+      log.info(entry.getKey() + ": " + entry.getValue());
+    }
+  }
+
+  /**
+   * Reset statistics for every method.
+   */
+  public static void resetStatistics() {
+    statistics.clear();
+  }
+
+  /**
+   * Aggregated durations for a method.
+   */
+  public static class Statistic {
+
+    /** Number of executions */
+    private final LongAdder count = new LongAdder();
+
+    /** Total duration of the executions */
+    private final LongAdder total = new LongAdder();
+
+    /** Maximum duration of an execution */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param duration Duration of an execution.
+     */
+    void add(long duration) {
+      count.increment();
+      total.add(duration);
+      max.accumulate(duration);
+    }
+
+    /**
+     * @return Number of executions.
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * @return Total duration of the executions.
+     */
+    public long getTotal() {
+      return total.sum();
+    }
+
+    /**
+     * @return Maximum duration of an execution.
+     */
+    public long getMax() {
+      return max.get();
+    }
+
+    /**
+     * @return Description of the statistic.
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return getCount() + " executions, total " + getTotal() + unit + ", max " + getMax() + unit;
+    }
+  }
+
   /**
    * @return Current time.
    */
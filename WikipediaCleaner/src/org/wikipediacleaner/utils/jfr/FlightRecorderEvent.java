@@ -0,0 +1,70 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.jfr;
+
+
+/**
+ * Event recorded by the JDK Flight Recorder.
+ *
+ * An event is timed from its creation until it's committed,
+ * and should be used by a single thread.
+ */
+public class FlightRecorderEvent {
+
+  /** Type of the event. */
+  private final FlightRecorderEventType type;
+
+  /** Underlying jdk.jfr.Event. */
+  private final Object event;
+
+  /**
+   * @param type Type of the event.
+   * @param event Underlying jdk.jfr.Event.
+   */
+  FlightRecorderEvent(FlightRecorderEventType type, Object event) {
+    this.type = type;
+    this.event = event;
+  }
+
+  /**
+   * @param field Name of the field.
+   * @param value Value of the field.
+   * @return The event itself.
+   */
+  public FlightRecorderEvent set(String field, String value) {
+    FlightRecorderSupport.set(event, type.getFieldIndex(field), value);
+    return this;
+  }
+
+  /**
+   * @param field Name of the field.
+   * @param value Value of the field.
+   * @return The event itself.
+   */
+  public FlightRecorderEvent set(String field, int value) {
+    FlightRecorderSupport.set(event, type.getFieldIndex(field), Integer.valueOf(value));
+    return this;
+  }
+
+  /**
+   * @param field Name of the field.
+   * @param value Value of the field.
+   * @return The event itself.
+   */
+  public FlightRecorderEvent set(String field, long value) {
+    FlightRecorderSupport.set(event, type.getFieldIndex(field), Long.valueOf(value));
+    return this;
+  }
+
+  /**
+   * Stop the timing of the event and record it.
+   */
+  public void commit() {
+    FlightRecorderSupport.commit(event);
+  }
+}
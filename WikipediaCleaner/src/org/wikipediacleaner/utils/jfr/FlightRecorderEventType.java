@@ -0,0 +1,174 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.jfr;
+
+
+/**
+ * Type of event recorded by the JDK Flight Recorder.
+ *
+ * The type is registered in the Flight Recorder only when a recording is running.
+ */
+public class FlightRecorderEventType {
+
+  /**
+   * Field of an event.
+   */
+  public static class Field {
+
+    /** Name of the field. */
+    final String name;
+
+    /** Type of the field. */
+    final Class<?> type;
+
+    /** Label of the field. */
+    final String label;
+
+    /** True if the field is a duration in nanoseconds. */
+    final boolean timespan;
+
+    /**
+     * @param name Name of the field.
+     * @param type Type of the field.
+     * @param label Label of the field.
+     */
+    public Field(String name, Class<?> type, String label) {
+      this(name, type, label, false);
+    }
+
+    /**
+     * @param name Name of the field.
+     * @param type Type of the field.
+     * @param label Label of the field.
+     * @param timespan True if the field is a duration in nanoseconds.
+     */
+    private Field(String name, Class<?> type, String label, boolean timespan) {
+      this.name = name;
+      this.type = type;
+      this.label = label;
+      this.timespan = timespan;
+    }
+
+    /**
+     * @param name Name of the field.
+     * @param label Label of the field.
+     * @return Field for a duration in nanoseconds.
+     */
+    public static Field timespan(String name, String label) {
+      return new Field(name, long.class, label, true);
+    }
+  }
+
+  /** Name of the event. */
+  private final String name;
+
+  /** Label of the event. */
+  private final String label;
+
+  /** Description of the event. */
+  private final String description;
+
+  /** Fields of the event. */
+  private final Field[] fields;
+
+  /** Factory for the events, created at the first event. */
+  private volatile Object factory;
+
+  /**
+   * @param name Name of the event.
+   * @param label Label of the event.
+   * @param description Description of the event.
+   * @param fields Fields of the event.
+   */
+  public FlightRecorderEventType(
+      String name, String label, String description,
+      Field... fields) {
+    this.name = name;
+    this.label = label;
+    this.description = description;
+    this.fields = fields;
+  }
+
+  /**
+   * @return Name of the event.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return Label of the event.
+   */
+  String getLabel() {
+    return label;
+  }
+
+  /**
+   * @return Description of the event.
+   */
+  String getDescription() {
+    return description;
+  }
+
+  /**
+   * @return Fields of the event.
+   */
+  Field[] getFields() {
+    return fields;
+  }
+
+  /**
+   * @param fieldName Name of the field.
+   * @return Index of the field.
+   */
+  int getFieldIndex(String fieldName) {
+    for (int index = 0; index < fields.length; index++) {
+      if (fields[index].name.equals(fieldName)) {
+        return index;
+      }
+    }
+    throw new IllegalArgumentException("Unknown field " + fieldName + " for event " + name);
+  }
+
+  /**
+   * Create an event and start its timing.
+   *
+   * @return Event, or null if no recording is running.
+   */
+  public FlightRecorderEvent begin() {
+    if (!FlightRecorderSupport.isRecording()) {
+      return null;
+    }
+    Object currentFactory = getFactory();
+    if (currentFactory == null) {
+      return null;
+    }
+    Object event = FlightRecorderSupport.begin(currentFactory);
+    if (event == null) {
+      return null;
+    }
+    return new FlightRecorderEvent(this, event);
+  }
+
+  /**
+   * @return Factory for the events.
+   */
+  private Object getFactory() {
+    Object result = factory;
+    if (result == null) {
+      synchronized (this) {
+        result = factory;
+        if (result == null) {
+          result = FlightRecorderSupport.createFactory(this);
+          factory = result;
+        }
+      }
+    }
+    return result;
+  }
+}
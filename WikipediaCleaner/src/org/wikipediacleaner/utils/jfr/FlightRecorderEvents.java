@@ -0,0 +1,65 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.jfr;
+
+import org.wikipediacleaner.utils.jfr.FlightRecorderEventType.Field;
+
+
+/**
+ * Events recorded by WPCleaner in the JDK Flight Recorder.
+ *
+ * Events are available with Java 12 and above, for example with:
+ * -XX:StartFlightRecording=duration=1h,filename=wpcleaner.jfr
+ */
+public final class FlightRecorderEvents {
+
+  /** Full analysis of a page, with the time spent in each level. */
+  public final static FlightRecorderEventType PAGE_ANALYSIS = new FlightRecorderEventType(
+      "org.wikipediacleaner.PageAnalysis", "Page Analysis",
+      "Full analysis of a page",
+      new Field("title", String.class, "Title"),
+      new Field("size", int.class, "Size"),
+      Field.timespan("level1", "Level 1"),
+      Field.timespan("level2", "Level 2"),
+      Field.timespan("level3", "Level 3"),
+      Field.timespan("level4", "Level 4"),
+      Field.timespan("level5", "Level 5"),
+      Field.timespan("level6", "Level 6"));
+
+  /** Analysis of a page by a Check Wiki algorithm. */
+  public final static FlightRecorderEventType ALGORITHM = new FlightRecorderEventType(
+      "org.wikipediacleaner.Algorithm", "Check Wiki Algorithm",
+      "Analysis of a page by a Check Wiki algorithm",
+      new Field("title", String.class, "Title"),
+      new Field("error", int.class, "Error number"),
+      new Field("detections", int.class, "Detections"));
+
+  /** HTTP request, until the answer has been read. */
+  public final static FlightRecorderEventType API_REQUEST = new FlightRecorderEventType(
+      "org.wikipediacleaner.ApiRequest", "API Request",
+      "HTTP request, until the answer has been read",
+      new Field("host", String.class, "Host"),
+      new Field("action", String.class, "Action"),
+      new Field("batchSize", int.class, "Batch size"),
+      new Field("status", int.class, "Status"),
+      new Field("bytes", long.class, "Bytes received"));
+
+  /** Wait for an edit permit. */
+  public final static FlightRecorderEventType EDIT_THROTTLING = new FlightRecorderEventType(
+      "org.wikipediacleaner.EditThrottling", "Edit Throttling",
+      "Wait for an edit permit",
+      new Field("wiki", String.class, "Wiki"),
+      new Field("namespace", int.class, "Name space"));
+
+  /**
+   * Constructor.
+   */
+  private FlightRecorderEvents() {
+    // Nothing to do
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.jfr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Bridge to the JDK Flight Recorder API, accessed through reflection.
+ *
+ * WPCleaner still runs on Java 8, so the events are defined dynamically
+ * with jdk.jfr.EventFactory (Java 12 and above) instead of subclasses of jdk.jfr.Event.
+ * When the API is not available, or when no recording is running,
+ * no event is created and the only cost for the callers is a volatile read.
+ */
+final class FlightRecorderSupport {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(FlightRecorderSupport.class);
+
+  /** State of a running recording. */
+  private final static String STATE_RUNNING = "RUNNING";
+
+  /** Category of the events. */
+  private final static String[] CATEGORY = { "WPCleaner" };
+
+  /** True if at least one recording is running. */
+  private static volatile boolean recording;
+
+  /** Recordings currently running. */
+  private static final Set<Object> runningRecordings =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** Constructor for jdk.jfr.AnnotationElement. */
+  private static Constructor<?> newAnnotationElement;
+
+  /** Constructor for jdk.jfr.ValueDescriptor. */
+  private static Constructor<?> newValueDescriptor;
+
+  /** jdk.jfr.EventFactory.create(List, List). */
+  private static Method createFactory;
+
+  /** Name annotation. */
+  private static Class<?> annotationName;
+
+  /** Label annotation. */
+  private static Class<?> annotationLabel;
+
+  /** Description annotation. */
+  private static Class<?> annotationDescription;
+
+  /** Category annotation. */
+  private static Class<?> annotationCategory;
+
+  /** StackTrace annotation. */
+  private static Class<?> annotationStackTrace;
+
+  /** Timespan annotation. */
+  private static Class<?> annotationTimespan;
+
+  /** jdk.jfr.EventFactory.newEvent(). */
+  private static MethodHandle newEvent;
+
+  /** jdk.jfr.Event.begin(). */
+  private static MethodHandle begin;
+
+  /** jdk.jfr.Event.set(int, Object). */
+  private static MethodHandle set;
+
+  /** jdk.jfr.Event.commit(). */
+  private static MethodHandle commit;
+
+  static {
+    initialize();
+  }
+
+  /**
+   * Constructor.
+   */
+  private FlightRecorderSupport() {
+    // Nothing to do
+  }
+
+  /**
+   * Initialize access to the Flight Recorder API.
+   */
+  private static void initialize() {
+    try {
+      Class<?> classEventFactory = Class.forName("jdk.jfr.EventFactory");
+      Class<?> classEvent = Class.forName("jdk.jfr.Event");
+      Class<?> classAnnotationElement = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> classValueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+      annotationName = Class.forName("jdk.jfr.Name");
+      annotationLabel = Class.forName("jdk.jfr.Label");
+      annotationDescription = Class.forName("jdk.jfr.Description");
+      annotationCategory = Class.forName("jdk.jfr.Category");
+      annotationStackTrace = Class.forName("jdk.jfr.StackTrace");
+      annotationTimespan = Class.forName("jdk.jfr.Timespan");
+      newAnnotationElement = classAnnotationElement.getConstructor(Class.class, Object.class);
+      newValueDescriptor = classValueDescriptor.getConstructor(Class.class, String.class, List.class);
+      createFactory = classEventFactory.getMethod("create", List.class, List.class);
+
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      newEvent = lookup.findVirtual(classEventFactory, "newEvent", MethodType.methodType(classEvent))
+          .asType(MethodType.methodType(Object.class, Object.class));
+      begin = lookup.findVirtual(classEvent, "begin", MethodType.methodType(void.class))
+          .asType(MethodType.methodType(void.class, Object.class));
+      set = lookup.findVirtual(classEvent, "set", MethodType.methodType(void.class, int.class, Object.class))
+          .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+      commit = lookup.findVirtual(classEvent, "commit", MethodType.methodType(void.class))
+          .asType(MethodType.methodType(void.class, Object.class));
+
+      // Listen to the recordings
+      Class<?> classListener = Class.forName("jdk.jfr.FlightRecorderListener");
+      Object listener = Proxy.newProxyInstance(
+          FlightRecorderSupport.class.getClassLoader(),
+          new Class<?>[] { classListener },
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+            case "recorderInitialized":
+              recorderInitialized(args[0]);
+              return null;
+            case "recordingStateChanged":
+              recordingStateChanged(args[0]);
+              return null;
+            case "equals":
+              return Boolean.valueOf(proxy == args[0]);
+            case "hashCode":
+              return Integer.valueOf(System.identityHashCode(proxy));
+            case "toString":
+              return FlightRecorderSupport.class.getName();
+            default:
+              return null;
+            }
+          });
+      Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener", classListener).invoke(null, listener);
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+      log.debug("Flight Recorder events are not available: {}", e.toString());
+      disable();
+    }
+  }
+
+  /**
+   * Disable the events.
+   */
+  private static void disable() {
+    newEvent = null;
+    recording = false;
+  }
+
+  /**
+   * Take into account the initialization of the Flight Recorder.
+   *
+   * @param recorder Flight Recorder.
+   * @throws ReflectiveOperationException Exception accessing the recordings.
+   */
+  private static void recorderInitialized(Object recorder) throws ReflectiveOperationException {
+    List<?> recordings = (List<?>) recorder.getClass().getMethod("getRecordings").invoke(recorder);
+    for (Object currentRecording : recordings) {
+      recordingStateChanged(currentRecording);
+    }
+  }
+
+  /**
+   * Take into account a change of state for a recording.
+   *
+   * @param currentRecording Recording.
+   * @throws ReflectiveOperationException Exception accessing the recording.
+   */
+  private static void recordingStateChanged(Object currentRecording) throws ReflectiveOperationException {
+    Object state = currentRecording.getClass().getMethod("getState").invoke(currentRecording);
+    boolean running = STATE_RUNNING.equals(String.valueOf(state));
+    synchronized (runningRecordings) {
+      if (running) {
+        runningRecordings.add(currentRecording);
+      } else {
+        runningRecordings.remove(currentRecording);
+      }
+      recording = (newEvent != null) && !runningRecordings.isEmpty();
+    }
+  }
+
+  /**
+   * @return True if events should be created.
+   */
+  static boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Create a factory for a type of event.
+   *
+   * @param type Type of event.
+   * @return Factory for the type of event, null if it can't be created.
+   */
+  static Object createFactory(FlightRecorderEventType type) {
+    try {
+      List<Object> annotations = new ArrayList<>();
+      annotations.add(newAnnotationElement.newInstance(annotationName, type.getName()));
+      annotations.add(newAnnotationElement.newInstance(annotationLabel, type.getLabel()));
+      annotations.add(newAnnotationElement.newInstance(annotationDescription, type.getDescription()));
+      annotations.add(newAnnotationElement.newInstance(annotationCategory, CATEGORY));
+      annotations.add(newAnnotationElement.newInstance(annotationStackTrace, Boolean.FALSE));
+      List<Object> fields = new ArrayList<>();
+      for (FlightRecorderEventType.Field field : type.getFields()) {
+        List<Object> fieldAnnotations = new ArrayList<>();
+        fieldAnnotations.add(newAnnotationElement.newInstance(annotationLabel, field.label));
+        if (field.timespan) {
+          fieldAnnotations.add(newAnnotationElement.newInstance(annotationTimespan, "NANOSECONDS"));
+        }
+        fields.add(newValueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+      }
+      return createFactory.invoke(null, annotations, fields);
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+      log.warn("Unable to create Flight Recorder event {}: {}", type.getName(), e.toString());
+      disable();
+      return null;
+    }
+  }
+
+  /**
+   * Create an event and start its timing.
+   *
+   * @param factory Factory for the type of event.
+   * @return Event, null if it can't be created.
+   */
+  static Object begin(Object factory) {
+    MethodHandle currentNewEvent = newEvent;
+    if (currentNewEvent == null) {
+      return null;
+    }
+    try {
+      Object event = currentNewEvent.invokeExact(factory);
+      begin.invokeExact(event);
+      return event;
+    } catch (Throwable t) {
+      handleError(t);
+      return null;
+    }
+  }
+
+  /**
+   * Set the value of a field of an event.
+   *
+   * @param event Event.
+   * @param index Index of the field.
+   * @param value Value of the field.
+   */
+  static void set(Object event, int index, Object value) {
+    try {
+      set.invokeExact(event, index, value);
+    } catch (Throwable t) {
+      handleError(t);
+    }
+  }
+
+  /**
+   * Commit an event.
+   *
+   * @param event Event.
+   */
+  static void commit(Object event) {
+    try {
+      commit.invokeExact(event);
+    } catch (Throwable t) {
+      handleError(t);
+    }
+  }
+
+  /**
+   * Disable the events after an unexpected error.
+   *
+   * @param t Error.
+   */
+  private static void handleError(Throwable t) {
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    log.warn("Error with Flight Recorder events, disabling them: {}", t.toString());
+    disable();
+  }
+}
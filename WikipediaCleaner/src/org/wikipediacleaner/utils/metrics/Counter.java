@@ -0,0 +1,72 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counter only going up, updated without locks.
+ */
+public class Counter extends Metric {
+
+  /** Value of the counter. */
+  private final LongAdder value = new LongAdder();
+
+  /**
+   * Constructor.
+   */
+  Counter() {
+    // Nothing to do
+  }
+
+  /**
+   * Increment the counter.
+   */
+  public void increment() {
+    value.increment();
+  }
+
+  /**
+   * @param delta Value added to the counter.
+   */
+  public void add(long delta) {
+    if (delta > 0) {
+      value.add(delta);
+    }
+  }
+
+  /**
+   * @return Value of the counter.
+   */
+  public long get() {
+    return value.sum();
+  }
+
+  /**
+   * @param buffer Buffer.
+   * @param name Name of the metric.
+   * @param labels Labels of the metric in Prometheus format, empty if none.
+   * @see org.wikipediacleaner.utils.metrics.Metric#appendPrometheus(java.lang.StringBuilder, java.lang.String, java.lang.String)
+   */
+  @Override
+  void appendPrometheus(StringBuilder buffer, String name, String labels) {
+    appendSample(buffer, name, labels, Long.toString(get()));
+  }
+
+  /**
+   * @param values Values by name.
+   * @param name Name of the metric including its labels.
+   * @see org.wikipediacleaner.utils.metrics.Metric#collect(java.util.Map, java.lang.String)
+   */
+  @Override
+  void collect(Map<String, Long> values, String name) {
+    values.put(name, Long.valueOf(get()));
+  }
+}
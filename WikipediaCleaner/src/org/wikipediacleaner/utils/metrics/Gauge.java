@@ -0,0 +1,56 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Gauge whose value is read from a supplier when metrics are exported.
+ */
+public class Gauge extends Metric {
+
+  /** Supplier of the value. */
+  private final LongSupplier supplier;
+
+  /**
+   * @param supplier Supplier of the value.
+   */
+  Gauge(LongSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * @return Current value of the gauge.
+   */
+  public long get() {
+    return supplier.getAsLong();
+  }
+
+  /**
+   * @param buffer Buffer.
+   * @param name Name of the metric.
+   * @param labels Labels of the metric in Prometheus format, empty if none.
+   * @see org.wikipediacleaner.utils.metrics.Metric#appendPrometheus(java.lang.StringBuilder, java.lang.String, java.lang.String)
+   */
+  @Override
+  void appendPrometheus(StringBuilder buffer, String name, String labels) {
+    appendSample(buffer, name, labels, Long.toString(get()));
+  }
+
+  /**
+   * @param values Values by name.
+   * @param name Name of the metric including its labels.
+   * @see org.wikipediacleaner.utils.metrics.Metric#collect(java.util.Map, java.lang.String)
+   */
+  @Override
+  void collect(Map<String, Long> values, String name) {
+    values.put(name, Long.valueOf(get()));
+  }
+}
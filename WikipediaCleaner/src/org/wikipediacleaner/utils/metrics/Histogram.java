@@ -0,0 +1,124 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Histogram of durations, updated without locks.
+ *
+ * Durations are recorded in nanoseconds and exported in seconds.
+ */
+public class Histogram extends Metric {
+
+  /** Upper bounds of the buckets (in seconds). */
+  private final static double[] BOUNDS = {
+    0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60 };
+
+  /** Upper bounds of the buckets (in nanoseconds). */
+  private final static long[] NANO_BOUNDS = new long[BOUNDS.length];
+
+  static {
+    for (int index = 0; index < BOUNDS.length; index++) {
+      NANO_BOUNDS[index] = (long) (BOUNDS[index] * 1000000000.0);
+    }
+  }
+
+  /** Number of durations in each bucket, the last one for durations above every bound. */
+  private final LongAdder[] buckets;
+
+  /** Number of durations. */
+  private final LongAdder count = new LongAdder();
+
+  /** Sum of the durations (in nanoseconds). */
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * Constructor.
+   */
+  Histogram() {
+    buckets = new LongAdder[NANO_BOUNDS.length + 1];
+    for (int index = 0; index < buckets.length; index++) {
+      buckets[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos Duration (in nanoseconds).
+   */
+  public void observeNanos(long nanos) {
+    long value = Math.max(0, nanos);
+    int index = 0;
+    while ((index < NANO_BOUNDS.length) && (value > NANO_BOUNDS[index])) {
+      index++;
+    }
+    buckets[index].increment();
+    count.increment();
+    sum.add(value);
+  }
+
+  /**
+   * Record a duration.
+   *
+   * @param millis Duration (in milliseconds).
+   */
+  public void observeMillis(long millis) {
+    observeNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  /**
+   * @return Number of durations.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return Sum of the durations (in nanoseconds).
+   */
+  public long getSumNanos() {
+    return sum.sum();
+  }
+
+  /**
+   * @param buffer Buffer.
+   * @param name Name of the metric.
+   * @param labels Labels of the metric in Prometheus format, empty if none.
+   * @see org.wikipediacleaner.utils.metrics.Metric#appendPrometheus(java.lang.StringBuilder, java.lang.String, java.lang.String)
+   */
+  @Override
+  void appendPrometheus(StringBuilder buffer, String name, String labels) {
+    String prefix = labels.isEmpty() ? "" : labels + ",";
+    long cumulative = 0;
+    for (int index = 0; index < buckets.length; index++) {
+      cumulative += buckets[index].sum();
+      String bound = (index < BOUNDS.length) ? Double.toString(BOUNDS[index]) : "+Inf";
+      appendSample(
+          buffer, name + "_bucket", prefix + "le=\"" + bound + "\"",
+          Long.toString(cumulative));
+    }
+    appendSample(buffer, name + "_sum", labels, Double.toString(getSumNanos() / 1000000000.0));
+    appendSample(buffer, name + "_count", labels, Long.toString(getCount()));
+  }
+
+  /**
+   * @param values Values by name.
+   * @param name Name of the metric including its labels.
+   * @see org.wikipediacleaner.utils.metrics.Metric#collect(java.util.Map, java.lang.String)
+   */
+  @Override
+  void collect(Map<String, Long> values, String name) {
+    values.put(name + ".count", Long.valueOf(getCount()));
+    values.put(name + ".sumMillis", Long.valueOf(TimeUnit.NANOSECONDS.toMillis(getSumNanos())));
+  }
+}
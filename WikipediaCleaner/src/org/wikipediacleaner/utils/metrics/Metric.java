@@ -0,0 +1,54 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.util.Map;
+
+
+/**
+ * Base class for a metric with a given set of labels.
+ */
+public abstract class Metric {
+
+  /**
+   * Append the metric in Prometheus text format.
+   *
+   * @param buffer Buffer.
+   * @param name Name of the metric.
+   * @param labels Labels of the metric in Prometheus format, empty if none.
+   */
+  abstract void appendPrometheus(StringBuilder buffer, String name, String labels);
+
+  /**
+   * Collect the values of the metric.
+   *
+   * @param values Values by name.
+   * @param name Name of the metric including its labels.
+   */
+  abstract void collect(Map<String, Long> values, String name);
+
+  /**
+   * Append a sample in Prometheus text format.
+   *
+   * @param buffer Buffer.
+   * @param name Name of the sample.
+   * @param labels Labels of the sample in Prometheus format, empty if none.
+   * @param value Value of the sample.
+   */
+  static void appendSample(StringBuilder buffer, String name, String labels, String value) {
+    buffer.append(name);
+    if (!labels.isEmpty()) {
+      buffer.append('{');
+      buffer.append(labels);
+      buffer.append('}');
+    }
+    buffer.append(' ');
+    buffer.append(value);
+    buffer.append('\n');
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.util.Map;
+
+
+/**
+ * Management interface exposing the metrics through JMX.
+ */
+public interface MetricsMXBean {
+
+  /**
+   * @return Current value of each metric, by name including labels.
+   */
+  public Map<String, Long> getValues();
+
+  /**
+   * @return Metrics in Prometheus text format.
+   */
+  public String getPrometheusText();
+}
@@ -0,0 +1,269 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Registry of the metrics of the application (counters, gauges and histograms).
+ *
+ * Metrics are identified by a name and optional labels given as pairs of name and value.
+ * Updating a metric doesn't take any lock, so callers on hot paths may keep
+ * a reference to the metric instead of looking it up each time.
+ * The registry is exposed through JMX and can be exported in Prometheus text format.
+ */
+public class MetricsRegistry implements MetricsMXBean {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(MetricsRegistry.class);
+
+  /** Name of the registry in JMX. */
+  private final static String OBJECT_NAME = "org.wikipediacleaner:type=Metrics";
+
+  /** Global registry. */
+  private static MetricsRegistry registry;
+
+  /**
+   * @return Global registry.
+   */
+  public static synchronized MetricsRegistry getRegistry() {
+    if (registry == null) {
+      registry = new MetricsRegistry();
+      registry.registerMBean();
+    }
+    return registry;
+  }
+
+  /**
+   * Kind of metric.
+   */
+  private enum Type {
+
+    /** Counter. */
+    COUNTER("counter"),
+
+    /** Gauge. */
+    GAUGE("gauge"),
+
+    /** Histogram. */
+    HISTOGRAM("histogram");
+
+    /** Name of the type in Prometheus. */
+    final String prometheusName;
+
+    /**
+     * @param prometheusName Name of the type in Prometheus.
+     */
+    private Type(String prometheusName) {
+      this.prometheusName = prometheusName;
+    }
+  }
+
+  /**
+   * Metrics sharing the same name.
+   */
+  private static class Family {
+
+    /** Kind of metric. */
+    final Type type;
+
+    /** Description of the metric. */
+    final String help;
+
+    /** Metrics by labels. */
+    final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @param type Kind of metric.
+     * @param help Description of the metric.
+     */
+    Family(Type type, String help) {
+      this.type = type;
+      this.help = help;
+    }
+  }
+
+  /** Metrics by name. */
+  private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   */
+  MetricsRegistry() {
+    // Nothing to do
+  }
+
+  /**
+   * @param name Name of the counter.
+   * @param help Description of the counter.
+   * @param labels Labels, as pairs of name and value.
+   * @return Counter.
+   */
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) getMetric(Type.COUNTER, name, help, labels, Counter::new);
+  }
+
+  /**
+   * @param name Name of the histogram.
+   * @param help Description of the histogram.
+   * @param labels Labels, as pairs of name and value.
+   * @return Histogram.
+   */
+  public Histogram histogram(String name, String help, String... labels) {
+    return (Histogram) getMetric(Type.HISTOGRAM, name, help, labels, Histogram::new);
+  }
+
+  /**
+   * Register a gauge, replacing a previous gauge with the same name and labels.
+   *
+   * @param name Name of the gauge.
+   * @param help Description of the gauge.
+   * @param supplier Supplier of the value.
+   * @param labels Labels, as pairs of name and value.
+   */
+  public void gauge(String name, String help, LongSupplier supplier, String... labels) {
+    Family family = getFamily(Type.GAUGE, name, help);
+    family.metrics.put(formatLabels(labels), new Gauge(supplier));
+  }
+
+  /**
+   * @param type Kind of metric.
+   * @param name Name of the metric.
+   * @param help Description of the metric.
+   * @param labels Labels, as pairs of name and value.
+   * @param creator Creator of the metric.
+   * @return Metric.
+   */
+  private Metric getMetric(
+      Type type, String name, String help, String[] labels,
+      Supplier<Metric> creator) {
+    Family family = getFamily(type, name, help);
+    String key = formatLabels(labels);
+    Metric metric = family.metrics.get(key);
+    if (metric == null) {
+      metric = family.metrics.computeIfAbsent(key, k -> creator.get());
+    }
+    return metric;
+  }
+
+  /**
+   * @param type Kind of metric.
+   * @param name Name of the metric.
+   * @param help Description of the metric.
+   * @return Metrics sharing the name.
+   */
+  private Family getFamily(Type type, String name, String help) {
+    Family family = families.get(name);
+    if (family == null) {
+      family = families.computeIfAbsent(name, k -> new Family(type, help));
+    }
+    if (family.type != type) {
+      throw new IllegalArgumentException(
+          "Metric " + name + " is already registered as a " + family.type.prometheusName);
+    }
+    return family;
+  }
+
+  /**
+   * @param labels Labels, as pairs of name and value.
+   * @return Labels in Prometheus format.
+   */
+  private static String formatLabels(String[] labels) {
+    if ((labels == null) || (labels.length == 0)) {
+      return "";
+    }
+    StringBuilder buffer = new StringBuilder();
+    for (int index = 0; index + 1 < labels.length; index += 2) {
+      if (buffer.length() > 0) {
+        buffer.append(',');
+      }
+      buffer.append(labels[index]);
+      buffer.append("=\"");
+      String value = (labels[index + 1] != null) ? labels[index + 1] : "";
+      for (int pos = 0; pos < value.length(); pos++) {
+        char current = value.charAt(pos);
+        if (current == '\\') {
+          buffer.append("\\\\");
+        } else if (current == '"') {
+          buffer.append("\\\"");
+        } else if (current == '\n') {
+          buffer.append("\\n");
+        } else {
+          buffer.append(current);
+        }
+      }
+      buffer.append('"');
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * @return Current value of each metric, by name including labels.
+   * @see org.wikipediacleaner.utils.metrics.MetricsMXBean#getValues()
+   */
+  @Override
+  public Map<String, Long> getValues() {
+    Map<String, Long> values = new TreeMap<>();
+    for (Map.Entry<String, Family> family : families.entrySet()) {
+      for (Map.Entry<String, Metric> metric : family.getValue().metrics.entrySet()) {
+        String name = family.getKey();
+        if (!metric.getKey().isEmpty()) {
+          name += "{" + metric.getKey() + "}";
+        }
+        metric.getValue().collect(values, name);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return Metrics in Prometheus text format.
+   * @see org.wikipediacleaner.utils.metrics.MetricsMXBean#getPrometheusText()
+   */
+  @Override
+  public String getPrometheusText() {
+    StringBuilder buffer = new StringBuilder();
+    for (Map.Entry<String, Family> family : new TreeMap<>(families).entrySet()) {
+      String name = family.getKey();
+      buffer.append("# HELP ").append(name).append(' ').append(family.getValue().help).append('\n');
+      buffer.append("# TYPE ").append(name).append(' ').append(family.getValue().type.prometheusName).append('\n');
+      for (Map.Entry<String, Metric> metric : new TreeMap<>(family.getValue().metrics).entrySet()) {
+        metric.getValue().appendPrometheus(buffer, name, metric.getKey());
+      }
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Register the registry in the platform MBean server.
+   */
+  private void registerMBean() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(objectName)) {
+        server.registerMBean(this, objectName);
+      }
+    } catch (JMException | RuntimeException e) {
+      log.warn("Unable to register metrics in JMX: {}", e.getMessage());
+    }
+  }
+}
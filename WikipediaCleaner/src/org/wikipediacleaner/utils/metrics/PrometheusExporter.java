@@ -0,0 +1,156 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * Export of the metrics in Prometheus text format,
+ * either in a file regularly rewritten (for a textfile collector) or through an HTTP endpoint.
+ */
+public class PrometheusExporter {
+
+  /** Logs. */
+  private static final Logger log = LoggerFactory.getLogger(PrometheusExporter.class);
+
+  /** Content type of the Prometheus text format. */
+  private final static String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  /** Registry. */
+  private final MetricsRegistry registry;
+
+  /** File for the metrics. */
+  private File file;
+
+  /** Executor rewriting the file. */
+  private ScheduledExecutorService executor;
+
+  /** HTTP server. */
+  private HttpServer server;
+
+  /**
+   * @param registry Registry.
+   */
+  public PrometheusExporter(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Regularly write the metrics in a file.
+   *
+   * @param metricsFile File for the metrics.
+   * @param period Period between two writes (in seconds).
+   */
+  public synchronized void startFile(File metricsFile, long period) {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    file = metricsFile;
+    executor = Executors.newSingleThreadScheduledExecutor(
+        new BasicThreadFactory.Builder().namingPattern("Metrics-%d").daemon(true).build());
+    executor.scheduleWithFixedDelay(this::writeFile, 0, period, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Write the metrics in the file.
+   *
+   * The metrics are written in a temporary file renamed afterwards,
+   * so that a collector never reads a partial file.
+   */
+  public synchronized void writeFile() {
+    if (file == null) {
+      return;
+    }
+    File tmpFile = new File(file.getPath() + ".tmp");
+    try (OutputStream os = new FileOutputStream(tmpFile)) {
+      os.write(registry.getPrometheusText().getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      log.warn("Error writing metrics in {}: {}", tmpFile, e.getMessage());
+      return;
+    }
+    if ((file.exists() && !file.delete()) || !tmpFile.renameTo(file)) {
+      log.warn("Unable to write metrics in {}", file);
+    }
+  }
+
+  /**
+   * Expose the metrics through an HTTP endpoint (/metrics) on the loopback address.
+   *
+   * @param port Port of the HTTP endpoint.
+   * @throws IOException Exception if the endpoint can't be created.
+   */
+  public void startServer(int port) throws IOException {
+    startServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Expose the metrics through an HTTP endpoint (/metrics).
+   *
+   * @param address Address of the HTTP endpoint, for example 0.0.0.0 for every interface.
+   * @param port Port of the HTTP endpoint.
+   * @throws IOException Exception if the endpoint can't be created.
+   */
+  public void startServer(String address, int port) throws IOException {
+    startServer(new InetSocketAddress(InetAddress.getByName(address), port));
+  }
+
+  /**
+   * Expose the metrics through an HTTP endpoint (/metrics).
+   *
+   * @param address Address of the HTTP endpoint.
+   * @throws IOException Exception if the endpoint can't be created.
+   */
+  private synchronized void startServer(InetSocketAddress address) throws IOException {
+    if (server != null) {
+      server.stop(0);
+    }
+    server = HttpServer.create(address, 0);
+    server.createContext("/metrics", exchange -> {
+      byte[] data = registry.getPrometheusText().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, data.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(data);
+      }
+    });
+    server.setExecutor(null);
+    server.start();
+    log.info("Metrics available on {}", server.getAddress());
+  }
+
+  /**
+   * Stop exporting the metrics, the file is written a last time.
+   */
+  public synchronized void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+      writeFile();
+    }
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+  }
+}
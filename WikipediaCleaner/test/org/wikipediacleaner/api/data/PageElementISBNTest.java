@@ -0,0 +1,51 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.wikipediacleaner.api.data.PageElementISBN.Validation;
+
+
+/**
+ * Test class for ISBN validation.
+ */
+public class PageElementISBNTest {
+
+  /**
+   * ISBN values are cleaned up, with or without comments.
+   */
+  @Test
+  public void testClean() {
+    assertEquals("9782070368228", PageElementISBN.cleanISBN("9782070368228"));
+    assertEquals("9782070368228", PageElementISBN.cleanISBN("978-2-07-036822-8"));
+    assertEquals("207036822X", PageElementISBN.cleanISBN("2 07 036822 x"));
+    assertEquals("9782070368228", PageElementISBN.cleanISBN("978-2<!-- 1 -->-07-036822-8"));
+    assertEquals("0000006X", PageElementISSN.cleanISSN("0000-006x"));
+  }
+
+  /**
+   * ISBN values are validated in a batch.
+   */
+  @Test
+  public void testValidate() {
+    ISBNRange.initialize();
+    Validation[] results = PageElementISBN.validate(Arrays.asList(
+        "978-2-07-036822-8", "2-07-036822-9", "978-2-07-03", "978-2-07-036822-8<!-- x -->"));
+    assertEquals("Valid ISBN", Validation.VALID, results[0]);
+    assertEquals("Incorrect checksum", Validation.INCORRECT_CHECKSUM, results[1]);
+    assertEquals("Incorrect length", Validation.INCORRECT_LENGTH, results[2]);
+    assertEquals("Valid ISBN with comment", Validation.VALID, results[3]);
+    assertTrue("ISBN-10 in a known range", ISBNRange.isInKnownRange("2070368228"));
+    assertEquals(PageElementISSN.Validation.VALID, PageElementISSN.validate("0317-8471"));
+    assertEquals(PageElementISSN.Validation.INCORRECT_CHECKSUM, PageElementISSN.validate("0317-8472"));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.analysis;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Test class for the cache of page analyses.
+ */
+public class PageAnalysisCacheTest {
+
+  /**
+   * Analyses of the same revision are shared between pages.
+   */
+  @Test
+  public void testSharedAnalysis() {
+    PageAnalysisCache cache = new PageAnalysisCache();
+    String text = "Text with {{template|a=b}} and [[link]].";
+    Page page1 = DataManager.createSimplePage(EnumWikipedia.EN, "Cached page", null, "10", null);
+    Page page2 = DataManager.createSimplePage(EnumWikipedia.EN, "Cached_page", null, "10", null);
+    page1.setContents(text);
+    page2.setContents(text);
+
+    PageAnalysis analysis1 = cache.getAnalysis(page1, text);
+    PageAnalysis analysis2 = cache.getAnalysis(page2, text);
+    assertEquals("Incorrect number of hits", 1, cache.getHits());
+    assertEquals("Incorrect number of misses", 1, cache.getMisses());
+    assertSame("Analysis is bound to the wrong page", page2, analysis2.getPage());
+    assertSame("Templates are not shared", analysis1.getTemplates(), analysis2.getTemplates());
+    assertEquals("Incorrect number of links", 1, analysis2.getInternalLinks().size());
+
+    // Modified text, not cached
+    PageAnalysis analysis3 = cache.getAnalysis(page2, text + " More text.");
+    assertEquals("Incorrect number of misses", 1, cache.getMisses());
+    assertEquals("Incorrect text", text + " More text.", analysis3.getContents());
+    assertEquals("Incorrect number of analyses", 1, cache.size());
+
+    // New revision
+    Page page3 = DataManager.createSimplePage(EnumWikipedia.EN, "Cached page", null, "11", null);
+    page3.setContents(text);
+    PageAnalysis analysis4 = cache.getAnalysis(page3, text);
+    assertEquals("Incorrect number of misses", 2, cache.getMisses());
+    assertTrue("Other revision is shared", analysis1.getTemplates() != analysis4.getTemplates());
+    assertEquals("Other revisions are not removed", 1, cache.size());
+    cache.invalidate(EnumWikipedia.EN, "Cached page");
+    assertEquals("Analyses are not removed", 0, cache.size());
+    assertEquals("Incorrect weight", 0, cache.getWeight());
+  }
+}
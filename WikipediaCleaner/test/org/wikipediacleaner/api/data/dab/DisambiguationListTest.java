@@ -0,0 +1,195 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data.dab;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.wikipediacleaner.api.API;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.RecentChange;
+
+
+/**
+ * Test class for the list of disambiguation pages.
+ */
+public class DisambiguationListTest {
+
+  /**
+   * @return Titles of disambiguation pages.
+   */
+  private static List<String> getTitles() {
+    List<String> titles = new ArrayList<>();
+    for (int index = 0; index < 1000; index++) {
+      titles.add("Title " + index);
+      titles.add("Élément " + index + " (homonymie)");
+    }
+    return titles;
+  }
+
+  /**
+   * Check the contents of a list.
+   *
+   * @param list List of disambiguation pages.
+   */
+  private static void checkList(DisambiguationList list) {
+    assertEquals("Size is incorrect", 2000, list.size());
+    for (String title : getTitles()) {
+      assertTrue("Missing title " + title, list.contains(title));
+    }
+    assertTrue("Title is not normalized", list.contains("title_12"));
+    assertFalse("Unexpected title", list.contains("Title 1000"));
+    assertFalse("Unexpected title", list.contains("Élément"));
+    assertFalse("Unexpected title", list.contains(""));
+  }
+
+  /**
+   * Titles are found in a list, persisted and loaded again,
+   * and the loaded list can be replaced by a new one.
+   */
+  @Test
+  public void testPersistedList() throws IOException {
+    File directory = Files.createTempDirectory("dab").toFile();
+    DisambiguationList.setDirectory(directory);
+    try {
+      DisambiguationList list = DisambiguationList.build(EnumWikipedia.EN, getTitles());
+      checkList(list);
+      list.save();
+      DisambiguationList loaded = DisambiguationList.load(EnumWikipedia.EN);
+      assertNotNull("List has not been loaded", loaded);
+      checkList(loaded);
+      loaded.add("Other");
+      loaded.compact().save();
+      DisambiguationList reloaded = DisambiguationList.load(EnumWikipedia.EN);
+      assertNotNull("List has not been loaded again", reloaded);
+      assertTrue("List has not been replaced", reloaded.contains("Other"));
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  /**
+   * Changes are taken into account and merged when compacting the list.
+   */
+  @Test
+  public void testChanges() {
+    DisambiguationList list = DisambiguationList.build(EnumWikipedia.EN, getTitles());
+    list.add("New title");
+    list.remove("Title 5");
+    list.add("Title 6");
+    assertTrue("Added title is missing", list.contains("New title"));
+    assertFalse("Removed title is present", list.contains("Title 5"));
+    assertEquals("Size is incorrect", 2000, list.size());
+    DisambiguationList compacted = list.compact();
+    assertFalse("Compacted list is modified", compacted.isModified());
+    assertTrue("Added title is missing", compacted.contains("New title"));
+    assertFalse("Removed title is present", compacted.contains("Title 5"));
+    assertTrue("Title is missing", compacted.contains("Title 6"));
+    assertEquals("Size is incorrect", 2000, compacted.size());
+  }
+
+  /**
+   * A persisted list is reused only if it was updated recently enough.
+   */
+  @Test
+  public void testCanResume() {
+    DisambiguationList list = DisambiguationList.build(EnumWikipedia.EN, getTitles());
+    assertTrue("Recent list can't be reused", DisambiguationListUpdater.canResume(list));
+    DisambiguationList old = list.compact(System.currentTimeMillis() - 3600L * 1000L);
+    assertFalse("Old list can be reused", DisambiguationListUpdater.canResume(old));
+    assertFalse("Missing list can be reused", DisambiguationListUpdater.canResume(null));
+  }
+
+  /**
+   * @param id Identifier of the change.
+   * @param title Page title.
+   * @param type Type of change.
+   * @param logType Type of log.
+   * @param logAction Log action.
+   * @return Recent change.
+   */
+  private static RecentChange createChange(
+      int id, String title, String type, String logType, String logAction) {
+    RecentChange change = new RecentChange(id, Namespace.MAIN, title, id, id);
+    change.setType(type);
+    change.setLogType(logType);
+    change.setLogAction(logAction);
+    return change;
+  }
+
+  /**
+   * The list is updated from recent changes.
+   */
+  @Test
+  public void testUpdates() throws IOException {
+    File directory = Files.createTempDirectory("dab").toFile();
+    DisambiguationList.setDirectory(directory);
+    EnumWikipedia wiki = EnumWikipedia.TEST;
+    try {
+      wiki.setDisambiguationPages(new HashSet<>(getTitles()));
+
+      // API giving the disambiguation status from the title
+      API api = (API) Proxy.newProxyInstance(
+          API.class.getClassLoader(), new Class<?>[] { API.class },
+          (proxy, method, args) -> {
+            if ("initializeDisambiguationStatus".equals(method.getName())) {
+              @SuppressWarnings("unchecked")
+              List<Page> pages = (List<Page>) args[1];
+              for (Page page : pages) {
+                page.setDisambiguationPage(Boolean.valueOf(
+                    page.getTitle().startsWith("Dab")));
+              }
+            }
+            return null;
+          });
+
+      // Recent changes, most recent first
+      DisambiguationListUpdater updater = new DisambiguationListUpdater(wiki, api);
+      RecentChange move = createChange(
+          5, "Title 4 (old)", RecentChange.TYPE_LOG,
+          RecentChange.LOG_TYPE_MOVE, RecentChange.LOG_ACTION_MOVE_MOVE);
+      move.setLogTarget("Dab moved");
+      updater.recentChanges(Arrays.asList(
+          move,
+          createChange(4, "Title 3", RecentChange.TYPE_LOG, RecentChange.LOG_TYPE_DELETE, RecentChange.LOG_ACTION_DELETE_DELETE),
+          createChange(3, "Title 2", RecentChange.TYPE_LOG, RecentChange.LOG_TYPE_DELETE, RecentChange.LOG_ACTION_DELETE_DELETE),
+          createChange(2, "Title 1", RecentChange.TYPE_EDIT, null, null),
+          createChange(1, "Dab page", RecentChange.TYPE_NEW, null, null),
+          createChange(0, "Title 3", RecentChange.TYPE_EDIT, null, null)), new Date());
+
+      DisambiguationList list = wiki.getDisambiguationList();
+      assertTrue("New disambiguation page is missing", list.contains("Dab page"));
+      assertTrue("Moved disambiguation page is missing", list.contains("Dab moved"));
+      assertFalse("Edited page is present", list.contains("Title 1"));
+      assertFalse("Deleted page is present", list.contains("Title 2"));
+      assertFalse("Deleted page is present", list.contains("Title 3"));
+      assertTrue("Page is missing", list.contains("Title 4"));
+      assertEquals("Size is incorrect", 1999, list.size());
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+}
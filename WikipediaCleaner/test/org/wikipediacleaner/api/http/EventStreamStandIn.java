@@ -0,0 +1,165 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Wikimedia EventStreams feed.
+ *
+ * The server sends a fixed list of events as server-sent events,
+ * resuming after the event given in the Last-Event-ID header,
+ * and closes the connection after a given number of events
+ * to simulate connections lost, or keeps it open until the server is stopped.
+ */
+public class EventStreamStandIn {
+
+  /** Events (data of each event). */
+  private final List<String> events;
+
+  /** Maximum number of events sent in a connection. */
+  private final int eventsPerConnection;
+
+  /** True to keep the connection open after the events. */
+  private final boolean keepOpen;
+
+  /** Released when the server is stopped. */
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /** HTTP server. */
+  private final HttpServer server;
+
+  /** Threads handling the requests. */
+  private final ExecutorService executor;
+
+  /** Count of connections. */
+  private final AtomicInteger connectionsCount = new AtomicInteger();
+
+  /** Count of connections resumed with a Last-Event-ID header. */
+  private final AtomicInteger resumedCount = new AtomicInteger();
+
+  /**
+   * @param events Events (data of each event).
+   * @param eventsPerConnection Maximum number of events sent in a connection.
+   * @throws IOException Exception when creating the server.
+   */
+  public EventStreamStandIn(List<String> events, int eventsPerConnection) throws IOException {
+    this(events, eventsPerConnection, false);
+  }
+
+  /**
+   * @param events Events (data of each event).
+   * @param eventsPerConnection Maximum number of events sent in a connection.
+   * @param keepOpen True to keep the connection open after the events until the server is stopped.
+   * @throws IOException Exception when creating the server.
+   */
+  public EventStreamStandIn(
+      List<String> events, int eventsPerConnection, boolean keepOpen) throws IOException {
+    this.events = new ArrayList<>(events);
+    this.eventsPerConnection = eventsPerConnection;
+    this.keepOpen = keepOpen;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * Start the server.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stop the server.
+   */
+  public void stop() {
+    stopped.countDown();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * @return URL of the feed.
+   */
+  public String getUrl() {
+    return
+        "http://" + server.getAddress().getHostString() + ":" +
+        server.getAddress().getPort() + "/v2/stream/recentchange";
+  }
+
+  /**
+   * @return Count of connections.
+   */
+  public int getConnectionsCount() {
+    return connectionsCount.get();
+  }
+
+  /**
+   * @return Count of connections resumed with a Last-Event-ID header.
+   */
+  public int getResumedCount() {
+    return resumedCount.get();
+  }
+
+  /**
+   * Handle a request.
+   *
+   * @param exchange HTTP exchange.
+   * @throws IOException Exception when answering.
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    connectionsCount.incrementAndGet();
+    try {
+      int first = 0;
+      String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+      if (lastEventId != null) {
+        resumedCount.incrementAndGet();
+        first = Integer.parseInt(lastEventId) + 1;
+      }
+      exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(":ok\n\n".getBytes(StandardCharsets.UTF_8));
+        int last = Math.min(events.size(), first + eventsPerConnection);
+        for (int index = first; index < last; index++) {
+          String event =
+              "event: message\n" +
+              "id: " + index + "\n" +
+              "data: " + events.get(index) + "\n\n";
+          os.write(event.getBytes(StandardCharsets.UTF_8));
+          os.flush();
+        }
+        if (keepOpen) {
+          try {
+            stopped.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.core5.http.HttpHost;
+import org.wikipediacleaner.api.MediaWikiController;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithms;
+import org.wikipediacleaner.api.constants.EnumLanguage;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpClientPool;
+import org.wikipediacleaner.api.request.ApiCache;
+import org.wikipediacleaner.gui.swing.basic.BasicWorker;
+import org.wikipediacleaner.gui.swing.bot.AutomaticCWWorker;
+import org.wikipediacleaner.gui.swing.pagelist.PageListWorker;
+import org.wikipediacleaner.gui.swing.worker.LoginWorker;
+import org.wikipediacleaner.utils.ConfigurationConstants;
+
+/**
+ * Load test of bot workflows against the local stand-in server.
+ *
+ * Usage: <code>LoadTestRunner &lt;recordings&gt; &lt;wiki&gt; [options] [workflows]</code>
+ * <ul>
+ * <li>recordings: directory of recorded answers (see {@link StandInRecordings});</li>
+ * <li>wiki: code of the wiki (en, fr, ...);</li>
+ * <li>options: <code>-latency=ms</code>, <code>-jitter=ms</code>, <code>-maxlag=ratio</code>,
+ *     <code>-429=ratio</code>, <code>-retryafter=s</code>, <code>-seed=n</code>,
+ *     <code>-nogzip</code>, <code>-record</code> (retrieve and record missing answers from the real servers);</li>
+ * <li>workflows: <code>checkwiki:max</code> (AutomaticCWWorker without saving),
+ *     <code>pagelist:MODE:element|element</code> (PageListWorker).</li>
+ * </ul>
+ * The configuration of the wiki is always loaded first, without login.
+ * A temporary directory is used for the local cache of API answers.
+ */
+public class LoadTestRunner {
+
+  /** Local stand-in server. */
+  private final StandInServer server;
+
+  /** Wiki. */
+  private final EnumWikipedia wiki;
+
+  /**
+   * @param server Local stand-in server.
+   * @param wiki Wiki.
+   */
+  private LoadTestRunner(StandInServer server, EnumWikipedia wiki) {
+    this.server = server;
+    this.wiki = wiki;
+  }
+
+  /**
+   * @param args Command line arguments.
+   */
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.err.println("Usage: LoadTestRunner <recordings> <wiki> [options] [workflows]");
+      System.exit(1);
+    }
+    EnumWikipedia wiki = EnumWikipedia.getWikipedia(args[1]);
+    if (wiki == null) {
+      System.err.println("Unknown wiki " + args[1]);
+      System.exit(1);
+    }
+
+    // Analyze arguments
+    StandInServer.Options options = new StandInServer.Options();
+    boolean record = false;
+    List<String> workflows = new ArrayList<>();
+    for (String arg : Arrays.asList(args).subList(2, args.length)) {
+      String value = (arg.indexOf('=') > 0) ? arg.substring(arg.indexOf('=') + 1) : null;
+      if (arg.startsWith("-latency=")) {
+        options.latency(Long.parseLong(value));
+      } else if (arg.startsWith("-jitter=")) {
+        options.jitter(Long.parseLong(value));
+      } else if (arg.startsWith("-maxlag=")) {
+        options.maxLagRatio(Double.parseDouble(value));
+      } else if (arg.startsWith("-429=")) {
+        options.tooManyRequestsRatio(Double.parseDouble(value));
+      } else if (arg.startsWith("-retryafter=")) {
+        options.retryAfter(Integer.parseInt(value));
+      } else if (arg.startsWith("-seed=")) {
+        options.seed(Long.parseLong(value));
+      } else if (arg.equals("-nogzip")) {
+        options.gzip(false);
+      } else if (arg.equals("-record")) {
+        record = true;
+      } else {
+        workflows.add(arg);
+      }
+    }
+
+    // Run the load test
+    StandInServer server = null;
+    int exitCode = 0;
+    try {
+      StandInRecordings recordings = new StandInRecordings(new File(args[0]), record);
+      System.out.println(recordings.size() + " recorded answers loaded");
+      server = new StandInServer(recordings, options);
+      server.start();
+      ApiCache.setDirectory(Files.createTempDirectory("wpcleaner-cache").toFile());
+      Hc5HttpClientPool.createInstance(new HttpHost("http", server.getHostName(), server.getPort()));
+      LoadTestRunner runner = new LoadTestRunner(server, wiki);
+      if (!runner.run(workflows)) {
+        exitCode = 2;
+      }
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      exitCode = 1;
+    } finally {
+      if (server != null) {
+        server.stop();
+      }
+    }
+    System.exit(exitCode);
+  }
+
+  /**
+   * Run workflows.
+   *
+   * @param workflows List of workflows.
+   * @return True if every workflow was successful.
+   */
+  private boolean run(List<String> workflows) {
+    boolean ok = runWorker("configuration", new LoginWorker(
+        wiki, null, null, EnumLanguage.getDefaultLanguage(),
+        "", new char[0],
+        ConfigurationConstants.VALUE_SAVE_USER_NO_CHANGE, false, false));
+    for (String workflow : workflows) {
+      BasicWorker worker = createWorker(workflow);
+      if (worker == null) {
+        System.err.println("Unknown workflow " + workflow);
+        ok = false;
+      } else {
+        ok &= runWorker(workflow, worker);
+      }
+    }
+    System.out.println("Server: " + server.getStatistics());
+    System.out.println("Client: " + Hc5HttpClientPool.getInstance().getStatistics());
+    System.out.println("Executors: " + MediaWikiController.getExecutorStatistics());
+    return ok;
+  }
+
+  /**
+   * @param workflow Workflow description.
+   * @return Worker for the workflow.
+   */
+  private BasicWorker createWorker(String workflow) {
+    String[] parts = workflow.split(":", 3);
+    if ("checkwiki".equals(parts[0])) {
+      int max = (parts.length > 1) ? Integer.parseInt(parts[1]) : 100;
+      List<CheckErrorAlgorithm> algorithms = new ArrayList<>();
+      for (CheckErrorAlgorithm algorithm : CheckErrorAlgorithms.getAlgorithms(wiki)) {
+        if ((algorithm != null) && algorithm.isAvailable()) {
+          algorithms.add(algorithm);
+        }
+      }
+      return new AutomaticCWWorker(
+          wiki, null, algorithms, max, false, algorithms, null, false, false);
+    }
+    if ("pagelist".equals(parts[0]) && (parts.length > 1)) {
+      PageListWorker.Mode mode = PageListWorker.Mode.valueOf(parts[1]);
+      List<String> elements = (parts.length > 2) ?
+          Arrays.asList(parts[2].split("\\|")) : new ArrayList<>();
+      return new PageListWorker(wiki, null, null, elements, mode, false, workflow);
+    }
+    return null;
+  }
+
+  /**
+   * Run a worker synchronously and display its statistics.
+   *
+   * @param name Name of the workflow.
+   * @param worker Worker.
+   * @return True if the worker was successful.
+   */
+  private boolean runWorker(String name, BasicWorker worker) {
+    long requestsBefore = server.getRequestsCount();
+    long start = System.currentTimeMillis();
+    Object result = null;
+    try {
+      result = worker.construct();
+    } catch (RuntimeException e) {
+      result = e;
+    }
+    long duration = System.currentTimeMillis() - start;
+    long requests = server.getRequestsCount() - requestsBefore;
+    System.out.println(
+        name + ": " + duration + " ms, " + requests + " requests" +
+        ((duration > 0) ? String.format(", %.1f requests/s", requests * 1000.0 / duration) : ""));
+    if (result instanceof Throwable) {
+      System.out.println(name + " failed: " + ((Throwable) result).getMessage());
+      return false;
+    }
+    return true;
+  }
+}
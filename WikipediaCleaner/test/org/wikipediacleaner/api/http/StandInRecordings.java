@@ -0,0 +1,311 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Recorded answers replayed by the stand-in server.
+ *
+ * Each recording is a text file (*.txt) with:
+ * <ul>
+ * <li>a first line with the host and the path of the request, including the parameters:
+ *     <code>fr.wikipedia.org /w/api.php?action=query&amp;format=json&amp;titles=Foo</code>;</li>
+ * <li>optional header lines (<code>Status: 404</code>, <code>Content-Type: ...</code>);</li>
+ * <li>an empty line, followed by the body of the answer.</li>
+ * </ul>
+ * Parameters are compared after sorting, and parameters which don't change
+ * the answer (maxlag, tokens, ...) are ignored.
+ */
+public class StandInRecordings {
+
+  /** Parameters ignored when comparing requests. */
+  private final static List<String> IGNORED_PARAMETERS = Arrays.asList(
+      "maxlag", "lgtoken", "lgusername", "lguserid", "token", "curtimestamp");
+
+  /**
+   * Recorded answer.
+   */
+  public static class Recording {
+
+    /** HTTP status. */
+    final int status;
+
+    /** Content type. */
+    final String contentType;
+
+    /** Body of the answer. */
+    final byte[] body;
+
+    /**
+     * @param status HTTP status.
+     * @param contentType Content type.
+     * @param body Body of the answer.
+     */
+    public Recording(int status, String contentType, byte[] body) {
+      this.status = status;
+      this.contentType = contentType;
+      this.body = body;
+    }
+  }
+
+  /** Directory of the recordings, null if recordings are only kept in memory. */
+  private final File directory;
+
+  /** True if missing answers should be retrieved from the real server and recorded. */
+  private final boolean record;
+
+  /** Recordings by key. */
+  private final Map<String, Recording> recordings;
+
+  /**
+   * @param directory Directory of the recordings, null if recordings are only kept in memory.
+   * @param record True if missing answers should be retrieved from the real server and recorded.
+   * @throws IOException Exception when reading the recordings.
+   */
+  public StandInRecordings(File directory, boolean record) throws IOException {
+    this.directory = directory;
+    this.record = record;
+    this.recordings = new ConcurrentHashMap<>();
+    if ((directory != null) && directory.isDirectory()) {
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(".txt"));
+      if (files != null) {
+        for (File file : files) {
+          load(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return Number of recordings.
+   */
+  public int size() {
+    return recordings.size();
+  }
+
+  /**
+   * Add a recording.
+   *
+   * @param host Host.
+   * @param pathAndQuery Path of the request, including the parameters.
+   * @param recording Recorded answer.
+   */
+  public void add(String host, String pathAndQuery, Recording recording) {
+    recordings.put(getKey(host, pathAndQuery, null), recording);
+  }
+
+  /**
+   * @param host Host.
+   * @param pathAndQuery Path of the request, including the parameters of the URL.
+   * @param body Body of the request (URL encoded form), or null.
+   * @return Recorded answer, null if none.
+   * @throws IOException Exception when recording a missing answer.
+   */
+  public Recording get(String host, String pathAndQuery, String body) throws IOException {
+    String key = getKey(host, pathAndQuery, body);
+    Recording recording = recordings.get(key);
+    if ((recording == null) && record && (directory != null)) {
+      recording = fetch(host, pathAndQuery, body);
+      recordings.put(key, recording);
+      save(key, recording);
+    }
+    return recording;
+  }
+
+  /**
+   * Load a recording.
+   *
+   * @param file File containing the recording.
+   * @throws IOException Exception when reading the file.
+   */
+  private void load(File file) throws IOException {
+    byte[] data = Files.readAllBytes(file.toPath());
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+      String request = reader.readLine();
+      if (request == null) {
+        return;
+      }
+      int space = request.indexOf(' ');
+      if (space <= 0) {
+        throw new IOException("Incorrect request line in " + file.getName());
+      }
+      int status = 200;
+      String contentType = "application/json; charset=utf-8";
+      String line = reader.readLine();
+      while ((line != null) && !line.isEmpty()) {
+        int colon = line.indexOf(':');
+        if (colon > 0) {
+          String name = line.substring(0, colon).trim();
+          String value = line.substring(colon + 1).trim();
+          if ("Status".equalsIgnoreCase(name)) {
+            status = Integer.parseInt(value);
+          } else if ("Content-Type".equalsIgnoreCase(name)) {
+            contentType = value;
+          }
+        }
+        line = reader.readLine();
+      }
+      StringBuilder body = new StringBuilder();
+      char[] buffer = new char[4096];
+      int count;
+      while ((count = reader.read(buffer)) >= 0) {
+        body.append(buffer, 0, count);
+      }
+      add(
+          request.substring(0, space), request.substring(space + 1).trim(),
+          new Recording(status, contentType, body.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  /**
+   * Save a recording.
+   *
+   * @param key Key of the request.
+   * @param recording Recorded answer.
+   * @throws IOException Exception when writing the file.
+   */
+  private void save(String key, Recording recording) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create " + directory);
+    }
+    File file = new File(directory, DigestUtils.sha1Hex(key) + ".txt");
+    try (OutputStream os = Files.newOutputStream(file.toPath())) {
+      int newLine = key.indexOf('\n');
+      String request = key.substring(0, newLine) + " " + key.substring(newLine + 1);
+      StringBuilder header = new StringBuilder();
+      header.append(request).append('\n');
+      header.append("Status: ").append(recording.status).append('\n');
+      if (recording.contentType != null) {
+        header.append("Content-Type: ").append(recording.contentType).append('\n');
+      }
+      header.append('\n');
+      os.write(header.toString().getBytes(StandardCharsets.UTF_8));
+      os.write(recording.body);
+    }
+  }
+
+  /**
+   * Retrieve an answer from the real server.
+   *
+   * @param host Host.
+   * @param pathAndQuery Path of the request, including the parameters of the URL.
+   * @param body Body of the request (URL encoded form), or null.
+   * @return Answer of the real server.
+   * @throws IOException Exception when retrieving the answer.
+   */
+  private static Recording fetch(String host, String pathAndQuery, String body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL("https://" + host + pathAndQuery).openConnection();
+    connection.setRequestProperty("User-Agent", "WPCleaner stand-in recorder");
+    if (body != null) {
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+      try (OutputStream os = connection.getOutputStream()) {
+        os.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    int status = connection.getResponseCode();
+    InputStream is = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+    byte[] data = (is != null) ? IOUtils.toByteArray(is) : new byte[0];
+    return new Recording(status, connection.getContentType(), data);
+  }
+
+  /**
+   * @param host Host.
+   * @param pathAndQuery Path of the request, including the parameters of the URL.
+   * @param body Body of the request (URL encoded form), or null.
+   * @return Normalized key for the request.
+   */
+  static String getKey(String host, String pathAndQuery, String body) {
+    String path = pathAndQuery;
+    Map<String, String> parameters = new TreeMap<>();
+    int question = pathAndQuery.indexOf('?');
+    if (question >= 0) {
+      path = pathAndQuery.substring(0, question);
+      addParameters(parameters, pathAndQuery.substring(question + 1));
+    }
+    addParameters(parameters, body);
+    StringBuilder key = new StringBuilder();
+    key.append(host).append('\n').append(path);
+    boolean first = true;
+    for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+      key.append(first ? '?' : '&');
+      first = false;
+      key.append(encode(parameter.getKey()));
+      key.append('=');
+      key.append(encode(parameter.getValue()));
+    }
+    return key.toString();
+  }
+
+  /**
+   * @param parameters Parameters.
+   * @param query URL encoded parameters, or null.
+   */
+  private static void addParameters(Map<String, String> parameters, String query) {
+    if ((query == null) || query.isEmpty()) {
+      return;
+    }
+    for (String parameter : query.split("&")) {
+      int equal = parameter.indexOf('=');
+      String name = decode((equal >= 0) ? parameter.substring(0, equal) : parameter);
+      String value = (equal >= 0) ? decode(parameter.substring(equal + 1)) : "";
+      if (!IGNORED_PARAMETERS.contains(name)) {
+        parameters.put(name, value);
+      }
+    }
+  }
+
+  /**
+   * @param value URL encoded value.
+   * @return Decoded value.
+   */
+  private static String decode(String value) {
+    try {
+      return URLDecoder.decode(value, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      return value;
+    }
+  }
+
+  /**
+   * @param value Value.
+   * @return URL encoded value.
+   */
+  private static String encode(String value) {
+    try {
+      return URLEncoder.encode(value, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      return value;
+    }
+  }
+}
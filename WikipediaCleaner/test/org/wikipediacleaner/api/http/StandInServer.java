@@ -0,0 +1,416 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.wikipediacleaner.api.http.StandInRecordings.Recording;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for MediaWiki servers (action API, REST API, Check Wiki).
+ *
+ * The server replays recorded answers, whatever the host requested,
+ * and can simulate latency, replication lag (maxlag errors), throttling (HTTP 429)
+ * and gzip compression, so that request batching, retries and concurrency
+ * can be measured without any network access.
+ * Requests are routed to the server with {@link org.wikipediacleaner.api.http.hc5.Hc5HttpClientPool#createInstance}.
+ */
+public class StandInServer {
+
+  /**
+   * Behavior of the stand-in server.
+   */
+  public static class Options {
+
+    /** Latency added to each answer (in milliseconds). */
+    long latency = 0;
+
+    /** Maximum random latency added to each answer (in milliseconds). */
+    long jitter = 0;
+
+    /** Ratio of API requests (with a maxlag parameter) answered with a maxlag error. */
+    double maxLagRatio = 0;
+
+    /** Ratio of requests answered with HTTP 429. */
+    double tooManyRequestsRatio = 0;
+
+    /** Delay sent in Retry-After headers (in seconds). */
+    int retryAfter = 1;
+
+    /** True if answers should be compressed when the client accepts gzip. */
+    boolean gzip = true;
+
+    /** Seed for the random generator. */
+    long seed = 0;
+
+    /**
+     * @param value Latency added to each answer (in milliseconds).
+     * @return Options.
+     */
+    public Options latency(long value) {
+      latency = value;
+      return this;
+    }
+
+    /**
+     * @param value Maximum random latency added to each answer (in milliseconds).
+     * @return Options.
+     */
+    public Options jitter(long value) {
+      jitter = value;
+      return this;
+    }
+
+    /**
+     * @param value Ratio of API requests answered with a maxlag error.
+     * @return Options.
+     */
+    public Options maxLagRatio(double value) {
+      maxLagRatio = value;
+      return this;
+    }
+
+    /**
+     * @param value Ratio of requests answered with HTTP 429.
+     * @return Options.
+     */
+    public Options tooManyRequestsRatio(double value) {
+      tooManyRequestsRatio = value;
+      return this;
+    }
+
+    /**
+     * @param value Delay sent in Retry-After headers (in seconds).
+     * @return Options.
+     */
+    public Options retryAfter(int value) {
+      retryAfter = value;
+      return this;
+    }
+
+    /**
+     * @param value True if answers should be compressed when the client accepts gzip.
+     * @return Options.
+     */
+    public Options gzip(boolean value) {
+      gzip = value;
+      return this;
+    }
+
+    /**
+     * @param value Seed for the random generator.
+     * @return Options.
+     */
+    public Options seed(long value) {
+      seed = value;
+      return this;
+    }
+  }
+
+  /** Recorded answers. */
+  private final StandInRecordings recordings;
+
+  /** Behavior of the server. */
+  private final Options options;
+
+  /** Random generator for latency and errors. */
+  private final Random random;
+
+  /** HTTP server. */
+  private final HttpServer server;
+
+  /** Threads handling the requests. */
+  private final ExecutorService executor;
+
+  /** Count of requests. */
+  private final AtomicLong requestsCount = new AtomicLong();
+
+  /** Count of requests without a recorded answer. */
+  private final AtomicLong missingCount = new AtomicLong();
+
+  /** Count of bytes sent. */
+  private final AtomicLong bytesCount = new AtomicLong();
+
+  /** Count of answers by HTTP status (or by error for maxlag). */
+  private final Map<String, AtomicLong> answersCount = new TreeMap<>();
+
+  /** Number of requests in progress. */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /** Maximum number of requests in progress at the same time. */
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  /**
+   * @param recordings Recorded answers.
+   * @param options Behavior of the server.
+   * @throws IOException Exception when creating the server.
+   */
+  public StandInServer(StandInRecordings recordings, Options options) throws IOException {
+    this.recordings = recordings;
+    this.options = (options != null) ? options : new Options();
+    this.random = new Random(this.options.seed);
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * Start the server.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stop the server.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * @return Port on which the server listens.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * @return Host name on which the server listens.
+   */
+  public String getHostName() {
+    return server.getAddress().getHostString();
+  }
+
+  /**
+   * @return Count of requests.
+   */
+  public long getRequestsCount() {
+    return requestsCount.get();
+  }
+
+  /**
+   * @return Count of requests without a recorded answer.
+   */
+  public long getMissingCount() {
+    return missingCount.get();
+  }
+
+  /**
+   * @return Maximum number of requests in progress at the same time.
+   */
+  public int getMaxInFlight() {
+    return maxInFlight.get();
+  }
+
+  /**
+   * @param answer HTTP status or error.
+   * @return Count of answers.
+   */
+  public long getAnswersCount(String answer) {
+    synchronized (answersCount) {
+      AtomicLong count = answersCount.get(answer);
+      return (count != null) ? count.get() : 0;
+    }
+  }
+
+  /**
+   * @return Statistics on the requests received.
+   */
+  public String getStatistics() {
+    StringBuilder result = new StringBuilder();
+    result.append(requestsCount.get()).append(" requests");
+    result.append(", ").append(missingCount.get()).append(" without recording");
+    result.append(", ").append(bytesCount.get()).append(" bytes sent");
+    result.append(", max ").append(maxInFlight.get()).append(" concurrent requests");
+    synchronized (answersCount) {
+      for (Map.Entry<String, AtomicLong> count : answersCount.entrySet()) {
+        result.append(", ").append(count.getKey()).append(": ").append(count.getValue().get());
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Handle a request.
+   *
+   * @param exchange HTTP exchange.
+   * @throws IOException Exception when answering.
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    requestsCount.incrementAndGet();
+    int current = inFlight.incrementAndGet();
+    maxInFlight.accumulateAndGet(current, Math::max);
+    try {
+      String host = exchange.getRequestHeaders().getFirst("Host");
+      if ((host != null) && (host.indexOf(':') > 0)) {
+        host = host.substring(0, host.indexOf(':'));
+      }
+      String pathAndQuery = exchange.getRequestURI().getRawPath();
+      if (exchange.getRequestURI().getRawQuery() != null) {
+        pathAndQuery += "?" + exchange.getRequestURI().getRawQuery();
+      }
+      String body = null;
+      if ("POST".equals(exchange.getRequestMethod())) {
+        body = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+      }
+      simulateLatency();
+
+      // Simulate throttling
+      if (nextDouble() < options.tooManyRequestsRatio) {
+        count("429");
+        exchange.getResponseHeaders().add("Retry-After", Integer.toString(options.retryAfter));
+        send(exchange, 429, "text/plain", "Too many requests".getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+
+      // Simulate replication lag
+      boolean apiRequest = pathAndQuery.contains("api.php");
+      String fullRequest = pathAndQuery + ((body != null) ? "&" + body : "");
+      if (apiRequest && fullRequest.contains("maxlag=") && (nextDouble() < options.maxLagRatio)) {
+        count("maxlag");
+        boolean xml = fullRequest.contains("format=xml");
+        exchange.getResponseHeaders().add("MediaWiki-API-Error", "maxlag");
+        exchange.getResponseHeaders().add("Retry-After", Integer.toString(options.retryAfter));
+        String info = "Waiting for a database server: " + options.retryAfter + " seconds lagged.";
+        String error = xml ?
+            "<?xml version=\"1.0\"?><api><error code=\"maxlag\" info=\"" + info + "\" /></api>" :
+            "{\"error\":{\"code\":\"maxlag\",\"info\":\"" + info + "\"}}";
+        send(
+            exchange, 200,
+            xml ? "text/xml; charset=utf-8" : "application/json; charset=utf-8",
+            error.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+
+      // Replay recorded answer
+      Recording recording = recordings.get(host, pathAndQuery, body);
+      if (recording == null) {
+        missingCount.incrementAndGet();
+        recording = getDefaultAnswer(apiRequest, fullRequest.contains("format=xml"));
+      }
+      count(Integer.toString(recording.status));
+      send(exchange, recording.status, recording.contentType, recording.body);
+    } finally {
+      inFlight.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  /**
+   * @param apiRequest True if the request is for the action API.
+   * @param xml True if the request is for an XML answer.
+   * @return Answer for requests without a recording.
+   */
+  private static Recording getDefaultAnswer(boolean apiRequest, boolean xml) {
+    if (!apiRequest) {
+      return new Recording(404, "text/plain", new byte[0]);
+    }
+    if (xml) {
+      return new Recording(
+          200, "text/xml; charset=utf-8",
+          "<?xml version=\"1.0\"?><api batchcomplete=\"\" />".getBytes(StandardCharsets.UTF_8));
+    }
+    return new Recording(
+        200, "application/json; charset=utf-8",
+        "{\"batchcomplete\":true}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Send an answer.
+   *
+   * @param exchange HTTP exchange.
+   * @param status HTTP status.
+   * @param contentType Content type.
+   * @param body Body of the answer.
+   * @throws IOException Exception when answering.
+   */
+  private void send(
+      HttpExchange exchange, int status,
+      String contentType, byte[] body) throws IOException {
+    Headers headers = exchange.getResponseHeaders();
+    if (contentType != null) {
+      headers.add("Content-Type", contentType);
+    }
+    byte[] data = body;
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (options.gzip && (acceptEncoding != null) && acceptEncoding.contains("gzip")) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+        gzip.write(body);
+      }
+      data = compressed.toByteArray();
+      headers.add("Content-Encoding", "gzip");
+    }
+    exchange.sendResponseHeaders(status, (data.length > 0) ? data.length : -1);
+    if (data.length > 0) {
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(data);
+      }
+    }
+    bytesCount.addAndGet(data.length);
+  }
+
+  /**
+   * Wait for the simulated latency.
+   */
+  private void simulateLatency() {
+    long delay = options.latency;
+    if (options.jitter > 0) {
+      delay += (long) (nextDouble() * options.jitter);
+    }
+    if (delay <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.MILLISECONDS.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return Next random number.
+   */
+  private double nextDouble() {
+    synchronized (random) {
+      return random.nextDouble();
+    }
+  }
+
+  /**
+   * @param answer HTTP status or error.
+   */
+  private void count(String answer) {
+    synchronized (answersCount) {
+      answersCount.computeIfAbsent(answer, key -> new AtomicLong()).incrementAndGet();
+    }
+  }
+}
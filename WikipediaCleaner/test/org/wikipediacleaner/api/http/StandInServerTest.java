@@ -0,0 +1,137 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wikipediacleaner.api.http.StandInRecordings.Recording;
+import org.wikipediacleaner.api.http.hc5.Hc5HttpUtils;
+
+/**
+ * Tests for the local stand-in server.
+ */
+public class StandInServerTest {
+
+  /** Stand-in server. */
+  private StandInServer server;
+
+  /** HTTP client sending every request to the stand-in server. */
+  private CloseableHttpClient client;
+
+  /** Recorded answers. */
+  private StandInRecordings recordings;
+
+  /**
+   * Create the recorded answers.
+   */
+  @Before
+  public void createRecordings() throws IOException {
+    recordings = new StandInRecordings(null, false);
+    recordings.add(
+        "fr.wikipedia.org", "/w/api.php?format=json&action=query&titles=Foo",
+        new Recording(
+            200, "application/json; charset=utf-8",
+            "{\"query\":{}}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Stop the client and the server.
+   */
+  @After
+  public void stopServer() throws IOException {
+    if (client != null) {
+      client.close();
+      client = null;
+    }
+    if (server != null) {
+      server.stop();
+      server = null;
+    }
+  }
+
+  /**
+   * Start the server and create a client sending every request to it.
+   *
+   * @param options Options of the server.
+   */
+  private void startServer(StandInServer.Options options) throws IOException {
+    stopServer();
+    server = new StandInServer(recordings, options);
+    server.start();
+    HttpHost host = new HttpHost("http", server.getHostName(), server.getPort());
+    client = HttpClients.custom().
+        setRoutePlanner((target, context) -> new HttpRoute(host)).
+        build();
+  }
+
+  /**
+   * @param url URL.
+   * @return Status and body of the answer.
+   */
+  private String get(String url) throws IOException {
+    HttpGet method = new HttpGet(url);
+    method.addHeader("Accept-Encoding", "gzip");
+    try (CloseableHttpResponse response = client.execute(method);
+         InputStream is = Hc5HttpUtils.getResponseStream(response)) {
+      assertNotNull(is);
+      return response.getCode() + " " + new String(IOUtils.toByteArray(is), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Recorded answers are replayed whatever the order of the parameters.
+   */
+  @Test
+  public void testReplay() throws IOException {
+    startServer(new StandInServer.Options());
+    assertEquals(
+        "Recorded answer is incorrect",
+        "200 {\"query\":{}}",
+        get("https://fr.wikipedia.org/w/api.php?action=query&titles=Foo&format=json&maxlag=5"));
+    assertEquals(
+        "Default answer is incorrect",
+        "200 {\"batchcomplete\":true}",
+        get("https://fr.wikipedia.org/w/api.php?action=query&titles=Bar&format=json"));
+    assertEquals(
+        "Count of missing answers is incorrect",
+        1, server.getMissingCount());
+  }
+
+  /**
+   * Simulated errors.
+   */
+  @Test
+  public void testErrors() throws IOException {
+    startServer(new StandInServer.Options().tooManyRequestsRatio(1));
+    assertEquals(
+        "Throttling answer is incorrect",
+        "429 Too many requests",
+        get("https://fr.wikipedia.org/w/api.php?action=query&titles=Foo&format=json"));
+    startServer(new StandInServer.Options().maxLagRatio(1));
+    assertEquals(
+        "Replication lag answer is incorrect",
+        "200 {\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting for a database server: 1 seconds lagged.\"}}",
+        get("https://fr.wikipedia.org/w/api.php?action=query&titles=Foo&format=json&maxlag=5"));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.wikipediacleaner.api.APIException;
+
+/**
+ * Tests for the scheduling of edits.
+ */
+public class EditSchedulerTest {
+
+  /** Start time for the tests. */
+  private final static long START = 1000000L;
+
+  /**
+   * Edits in content name spaces can be done in a burst up to the maximum number per minute.
+   */
+  @Test
+  public void testBurst() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    for (int edit = 0; edit < 3; edit++) {
+      EditScheduler.Reservation reservation = scheduler.reserve(true, 0, 3);
+      assertEquals("Edit " + edit + " should not wait", START, reservation.getPermitTime());
+      assertTrue("Permit should be available", reservation.isAvailable());
+    }
+    EditScheduler.Reservation reservation = scheduler.reserve(true, 0, 3);
+    assertEquals("Edit should wait for the window", START + 60000, reservation.getPermitTime());
+    assertFalse("Permit should not be available", reservation.isAvailable());
+    assertEquals("Queue depth", 1, scheduler.getQueueDepth());
+    reservation.cancel();
+    assertEquals("Queue depth", 0, scheduler.getQueueDepth());
+  }
+
+  /**
+   * The window of the maximum number of edits slides with time.
+   */
+  @Test
+  public void testSlidingWindow() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    assertEquals(START, scheduler.reserve(true, 0, 2).getPermitTime());
+    clock.set(START + 30000);
+    assertEquals(START + 30000, scheduler.reserve(true, 0, 2).getPermitTime());
+    clock.set(START + 40000);
+    assertEquals(START + 60000, scheduler.reserve(true, 0, 2).getPermitTime());
+    clock.set(START + 100000);
+    assertEquals(START + 100000, scheduler.reserve(true, 0, 2).getPermitTime());
+  }
+
+  /**
+   * The minimum time between edits applies to every edit, whatever the name space.
+   */
+  @Test
+  public void testMinimumGap() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    assertEquals(START, scheduler.reserve(true, 5000, 0).getPermitTime());
+    assertEquals(START + 5000, scheduler.reserve(false, 5000, 0).getPermitTime());
+    assertEquals(START + 10000, scheduler.reserve(true, 5000, 0).getPermitTime());
+    clock.set(START + 30000);
+    assertEquals(START + 30000, scheduler.reserve(false, 5000, 0).getPermitTime());
+  }
+
+  /**
+   * Edits in talk name spaces are not limited by the maximum number of edits.
+   */
+  @Test
+  public void testTalkNotLimited() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    assertEquals(START, scheduler.reserve(true, 0, 1).getPermitTime());
+    assertEquals(START + 60000, scheduler.reserve(true, 0, 1).getPermitTime());
+    assertEquals(START, scheduler.reserve(false, 0, 1).getPermitTime());
+  }
+
+  /**
+   * A cancelled reservation gives back its permit.
+   */
+  @Test
+  public void testCancel() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    assertEquals(START, scheduler.reserve(true, 5000, 1).getPermitTime());
+    EditScheduler.Reservation reservation = scheduler.reserve(true, 5000, 1);
+    assertEquals(START + 60000, reservation.getPermitTime());
+    reservation.cancel();
+    assertEquals(START + 60000, scheduler.reserve(true, 5000, 1).getPermitTime());
+    assertEquals(START + 65000, scheduler.reserve(false, 5000, 1).getPermitTime());
+  }
+
+  /**
+   * The minimum time between edits is checked against the actual edits.
+   */
+  @Test
+  public void testLateEdit() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    EditScheduler.Reservation first = scheduler.reserve(true, 5000, 0);
+    EditScheduler.Reservation second = scheduler.reserve(true, 5000, 0);
+    assertEquals(START + 5000, second.getPermitTime());
+    clock.set(START + 4000);
+    assertEquals("First edit should start", 0, first.startEdit());
+    clock.set(START + 5000);
+    assertEquals("Second edit should wait after the first one", 4000, second.startEdit());
+    clock.set(START + 9000);
+    assertEquals("Second edit should start", 0, second.startEdit());
+  }
+
+  /**
+   * The maximum number of edits per minute is checked against the actual edits.
+   */
+  @Test
+  public void testLateEditWindow() {
+    AtomicLong clock = new AtomicLong(START);
+    EditScheduler scheduler = new EditScheduler("test", clock::get);
+    EditScheduler.Reservation first = scheduler.reserve(true, 0, 1);
+    clock.set(START + 60000);
+    EditScheduler.Reservation second = scheduler.reserve(true, 0, 1);
+    assertEquals(START + 60000, second.getPermitTime());
+    assertEquals("First edit should start", 0, first.startEdit());
+    assertEquals("Second edit should wait for the window", 60000, second.startEdit());
+    clock.set(START + 120000);
+    assertEquals("Second edit should start", 0, second.startEdit());
+  }
+
+  /**
+   * An available permit is used without waiting.
+   */
+  @Test
+  public void testAwait() throws APIException {
+    EditScheduler scheduler = new EditScheduler("test", System::currentTimeMillis);
+    EditScheduler.Reservation first = scheduler.reserve(true, 0, 2);
+    EditScheduler.Reservation second = scheduler.reserve(true, 0, 2);
+    long start = System.currentTimeMillis();
+    first.await(Integer.valueOf(0));
+    second.await(Integer.valueOf(0));
+    assertTrue("Edits should not wait", System.currentTimeMillis() - start < 1000);
+  }
+}
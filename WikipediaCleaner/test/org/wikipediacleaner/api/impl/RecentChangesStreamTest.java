@@ -0,0 +1,197 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.Test;
+import org.wikipediacleaner.api.RecentChangesListener;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.RecentChange;
+import org.wikipediacleaner.api.http.EventStreamStandIn;
+
+/**
+ * Tests for recent changes received from the EventStreams feed.
+ */
+public class RecentChangesStreamTest {
+
+  /**
+   * @param id Identifier of the change.
+   * @param server Server.
+   * @param namespace Name space.
+   * @param title Title.
+   * @return Data of the event.
+   */
+  private static String createEvent(int id, String server, int namespace, String title) {
+    return
+        "{\"meta\":{\"domain\":\"" + server + "\",\"dt\":\"2020-05-01T12:00:0" + id + "Z\"}," +
+        "\"id\":" + id + ",\"type\":\"edit\",\"namespace\":" + namespace + "," +
+        "\"title\":\"" + title + "\",\"comment\":\"Test\",\"user\":\"Foo\",\"bot\":false," +
+        "\"minor\":true,\"revision\":{\"old\":" + (100 + id) + ",\"new\":" + (101 + id) + "}," +
+        "\"server_name\":\"" + server + "\",\"wiki\":\"frwiki\"}";
+  }
+
+  /**
+   * Recent changes are filtered on the wiki and the feed is resumed after lost connections.
+   */
+  @Test
+  public void testStream() throws IOException, InterruptedException {
+    EventStreamStandIn server = new EventStreamStandIn(Arrays.asList(
+        createEvent(1, "fr.wikipedia.org", 0, "Foo"),
+        createEvent(2, "en.wikipedia.org", 0, "Bar"),
+        createEvent(3, "fr.wikipedia.org", 1, "Discussion:Foo"),
+        createEvent(4, "fr.wikipedia.org", 0, "Bar"),
+        createEvent(5, "en.wikipedia.org", 0, "Foo")), 2);
+    server.start();
+    final List<String> titles = new ArrayList<>();
+    RecentChangesListener listener = new RecentChangesListener() {
+
+      @Override
+      public void recentChanges(List<RecentChange> rc, Date currentTime) {
+        synchronized (titles) {
+          for (int index = rc.size() - 1; index >= 0; index--) {
+            titles.add(rc.get(index).getTitle());
+          }
+          titles.notifyAll();
+        }
+      }
+    };
+    try (CloseableHttpClient client = HttpClients.createDefault()) {
+      RecentChangesManager manager = new RecentChangesManager(
+          EnumWikipedia.FR, null, server.getUrl(), client);
+      manager.addRecentChangesListener(listener);
+      try {
+        long end = System.currentTimeMillis() + 20000;
+        synchronized (titles) {
+          while ((titles.size() < 3) && (System.currentTimeMillis() < end)) {
+            titles.wait(100);
+          }
+        }
+      } finally {
+        manager.removeRecentChangesListener(listener);
+        server.stop();
+      }
+    }
+    synchronized (titles) {
+      assertEquals(
+          "Recent changes are incorrect",
+          Arrays.asList("Foo", "Discussion:Foo", "Bar"), titles);
+    }
+    assertTrue("Feed has not been resumed", server.getResumedCount() >= 1);
+  }
+
+  /**
+   * Recent changes are filtered on the name spaces needed by the listeners.
+   */
+  @Test
+  public void testNamespaces() throws IOException, InterruptedException {
+    EventStreamStandIn server = new EventStreamStandIn(Arrays.asList(
+        createEvent(1, "fr.wikipedia.org", 1, "Discussion:Foo"),
+        createEvent(2, "fr.wikipedia.org", 0, "Foo"),
+        createEvent(3, "fr.wikipedia.org", 2, "Utilisateur:Foo"),
+        createEvent(4, "fr.wikipedia.org", 0, "Bar")), 10);
+    server.start();
+    final List<String> titles = new ArrayList<>();
+    RecentChangesListener listener = new RecentChangesListener() {
+
+      @Override
+      public Collection<Integer> getNamespaces() {
+        return Collections.singleton(Integer.valueOf(0));
+      }
+
+      @Override
+      public void recentChanges(List<RecentChange> rc, Date currentTime) {
+        synchronized (titles) {
+          for (int index = rc.size() - 1; index >= 0; index--) {
+            titles.add(rc.get(index).getTitle());
+          }
+          titles.notifyAll();
+        }
+      }
+    };
+    try (CloseableHttpClient client = HttpClients.createDefault()) {
+      RecentChangesManager manager = new RecentChangesManager(
+          EnumWikipedia.FR, null, server.getUrl(), client);
+      manager.addRecentChangesListener(listener);
+      try {
+        long end = System.currentTimeMillis() + 20000;
+        synchronized (titles) {
+          while ((titles.size() < 2) && (System.currentTimeMillis() < end)) {
+            titles.wait(100);
+          }
+        }
+      } finally {
+        manager.removeRecentChangesListener(listener);
+        server.stop();
+      }
+    }
+    synchronized (titles) {
+      assertEquals(
+          "Recent changes are incorrect",
+          Arrays.asList("Foo", "Bar"), titles);
+    }
+  }
+
+  /**
+   * Recent changes are sent to the listeners after a delay even if no other event arrives.
+   */
+  @Test
+  public void testFlushDelay() throws IOException, InterruptedException {
+    EventStreamStandIn server = new EventStreamStandIn(Arrays.asList(
+        createEvent(1, "fr.wikipedia.org", 0, "Foo"),
+        createEvent(2, "fr.wikipedia.org", 0, "Bar")), 10, true);
+    server.start();
+    final List<String> titles = new ArrayList<>();
+    RecentChangesListener listener = new RecentChangesListener() {
+
+      @Override
+      public void recentChanges(List<RecentChange> rc, Date currentTime) {
+        synchronized (titles) {
+          for (int index = rc.size() - 1; index >= 0; index--) {
+            titles.add(rc.get(index).getTitle());
+          }
+          titles.notifyAll();
+        }
+      }
+    };
+    try (CloseableHttpClient client = HttpClients.createDefault()) {
+      RecentChangesManager manager = new RecentChangesManager(
+          EnumWikipedia.FR, null, server.getUrl(), client);
+      manager.addRecentChangesListener(listener);
+      try {
+        long end = System.currentTimeMillis() + 10000;
+        synchronized (titles) {
+          while ((titles.size() < 2) && (System.currentTimeMillis() < end)) {
+            titles.wait(100);
+          }
+        }
+      } finally {
+        manager.removeRecentChangesListener(listener);
+        server.stop();
+      }
+    }
+    synchronized (titles) {
+      assertEquals(
+          "Recent changes are incorrect",
+          Arrays.asList("Foo", "Bar"), titles);
+    }
+    assertEquals("Connection has been lost", 1, server.getConnectionsCount());
+  }
+}
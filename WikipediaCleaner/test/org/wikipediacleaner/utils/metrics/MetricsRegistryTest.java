@@ -0,0 +1,70 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2020  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils.metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+
+/**
+ * Test class for the registry of metrics.
+ */
+public class MetricsRegistryTest {
+
+  /**
+   * Metrics are exported in Prometheus text format.
+   */
+  @Test
+  public void testPrometheusText() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Counter counter = registry.counter("test_requests_total", "Requests", "action", "query");
+    counter.increment();
+    counter.add(2);
+    assertSame(
+        "Counter is not reused", counter,
+        registry.counter("test_requests_total", "Requests", "action", "query"));
+    registry.counter("test_requests_total", "Requests", "action", "a\"b").increment();
+    registry.gauge("test_queue", "Queue", () -> 5);
+    Histogram histogram = registry.histogram("test_duration_seconds", "Duration");
+    histogram.observeMillis(3);
+    histogram.observeMillis(200);
+
+    String text = registry.getPrometheusText();
+    assertTrue(text.contains("# TYPE test_requests_total counter\n"));
+    assertTrue(text.contains("test_requests_total{action=\"query\"} 3\n"));
+    assertTrue(text.contains("test_requests_total{action=\"a\\\"b\"} 1\n"));
+    assertTrue(text.contains("test_queue 5\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{le=\"0.001\"} 0\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{le=\"0.005\"} 1\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{le=\"0.25\"} 2\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{le=\"+Inf\"} 2\n"));
+    assertTrue(text.contains("test_duration_seconds_count 2\n"));
+
+    Map<String, Long> values = registry.getValues();
+    assertEquals(Long.valueOf(3), values.get("test_requests_total{action=\"query\"}"));
+    assertEquals(Long.valueOf(203), values.get("test_duration_seconds.sumMillis"));
+  }
+
+  /**
+   * A name can't be used by metrics of different kinds.
+   */
+  @Test
+  public void testIncompatibleType() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("test_metric", "Metric");
+    try {
+      registry.histogram("test_metric", "Metric");
+      fail("Metric registered with two different kinds");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+}